@@ -19,10 +19,13 @@ import org.restlet.data.MediaType;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 
+import atnf.atoms.mon.Aggregate;
 import atnf.atoms.mon.PointData;
 import atnf.atoms.mon.comms.MoniCAClient;
 import atnf.atoms.time.AbsTime;
+import atnf.atoms.time.RelTime;
 
+import cass.monica.rest.json.MonitorAggregateList;
 import cass.monica.rest.json.MonitorPointList;
 
 import com.google.gson.Gson;
@@ -46,6 +49,7 @@ public class MoniCARequest {
 	public static final String BETWEEN = "between";
 	public static final String BEFORE = "before";
 	public static final String AFTER = "after";
+	public static final String AGGREGATE = "aggregate";
 
 	@SerializedName("type")
 	public String itsRequestType;
@@ -62,6 +66,10 @@ public class MoniCARequest {
 	@SerializedName("points")
 	public String[] itsPointNames;
 
+	/** Length (secs) of the intervals for aggregate requests, 0 for the whole range. */
+	@SerializedName("bucket")
+	public double itsBucket;
+
 	public volatile String itsCallback;
 
 	/** Return the JSON representation of this request. */
@@ -71,6 +79,9 @@ public class MoniCARequest {
 
 	/** Complete this request on the given server and return the JSON result. */
 	public Representation completeRequest(MoniCAClient client) {
+		if (itsRequestType != null && itsRequestType.equalsIgnoreCase(AGGREGATE)) {
+			return completeAggregateRequest(client);
+		}
 		Vector<PointData> resdata = null;
 		try {
 			if (itsRequestType.equalsIgnoreCase(GET)) {
@@ -88,6 +99,19 @@ public class MoniCARequest {
 							pd.setName(null);
 						}
 					}
+				} else if (itsPointNames != null && itsPointNames.length > 1
+						&& itsStartTime != null && itsEndTime != null) {
+					// Request all points together so the server extracts
+					// them concurrently, and keep the names to identify them
+					Vector<Vector<PointData>> alldata = client.getArchiveData(
+							new Vector<String>(Arrays.asList(itsPointNames)),
+							itsStartTime, itsEndTime);
+					if (alldata != null) {
+						resdata = new Vector<PointData>();
+						for (Vector<PointData> thisdata : alldata) {
+							resdata.addAll(thisdata);
+						}
+					}
 				}
 			} else if (itsRequestType.equalsIgnoreCase(AFTER)) {
 				if (itsPointNames != null && itsPointNames.length > 0
@@ -112,6 +136,33 @@ public class MoniCARequest {
 				MediaType.APPLICATION_JAVASCRIPT);
 	}
 
+	/** Get statistics for the points from the server and return the JSON result. */
+	private Representation completeAggregateRequest(MoniCAClient client) {
+		MonitorAggregateList aggList = new MonitorAggregateList();
+		aggList.setStatus("fail");
+		if (itsPointNames != null && itsPointNames.length > 0
+				&& itsStartTime != null && itsEndTime != null) {
+			try {
+				RelTime bucket = null;
+				if (itsBucket > 0) {
+					bucket = RelTime.factory((long) (itsBucket * 1000000));
+				}
+				Vector<Vector<Aggregate>> aggs = client.getAggregates(
+						new Vector<String>(Arrays.asList(itsPointNames)),
+						itsStartTime, itsEndTime, bucket);
+				for (int i = 0; i < itsPointNames.length && i < aggs.size(); i++) {
+					aggList.addPointAggregates(itsPointNames[i], aggs.get(i));
+				}
+				aggList.setStatus("ok");
+			} catch (Exception e) {
+				logger.log(Level.WARNING, "Could not get point statistics", e);
+				aggList.setError(e.toString());
+			}
+		}
+		return new StringRepresentation(MoniCAApplication.getGson().toJson(aggList),
+				MediaType.APPLICATION_JAVASCRIPT);
+	}
+
 	/** Return a JSON representation of the data, including status: ok. */
 	private String asJSON(Vector<PointData> data) {
 		
@@ -92,6 +92,12 @@ public class PointResource extends ServerResource {
 			req.itsStartTime = AbsTime.factory(form.getFirst("start")
 					.getValue());
 			req.itsEndTime = AbsTime.factory(form.getFirst("end").getValue());
+			if (form.getFirst("bucket") != null) {
+				// Statistics over the range, in intervals of this many seconds
+				req.itsRequestType = MoniCARequest.AGGREGATE;
+				req.itsBucket = Double.parseDouble(form.getFirst("bucket")
+						.getValue());
+			}
 		} else if (form.getFirst("before") != null) {
 			req.itsRequestType = MoniCARequest.BEFORE;
 			req.itsTime = AbsTime.factory(form.getFirst("before").getValue());
@@ -0,0 +1,77 @@
+package cass.monica.rest.json;
+
+import java.util.Vector;
+
+import atnf.atoms.mon.Aggregate;
+import atnf.atoms.time.AbsTime;
+
+public class MonitorAggregateList {
+
+	Vector<PointAggregates> pointAggregates = new Vector<PointAggregates>();
+	String status = "";
+	String error = "";
+
+	public MonitorAggregateList() {
+
+	}
+
+	/** Add the statistics for a point. */
+	public void addPointAggregates(String name, Vector<Aggregate> aggs) {
+		pointAggregates.add(new PointAggregates(name, aggs));
+	}
+
+	public Vector<PointAggregates> getPointAggregates() {
+		return pointAggregates;
+	}
+	public String getStatus() {
+		return status;
+	}
+	public void setStatus(String status) {
+		this.status = status;
+	}
+	public String getError() {
+		return error;
+	}
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	/** The statistics for each interval for a single point. */
+	public static class PointAggregates {
+		String name;
+		Vector<Interval> aggregates = new Vector<Interval>();
+
+		public PointAggregates(String name, Vector<Aggregate> aggs) {
+			this.name = name;
+			if (aggs != null) {
+				for (Aggregate a : aggs) {
+					aggregates.add(new Interval(a));
+				}
+			}
+		}
+	}
+
+	/** The statistics for one interval. Values are null rather than NaN when there was no data, as JSON has no NaN. */
+	public static class Interval {
+		AbsTime start;
+		AbsTime end;
+		long count;
+		Double min;
+		Double max;
+		Double mean;
+		Double stddev;
+
+		public Interval(Aggregate a) {
+			start = a.getStart();
+			end = a.getEnd();
+			count = a.getCount();
+			if (count > 0) {
+				min = a.getMin();
+				max = a.getMax();
+				mean = a.getMean();
+				stddev = a.getStdDev();
+			}
+		}
+	}
+
+}
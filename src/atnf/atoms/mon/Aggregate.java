@@ -0,0 +1,187 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon;
+
+import atnf.atoms.time.AbsTime;
+
+/**
+ * Statistics for the numeric values of a point over an interval of time. Values are accumulated one at a time, or merged in from
+ * statistics which an archiver has already computed, so that the data never need to be held in memory. Boolean values are counted
+ * as 1 for true and 0 for false, other non-numeric values are ignored.
+ *
+ * <P>
+ * The standard deviation is the population standard deviation, as used by <tt>TranslationVariance</tt>. The minimum, maximum, mean
+ * and standard deviation are NaN if there were no values.
+ */
+public class Aggregate {
+  /** Start of the interval. */
+  private AbsTime itsStart;
+
+  /** End of the interval. */
+  private AbsTime itsEnd;
+
+  /** Number of values accumulated. */
+  private long itsCount = 0;
+
+  /** Minimum value. */
+  private double itsMin = Double.NaN;
+
+  /** Maximum value. */
+  private double itsMax = Double.NaN;
+
+  /** Running mean of the values. */
+  private double itsMean = Double.NaN;
+
+  /** Running sum of the squared differences from the mean. */
+  private double itsM2 = 0.0;
+
+  /** Create empty statistics for the given interval. */
+  public Aggregate(AbsTime start, AbsTime end) {
+    itsStart = start;
+    itsEnd = end;
+  }
+
+  /** Create statistics for the given interval from values which have already been computed, eg by the server. */
+  public Aggregate(AbsTime start, AbsTime end, long count, double min, double max, double mean, double stddev) {
+    itsStart = start;
+    itsEnd = end;
+    itsCount = count;
+    if (count > 0) {
+      itsMin = min;
+      itsMax = max;
+      itsMean = mean;
+      itsM2 = stddev * stddev * count;
+    }
+  }
+
+  /**
+   * Get the numeric value of the data, for the purpose of computing statistics.
+   *
+   * @param data
+   *          The data value.
+   * @return The numeric value, or NaN if the data is not numeric.
+   */
+  public static double getNumericValue(Object data) {
+    if (data instanceof Number) {
+      return ((Number) data).doubleValue();
+    } else if (data instanceof Boolean) {
+      return ((Boolean) data).booleanValue() ? 1.0 : 0.0;
+    } else {
+      return Double.NaN;
+    }
+  }
+
+  /** Add the value of the data to the statistics, if it is numeric. */
+  public void add(PointData pd) {
+    add(getNumericValue(pd.getData()));
+  }
+
+  /** Add the value to the statistics. NaN values are ignored. */
+  public void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    itsCount++;
+    if (itsCount == 1) {
+      itsMin = value;
+      itsMax = value;
+      itsMean = value;
+      itsM2 = 0.0;
+    } else {
+      if (value < itsMin) {
+        itsMin = value;
+      }
+      if (value > itsMax) {
+        itsMax = value;
+      }
+      // Welford's method avoids the loss of precision of summing the squares
+      double delta = value - itsMean;
+      itsMean += delta / itsCount;
+      itsM2 += delta * (value - itsMean);
+    }
+  }
+
+  /**
+   * Merge statistics which were computed elsewhere, such as by an archiver, into these statistics.
+   *
+   * @param count
+   *          Number of values.
+   * @param min
+   *          Minimum value.
+   * @param max
+   *          Maximum value.
+   * @param mean
+   *          Mean of the values.
+   * @param m2
+   *          Sum of the squared differences of the values from their mean.
+   */
+  public void merge(long count, double min, double max, double mean, double m2) {
+    if (count <= 0) {
+      return;
+    }
+    if (itsCount == 0) {
+      itsCount = count;
+      itsMin = min;
+      itsMax = max;
+      itsMean = mean;
+      itsM2 = m2;
+    } else {
+      long total = itsCount + count;
+      double delta = mean - itsMean;
+      itsMean += delta * count / total;
+      itsM2 += m2 + delta * delta * itsCount * count / total;
+      itsCount = total;
+      itsMin = Math.min(itsMin, min);
+      itsMax = Math.max(itsMax, max);
+    }
+  }
+
+  /** Get the start of the interval. */
+  public AbsTime getStart() {
+    return itsStart;
+  }
+
+  /** Get the end of the interval. */
+  public AbsTime getEnd() {
+    return itsEnd;
+  }
+
+  /** Get the number of values. */
+  public long getCount() {
+    return itsCount;
+  }
+
+  /** Get the minimum value, or NaN if there were no values. */
+  public double getMin() {
+    return itsMin;
+  }
+
+  /** Get the maximum value, or NaN if there were no values. */
+  public double getMax() {
+    return itsMax;
+  }
+
+  /** Get the mean value, or NaN if there were no values. */
+  public double getMean() {
+    return itsMean;
+  }
+
+  /** Get the population standard deviation, or NaN if there were no values. */
+  public double getStdDev() {
+    if (itsCount == 0) {
+      return Double.NaN;
+    }
+    return Math.sqrt(Math.max(0.0, itsM2) / itsCount);
+  }
+
+  public String toString() {
+    return itsStart.toString(AbsTime.Format.HEX_BAT) + "\t" + itsEnd.toString(AbsTime.Format.HEX_BAT) + "\t" + itsCount + "\t" + itsMin
+        + "\t" + itsMax + "\t" + itsMean + "\t" + getStdDev();
+  }
+}
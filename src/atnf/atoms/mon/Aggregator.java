@@ -0,0 +1,120 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon;
+
+import atnf.atoms.time.AbsTime;
+import atnf.atoms.time.RelTime;
+
+/**
+ * Accumulates the statistics for a point over a time range, optionally divided into consecutive buckets of a fixed length. Each
+ * bucket includes its start time but not its end time, except for the last bucket which ends at, and includes, the end of the range.
+ * Data are added in a single pass, in any order, as they are read from the buffer or archive.
+ */
+public class Aggregator {
+  /** Start of the range (BAT). */
+  private long itsStart;
+
+  /** End of the range (BAT). */
+  private long itsEnd;
+
+  /** Length of each bucket (us). */
+  private long itsBucketLength;
+
+  /** The statistics for each bucket. */
+  private Aggregate[] itsAggregates;
+
+  /**
+   * Constructor.
+   *
+   * @param start
+   *          The earliest time in the range of interest.
+   * @param end
+   *          The most recent time in the range of interest.
+   * @param bucket
+   *          The length of each bucket, or null or a non-positive length to compute a single set of statistics for the whole range.
+   * @param maxbuckets
+   *          The maximum number of buckets. If more would be needed the buckets are lengthened.
+   */
+  public Aggregator(AbsTime start, AbsTime end, RelTime bucket, int maxbuckets) {
+    itsStart = start.getValue();
+    itsEnd = end.getValue();
+    long range = Math.max(1, itsEnd - itsStart);
+    if (bucket == null || bucket.getValue() <= 0 || bucket.getValue() >= range) {
+      itsBucketLength = range;
+    } else {
+      itsBucketLength = bucket.getValue();
+      if (maxbuckets > 0 && (range + itsBucketLength - 1) / itsBucketLength > maxbuckets) {
+        itsBucketLength = (range + maxbuckets - 1) / maxbuckets;
+      }
+    }
+    int numbuckets = (int) ((range + itsBucketLength - 1) / itsBucketLength);
+    itsAggregates = new Aggregate[numbuckets];
+    for (int i = 0; i < numbuckets; i++) {
+      long bstart = itsStart + i * itsBucketLength;
+      long bend = (i == numbuckets - 1) ? itsEnd : bstart + itsBucketLength;
+      itsAggregates[i] = new Aggregate(AbsTime.factory(bstart), AbsTime.factory(bend));
+    }
+  }
+
+  /** Get the start of the range. */
+  public AbsTime getStart() {
+    return AbsTime.factory(itsStart);
+  }
+
+  /** Get the end of the range. */
+  public AbsTime getEnd() {
+    return AbsTime.factory(itsEnd);
+  }
+
+  /** Get the length of each bucket, which may be longer than requested. */
+  public RelTime getBucketLength() {
+    return RelTime.factory(itsBucketLength);
+  }
+
+  /** Get the number of buckets. */
+  public int getNumBuckets() {
+    return itsAggregates.length;
+  }
+
+  /**
+   * Get the index of the bucket which covers the given time.
+   *
+   * @param ts
+   *          The BAT time.
+   * @return The index of the bucket, or -1 if the time is outside the range.
+   */
+  public int getBucket(long ts) {
+    if (ts < itsStart || ts > itsEnd) {
+      return -1;
+    }
+    // The end time itself falls in the last bucket
+    return (int) Math.min((ts - itsStart) / itsBucketLength, itsAggregates.length - 1);
+  }
+
+  /** Get the statistics for the specified bucket. */
+  public Aggregate getAggregate(int bucket) {
+    return itsAggregates[bucket];
+  }
+
+  /** Get the statistics for all buckets, in time order. */
+  public Aggregate[] getAggregates() {
+    return itsAggregates;
+  }
+
+  /** Add the data to the bucket which covers its timestamp. Data outside the range or which are not numeric are ignored. */
+  public void add(PointData pd) {
+    if (pd == null || pd.getTimestamp() == null) {
+      return;
+    }
+    int i = getBucket(pd.getTimestamp().getValue());
+    if (i >= 0) {
+      itsAggregates[i].add(pd);
+    }
+  }
+}
@@ -72,6 +72,26 @@ public class Alarm {
 		guidance = populateGuidanceText();
 	}
 
+	/**
+	 * Copy constructor.
+	 * 
+	 * @param a
+	 *          - The Alarm to copy
+	 */
+	public Alarm(Alarm a) {
+		point = a.point;
+		data = a.data;
+		alarm = a.alarm;
+		shelved = a.shelved;
+		shelvedBy = a.shelvedBy;
+		shelvedAt = a.shelvedAt;
+		acknowledged = a.acknowledged;
+		acknowledgedBy = a.acknowledgedBy;
+		acknowledgedAt = a.acknowledgedAt;
+		priority = a.priority;
+		guidance = a.guidance;
+	}
+
 	/**
 	 * Server side method for updating data and updating the guidance text.
 	 * 
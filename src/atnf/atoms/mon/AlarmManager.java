@@ -9,31 +9,129 @@
 
 package atnf.atoms.mon;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+import org.apache.log4j.Logger;
+
+import atnf.atoms.mon.util.MonitorConfig;
 import atnf.atoms.time.AbsTime;
 
 /**
  * Class that encapsulates most data about alarms, and facilitates the retrieval and modification
- * of those alarms
+ * of those alarms.
+ * <P>
+ * The current state of each alarm is held as an Alarm which is never modified once it has been
+ * stored; updates replace it with a modified copy. Updates for a point are serialised by one of a
+ * set of striped locks, so updates to different points rarely contend, and the lookup methods do
+ * not take any lock at all. The Alarms returned by this class must therefore not be modified.
+ * <P>
+ * Each change in the state of an alarm is also recorded in a journal of numbered AlarmTransitions,
+ * so that clients can ask for the changes since the last one they saw rather than polling the full
+ * list of alarms. The number of transitions retained is given by the <tt>AlarmJournalSize</tt>
+ * property.
  * @author David Brodrick
  * @author Kalinga Hulugalle
  *
  */
 public class AlarmManager {
-	
+	/** Logger. */
+	private static Logger theirLogger = Logger.getLogger(AlarmManager.class.getName());
+
+	/** Number of locks used to serialise updates. */
+	private static final int NUMSTRIPES = 64;
 
 	/** Record of points which are currently in a priority alarm state. */
-	private static HashMap<PointDescription, Alarm> theirAlarms = new HashMap<PointDescription, Alarm>(500, 1000);
+	private static ConcurrentHashMap<PointDescription, Alarm> theirAlarms = new ConcurrentHashMap<PointDescription, Alarm>(500, 0.75f, NUMSTRIPES);
+
+	/** Locks serialising updates to the alarm of each point, selected by the hash of the point. */
+	private static Object[] theirLocks = new Object[NUMSTRIPES];
+
+	/** Journal of recent alarm transitions, keyed by sequence number. */
+	private static ConcurrentSkipListMap<Long, AlarmTransition> theirJournal = new ConcurrentSkipListMap<Long, AlarmTransition>();
+
+	/**
+	 * Sequence number of the last transition. Numbering starts from the time the server started, in microseconds, so that it also
+	 * identifies this run of the server: a client which resumes with a sequence number from before a restart is always sent a
+	 * new snapshot rather than only the transitions which happen to follow that number. Guarded by theirJournal's monitor.
+	 */
+	private static long theirLastSequence = System.currentTimeMillis() * 1000;
+
+	/** Max number of transitions to retain in the journal. */
+	private static int theirJournalSize = 10000;
+
+	static {
+		for (int i = 0; i < NUMSTRIPES; i++) {
+			theirLocks[i] = new Object();
+		}
+		try {
+			theirJournalSize = Integer.parseInt(MonitorConfig.getProperty("AlarmJournalSize", "" + theirJournalSize));
+		} catch (Exception e) {
+			theirLogger.warn("Error parsing AlarmJournalSize property, using default of " + theirJournalSize);
+		}
+	}
+
+	/** Get the lock which serialises updates to the given point's alarm. */
+	private static Object getLock(PointDescription point) {
+		int h = point.hashCode();
+		h ^= (h >>> 16);
+		return theirLocks[h & (NUMSTRIPES - 1)];
+	}
+
+	/**
+	 * Store the new state of the alarm and record any resulting transitions. Must be called while
+	 * holding the point's lock.
+	 */
+	private static void update(PointDescription point, Alarm oldalarm, Alarm newalarm, String user, AbsTime time) {
+		theirAlarms.put(point, newalarm);
+		boolean wasalarming = oldalarm != null && oldalarm.isAlarming();
+		boolean wasacked = oldalarm != null && oldalarm.isAcknowledged();
+		boolean wasshelved = oldalarm != null && oldalarm.isShelved();
+		if (newalarm.isAlarming() != wasalarming) {
+			addTransition(newalarm.isAlarming() ? AlarmTransition.RAISED : AlarmTransition.CLEARED, time, null, newalarm);
+		}
+		if (newalarm.isAcknowledged() != wasacked) {
+			addTransition(newalarm.isAcknowledged() ? AlarmTransition.ACKNOWLEDGED : AlarmTransition.UNACKNOWLEDGED, time, user,
+					newalarm);
+		}
+		if (newalarm.isShelved() != wasshelved) {
+			addTransition(newalarm.isShelved() ? AlarmTransition.SHELVED : AlarmTransition.UNSHELVED, time, user, newalarm);
+		}
+	}
+
+	/** Append a transition to the journal, discarding the oldest entries if it has grown too large. */
+	private static void addTransition(int type, AbsTime time, String user, Alarm alarm) {
+		if (time == null) {
+			time = new AbsTime();
+		}
+		synchronized (theirJournal) {
+			theirLastSequence++;
+			theirJournal.put(Long.valueOf(theirLastSequence), new AlarmTransition(theirLastSequence, type, time, user, alarm));
+			while (theirJournal.size() > theirJournalSize) {
+				theirJournal.pollFirstEntry();
+			}
+			theirJournal.notifyAll();
+		}
+	}
+
+	/** Get the time of the data, or the current time if there is none. */
+	private static AbsTime getTime(PointData data) {
+		if (data != null && data.getTimestamp() != null) {
+			return data.getTimestamp();
+		}
+		return new AbsTime();
+	}
 
 	/** Set the current alarm status for the given point. */
 	public static void setAlarm(PointDescription point, PointData data) {
-		synchronized (theirAlarms) {
-			Alarm thisalarm = theirAlarms.get(point);
-			if (thisalarm != null) {
-				// Just update the extant data structure
+		synchronized (getLock(point)) {
+			Alarm oldalarm = theirAlarms.get(point);
+			Alarm thisalarm;
+			if (oldalarm != null) {
+				// Update a copy of the extant data structure
+				thisalarm = new Alarm(oldalarm);
 				thisalarm.updateData(data);
 				// Acknowledgement gets cleared if no longer in alarm
 				if (!thisalarm.isAlarming() && thisalarm.isAcknowledged()) {
@@ -42,10 +140,11 @@ public class AlarmManager {
 			} else {
 				// Need to create new data structure
 				thisalarm = new Alarm(point, data);
-				theirAlarms.put(point, thisalarm);
 			}
+			update(point, oldalarm, thisalarm, null, getTime(data));
 		}
 	}
+
 	/**
 	 * Returns the corresponding alarm for this point
 	 * @param point - The String-formatted name of the point
@@ -59,12 +158,13 @@ public class AlarmManager {
 	/**
 	 * Returns the corresponding alarm for this point
 	 * @param point - The PointDescription for the point
-	 * @return The Alarm that corresponds to this PointDescription
+	 * @return The Alarm that corresponds to this PointDescription, which must not be modified
 	 */
 	public static Alarm getAlarm(PointDescription point){
-		synchronized (theirAlarms){
-		  return theirAlarms.get(point);
+		if (point == null) {
+			return null;
 		}
+		return theirAlarms.get(point);
 	}
 
 	/**
@@ -72,32 +172,60 @@ public class AlarmManager {
 	 * @param point - The PointDescription for the point
 	 */
 	public static void setAlarm(PointDescription point) {
-		synchronized (theirAlarms) {
-			Alarm thisalarm = theirAlarms.get(point);
-			if (thisalarm != null) {
+		synchronized (getLock(point)) {
+			Alarm oldalarm = theirAlarms.get(point);
+			Alarm thisalarm;
+			if (oldalarm != null) {
 				// Acknowledgement gets cleared if no longer in alarm
-				if (!thisalarm.isAlarming() && thisalarm.isAcknowledged()) {
-					thisalarm.setAcknowledged(false, null, null);
+				if (oldalarm.isAlarming() || !oldalarm.isAcknowledged()) {
+					return;
 				}
+				thisalarm = new Alarm(oldalarm);
+				thisalarm.setAcknowledged(false, null, null);
 			} else {
 				// Need to create new data structure
 				thisalarm = new Alarm(point);
-				theirAlarms.put(point, thisalarm);
+			}
+			update(point, oldalarm, thisalarm, null, new AbsTime());
+		}
+	}
+
+	/**
+	 * Restore the state of a point's alarm from before the server was restarted. No transitions are
+	 * recorded, since from the point of view of clients the state has not changed.
+	 * @param point - The PointDescription for the point
+	 * @param alarm - The restored Alarm
+	 */
+	public static void restoreAlarm(PointDescription point, Alarm alarm) {
+		synchronized (getLock(point)) {
+			theirAlarms.put(point, alarm);
+		}
+	}
+
+	/**
+	 * Remove the alarm for a point which is being removed from the system. If the point was in
+	 * alarm this is recorded as the alarm clearing.
+	 * @param point - The PointDescription for the point
+	 */
+	public static void removeAlarm(PointDescription point) {
+		synchronized (getLock(point)) {
+			Alarm oldalarm = theirAlarms.remove(point);
+			if (oldalarm != null && oldalarm.isAlarming()) {
+				Alarm thisalarm = new Alarm(oldalarm);
+				thisalarm.setAlarming(false);
+				addTransition(AlarmTransition.CLEARED, new AbsTime(), null, thisalarm);
 			}
 		}
 	}
 
 	/** Get the list of priority alarms currently in an alarm state (acknowledged or not) or not in an alarm but shelved. */
 	public static Vector<Alarm> getAlarms() {
-		Vector<Alarm> res;
-		synchronized (theirAlarms) {
-			res = new Vector<Alarm>(theirAlarms.size());
-			Iterator<Alarm> i = theirAlarms.values().iterator();
-			while (i.hasNext()) {
-				Alarm thisalarm = i.next();
-				if (thisalarm.isAlarming()|| thisalarm.isShelved()) {
-					res.add(thisalarm);
-				}
+		Vector<Alarm> res = new Vector<Alarm>(theirAlarms.size());
+		Iterator<Alarm> i = theirAlarms.values().iterator();
+		while (i.hasNext()) {
+			Alarm thisalarm = i.next();
+			if (thisalarm.isAlarming()|| thisalarm.isShelved()) {
+				res.add(thisalarm);
 			}
 		}
 		return res;
@@ -105,28 +233,22 @@ public class AlarmManager {
 
 	/** Get the list of all alarms currently defined in the system. */
 	public static Vector<Alarm> getAllAlarms() {
-		Vector<Alarm> res;
-		synchronized (theirAlarms) {
-			res = new Vector<Alarm>(theirAlarms.size());
-			Iterator<Alarm> i = theirAlarms.values().iterator();
-			while (i.hasNext()) {
-				Alarm thisalarm = i.next();
-				res.add(thisalarm);
-			}
-		}
-		return res;
+		return new Vector<Alarm>(theirAlarms.values());
 	}
 
 	/** Acknowledge an alarm. */
 	public static void setAcknowledged(PointDescription point, boolean acked, String user, AbsTime time) {
-		synchronized (theirAlarms) {
-			Alarm thisalarm = theirAlarms.get(point);
-			if (thisalarm == null) {
+		synchronized (getLock(point)) {
+			Alarm oldalarm = theirAlarms.get(point);
+			Alarm thisalarm;
+			if (oldalarm == null) {
 				// Need to create new data structure
 				thisalarm = new Alarm(point);
-				theirAlarms.put(point, thisalarm);
+			} else {
+				thisalarm = new Alarm(oldalarm);
 			}
 			thisalarm.setAcknowledged(acked, user, time);
+			update(point, oldalarm, thisalarm, user, time);
 		}
 	}
 
@@ -137,14 +259,17 @@ public class AlarmManager {
   
 	/** Shelve an alarm. */
 	public static void setShelved(PointDescription point, boolean shelved, String user, AbsTime time) {
-		synchronized (theirAlarms) {
-			Alarm thisalarm = theirAlarms.get(point);
-			if (thisalarm == null) {
+		synchronized (getLock(point)) {
+			Alarm oldalarm = theirAlarms.get(point);
+			Alarm thisalarm;
+			if (oldalarm == null) {
 				// Need to create new data structure
 				thisalarm = new Alarm(point);
-				theirAlarms.put(point, thisalarm);
+			} else {
+				thisalarm = new Alarm(oldalarm);
 			}
 			thisalarm.setShelved(shelved, user, time);
+			update(point, oldalarm, thisalarm, user, time);
 		}
 	}
 	
@@ -152,4 +277,51 @@ public class AlarmManager {
   public static void setShelved(PointDescription point, boolean shelved, String user) {
     setShelved(point, shelved, user, new AbsTime());
   }
+
+	/** Get the sequence number of the most recent alarm transition, or the initial sequence number if there have been none. */
+	public static long getLastSequence() {
+		synchronized (theirJournal) {
+			return theirLastSequence;
+		}
+	}
+
+	/**
+	 * Wait until there has been an alarm transition after the given one.
+	 * @param seq - The sequence number of the last transition already seen
+	 * @param timeout - Max time to wait (ms)
+	 * @return The sequence number of the most recent transition
+	 */
+	public static long waitForTransitions(long seq, long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		synchronized (theirJournal) {
+			while (theirLastSequence <= seq) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					break;
+				}
+				theirJournal.wait(remaining);
+			}
+			return theirLastSequence;
+		}
+	}
+
+	/**
+	 * Get the alarm transitions which have occurred since the given one, in order.
+	 * @param seq - The sequence number of the last transition already seen, or 0 for all retained transitions
+	 * @return The later transitions, possibly empty, or null if some of them are no longer retained
+	 * in the journal, in which case the client should reload the full list of alarms
+	 */
+	public static Vector<AlarmTransition> getTransitionsSince(long seq) {
+		long last = getLastSequence();
+		if (seq > last) {
+			// Sequence number from another run of the server
+			return null;
+		}
+		Vector<AlarmTransition> res = new Vector<AlarmTransition>(theirJournal.tailMap(Long.valueOf(seq), false).values());
+		if (seq > 0 && seq < last && (res.isEmpty() || res.get(0).getSequence() != seq + 1)) {
+			// Transitions after the given one have already been discarded
+			return null;
+		}
+		return res;
+	}
 }
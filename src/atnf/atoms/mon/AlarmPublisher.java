@@ -0,0 +1,270 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+//
+
+package atnf.atoms.mon;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+
+import atnf.atoms.time.AbsTime;
+
+/**
+ * Pushes alarm updates to subscribers. Each new subscriber is sent a snapshot of the state of all alarms, and afterwards only
+ * the transitions recorded in the AlarmManager's journal. A subscriber which falls so far behind that the journal no longer
+ * holds the transitions it needs is sent a new snapshot. An empty batch of events is sent to each subscriber if there have been
+ * no transitions for a while, so that both ends can tell the subscription is still alive.
+ *
+ * <P>
+ * The publisher thread only adds the events to a bounded queue for each subscriber. The queues are delivered by a pool of
+ * threads, so a subscriber which blocks only delays its own events. A subscriber whose queue overflows is dropped.
+ */
+public class AlarmPublisher implements Runnable {
+	/** Logger. */
+	private static Logger theirLogger = Logger.getLogger(AlarmPublisher.class.getName());
+
+	/** Interval (ms) between heartbeats when there have been no transitions. */
+	public static final long HEARTBEATINTERVAL = 20000;
+
+	/** Time (ms) to wait after a transition for further transitions to send in the same batch. */
+	private static final long BATCHDELAY = 100;
+
+	/** Max number of events to send in a single batch. */
+	private static final int MAXBATCH = 500;
+
+	/** Max number of batches which may be waiting to be delivered to a subscriber before it is dropped. */
+	private static final int MAXQUEUED = 100;
+
+	/** The current subscriptions. */
+	private static Vector<Subscription> theirSubscriptions = new Vector<Subscription>();
+
+	/** The thread which queues the events, started when the first subscription is made. */
+	private static Thread theirThread = null;
+
+	/** Threads which deliver the queued events to the subscribers. */
+	private static ExecutorService theirDeliverers = Executors.newCachedThreadPool(new ThreadFactory() {
+		private int itsCount = 0;
+
+		public synchronized Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "AlarmPublisher Delivery " + (++itsCount));
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	/**
+	 * Subscribe to alarm updates. The initial snapshot, or the transitions since the given sequence number, are queued for
+	 * delivery before this method returns.
+	 *
+	 * @param listener
+	 *          The listener to receive updates.
+	 * @param seq
+	 *          Sequence number of the last transition the listener has seen, or 0 if it requires a snapshot.
+	 * @return False if the initial events couldn't be queued.
+	 */
+	public static boolean subscribe(AlarmStreamListener listener, long seq) {
+		Subscription sub = new Subscription(listener, seq);
+		if (!sub.update(false)) {
+			return false;
+		}
+		synchronized (theirSubscriptions) {
+			theirSubscriptions.add(sub);
+			if (theirThread == null) {
+				theirThread = new Thread(new AlarmPublisher(), "AlarmPublisher");
+				theirThread.setDaemon(true);
+				theirThread.start();
+			}
+		}
+		// Catch up with any transitions which occurred before the subscription was added
+		if (!sub.update(false)) {
+			theirSubscriptions.remove(sub);
+			return false;
+		}
+		return true;
+	}
+
+	/** Cancel the subscription for the given listener. Returns false if it was not subscribed. */
+	public static boolean unsubscribe(AlarmStreamListener listener) {
+		synchronized (theirSubscriptions) {
+			Iterator<Subscription> i = theirSubscriptions.iterator();
+			while (i.hasNext()) {
+				Subscription sub = i.next();
+				if (sub.itsListener.equals(listener)) {
+					i.remove();
+					sub.cancel();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/** Return the number of current subscriptions. */
+	public static int getNumSubscribers() {
+		return theirSubscriptions.size();
+	}
+
+	public void run() {
+		long lastseq = AlarmManager.getLastSequence();
+		long lastheartbeat = System.currentTimeMillis();
+		while (true) {
+			try {
+				long seq = AlarmManager.waitForTransitions(lastseq, HEARTBEATINTERVAL);
+				if (seq != lastseq) {
+					// Allow closely spaced transitions to be sent together
+					Thread.sleep(BATCHDELAY);
+				}
+				lastseq = AlarmManager.getLastSequence();
+				boolean heartbeat = System.currentTimeMillis() - lastheartbeat >= HEARTBEATINTERVAL;
+				if (heartbeat) {
+					lastheartbeat = System.currentTimeMillis();
+				}
+				Subscription[] subs;
+				synchronized (theirSubscriptions) {
+					subs = theirSubscriptions.toArray(new Subscription[0]);
+				}
+				for (int i = 0; i < subs.length; i++) {
+					if (!subs[i].update(heartbeat)) {
+						theirSubscriptions.remove(subs[i]);
+					}
+				}
+			} catch (Exception e) {
+				theirLogger.error("Error publishing alarm updates: " + e);
+			}
+		}
+	}
+
+	/** Records the progress of a single subscriber through the stream of transitions and holds the events it hasn't been sent yet. */
+	private static class Subscription implements Runnable {
+		/** The subscriber. */
+		private AlarmStreamListener itsListener;
+
+		/** Sequence number of the last transition queued for the subscriber. */
+		private long itsSequence;
+
+		/** Whether the subscriber needs to be sent a snapshot. */
+		private boolean itsNeedSnapshot;
+
+		/** Batches of events waiting to be delivered. */
+		private LinkedList<Vector<AlarmTransition>> itsQueue = new LinkedList<Vector<AlarmTransition>>();
+
+		/** Whether a delivery thread is currently working through the queue. */
+		private boolean itsDelivering = false;
+
+		/** Set once the subscription has ended, after which no more events are queued or delivered. */
+		private boolean itsClosed = false;
+
+		public Subscription(AlarmStreamListener listener, long seq) {
+			itsListener = listener;
+			itsSequence = seq;
+			itsNeedSnapshot = seq <= 0;
+		}
+
+		/**
+		 * Queue any events the subscriber hasn't seen yet.
+		 *
+		 * @param heartbeat
+		 *          Whether to send an empty batch if there are no new events.
+		 * @return False if the subscriber has gone away or has been dropped for not keeping up.
+		 */
+		public synchronized boolean update(boolean heartbeat) {
+			if (itsClosed) {
+				return false;
+			}
+			Vector<AlarmTransition> events = null;
+			if (!itsNeedSnapshot) {
+				events = AlarmManager.getTransitionsSince(itsSequence);
+			}
+			if (events == null) {
+				// Transitions after the snapshot sequence number may already be reflected in the snapshot, but resending them is harmless
+				long seq = AlarmManager.getLastSequence();
+				Vector<Alarm> alarms = AlarmManager.getAllAlarms();
+				AbsTime now = new AbsTime();
+				events = new Vector<AlarmTransition>(alarms.size());
+				for (int i = 0; i < alarms.size(); i++) {
+					events.add(new AlarmTransition(seq, AlarmTransition.SNAPSHOT, now, null, alarms.get(i)));
+				}
+				queue(events, true);
+				itsSequence = seq;
+				itsNeedSnapshot = false;
+			} else if (!events.isEmpty() || heartbeat) {
+				queue(events, heartbeat);
+				if (!events.isEmpty()) {
+					itsSequence = events.lastElement().getSequence();
+				}
+			}
+			if (itsQueue.size() > MAXQUEUED) {
+				theirLogger.warn("Dropping alarm subscriber " + itsListener + " which is not keeping up");
+				cancel();
+				theirDeliverers.execute(new Runnable() {
+					public void run() {
+						itsListener.alarmStreamDropped();
+					}
+				});
+				return false;
+			}
+			if (!itsDelivering && !itsQueue.isEmpty()) {
+				itsDelivering = true;
+				theirDeliverers.execute(this);
+			}
+			return true;
+		}
+
+		/** Queue the events in batches of no more than MAXBATCH, queueing an empty batch if there are none and force is set. */
+		private void queue(Vector<AlarmTransition> events, boolean force) {
+			if (events.isEmpty()) {
+				if (force) {
+					itsQueue.add(events);
+				}
+				return;
+			}
+			for (int start = 0; start < events.size(); start += MAXBATCH) {
+				int end = Math.min(events.size(), start + MAXBATCH);
+				itsQueue.add(new Vector<AlarmTransition>(events.subList(start, end)));
+			}
+		}
+
+		/** End the subscription and discard any events which haven't been delivered. */
+		public synchronized void cancel() {
+			itsClosed = true;
+			itsQueue.clear();
+		}
+
+		/** Deliver the queued events to the subscriber. Runs in one of the delivery threads. */
+		public void run() {
+			while (true) {
+				Vector<AlarmTransition> events;
+				synchronized (this) {
+					if (itsClosed || itsQueue.isEmpty()) {
+						itsDelivering = false;
+						return;
+					}
+					events = itsQueue.removeFirst();
+				}
+				boolean ok;
+				try {
+					ok = itsListener.alarmEvents(events);
+				} catch (Exception e) {
+					theirLogger.debug("Error delivering alarm events to " + itsListener + ": " + e);
+					ok = false;
+				}
+				if (!ok) {
+					theirLogger.debug("Dropping alarm subscriber " + itsListener);
+					theirSubscriptions.remove(this);
+					cancel();
+				}
+			}
+		}
+	}
+}
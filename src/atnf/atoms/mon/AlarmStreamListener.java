@@ -0,0 +1,34 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+//
+
+package atnf.atoms.mon;
+
+import java.util.Vector;
+
+/**
+ * Interface for receiving a stream of alarm updates. A subscriber first receives a snapshot of the state of all alarms, as
+ * AlarmTransitions of type SNAPSHOT, and then each change of alarm state as it occurs. An empty list of events is delivered
+ * periodically to show that the stream is still active.
+ *
+ * @see AlarmPublisher
+ */
+public interface AlarmStreamListener {
+	/**
+	 * Receive the next batch of alarm events, in order of sequence number.
+	 * @param events - The alarm events, possibly empty
+	 * @return False if the listener no longer wishes to receive events
+	 */
+	public boolean alarmEvents(Vector<AlarmTransition> events);
+
+	/**
+	 * Called if the publisher has dropped the subscription because the listener wasn't keeping up with the events. No further
+	 * events will be delivered.
+	 */
+	public void alarmStreamDropped();
+}
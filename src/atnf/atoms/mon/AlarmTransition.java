@@ -0,0 +1,97 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+//
+
+package atnf.atoms.mon;
+
+import atnf.atoms.time.AbsTime;
+
+/**
+ * Records a change in the state of an alarm: the alarm being raised or cleared, acknowledged or shelved. Transitions are numbered
+ * with a sequence number by the AlarmManager so that clients can request all transitions since the last one they saw.
+ *
+ * @see AlarmManager#getTransitionsSince(long)
+ */
+public class AlarmTransition {
+	/** The point entered an alarm state. */
+	public static final int RAISED = 0;
+	/** The point is no longer in an alarm state. */
+	public static final int CLEARED = 1;
+	/** The alarm was acknowledged. */
+	public static final int ACKNOWLEDGED = 2;
+	/** The acknowledgement was removed. */
+	public static final int UNACKNOWLEDGED = 3;
+	/** The alarm was shelved. */
+	public static final int SHELVED = 4;
+	/** The alarm was unshelved. */
+	public static final int UNSHELVED = 5;
+	/** Not a transition but the current state of the alarm, sent as part of a snapshot of all alarms. */
+	public static final int SNAPSHOT = 6;
+
+	/** Names of the transition types, for printing. */
+	private static final String[] theirNames = { "RAISED", "CLEARED", "ACKNOWLEDGED", "UNACKNOWLEDGED", "SHELVED", "UNSHELVED", "SNAPSHOT" };
+
+	/** Sequence number of this transition. */
+	private final long itsSequence;
+	/** The type of transition. */
+	private final int itsType;
+	/** Time the transition occurred. */
+	private final AbsTime itsTime;
+	/** User responsible for the transition, or null. */
+	private final String itsUser;
+	/** The state of the alarm after the transition. Must not be modified. */
+	private final Alarm itsAlarm;
+
+	public AlarmTransition(long seq, int type, AbsTime time, String user, Alarm alarm) {
+		itsSequence = seq;
+		itsType = type;
+		itsTime = time;
+		itsUser = user;
+		itsAlarm = alarm;
+	}
+
+	/** Get the sequence number of this transition. */
+	public long getSequence() {
+		return itsSequence;
+	}
+
+	/** Get the type of transition. */
+	public int getType() {
+		return itsType;
+	}
+
+	/** Get the time the transition occurred. */
+	public AbsTime getTime() {
+		return itsTime;
+	}
+
+	/** Get the user responsible for the transition, or null if it was caused by new data. */
+	public String getUser() {
+		return itsUser;
+	}
+
+	/** Get the state of the alarm after the transition. This must not be modified. */
+	public Alarm getAlarm() {
+		return itsAlarm;
+	}
+
+	/** Get the name of the point whose alarm changed state. */
+	public String getPointName() {
+		return itsAlarm.getPointDesc().getFullName();
+	}
+
+	/** Get the name of the given type of transition. */
+	public static String getTypeName(int type) {
+		return theirNames[type];
+	}
+
+	public String toString() {
+		return itsSequence + " " + itsTime.toString(AbsTime.Format.UTC_STRING) + " " + getPointName() + " " + theirNames[itsType]
+				+ (itsUser == null ? "" : " " + itsUser);
+	}
+}
@@ -1,6 +1,7 @@
 package atnf.atoms.mon;
 
 import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -23,10 +24,17 @@ import atnf.atoms.mon.util.MonitorUtils;
  * prepended verbatim so if specifying a full package name you will need to include the
  * trailing ".".
  * 
+ * <P>
+ * The constructor found for each class name is cached, so that the class only needs
+ * to be looked up once however many points use it.
+ * 
  * @author David Brodrick
  */
 public class Factory
 {
+  /** Constructors which have already been found, keyed by default package and class name. */
+  private static ConcurrentHashMap<String, Constructor<?>> theirConstructors = new ConcurrentHashMap<String, Constructor<?>>();
+
   public static Object factory(PointDescription parent, String strdef, String defpackage)
   {	  
     // Find the class type
@@ -48,14 +56,18 @@ public class Factory
 
     Object result = null;
     try {
-      Constructor con;
-      try {
-        // Try to find class by assuming argument is full class name
-        con = Class.forName(type).getConstructor(new Class[] { PointDescription.class, String[].class });
-      } catch (Exception f) {
-        // Supplied name was not a full path
-        // Look in default package name provided
-        con = Class.forName(defpackage + type).getConstructor(new Class[] { PointDescription.class, String[].class });
+      String key = defpackage + "\n" + type;
+      Constructor<?> con = theirConstructors.get(key);
+      if (con == null) {
+        try {
+          // Try to find class by assuming argument is full class name
+          con = Class.forName(type).getConstructor(new Class<?>[] { PointDescription.class, String[].class });
+        } catch (Exception f) {
+          // Supplied name was not a full path
+          // Look in default package name provided
+          con = Class.forName(defpackage + type).getConstructor(new Class<?>[] { PointDescription.class, String[].class });
+        }
+        theirConstructors.put(key, con);
       }
       if (con!=null) {
         result = (con.newInstance(new Object[] { parent, args }));
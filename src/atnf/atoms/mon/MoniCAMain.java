@@ -10,9 +10,12 @@ package atnf.atoms.mon;
 import org.apache.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.io.*;
+import java.security.MessageDigest;
 
 import atnf.atoms.mon.externalsystem.*;
+import atnf.atoms.mon.transaction.Transaction;
 import atnf.atoms.mon.util.*;
 import atnf.atoms.mon.archiver.*;
 import atnf.atoms.mon.comms.*;
@@ -35,6 +38,36 @@ public class MoniCAMain {
    */
   private static Ice.ObjectAdapter theirICEAdapter = null;
 
+  /** The conf.d subdirectory name for where the external system definitions are found. */
+  private static final String SYSSUBDIR = "/systems.d/";
+
+  /** The fixed name of the external system definitions resource. */
+  private static final String SYSRESNAME = "monitor-sources.txt";
+
+  /** The conf.d subdirectory name for where point definitions are found. */
+  private static final String POINTSSUBDIR = "/points.d/";
+
+  /** The fixed name of the point definitions resource. */
+  private static final String POINTSRESNAME = "monitor-points.txt";
+
+  /** The ExternalSystems which were created from each line of the external system definitions. */
+  private static HashMap<String, Vector<ExternalSystem>> theirSystemLines = new HashMap<String, Vector<ExternalSystem>>();
+
+  /** The lines last read from each definitions file, so that files which haven't changed needn't be parsed again. */
+  private static HashMap<String, String[]> theirFileLines = new HashMap<String, String[]>();
+
+  /** The modification time and size of each definitions file when it was last read. */
+  private static HashMap<String, String> theirFileStamps = new HashMap<String, String>();
+
+  /** The macros defined after each definitions file was last read, for the files which follow one which is cached. */
+  private static HashMap<String, Hashtable<String, String>> theirFileMacros = new HashMap<String, Hashtable<String, String>>();
+
+  /** The macros defined before each set of definition files was last read. */
+  private static HashMap<String, Hashtable<String, String>> theirStartMacros = new HashMap<String, Hashtable<String, String>>();
+
+  /** The lines of the point definitions which are currently loaded, so that a reload can find which have changed. */
+  private static HashSet<String> theirPointLines = new HashSet<String>();
+
   /** Specify the ICE Communicator to be used by the ICE server interface. */
   public static void setICEAdapter(Ice.ObjectAdapter a) {
     theirICEAdapter = a;
@@ -52,23 +85,54 @@ public class MoniCAMain {
   }
 
   /**
-   * Create all of the ExternalSystems from whichever configuration resources are available.
+   * Read the lines of the definitions resource built into the jar/classpath file, if found, followed by those of the files in the
+   * given subdirectory of the configuration directory.
    * 
-   * @return True if successful, False if there was a fatal error.
+   * @param resname
+   *          The fixed name of the definitions resource.
+   * @param subdir
+   *          The conf.d subdirectory name for where the definition files are found.
+   * @param desc
+   *          Description of the definitions for log messages.
+   * @param filelines
+   *          Receives the lines from each resource or file.
+   * @param filenames
+   *          Receives the name of each resource or file.
+   * @param macros
+   *          The macros defined by the files read earlier in this load, which receives any defined by these files.
+   * @return True if any definitions were found.
    */
-  private static boolean createExternalSystems() {
-    boolean foundsystems = false;
-    // The conf.d subdirectory name for where the external system definitions are found
-    final String SYSSUBDIR = "/systems.d/";
-    // The fixed name of the point definitions resource
-    final String SYSRESNAME = "monitor-sources.txt";
+  private static boolean readDefinitions(String resname, String subdir, String desc, Vector<String[]> filelines, Vector<String> filenames,
+      Hashtable<String, String> macros) {
+    boolean found = false;
+    // Macros defined in one file apply to those which follow, so the cached lines can only be used while all earlier files are unchanged
+    boolean unchanged = macros.equals(theirStartMacros.put(subdir, new Hashtable<String, String>(macros)));
 
     // Load the configuration built into the jar/classpath file, if found
-    InputStream exsystemsfile = MoniCAMain.class.getClassLoader().getResourceAsStream(SYSRESNAME);
-    if (exsystemsfile != null) {
-      theirLogger.info("Loading external systems definitions from \"" + SYSRESNAME + "\" resource");
-      ExternalSystem.init(new InputStreamReader(exsystemsfile));
-      foundsystems = true;
+    InputStream resfile = MoniCAMain.class.getClassLoader().getResourceAsStream(resname);
+    if (resfile != null) {
+      InputStreamReader isr = null;
+      try {
+        theirLogger.info("Loading " + desc + " definitions from \"" + resname + "\" resource");
+        isr = new InputStreamReader(resfile);
+        String[] lines = MonitorUtils.parseFile(isr, macros);
+        if (lines != null) {
+          filelines.add(lines);
+          filenames.add(resname);
+          found = true;
+        }
+        boolean same = Arrays.equals(lines, theirFileLines.put(resname, lines));
+        unchanged = unchanged && same;
+      } catch (Exception e) {
+        theirLogger.error("While parsing " + desc + " definitions: " + e);
+      } finally {
+        if (isr != null) {
+          try {
+            isr.close();
+          } catch (Exception f) {
+          }
+        }
+      }
     }
 
     // Check for definition files in the configuration directory
@@ -77,7 +141,7 @@ public class MoniCAMain {
       confdir = MonitorConfig.getProperty("ConfDir");
     }
     if (confdir != null) {
-      confdir = confdir + SYSSUBDIR;
+      confdir = confdir + subdir;
       File confdirf = new File(confdir);
       if (confdirf.exists() && confdirf.isDirectory()) {
         // Directory looks valid, list the contents
@@ -86,18 +150,35 @@ public class MoniCAMain {
           // Sort the file list lexicographically to enabled expected conf.d behaviour
           Arrays.sort(flist);
           for (File f : flist) {
-	      if (!(f.isFile() && f.getName().endsWith(".txt"))) {
-              theirLogger.warn("External systems definition file \"" + f + "\" is not a file");
+            if (!(f.isFile() && f.getName().endsWith(".txt"))) {
+              theirLogger.warn("Definition file \"" + f + "\" is not a file or does not end in '.txt'");
+            } else if (unchanged && theirFileLines.containsKey(f.toString())
+                && (f.lastModified() + ":" + f.length()).equals(theirFileStamps.get(f.toString()))) {
+              // Same as when we last read it, including any macros it defines
+              filelines.add(theirFileLines.get(f.toString()));
+              filenames.add(f.toString());
+              found = true;
+              macros.clear();
+              macros.putAll(theirFileMacros.get(f.toString()));
             } else {
-              // Looks like it should be a valid points definition file, so parse it
-              theirLogger.info("Loading external systems definitions from \"" + f + "\"");
+              // Looks like it should be a valid definitions file, so read it
+              theirLogger.info("Loading " + desc + " definitions from \"" + f + "\"");
+              unchanged = false;
+              String stamp = f.lastModified() + ":" + f.length();
               FileReader fr = null;
               try {
                 fr = new FileReader(f);
-                ExternalSystem.init(fr);
-                foundsystems = true;
+                String[] lines = MonitorUtils.parseFile(fr, macros);
+                if (lines != null) {
+                  filelines.add(lines);
+                  filenames.add(f.toString());
+                  found = true;
+                  theirFileLines.put(f.toString(), lines);
+                  theirFileStamps.put(f.toString(), stamp);
+                  theirFileMacros.put(f.toString(), new Hashtable<String, String>(macros));
+                }
               } catch (Exception e) {
-                theirLogger.error("While parsing file: " + e);
+                theirLogger.error("While parsing " + desc + " definitions: " + e);
               } finally {
                 if (fr != null) {
                   try {
@@ -111,90 +192,120 @@ public class MoniCAMain {
         }
       }
     }
+    return found;
+  }
 
-    if (!foundsystems) {
+  /**
+   * Create all of the ExternalSystems from whichever configuration resources are available.
+   * 
+   * @param macros
+   *          The macros defined so far while loading the definitions.
+   * @return True if successful, False if there was a fatal error.
+   */
+  private static boolean createExternalSystems(Hashtable<String, String> macros) {
+    Vector<String[]> filelines = new Vector<String[]>();
+    Vector<String> filenames = new Vector<String>();
+    if (!readDefinitions(SYSRESNAME, SYSSUBDIR, "external systems", filelines, filenames, macros)) {
       // Might be intentional, so log, but as info not error
       theirLogger.info("No external system definitions were found");
     }
 
+    for (int f = 0; f < filelines.size(); f++) {
+      String[] lines = filelines.get(f);
+      for (int i = 0; i < lines.length; i++) {
+        createExternalSystem(lines[i], "line " + (i + 1) + " of " + filenames.get(f));
+      }
+    }
+
     return true;
   }
 
+  /** Create an ExternalSystem from a line of the definitions and record which line it was created from. */
+  private static ExternalSystem createExternalSystem(String line, String where) {
+    try {
+      ExternalSystem es = ExternalSystem.create(line);
+      if (es != null) {
+        Vector<ExternalSystem> systems = theirSystemLines.get(line);
+        if (systems == null) {
+          systems = new Vector<ExternalSystem>();
+          theirSystemLines.put(line, systems);
+        }
+        systems.add(es);
+      }
+      return es;
+    } catch (Exception e) {
+      theirLogger.error("Cannot Initialise \"" + line + "\" defined on " + where + ": " + e);
+      return null;
+    }
+  }
+
   /**
    * Create all of the PointDescriptions from whichever configuration resources are available.
    * 
+   * @param macros
+   *          The macros defined so far while loading the definitions.
    * @return True if successful, False if there was a fatal error.
    */
-  private static boolean createPoints() {
-    boolean foundpoints = false;
-    // The conf.d subdirectory name for where point definitions are found
-    final String POINTSSUBDIR = "/points.d/";
-    // The fixed name of the point definitions resource
-    final String POINTSRESNAME = "monitor-points.txt";
-
-    // Load the configuration built into the jar/classpath file, if found
-    InputStream pointsfile = MoniCAMain.class.getClassLoader().getResourceAsStream(POINTSRESNAME);
-    if (pointsfile != null) {
-      InputStreamReader isr = null;
+  private static boolean createPoints(Hashtable<String, String> macros) {
+    // Read the definition files in order, since macros defined in one file apply to those which follow
+    long phasestart = System.currentTimeMillis();
+    Vector<String[]> filelines = new Vector<String[]>();
+    Vector<String> filenames = new Vector<String>();
+    boolean foundpoints = readDefinitions(POINTSRESNAME, POINTSSUBDIR, "point", filelines, filenames, macros);
+    long readtime = System.currentTimeMillis() - phasestart;
+
+    // Use the snapshot of the parsed definitions if there is one for the current definitions
+    phasestart = System.currentTimeMillis();
+    Vector<PointDefinition> defs = null;
+    byte[] hash = null;
+    File snapshot = null;
+    if (MonitorConfig.getProperty("PointSnapshotFile") != null) {
+      snapshot = new File(MonitorConfig.getProperty("PointSnapshotFile"));
+      try {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        for (int i = 0; i < filelines.size(); i++) {
+          PointDefinition.updateHash(digest, filelines.get(i));
+        }
+        hash = digest.digest();
+        defs = PointDefinition.readSnapshot(snapshot, hash);
+      } catch (Exception e) {
+        theirLogger.warn("Can't use point definition snapshot: " + e);
+        snapshot = null;
+      }
+    }
+    boolean fromsnapshot = defs != null;
+    int numthreads = Integer.parseInt(MonitorConfig.getProperty("StartupThreads", "" + Runtime.getRuntime().availableProcessors()));
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, numthreads));
+    if (!fromsnapshot) {
+      // Parse the definitions in parallel
       try {
-        theirLogger.info("Loading point definitions from \"" + POINTSRESNAME + "\" resource");
-        isr = new InputStreamReader(pointsfile);
-        PointDescription.parseFile(isr);
-        foundpoints = true;
+        defs = PointDefinition.parseAll(filelines, filenames, pool);
       } catch (Exception e) {
         theirLogger.error("While parsing point definitions: " + e);
-      } finally {
-        if (isr != null) {
-          try {
-            isr.close();
-          } catch (Exception f) {
-          }
-        }
+        defs = new Vector<PointDefinition>();
+      }
+      if (snapshot != null) {
+        PointDefinition.writeSnapshot(snapshot, hash, defs);
       }
     }
+    long parsetime = System.currentTimeMillis() - phasestart;
 
-    // Check for definition files in the configuration directory
-    String confdir = System.getProperty("MoniCA.ConfDir");
-    if (confdir == null) {
-      confdir = MonitorConfig.getProperty("ConfDir");
-    }
-    if (confdir != null) {
-      confdir = confdir + POINTSSUBDIR;
-      File confdirf = new File(confdir);
-      if (confdirf.exists() && confdirf.isDirectory()) {
-        // Directory looks valid, list the contents
-        File[] flist = confdirf.listFiles();
-        if (flist != null) {
-          // Sort the file list lexicographically to enabled expected conf.d behaviour
-          Arrays.sort(flist);
-          for (File f : flist) {
-	      if (!(f.isFile() && f.getName().endsWith(".txt"))) {
-              theirLogger.warn("Points definition file \"" + f + "\" is not a file or does not end in '.txt'");
-            } else {
-              // Looks like it should be a valid points definition file, so parse it
-              theirLogger.info("Loading point definitions from \"" + f + "\"");
-              FileReader fr = null;
-              try {
-                fr = new FileReader(f);
-                PointDescription.parseFile(fr);
-                foundpoints = true;
-              } catch (Exception e) {
-                theirLogger.error("While parsing point definitions: " + e);
-              } finally {
-                if (fr != null) {
-                  try {
-                    fr.close();
-                  } catch (IOException e) {
-                  }
-                }
-              }
-            }
-          }
-        }
+    // Create the points in parallel, then add them to the system in the order they were defined
+    phasestart = System.currentTimeMillis();
+    try {
+      Vector<PointDescription> points = PointDefinition.createAll(defs, pool);
+      for (int i = 0; i < points.size(); i++) {
+        PointDescription.addPoint(points.get(i));
       }
+    } catch (Exception e) {
+      theirLogger.error("While creating points: " + e);
+    } finally {
+      pool.shutdown();
     }
-    
+    long createtime = System.currentTimeMillis() - phasestart;
+
     //Create all of the server-side fields for the points
+    phasestart = System.currentTimeMillis();
     PointDescription[] allpoints = PointDescription.getAllUniquePoints();
     for (PointDescription point : allpoints) {
       try {
@@ -203,9 +314,16 @@ public class MoniCAMain {
         theirLogger.error("While creating point \"" + point.getFullName() + "\": "+ e);
       }
     }
+    long populatetime = System.currentTimeMillis() - phasestart;
+    theirLogger.info("Created " + allpoints.length + " points from " + filelines.size() + " files: reading " + readtime + " ms, "
+        + (fromsnapshot ? "loading snapshot " : "parsing ") + parsetime + " ms, creating " + createtime + " ms, populating "
+        + populatetime + " ms");
 
     // Points have all been created now
     PointDescription.setPointsCreated();
+    for (int i = 0; i < filelines.size(); i++) {
+      theirPointLines.addAll(Arrays.asList(filelines.get(i)));
+    }
 
     if (!foundpoints) {
       // Might be intentional, so log, but as info not error
@@ -215,12 +333,245 @@ public class MoniCAMain {
     return true;
   }
 
+  /**
+   * Reload the external system and point definitions and apply any changes to the running system. Only the ExternalSystems and
+   * points whose definitions have changed are affected, so the buffered data, alarm state and connections of the others are
+   * preserved.
+   * 
+   * @return A summary of the changes which were made.
+   */
+  public static synchronized String reload() {
+    if (!theirServerRunning) {
+      return "Server is not running";
+    }
+    long start = System.currentTimeMillis();
+    // Macros defined in the external system definitions apply to the point definitions, but not to the next reload
+    Hashtable<String, String> macros = new Hashtable<String, String>();
+    String systems = reloadExternalSystems(macros);
+    String points = reloadPoints(macros);
+    String res = "Reloaded definitions in " + (System.currentTimeMillis() - start) + " ms: " + systems + "; " + points;
+    theirLogger.info(res);
+    return res;
+  }
+
+  /**
+   * Stop the ExternalSystems whose definitions have been removed, and create and start those which have been added. Changing a
+   * definition is handled as removing the old one and adding the new one.
+   * 
+   * @param macros
+   *          The macros defined so far during the reload.
+   * @return A summary of the changes which were made.
+   */
+  private static String reloadExternalSystems(Hashtable<String, String> macros) {
+    Vector<String[]> filelines = new Vector<String[]>();
+    Vector<String> filenames = new Vector<String>();
+    readDefinitions(SYSRESNAME, SYSSUBDIR, "external systems", filelines, filenames, macros);
+
+    // Count the occurrences of each line, since identical definitions may create multiple ExternalSystems
+    HashMap<String, Integer> counts = new HashMap<String, Integer>();
+    for (int f = 0; f < filelines.size(); f++) {
+      String[] lines = filelines.get(f);
+      for (int i = 0; i < lines.length; i++) {
+        Integer count = counts.get(lines[i]);
+        counts.put(lines[i], new Integer(count == null ? 1 : count.intValue() + 1));
+      }
+    }
+
+    // Stop the ExternalSystems whose definitions are gone
+    int numremoved = 0;
+    Iterator<Map.Entry<String, Vector<ExternalSystem>>> it = theirSystemLines.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Vector<ExternalSystem>> entry = it.next();
+      Integer count = counts.get(entry.getKey());
+      Vector<ExternalSystem> systems = entry.getValue();
+      while (systems.size() > (count == null ? 0 : count.intValue())) {
+        ExternalSystem es = systems.remove(systems.size() - 1);
+        theirLogger.info("Removing ExternalSystem " + es.getName());
+        es.stopCollection();
+        try {
+          es.disconnect();
+        } catch (Exception e) {
+          theirLogger.warn("While disconnecting ExternalSystem " + es.getName() + ": " + e);
+        }
+        ExternalSystem.removeExternalSystem(es);
+        numremoved++;
+      }
+      if (systems.isEmpty()) {
+        it.remove();
+      }
+    }
+
+    // Create the ExternalSystems for new definitions
+    Vector<ExternalSystem> newsystems = new Vector<ExternalSystem>();
+    for (int f = 0; f < filelines.size(); f++) {
+      String[] lines = filelines.get(f);
+      for (int i = 0; i < lines.length; i++) {
+        Vector<ExternalSystem> systems = theirSystemLines.get(lines[i]);
+        int have = systems == null ? 0 : systems.size();
+        if (have < counts.get(lines[i]).intValue()) {
+          ExternalSystem es = createExternalSystem(lines[i], "line " + (i + 1) + " of " + filenames.get(f));
+          if (es != null) {
+            theirLogger.info("Adding ExternalSystem " + es.getName());
+            newsystems.add(es);
+          } else {
+            // Don't try again for the remaining occurrences
+            counts.put(lines[i], new Integer(have));
+          }
+        }
+      }
+    }
+
+    // Give the new ExternalSystems any existing points which they collect, then start them
+    if (!newsystems.isEmpty()) {
+      PointDescription[] points = PointDescription.getAllUniquePoints();
+      for (int i = 0; i < newsystems.size(); i++) {
+        ExternalSystem es = newsystems.get(i);
+        for (int j = 0; j < points.length; j++) {
+          Transaction[] trans = points[j].getInputTransactions();
+          for (int k = 0; trans != null && k < trans.length; k++) {
+            if (trans[k] != null && es.getName() != null && es.getName().equals(trans[k].getChannel())) {
+              es.addPoint(points[j]);
+              break;
+            }
+          }
+        }
+        es.startCollection();
+      }
+    }
+
+    return "external systems " + newsystems.size() + " added, " + numremoved + " removed";
+  }
+
+  /**
+   * Find the point definition lines which have been added or removed, and add, replace or remove only the points they define. A
+   * point which is replaced passes its listeners and buffered data on to the new point.
+   * 
+   * @param macros
+   *          The macros defined so far during the reload.
+   * @return A summary of the changes which were made.
+   */
+  private static String reloadPoints(Hashtable<String, String> macros) {
+    Vector<String[]> filelines = new Vector<String[]>();
+    Vector<String> filenames = new Vector<String>();
+    readDefinitions(POINTSRESNAME, POINTSSUBDIR, "point", filelines, filenames, macros);
+
+    // Find the lines which have been added or removed
+    HashSet<String> newlines = new HashSet<String>();
+    Vector<String> added = new Vector<String>();
+    Vector<String> addedfiles = new Vector<String>();
+    for (int f = 0; f < filelines.size(); f++) {
+      String[] lines = filelines.get(f);
+      for (int i = 0; i < lines.length; i++) {
+        if (newlines.add(lines[i]) && !theirPointLines.contains(lines[i])) {
+          added.add(lines[i]);
+          addedfiles.add(filenames.get(f));
+        }
+      }
+    }
+    Vector<String> removed = new Vector<String>();
+    Iterator<String> it = theirPointLines.iterator();
+    while (it.hasNext()) {
+      String line = it.next();
+      if (!newlines.contains(line)) {
+        removed.add(line);
+      }
+    }
+    theirPointLines = newlines;
+
+    // The currently running points which were defined by the removed lines
+    HashMap<String, PointDescription> oldpoints = new HashMap<String, PointDescription>();
+    for (int i = 0; i < removed.size(); i++) {
+      try {
+        ArrayList<PointDescription> defined = PointDefinition.parse(removed.get(i)).createPoints();
+        for (int j = 0; j < defined.size(); j++) {
+          PointDescription current = PointDescription.getPoint(defined.get(j).getFullName());
+          if (current != null) {
+            oldpoints.put(current.getFullName(), current);
+          }
+        }
+      } catch (Exception e) {
+        // The line never defined any points
+      }
+    }
+
+    // Match the points defined by the added lines with the old points
+    Vector<PointDescription[]> replaced = new Vector<PointDescription[]>();
+    Vector<PointDescription> newpoints = new Vector<PointDescription>();
+    int numunchanged = 0;
+    for (int i = 0; i < added.size(); i++) {
+      ArrayList<PointDescription> defined;
+      try {
+        defined = PointDefinition.parse(added.get(i)).createPoints();
+      } catch (Exception e) {
+        theirLogger.error("Exception \"" + e + "\" while parsing point definition in " + addedfiles.get(i) + ": " + added.get(i));
+        continue;
+      }
+      for (int j = 0; j < defined.size(); j++) {
+        PointDescription newpoint = defined.get(j);
+        PointDescription oldpoint = oldpoints.remove(newpoint.getFullName());
+        if (oldpoint == null) {
+          if (PointDescription.getPoint(newpoint.getFullName()) != null) {
+            theirLogger.warn("Point " + newpoint.getFullName() + " is already defined, ignoring new definition in " + addedfiles.get(i));
+          } else {
+            newpoints.add(newpoint);
+          }
+        } else if (oldpoint.getStringEquiv().equals(newpoint.getStringEquiv())) {
+          // Definition only moved or was reformatted
+          numunchanged++;
+        } else {
+          replaced.add(new PointDescription[] { oldpoint, newpoint });
+        }
+      }
+    }
+
+    // Deactivate the old points before the new ones are added, so that translations stop listening to the old points
+    for (int i = 0; i < replaced.size(); i++) {
+      replaced.get(i)[0].removeServerFields();
+      PointDescription.removePoint(replaced.get(i)[0]);
+    }
+    Iterator<PointDescription> oldit = oldpoints.values().iterator();
+    while (oldit.hasNext()) {
+      PointDescription oldpoint = oldit.next();
+      theirLogger.info("Removing point " + oldpoint.getFullName());
+      oldpoint.removeServerFields();
+      PointDescription.removePoint(oldpoint);
+      PointBuffer.replacePoint(oldpoint, null);
+    }
+
+    // Replacement points keep the listeners and recent data of the points they replace
+    for (int i = 0; i < replaced.size(); i++) {
+      PointDescription oldpoint = replaced.get(i)[0];
+      PointDescription newpoint = replaced.get(i)[1];
+      theirLogger.info("Replacing point " + newpoint.getFullName());
+      oldpoint.moveListeners(newpoint);
+      PointBuffer.replacePoint(oldpoint, newpoint);
+      newpoints.add(newpoint);
+    }
+
+    // Add and activate the new points
+    for (int i = 0; i < newpoints.size(); i++) {
+      PointDescription.addPoint(newpoints.get(i));
+    }
+    for (int i = 0; i < newpoints.size(); i++) {
+      try {
+        newpoints.get(i).populateServerFields();
+      } catch (Exception e) {
+        theirLogger.error("While creating point \"" + newpoints.get(i).getFullName() + "\": " + e);
+      }
+    }
+
+    return "points " + (newpoints.size() - replaced.size()) + " added, " + replaced.size() + " changed, " + oldpoints.size()
+        + " removed, " + numunchanged + " moved";
+  }
+
   /**
    * Create all of the SavedSetups from whichever configuration resources are available.
    * 
+   * @param macros
+   *          The macros defined so far while loading the definitions.
    * @return True if successful, False if there was a fatal error.
    */
-  private static boolean createSetups() {
+  private static boolean createSetups(Hashtable<String, String> macros) {
     boolean foundsetups = false;
     // The conf.d subdirectory name for where point definitions are found
     final String SETUPSUBDIR = "/setups.d/";
@@ -232,7 +583,7 @@ public class MoniCAMain {
       InputStreamReader isr = null;
       try {
         isr = new InputStreamReader(setupfile);
-        Vector<SavedSetup> setups = SavedSetup.parseFile(isr);
+        Vector<SavedSetup> setups = SavedSetup.parseFile(isr, macros);
         theirLogger.debug("Recovered " + setups.size() + " SavedSetups from resource \"" + SETUPRESNAME + "\"");
         for (int i = 0; i < setups.size(); i++) {
           SavedSetup.addSetup((SavedSetup) setups.get(i));
@@ -274,7 +625,7 @@ public class MoniCAMain {
               FileReader fr = null;
               try {
                 fr = new FileReader(f);
-                Vector<SavedSetup> setups = SavedSetup.parseFile(fr);
+                Vector<SavedSetup> setups = SavedSetup.parseFile(fr, macros);
                 theirLogger.debug("Recovered " + setups.size() + " SavedSetups from file \"" + f + "\"");
                 for (int i = 0; i < setups.size(); i++) {
                   SavedSetup.addSetup((SavedSetup) setups.get(i));
@@ -311,6 +662,9 @@ public class MoniCAMain {
    */
   public static boolean start() {
     theirLogger.info("Starting MoniCA Server..");
+    long starttime = System.currentTimeMillis();
+    long phasestart = starttime;
+    StringBuffer timing = new StringBuffer();
 
     // Create the archiver to store historical data
     theirLogger.debug("Creating PointArchiver");
@@ -326,6 +680,7 @@ public class MoniCAMain {
     // Start archive thread
     ((Thread) pa).start();
     theirLogger.debug("PointArchiver created");
+    phasestart = logPhase(timing, "archiver", phasestart);
 
     String confdir = MonitorConfig.getProperty("ConfDir");
     if (confdir != null) {
@@ -339,26 +694,39 @@ public class MoniCAMain {
       }
     }
 
+    // Macros defined in one definitions file apply to those which follow, until all of the definitions are loaded
+    Hashtable<String, String> macros = new Hashtable<String, String>();
+
     // Initialise all the ExternalSystems
     theirLogger.debug("Creating ExternalSystems");
-    if (!createExternalSystems()) {
+    if (!createExternalSystems(macros)) {
       return false;
     }
     theirLogger.debug("ExternalSystems created");
+    phasestart = logPhase(timing, "systems", phasestart);
+
+    // Load the state saved when the server last ran, so that translations can tell if their state will be restored
+    StateSnapshot.load();
 
     // Create all the points
     theirLogger.debug("Creating PointDescriptions");
-    if (!createPoints()) {
+    if (!createPoints(macros)) {
       return false;
     }
     theirLogger.debug("PointDescriptions created");
+    phasestart = logPhase(timing, "points", phasestart);
 
     // Recover all the SavedSetups
     theirLogger.debug("Creating SavedSetups");
-    if (!createSetups()) {
+    if (!createSetups(macros)) {
       return false;
     }
     theirLogger.debug("SavedSetups created");
+    phasestart = logPhase(timing, "setups", phasestart);
+
+    // Restore the buffers, alarm states and translation states before any new data arrives
+    StateSnapshot.restore();
+    phasestart = logPhase(timing, "state", phasestart);
 
     // If no RADIUS server is defined then approve all auth requests (for backwards compatibility)
     RADIUSAuthenticator.setDefaultAuthMode(true);
@@ -370,6 +738,7 @@ public class MoniCAMain {
     Runtime.getRuntime().addShutdownHook(new Thread() {
       public void run() {
         ExternalSystem.stopAll();
+        StateSnapshot.save();
         PointArchiver.getPointArchiver().flushArchive();
       }
     });
@@ -378,6 +747,8 @@ public class MoniCAMain {
     theirLogger.debug("Starting ExternalSystems");
     ExternalSystem.startAll();
     theirLogger.debug("ExternalSystems started");
+    phasestart = logPhase(timing, "start", phasestart);
+    theirLogger.info("Startup took " + (phasestart - starttime) + " ms (" + timing + ")");
 
     // Server is now running
     theirServerRunning = true;
@@ -385,6 +756,16 @@ public class MoniCAMain {
     return true;
   }
 
+  /** Append the time taken by a startup phase to the timing summary, and return the current time. */
+  private static long logPhase(StringBuffer timing, String phase, long phasestart) {
+    long now = System.currentTimeMillis();
+    if (timing.length() > 0) {
+      timing.append(", ");
+    }
+    timing.append(phase + " " + (now - phasestart) + " ms");
+    return now;
+  }
+
   /**
    * Open the network server interfaces.
    */
@@ -9,6 +9,8 @@
 package atnf.atoms.mon;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 import atnf.atoms.time.*;
 import atnf.atoms.mon.util.MonitorConfig;
@@ -33,6 +35,12 @@ public class PointBuffer {
   /** Logger. */
   private static Logger theirLogger = Logger.getLogger(PointBuffer.class.getName());
 
+  /** Max number of points which a single multi-point request will extract concurrently. */
+  private static int theirExtractParallelism = 4;
+
+  /** Thread pool shared by all multi-point requests, which limits the total number of concurrent extractions. */
+  private static ThreadPoolExecutor theirExtractPool;
+
   /** Static block to parse buffer size parameters. */
   static {
     try {
@@ -49,6 +57,27 @@ public class PointBuffer {
       numsecs = 90;
     }
     theirMaxBufferAge = RelTime.factory(numsecs * 1000000);
+
+    int numthreads;
+    try {
+      numthreads = Integer.parseInt(MonitorConfig.getProperty("ArchiveExtractThreads", "8"));
+      theirExtractParallelism = Integer.parseInt(MonitorConfig.getProperty("ArchiveExtractParallelism", "4"));
+    } catch (Exception e) {
+      theirLogger.warn("Error parsing archive extraction configuration parameters: " + e);
+      numthreads = 8;
+      theirExtractParallelism = 4;
+    }
+    theirExtractPool = new ThreadPoolExecutor(numthreads, numthreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+          private int itsCount = 0;
+
+          public synchronized Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "PointBuffer Extractor " + (++itsCount));
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    theirExtractPool.allowCoreThreadTimeOut(true);
   }
 
   /**
@@ -87,6 +116,40 @@ public class PointBuffer {
     }
   }
 
+  /**
+   * Return a copy of all the data in the memory buffer for the given point.
+   * 
+   * @param pm
+   *          The point to get the data for.
+   * @return Vector of the buffered data, or <tt>null</tt> if there is no buffer for the point.
+   */
+  public static Vector<PointData> getBufferedData(PointDescription pm) {
+    LinkedList<PointData> databuffer = theirBufferTable.get(pm);
+    if (databuffer == null) {
+      return null;
+    }
+    synchronized (databuffer) {
+      return new Vector<PointData>(databuffer);
+    }
+  }
+
+  /**
+   * Pass the buffered data of a point which is being replaced to the new point, or discard it if the point is being removed.
+   * 
+   * @param oldpm
+   *          The point being replaced or removed.
+   * @param newpm
+   *          The point replacing it, or null if it is being removed.
+   */
+  public static void replacePoint(PointDescription oldpm, PointDescription newpm) {
+    synchronized (theirBufferTable) {
+      LinkedList<PointData> thisbuf = theirBufferTable.remove(oldpm);
+      if (thisbuf != null && newpm != null && !theirBufferTable.containsKey(newpm)) {
+        theirBufferTable.put(newpm, thisbuf);
+      }
+    }
+  }
+
   /**
    * Return the latest data for the specified point.
    * 
@@ -276,6 +339,167 @@ public class PointBuffer {
     return getPointData(pm, start, end, sample_rate);
   }
 
+  /**
+   * Return all data in the specified time range for each of the given points. The points are extracted concurrently, with at most
+   * <tt>ArchiveExtractParallelism</tt> points from this request in progress at once and at most <tt>ArchiveExtractThreads</tt>
+   * extractions in progress across all requests.
+   * 
+   * @param points
+   *          Source and point names to get the data for.
+   * @param start
+   *          The earliest time in the range of interest.
+   * @param end
+   *          The most recent time in the range of interest.
+   * @param maxsamples
+   *          The maximum number of samples to be returned for each point. 0 for no limit.
+   * @return Vector with the data for each point, in the same order as the request. An element will be <tt>null</tt> if no data were
+   *         found or if the point name was invalid.
+   */
+  public static Vector<Vector<PointData>> getPointData(final String[] points, final AbsTime start, final AbsTime end, final int maxsamples) {
+    final Vector<Vector<PointData>> res = new Vector<Vector<PointData>>(points.length);
+    res.setSize(points.length);
+    forEachPoint(points, new PointTask() {
+      public void run(int i) {
+        res.set(i, getPointData(points[i], start, end, maxsamples));
+      }
+    });
+    return res;
+  }
+
+  /**
+   * Compute statistics for the data in the specified time range for the given point. The data are read from the memory buffer and
+   * the archive in a single pass and are never collected together, so the range is not limited by <tt>ArchiveMaxRecords</tt>.
+   *
+   * @param pm
+   *          The point to compute the statistics for.
+   * @param start
+   *          The earliest time in the range of interest.
+   * @param end
+   *          The most recent time in the range of interest.
+   * @param bucket
+   *          The length of each interval to compute statistics for, or null to compute statistics for the whole range. The number of
+   *          intervals is limited to <tt>ArchiveMaxRecords</tt>, so they may be lengthened.
+   * @return The statistics for each interval in time order.
+   */
+  public static Aggregate[] getAggregates(PointDescription pm, AbsTime start, AbsTime end, RelTime bucket) {
+    PointArchiver arc = PointArchiver.getPointArchiver();
+    Aggregator agg = new Aggregator(start, end, bucket, arc.getMaxNumRecords());
+
+    Vector<PointData> bufdata = null;
+    boolean allinbuffer = false;
+    LinkedList<PointData> databuffer = theirBufferTable.get(pm);
+    if (databuffer != null) {
+      synchronized (databuffer) {
+        allinbuffer = isAfterOrEqualsFirstData(pm, start);
+        bufdata = getPointDataBuffer(pm, start, end);
+      }
+    }
+
+    if (!allinbuffer) {
+      // The archive covers the part of the range which precedes the buffered data
+      AbsTime arcend = end;
+      if (bufdata != null) {
+        arcend = bufdata.firstElement().getTimestamp().add(RelTime.factory(-1));
+      }
+      if (arcend.isAfterOrEquals(start)) {
+        arc.aggregate(pm, start, arcend, agg);
+      }
+    }
+
+    if (bufdata != null) {
+      for (int i = 0; i < bufdata.size(); i++) {
+        agg.add(bufdata.get(i));
+      }
+    }
+    return agg.getAggregates();
+  }
+
+  /**
+   * Compute statistics for the data in the specified time range for each of the given points. The points are processed concurrently
+   * in the same way as for <i>getPointData</i>.
+   *
+   * @param points
+   *          Source and point names to compute the statistics for.
+   * @param start
+   *          The earliest time in the range of interest.
+   * @param end
+   *          The most recent time in the range of interest.
+   * @param bucket
+   *          The length of each interval to compute statistics for, or null to compute statistics for the whole range.
+   * @return The statistics for each point, in the same order as the request. An element will be <tt>null</tt> if the point name was
+   *         invalid.
+   */
+  public static Vector<Aggregate[]> getAggregates(final String[] points, final AbsTime start, final AbsTime end, final RelTime bucket) {
+    final Vector<Aggregate[]> res = new Vector<Aggregate[]>(points.length);
+    res.setSize(points.length);
+    forEachPoint(points, new PointTask() {
+      public void run(int i) {
+        PointDescription pm = PointDescription.getPoint(points[i]);
+        if (pm != null) {
+          res.set(i, getAggregates(pm, start, end, bucket));
+        }
+      }
+    });
+    return res;
+  }
+
+  /** A task which is performed for each point of a multi-point request. */
+  private interface PointTask {
+    /** Perform the task for the specified point. */
+    void run(int i) throws Exception;
+  }
+
+  /**
+   * Perform the task for each point of a multi-point request, with at most <tt>ArchiveExtractParallelism</tt> points from this
+   * request in progress at once and at most <tt>ArchiveExtractThreads</tt> in progress across all requests.
+   *
+   * @param points
+   *          The names of the points in the request.
+   * @param task
+   *          The task to perform for each point.
+   */
+  private static void forEachPoint(final String[] points, final PointTask task) {
+    if (points.length == 1) {
+      // No point handing off to another thread
+      try {
+        task.run(0);
+      } catch (Exception e) {
+        theirLogger.error("While extracting data for " + points[0] + ": " + e);
+      }
+      return;
+    }
+
+    // Each worker takes the next unclaimed point until all are done
+    final AtomicInteger nextpoint = new AtomicInteger(0);
+    int numworkers = Math.min(points.length, Math.max(1, theirExtractParallelism));
+    final CountDownLatch done = new CountDownLatch(numworkers);
+    for (int i = 0; i < numworkers; i++) {
+      theirExtractPool.execute(new Runnable() {
+        public void run() {
+          try {
+            int j;
+            while ((j = nextpoint.getAndIncrement()) < points.length) {
+              try {
+                task.run(j);
+              } catch (Exception e) {
+                theirLogger.error("While extracting data for " + points[j] + ": " + e);
+              }
+            }
+          } finally {
+            done.countDown();
+          }
+        }
+      });
+    }
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      // Points which weren't processed are left without a result
+      theirLogger.warn("Interrupted while waiting for archive extraction to complete");
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Return the last record who's timestamp is <= the timestamp argument.
    * 
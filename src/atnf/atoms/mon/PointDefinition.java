@@ -0,0 +1,362 @@
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.log4j.Logger;
+
+import atnf.atoms.mon.util.MonitorUtils;
+
+/**
+ * The parsed form of a single line from a point definitions file, from which one point is created for each of the sources listed.
+ *
+ * <P>
+ * Also provides the means of parsing many lines and creating their points in parallel, and of saving the parsed definitions to a binary snapshot file which
+ * can be loaded much faster than the definitions can be parsed. The snapshot records a hash of the lines it was made from, so that
+ * it is only used if the definitions haven't changed.
+ */
+public class PointDefinition {
+  /** Logger. */
+  private static Logger theirLogger = Logger.getLogger(PointDefinition.class.getName());
+
+  /** Identifies a snapshot file. */
+  private static final String SNAPSHOTMAGIC = "MoniCA point definitions";
+
+  /** Version of the snapshot file format. */
+  private static final int SNAPSHOTVERSION = 1;
+
+  /** Number of lines parsed by each parallel task. */
+  private static final int CHUNKSIZE = 500;
+
+  /** Number of tokens we expect for each point definition. */
+  private static final int NUMTOKENS = 13;
+
+  /** Number of tokens we expect for each point definition including the notification and alarm fields. */
+  private static final int NUMTOKENSv2 = 16;
+
+  private String[] itsNames;
+  private String itsLongDesc;
+  private String itsShortDesc;
+  private String itsUnits;
+  private String[] itsSources;
+  private boolean[] itsEnabled;
+  private String[] itsInputs;
+  private String[] itsOutputs;
+  private String[] itsTranslations;
+  private String[] itsLimits;
+  private String[] itsArchives;
+  private String[] itsNotifications;
+  private String itsPeriod;
+  private String itsArchiveLife;
+  private String itsGuidance;
+  private String itsPriority;
+
+  private PointDefinition() {
+  }
+
+  /**
+   * Parse a line from a point definitions file.
+   *
+   * @throws Exception
+   *           If the line does not contain a valid definition.
+   */
+  public static PointDefinition parse(String line) throws Exception {
+    // Extract appropriate information and make point/s
+    String[] toks = MonitorUtils.getTokens(line);
+    if (toks.length != NUMTOKENS && toks.length != NUMTOKENSv2) {
+      throw new Exception("Expect " + NUMTOKENS + " or " + NUMTOKENSv2 + " tokens, found " + toks.length);
+    }
+
+    PointDefinition res = new PointDefinition();
+    res.itsNames = MonitorUtils.getTokens(toks[0]);
+    res.itsLongDesc = toks[1];
+    res.itsShortDesc = toks[2];
+    res.itsUnits = toks[3];
+    res.itsSources = MonitorUtils.getTokens(toks[4]);
+    String pointEnabled = toks[5];
+    res.itsInputs = MonitorUtils.getTokens(toks[6]);
+    res.itsOutputs = MonitorUtils.getTokens(toks[7]);
+    res.itsTranslations = MonitorUtils.getTokens(toks[8]);
+    res.itsLimits = MonitorUtils.getTokens(toks[9]);
+    res.itsArchives = MonitorUtils.getTokens(toks[10]);
+    res.itsPeriod = toks[11];
+    res.itsArchiveLife = toks[12];
+    res.itsNotifications = new String[0];
+    res.itsPriority = "-";
+    res.itsGuidance = "";
+    if (toks.length == NUMTOKENSv2) {
+      res.itsNotifications = MonitorUtils.getTokens(toks[13]);
+      res.itsPriority = toks[14];
+      res.itsGuidance = toks[15];
+    }
+    res.itsEnabled = PointDescription.parseBoolean(pointEnabled);
+    if (pointEnabled.length() < res.itsSources.length) {
+      boolean[] temp = new boolean[res.itsSources.length];
+      for (int i = 0; i < temp.length; i++) {
+        temp[i] = res.itsEnabled[0];
+      }
+      res.itsEnabled = temp;
+    }
+    return res;
+  }
+
+  /** Create the points for each source. The points are not added to the system. */
+  public ArrayList<PointDescription> createPoints() {
+    ArrayList<PointDescription> result = new ArrayList<PointDescription>(itsSources.length);
+    for (int i = 0; i < itsSources.length; i++) {
+      result.add(PointDescription.create(itsNames, itsLongDesc, itsShortDesc, itsUnits, itsSources[i], itsInputs, itsOutputs, itsTranslations,
+          itsLimits, itsArchives, itsNotifications, itsPeriod, itsArchiveLife, itsGuidance, itsPriority, itsEnabled[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Parse the lines from one or more definition files using several threads. Lines which can't be parsed are logged and omitted
+   * from the result.
+   *
+   * @param lines
+   *          The lines from each file, as returned by <tt>MonitorUtils.parseFile</tt>.
+   * @param filenames
+   *          The name of each file, for error messages.
+   * @param pool
+   *          The threads used to parse the lines.
+   * @return The parsed definitions, in the same order as the lines.
+   */
+  public static Vector<PointDefinition> parseAll(Vector<String[]> lines, Vector<String> filenames, ExecutorService pool) throws Exception {
+    Vector<Future<Vector<PointDefinition>>> chunks = new Vector<Future<Vector<PointDefinition>>>();
+    int total = 0;
+    for (int f = 0; f < lines.size(); f++) {
+      final String[] filelines = lines.get(f);
+      final String filename = filenames.get(f);
+      total += filelines.length;
+      for (int start = 0; start < filelines.length; start += CHUNKSIZE) {
+        final int first = start;
+        final int last = Math.min(filelines.length, start + CHUNKSIZE);
+        chunks.add(pool.submit(new Callable<Vector<PointDefinition>>() {
+          public Vector<PointDefinition> call() {
+            Vector<PointDefinition> res = new Vector<PointDefinition>(last - first);
+            for (int i = first; i < last; i++) {
+              try {
+                res.add(parse(filelines[i]));
+              } catch (Exception e) {
+                theirLogger.error("Exception \"" + e + "\" while parsing point definition line " + (i + 1) + " of " + filename + ": "
+                    + filelines[i]);
+              }
+            }
+            return res;
+          }
+        }));
+      }
+    }
+    Vector<PointDefinition> res = new Vector<PointDefinition>(total);
+    for (int i = 0; i < chunks.size(); i++) {
+      res.addAll(chunks.get(i).get());
+    }
+    return res;
+  }
+
+  /**
+   * Create the points for all of the definitions using several threads. The points are not added to the system.
+   *
+   * @return The points, in the same order as the definitions.
+   */
+  public static Vector<PointDescription> createAll(final Vector<PointDefinition> defs, ExecutorService pool) throws Exception {
+    Vector<Future<Vector<PointDescription>>> chunks = new Vector<Future<Vector<PointDescription>>>();
+    for (int start = 0; start < defs.size(); start += CHUNKSIZE) {
+      final int first = start;
+      final int last = Math.min(defs.size(), start + CHUNKSIZE);
+      chunks.add(pool.submit(new Callable<Vector<PointDescription>>() {
+        public Vector<PointDescription> call() {
+          Vector<PointDescription> res = new Vector<PointDescription>(last - first);
+          for (int i = first; i < last; i++) {
+            res.addAll(defs.get(i).createPoints());
+          }
+          return res;
+        }
+      }));
+    }
+    Vector<PointDescription> res = new Vector<PointDescription>(defs.size());
+    for (int i = 0; i < chunks.size(); i++) {
+      res.addAll(chunks.get(i).get());
+    }
+    return res;
+  }
+
+  /** Add the lines to the hash which identifies the definitions. */
+  public static void updateHash(MessageDigest digest, String[] lines) throws UnsupportedEncodingException {
+    for (int i = 0; i < lines.length; i++) {
+      digest.update(lines[i].getBytes("UTF-8"));
+      digest.update((byte) '\n');
+    }
+  }
+
+  /**
+   * Load the definitions from a snapshot file.
+   *
+   * @param file
+   *          The snapshot file.
+   * @param hash
+   *          The hash of the current definition files.
+   * @return The definitions, or null if the snapshot doesn't exist or was made from different definitions.
+   */
+  public static Vector<PointDefinition> readSnapshot(File file, byte[] hash) {
+    if (!file.exists()) {
+      return null;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+      if (!in.readUTF().equals(SNAPSHOTMAGIC) || in.readInt() != SNAPSHOTVERSION) {
+        theirLogger.warn("Point definition snapshot \"" + file + "\" has an unknown format, ignoring it");
+        return null;
+      }
+      byte[] oldhash = new byte[in.readInt()];
+      in.readFully(oldhash);
+      if (!Arrays.equals(oldhash, hash)) {
+        theirLogger.info("Point definitions have changed since snapshot \"" + file + "\" was made");
+        return null;
+      }
+      int num = in.readInt();
+      Vector<PointDefinition> res = new Vector<PointDefinition>(num);
+      for (int i = 0; i < num; i++) {
+        res.add(read(in));
+      }
+      return res;
+    } catch (Exception e) {
+      theirLogger.warn("Error reading point definition snapshot \"" + file + "\": " + e);
+      return null;
+    } finally {
+      if (in != null) {
+        try {
+          in.close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
+  /**
+   * Save the definitions to a snapshot file. The file is written under a temporary name and then renamed, so that a partially
+   * written snapshot is never used.
+   */
+  public static void writeSnapshot(File file, byte[] hash, Vector<PointDefinition> defs) {
+    File temp = new File(file.getPath() + ".tmp");
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 65536));
+      out.writeUTF(SNAPSHOTMAGIC);
+      out.writeInt(SNAPSHOTVERSION);
+      out.writeInt(hash.length);
+      out.write(hash);
+      out.writeInt(defs.size());
+      for (int i = 0; i < defs.size(); i++) {
+        defs.get(i).write(out);
+      }
+      out.close();
+      out = null;
+      if (!temp.renameTo(file)) {
+        file.delete();
+        if (!temp.renameTo(file)) {
+          throw new IOException("Couldn't rename " + temp);
+        }
+      }
+      theirLogger.info("Saved point definition snapshot \"" + file + "\"");
+    } catch (Exception e) {
+      theirLogger.warn("Error writing point definition snapshot \"" + file + "\": " + e);
+      temp.delete();
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+        }
+        temp.delete();
+      }
+    }
+  }
+
+  /** Write the definition to a snapshot. */
+  private void write(DataOutputStream out) throws IOException {
+    writeStrings(out, itsNames);
+    writeString(out, itsLongDesc);
+    writeString(out, itsShortDesc);
+    writeString(out, itsUnits);
+    writeStrings(out, itsSources);
+    out.writeInt(itsEnabled.length);
+    for (int i = 0; i < itsEnabled.length; i++) {
+      out.writeBoolean(itsEnabled[i]);
+    }
+    writeStrings(out, itsInputs);
+    writeStrings(out, itsOutputs);
+    writeStrings(out, itsTranslations);
+    writeStrings(out, itsLimits);
+    writeStrings(out, itsArchives);
+    writeStrings(out, itsNotifications);
+    writeString(out, itsPeriod);
+    writeString(out, itsArchiveLife);
+    writeString(out, itsGuidance);
+    writeString(out, itsPriority);
+  }
+
+  /** Read a definition from a snapshot. */
+  private static PointDefinition read(DataInputStream in) throws IOException {
+    PointDefinition res = new PointDefinition();
+    res.itsNames = readStrings(in);
+    res.itsLongDesc = readString(in);
+    res.itsShortDesc = readString(in);
+    res.itsUnits = readString(in);
+    res.itsSources = readStrings(in);
+    res.itsEnabled = new boolean[in.readInt()];
+    for (int i = 0; i < res.itsEnabled.length; i++) {
+      res.itsEnabled[i] = in.readBoolean();
+    }
+    res.itsInputs = readStrings(in);
+    res.itsOutputs = readStrings(in);
+    res.itsTranslations = readStrings(in);
+    res.itsLimits = readStrings(in);
+    res.itsArchives = readStrings(in);
+    res.itsNotifications = readStrings(in);
+    res.itsPeriod = readString(in);
+    res.itsArchiveLife = readString(in);
+    res.itsGuidance = readString(in);
+    res.itsPriority = readString(in);
+    return res;
+  }
+
+  /** Write a string, which unlike writeUTF may be of any length. */
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  private static void writeStrings(DataOutputStream out, String[] s) throws IOException {
+    out.writeInt(s.length);
+    for (int i = 0; i < s.length; i++) {
+      writeString(out, s[i]);
+    }
+  }
+
+  private static String[] readStrings(DataInputStream in) throws IOException {
+    String[] res = new String[in.readInt()];
+    for (int i = 0; i < res.length; i++) {
+      res[i] = readString(in);
+    }
+    return res;
+  }
+}
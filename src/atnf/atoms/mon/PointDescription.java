@@ -107,6 +107,9 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
   /** The policies that define when to archive this point. */
   protected ArchivePolicy[] itsArchive = null;
 
+  /** Evaluates the archive policies and counts the updates archived. */
+  protected ArchivePolicyEvaluator itsArchiveEvaluator = null;
+
   /** String representation of the archive policies. */
   protected String[] itsArchiveStrings = {};
 
@@ -145,6 +148,9 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
   /** Indicates if the point is currently in the process of being updated. */
   boolean itsCollecting = false;
 
+  /** Indicates if the point has been removed from the system, after which it ignores any further updates. */
+  volatile boolean itsRemoved = false;
+
   /** The time the point should next be updated. */
   protected transient long itsNextEpoch = 0;
 
@@ -432,6 +438,17 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     itsListenerList.remove(PointListener.class, listener);
   }
 
+  /** Move all of our listeners to the point which is replacing us. */
+  public void moveListeners(PointDescription replacement) {
+    Object[] listeners = itsListenerList.getListenerList();
+    for (int i = 0; i < listeners.length; i += 2) {
+      if (listeners[i] == PointListener.class) {
+        itsListenerList.remove(PointListener.class, (PointListener) listeners[i + 1]);
+        replacement.addPointListener((PointListener) listeners[i + 1]);
+      }
+    }
+  }
+
   public void actionPerformed(ActionEvent e) {
   }
 
@@ -538,6 +555,11 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     return itsArchive;
   }
 
+  /** Get the evaluator which combines the archive policies, or null if they have not been built. */
+  public ArchivePolicyEvaluator getArchivePolicyEvaluator() {
+    return itsArchiveEvaluator;
+  }
+
   /** Set the string representation of the archive policies. */
   public void setArchiveString(String[] archive) {
     itsArchiveStrings = archive;
@@ -571,6 +593,7 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
       archives[i] = (ArchivePolicy) Factory.factory(this, itsArchiveStrings[i], "atnf.atoms.mon.archivepolicy.ArchivePolicy");
     }
     itsArchive = archives;
+    itsArchiveEvaluator = new ArchivePolicyEvaluator(archives);
   }
 
   /** Get the notifications used by this point. */
@@ -734,6 +757,42 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     setArchiver(PointArchiver.getPointArchiver());
   }
 
+  /**
+   * Undo the operations of <i>populateServerFields</i> when the point is removed from the running system: stop data collection and
+   * translations, and remove the alarm. Updates which arrive after this are ignored.
+   */
+  public void removeServerFields() {
+    // Wait for any update in progress to complete
+    synchronized (this) {
+      itsRemoved = true;
+    }
+
+    // Remove from the ExternalSystem(s) which collect our data
+    for (int i = 0; itsInputTransactions != null && i < itsInputTransactions.length; i++) {
+      Transaction thistrans = itsInputTransactions[i];
+      if (thistrans != null && thistrans.getChannel() != null) {
+        ExternalSystem ds = ExternalSystem.getExternalSystem(thistrans.getChannel());
+        if (ds != null) {
+          ds.removePoint(this);
+        }
+      }
+    }
+
+    // Stop translations which listen to other points or run periodically
+    for (int i = 0; itsTranslations != null && i < itsTranslations.length; i++) {
+      if (itsTranslations[i] != null) {
+        itsTranslations[i].stop();
+      }
+    }
+
+    AlarmManager.removeAlarm(this);
+  }
+
+  /** Indicates if the point has been removed from the running system. */
+  public boolean isRemoved() {
+    return itsRemoved;
+  }
+
   /**
    * Parse a point definitions file and return all the points defined.
    */
@@ -769,54 +828,14 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     return result;
   }
 
+  /**
+   * Parse a line from a point definitions file and add the points it defines to the system.
+   */
   public static ArrayList<PointDescription> parseLine(String line) throws Exception {
-    // Number of tokens we expect for each point definition
-    final int NUMTOKENS = 13;
-    final int NUMTOKENSv2 = 16;
-
-    ArrayList<PointDescription> result = new ArrayList<PointDescription>();
-
-    // Extract appropriate information and make point/s
-    String[] toks = MonitorUtils.getTokens(line);
-    if (toks.length != NUMTOKENS && toks.length != NUMTOKENSv2) {
-      throw new Exception("Expect " + NUMTOKENS + " or " + NUMTOKENSv2 + " tokens, found " + toks.length);
-    }
-
-    String[] pointNameArray = MonitorUtils.getTokens(toks[0]);
-    String pointLongDesc = toks[1];
-    String pointShortDesc = toks[2];
-    String pointUnits = toks[3];
-    String[] pointSourceArray = MonitorUtils.getTokens(toks[4]);
-    String pointEnabled = toks[5];
-    String[] pointInputArray = MonitorUtils.getTokens(toks[6]);
-    String[] pointOutputArray = MonitorUtils.getTokens(toks[7]);
-    String[] pointTranslateArray = MonitorUtils.getTokens(toks[8]);
-    String[] pointLimitsArray = MonitorUtils.getTokens(toks[9]);
-    String[] pointArchiveArray = MonitorUtils.getTokens(toks[10]);
-    String pointPeriod = toks[11];
-    String archiveLife = toks[12];
-    String[] notificationArray = new String[0];
-    String priority = "-";
-    String guidance = "";
-    if (toks.length == NUMTOKENSv2) {
-      notificationArray = MonitorUtils.getTokens(toks[13]);
-      priority = toks[14];
-      guidance = toks[15];
-    }
-    boolean[] pointEnabledArray = parseBoolean(pointEnabled);
-    if (pointEnabled.length() < pointSourceArray.length) {
-      boolean[] temp = new boolean[pointSourceArray.length];
-      for (int i = 0; i < temp.length; i++) {
-        temp[i] = pointEnabledArray[0];
-      }
-      pointEnabledArray = temp;
-    }
-
-    for (int i = 0; i < pointSourceArray.length; i++) {
-      result.add(PointDescription.factory(pointNameArray, pointLongDesc, pointShortDesc, pointUnits, pointSourceArray[i], pointInputArray, pointOutputArray,
-          pointTranslateArray, pointLimitsArray, pointArchiveArray, notificationArray, pointPeriod, archiveLife, guidance, priority, pointEnabledArray[i]));
+    ArrayList<PointDescription> result = PointDefinition.parse(line).createPoints();
+    for (int i = 0; i < result.size(); i++) {
+      addPoint(result.get(i));
     }
-
     return result;
   }
 
@@ -833,10 +852,20 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     return res;
   }
 
-  /** Construct a new monitor point from the given fields. */
+  /** Construct a new monitor point from the given fields and add it to the system. */
   public static PointDescription factory(String[] names, String longdesc, String shortdesc, String units, String source, String[] inputs, String[] outputs,
       String[] translate, String[] limits, String[] archives, String[] notifications, String period, String archivelife, String guidance, String priority,
       boolean enabled) {
+    PointDescription result = create(names, longdesc, shortdesc, units, source, inputs, outputs, translate, limits, archives, notifications, period,
+        archivelife, guidance, priority, enabled);
+    addPoint(result);
+    return result;
+  }
+
+  /** Construct a new monitor point from the given fields, without adding it to the system. */
+  public static PointDescription create(String[] names, String longdesc, String shortdesc, String units, String source, String[] inputs, String[] outputs,
+      String[] translate, String[] limits, String[] archives, String[] notifications, String period, String archivelife, String guidance, String priority,
+      boolean enabled) {
     PointDescription result = new PointDescription();
     result.setNames(names);
     result.setLongDesc(longdesc);
@@ -854,7 +883,6 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     result.setGuidance(guidance);
     result.setPriority(priority);
     result.setEnabled(enabled);
-    addPoint(result);
     return result;
   }
 
@@ -876,6 +904,9 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
 
   /** OK, maybe new raw data has been collected */
   public synchronized void firePointEvent(PointEvent pe) {
+    if (itsRemoved) {
+      return;
+    }
     PointData data = pe.getPointData();
     if (pe.isRaw()) {
       // This is a raw event, we need to translate the data
@@ -960,11 +991,8 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
 
       // Archive data
       if (itsArchiver != null && itsEnabled) {
-        for (int i = 0; i < itsArchive.length; i++) {
-          if (itsArchive[i] != null && itsArchive[i].checkArchiveThis(data)) {
-            itsArchiver.archiveData(this, data);
-            break;
-          }
+        if (itsArchiveEvaluator != null) {
+          itsArchiveEvaluator.archive(this, itsArchiver, data);
         }
       }
     }
@@ -1071,8 +1099,20 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
   /** Map of all points (excluding aliases) indexed by name. */
   private static TreeMap<String, PointDescription> theirUniquePoints = new TreeMap<String, PointDescription>();
 
+  /**
+   * Metadata generation number, which changes whenever the set of points is modified. The start time of the server occupies the
+   * upper bits so that the generation also changes when the server is restarted.
+   */
+  private static long theirGeneration = (System.currentTimeMillis() / 1000) << 24;
+
+  /** Return the current metadata generation number. */
+  public static synchronized long getGeneration() {
+    return theirGeneration;
+  }
+
   /** Add a new point to the running system. */
   public static synchronized void addPoint(PointDescription pm) {
+    theirGeneration++;
     String[] names = pm.getFullNames();
     if (!theirUniquePoints.containsKey(names[0])) {
       theirUniquePoints.put(names[0], pm);
@@ -1084,6 +1124,20 @@ public class PointDescription implements ActionListener, NamedObject, Comparable
     }
   }
 
+  /** Remove a point, and any aliases which refer to it, from the running system. */
+  public static synchronized void removePoint(PointDescription pm) {
+    theirGeneration++;
+    String[] names = pm.getFullNames();
+    for (int i = 0; i < names.length; i++) {
+      if (theirPoints.get(names[i]) == pm) {
+        theirPoints.remove(names[i]);
+      }
+      if (theirUniquePoints.get(names[i]) == pm) {
+        theirUniquePoints.remove(names[i]);
+      }
+    }
+  }
+
   /** Returns all the point names (including aliases) in the system */
   public static synchronized String[] getAllPointNames() {
     return MonitorUtils.toStringArray(theirPoints.keySet().toArray());
@@ -391,10 +391,23 @@ public class SavedSetup extends HashMap<String, String> implements NamedObject,
    * @return Vector containing the setups, possibly empty.
    */
   public static Vector<SavedSetup> parseFile(Reader setupfile) throws Exception {
+    return parseFile(setupfile, new Hashtable<String, String>());
+  }
+
+  /**
+   * Recover the SavedSetups stored in the file.
+   * 
+   * @param setupfile
+   *          The file containing the SavedSetups.
+   * @param macros
+   *          The macros defined by earlier files, which receives any the file defines.
+   * @return Vector containing the setups, possibly empty.
+   */
+  public static Vector<SavedSetup> parseFile(Reader setupfile, Hashtable<String, String> macros) throws Exception {
     Vector<SavedSetup> res = new Vector<SavedSetup>();
 
     // Pre-process the file, exit if empty
-    String[] lines = MonitorUtils.parseFile(setupfile);
+    String[] lines = MonitorUtils.parseFile(setupfile, macros);
     if (lines == null) {
       return res;
     }
@@ -0,0 +1,206 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.apache.log4j.Logger;
+
+import atnf.atoms.mon.util.MonitorConfig;
+import atnf.atoms.mon.util.RADIUSAuthenticator;
+
+/**
+ * Caches validated credentials and issues session tokens so that clients which make frequent authenticated requests do not need
+ * to pay for an RSA decryption and a RADIUS round trip on every call.
+ *
+ * <P>
+ * Credentials are cached against a digest of the decrypted username/password and the client host, for
+ * <tt>CredentialCacheTTL</tt> seconds, so a cached entry can only be used by a client which knows the password. Session tokens
+ * are issued by <tt>login</tt>, are only valid from the host which requested them and expire <tt>SessionTokenLifetime</tt>
+ * seconds after they were issued.
+ */
+public class SessionManager {
+  /** Logger. */
+  private static Logger theirLogger = Logger.getLogger(SessionManager.class.getName());
+
+  /** Lifetime of session tokens (ms). */
+  private static long theirTokenLifetime = 3600000;
+
+  /** Time to cache validated credentials (ms). */
+  private static long theirCredentialTTL = 300000;
+
+  /** Validated credentials, keyed by digest. */
+  private static HashMap<String, Session> theirCredentials = new HashMap<String, Session>();
+
+  /** Current sessions, keyed by token. */
+  private static HashMap<String, Session> theirSessions = new HashMap<String, Session>();
+
+  /** For generating session tokens. */
+  private static SecureRandom theirRandom = new SecureRandom();
+
+  /** Time at which expired entries were last purged. */
+  private static long theirLastPurge = System.currentTimeMillis();
+
+  static {
+    try {
+      theirTokenLifetime = 1000l * Long.parseLong(MonitorConfig.getProperty("SessionTokenLifetime", "" + theirTokenLifetime / 1000));
+      theirCredentialTTL = 1000l * Long.parseLong(MonitorConfig.getProperty("CredentialCacheTTL", "" + theirCredentialTTL / 1000));
+    } catch (Exception e) {
+      theirLogger.warn("Error parsing session configuration parameters, using defaults: " + e);
+    }
+  }
+
+  /** Records the authenticated user, the host they connected from and when the entry expires. */
+  private static class Session {
+    public String username;
+    public String host;
+    public long expiry;
+
+    public Session(String username, String host, long expiry) {
+      this.username = username;
+      this.host = host;
+      this.expiry = expiry;
+    }
+  }
+
+  /**
+   * Return the user name if the credentials have been validated for this host recently, or null if they need to be checked.
+   */
+  private static String getCachedUser(String username, String password, String host) {
+    if (theirCredentialTTL <= 0) {
+      return null;
+    }
+    String key = digest(username, password, host);
+    synchronized (theirCredentials) {
+      Session s = theirCredentials.get(key);
+      if (s != null && s.expiry > System.currentTimeMillis()) {
+        return s.username;
+      }
+    }
+    return null;
+  }
+
+  /** Record that the credentials have been validated for the given user and host. */
+  private static void cacheUser(String user, String password, String host, String username) {
+    if (theirCredentialTTL <= 0) {
+      return;
+    }
+    String key = digest(user, password, host);
+    synchronized (theirCredentials) {
+      theirCredentials.put(key, new Session(username, host, System.currentTimeMillis() + theirCredentialTTL));
+    }
+    purge();
+  }
+
+  /**
+   * Authenticate the decrypted username and password, using the cache if they have been validated recently.
+   *
+   * @return True if the credentials are valid.
+   */
+  public static boolean authenticate(String username, String password, String host) {
+    if (username.equals(getCachedUser(username, password, host))) {
+      return true;
+    }
+    if (RADIUSAuthenticator.authenticate(username, password, host)) {
+      cacheUser(username, password, host, username);
+      return true;
+    }
+    return false;
+  }
+
+  /** Create a new session for a user who has already been authenticated and return the token. */
+  public static String createSession(String username, String host) {
+    byte[] bytes = new byte[16];
+    String token;
+    synchronized (theirRandom) {
+      theirRandom.nextBytes(bytes);
+    }
+    token = new BigInteger(1, bytes).toString(16);
+    synchronized (theirSessions) {
+      theirSessions.put(token, new Session(username, host, System.currentTimeMillis() + theirTokenLifetime));
+    }
+    theirLogger.debug("Created session for \"" + username + "@" + host + "\"");
+    purge();
+    return token;
+  }
+
+  /** Return the user name associated with the token, or null if the token is invalid, expired or was issued to another host. */
+  public static String getSessionUser(String token, String host) {
+    if (token == null) {
+      return null;
+    }
+    synchronized (theirSessions) {
+      Session s = theirSessions.get(token);
+      if (s == null) {
+        return null;
+      }
+      if (s.expiry <= System.currentTimeMillis()) {
+        theirSessions.remove(token);
+        return null;
+      }
+      if (!s.host.equals(host)) {
+        theirLogger.warn("Session token for \"" + s.username + "@" + s.host + "\" presented from " + host);
+        return null;
+      }
+      return s.username;
+    }
+  }
+
+  /** Invalidate the session token. Returns false if there was no such session. */
+  public static boolean endSession(String token) {
+    synchronized (theirSessions) {
+      return theirSessions.remove(token) != null;
+    }
+  }
+
+  /** Remove expired entries, at most once per minute. */
+  private static void purge() {
+    long now = System.currentTimeMillis();
+    synchronized (SessionManager.class) {
+      if (now - theirLastPurge < 60000) {
+        return;
+      }
+      theirLastPurge = now;
+    }
+    purge(theirCredentials, now);
+    purge(theirSessions, now);
+  }
+
+  /** Remove expired entries from the map. */
+  private static void purge(HashMap<String, Session> map, long now) {
+    synchronized (map) {
+      Iterator<Session> i = map.values().iterator();
+      while (i.hasNext()) {
+        if (i.next().expiry <= now) {
+          i.remove();
+        }
+      }
+    }
+  }
+
+  /** Return a digest of the credentials so that they do not need to be held in memory. */
+  private static String digest(String username, String password, String host) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      md.update(username.getBytes("UTF-8"));
+      md.update((byte) 0);
+      md.update(password.getBytes("UTF-8"));
+      md.update((byte) 0);
+      md.update(host.getBytes("UTF-8"));
+      return new BigInteger(1, md.digest()).toString(16);
+    } catch (Exception e) {
+      // SHA-256 and UTF-8 are always available
+      throw new RuntimeException(e);
+    }
+  }
+}
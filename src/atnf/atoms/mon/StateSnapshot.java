@@ -0,0 +1,550 @@
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+import atnf.atoms.mon.translation.Translation;
+import atnf.atoms.mon.util.MonitorConfig;
+import atnf.atoms.mon.util.MonitorUtils;
+import atnf.atoms.time.*;
+
+/**
+ * Saves the run-time state of the points to a local file, so that it can be restored when the server is restarted. The state
+ * consists of the data in the <tt>PointBuffer</tt>, including the latest value, the acknowledgement and shelving of alarms, and the
+ * internal state of any translations which support it.
+ *
+ * <P>
+ * The state is saved every <tt>StateSnapshotInterval</tt> seconds and when the server shuts down, to the file named by the
+ * <tt>StateSnapshotFile</tt> property. No state is saved if the property is not set. At startup the file is loaded before the
+ * points are created, so that translations can tell whether their state will be restored, and it is applied to the points before
+ * data collection starts.
+ */
+public class StateSnapshot {
+  /** Logger. */
+  private static Logger theirLogger = Logger.getLogger(StateSnapshot.class.getName());
+
+  /** Identifies a snapshot file. */
+  private static final String SNAPSHOTMAGIC = "MoniCA state snapshot";
+
+  /** Version of the snapshot file format. */
+  private static final int SNAPSHOTVERSION = 2;
+
+  /** Codes identifying the type of each value. */
+  private static final byte NULL = 0;
+  private static final byte DOUBLE = 1;
+  private static final byte FLOAT = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte BOOLEAN = 7;
+  private static final byte STRING = 8;
+  private static final byte ABSTIME = 9;
+  private static final byte RELTIME = 10;
+  private static final byte SERIALIZED = 11;
+
+  /** The file the state is saved to, or null if the state is not saved. */
+  private static File theirFile = null;
+
+  /** Interval (ms) between snapshots. */
+  private static long theirInterval = 300000;
+
+  /** The state loaded from the snapshot, indexed by point name, until it has been restored. */
+  private static HashMap<String, SavedState> theirSavedStates = null;
+
+  /** The time the loaded snapshot was saved. */
+  private static AbsTime theirSavedTime = null;
+
+  /** Timer which saves the periodic snapshots. */
+  private static Timer theirTimer = null;
+
+  static {
+    if (MonitorConfig.getProperty("StateSnapshotFile") != null) {
+      theirFile = new File(MonitorConfig.getProperty("StateSnapshotFile"));
+    }
+    try {
+      theirInterval = 1000 * Long.parseLong(MonitorConfig.getProperty("StateSnapshotInterval", "" + theirInterval / 1000));
+    } catch (Exception e) {
+      theirLogger.error("Error parsing StateSnapshotInterval property, using default of " + theirInterval / 1000 + " seconds");
+    }
+  }
+
+  /** The state of a single point, as loaded from the snapshot. */
+  private static class SavedState {
+    Vector<PointData> itsData = new Vector<PointData>();
+    boolean itsHasAlarm = false;
+    boolean itsAcked;
+    String itsAckedBy;
+    AbsTime itsAckedAt;
+    boolean itsShelved;
+    String itsShelvedBy;
+    AbsTime itsShelvedAt;
+    Vector<Integer> itsTranslationIndices = new Vector<Integer>();
+    Vector<String> itsTranslationClasses = new Vector<String>();
+    Vector<String> itsTranslationDefinitions = new Vector<String>();
+    Vector<byte[]> itsTranslationStates = new Vector<byte[]>();
+  }
+
+  /** Check if saving the state is enabled. */
+  public static boolean isEnabled() {
+    return theirFile != null;
+  }
+
+  /**
+   * Check if the state of a translation will be restored from the snapshot which has been loaded. This is the case if the snapshot
+   * contains state for a translation of the point with the same class and arguments, which is still defined at the same position.
+   * Translations can use this to avoid initialising state which will be restored.
+   *
+   * @param point
+   *          The point the translation belongs to, which needn't have been added to the system yet.
+   * @param classname
+   *          The class name of the translation.
+   * @param args
+   *          The arguments of the translation.
+   * @return The time the snapshot was saved, or null if the state won't be restored.
+   */
+  public static synchronized AbsTime getTranslationStateTime(PointDescription point, String classname, String[] args) {
+    if (theirSavedStates == null) {
+      return null;
+    }
+    SavedState state = theirSavedStates.get(point.getFullName());
+    if (state == null) {
+      return null;
+    }
+    String[] defs = point.getTranslationsAsStrings();
+    for (int i = 0; i < state.itsTranslationStates.size(); i++) {
+      int index = state.itsTranslationIndices.get(i).intValue();
+      String def = state.itsTranslationDefinitions.get(i);
+      if (state.itsTranslationClasses.get(i).equals(classname) && defs != null && index < defs.length && def.equals(defs[index])
+          && Arrays.equals(args, MonitorUtils.tokToStringArray(def.substring(def.indexOf("-") + 1)))) {
+        return theirSavedTime;
+      }
+    }
+    return null;
+  }
+
+  /** Load the snapshot file, if there is one. This must be called before the points are created. */
+  public static synchronized void load() {
+    if (theirFile == null || !theirFile.exists()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(theirFile), 65536)));
+      if (!in.readUTF().equals(SNAPSHOTMAGIC) || in.readInt() != SNAPSHOTVERSION) {
+        theirLogger.warn("State snapshot \"" + theirFile + "\" has an unknown format, ignoring it");
+        return;
+      }
+      AbsTime saved = AbsTime.factory(in.readLong());
+      HashMap<String, SavedState> states = new HashMap<String, SavedState>();
+      while (in.readBoolean()) {
+        String name = readString(in);
+        SavedState state = new SavedState();
+        int numdata = in.readInt();
+        for (int j = 0; j < numdata; j++) {
+          state.itsData.add(readPointData(in, name));
+        }
+        state.itsHasAlarm = in.readBoolean();
+        if (state.itsHasAlarm) {
+          state.itsAcked = in.readBoolean();
+          state.itsAckedBy = readString(in);
+          state.itsAckedAt = readTime(in);
+          state.itsShelved = in.readBoolean();
+          state.itsShelvedBy = readString(in);
+          state.itsShelvedAt = readTime(in);
+        }
+        int numtrans = in.readInt();
+        for (int j = 0; j < numtrans; j++) {
+          state.itsTranslationIndices.add(new Integer(in.readInt()));
+          state.itsTranslationClasses.add(readString(in));
+          state.itsTranslationDefinitions.add(readString(in));
+          byte[] bytes = new byte[in.readInt()];
+          in.readFully(bytes);
+          state.itsTranslationStates.add(bytes);
+        }
+        states.put(name, state);
+      }
+      theirSavedStates = states;
+      theirSavedTime = saved;
+      theirLogger.info("Loaded state of " + states.size() + " points saved at " + saved.toString(AbsTime.Format.UTC_STRING) + " from \""
+          + theirFile + "\" (" + theirFile.length() + " bytes) in " + (System.currentTimeMillis() - start) + " ms");
+    } catch (Exception e) {
+      theirLogger.warn("Error reading state snapshot \"" + theirFile + "\": " + e);
+    } finally {
+      if (in != null) {
+        try {
+          in.close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
+  /**
+   * Apply the loaded state to the points, which must have been created, then start saving periodic snapshots. This should be
+   * called before data collection starts.
+   */
+  public static synchronized void restore() {
+    if (theirSavedStates != null) {
+      long start = System.currentTimeMillis();
+      int numrestored = 0;
+      Iterator<Map.Entry<String, SavedState>> it = theirSavedStates.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<String, SavedState> entry = it.next();
+        PointDescription point = PointDescription.getPoint(entry.getKey());
+        if (point != null) {
+          try {
+            restore(point, entry.getValue());
+            numrestored++;
+          } catch (Exception e) {
+            theirLogger.warn("Error restoring state of " + point.getFullName() + ": " + e);
+          }
+        }
+      }
+      theirLogger.info("Restored state of " + numrestored + " points in " + (System.currentTimeMillis() - start) + " ms");
+      theirSavedStates = null;
+      theirSavedTime = null;
+    }
+
+    if (theirFile != null && theirTimer == null) {
+      theirTimer = new Timer("StateSnapshot", true);
+      theirTimer.schedule(new TimerTask() {
+        public void run() {
+          save(true);
+        }
+      }, theirInterval, theirInterval);
+    }
+  }
+
+  /** Restore the state of a single point. */
+  private static void restore(PointDescription point, SavedState state) throws IOException {
+    for (int i = 0; i < state.itsData.size(); i++) {
+      PointBuffer.updateData(point, state.itsData.get(i));
+    }
+
+    if (state.itsHasAlarm && AlarmManager.getAlarm(point) != null) {
+      Alarm alarm;
+      if (state.itsData.isEmpty()) {
+        alarm = new Alarm(point);
+      } else {
+        alarm = new Alarm(point, state.itsData.lastElement());
+      }
+      alarm.setAcknowledged(state.itsAcked, state.itsAckedBy, state.itsAckedAt);
+      alarm.setShelved(state.itsShelved, state.itsShelvedBy, state.itsShelvedAt);
+      AlarmManager.restoreAlarm(point, alarm);
+    }
+
+    Translation[] translations = point.getTranslations();
+    for (int i = 0; i < state.itsTranslationStates.size(); i++) {
+      int index = state.itsTranslationIndices.get(i).intValue();
+      // Only restore the state if the translation hasn't been redefined
+      String[] defs = point.getTranslationsAsStrings();
+      if (translations != null && index < translations.length && translations[index] != null
+          && translations[index].getClass().getName().equals(state.itsTranslationClasses.get(i)) && defs != null && index < defs.length
+          && state.itsTranslationDefinitions.get(i).equals(defs[index])) {
+        translations[index].restoreState(new DataInputStream(new ByteArrayInputStream(state.itsTranslationStates.get(i))));
+      }
+    }
+  }
+
+  /** Save the state of all points to the snapshot file. */
+  public static void save() {
+    save(false);
+  }
+
+  /**
+   * Save the state of all points to the snapshot file.
+   *
+   * @param periodic
+   *          True for the periodic snapshots, which are only logged at debug level.
+   */
+  private static synchronized void save(boolean periodic) {
+    if (theirFile == null) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    File temp = new File(theirFile.getPath() + ".tmp");
+    DataOutputStream out = null;
+    try {
+      PointDescription[] points = PointDescription.getAllUniquePoints();
+      out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp), 65536)));
+      out.writeUTF(SNAPSHOTMAGIC);
+      out.writeInt(SNAPSHOTVERSION);
+      out.writeLong(new AbsTime().getValue());
+
+      // Only the points which have some state are saved, each preceded by a flag which is false at the end of the file
+      ByteArrayOutputStream transbytes = new ByteArrayOutputStream();
+      int num = 0;
+      for (int i = 0; i < points.length; i++) {
+        if (save(points[i], out, transbytes)) {
+          num++;
+        }
+      }
+      out.writeBoolean(false);
+      out.close();
+      out = null;
+      if (!temp.renameTo(theirFile)) {
+        theirFile.delete();
+        if (!temp.renameTo(theirFile)) {
+          throw new IOException("Couldn't rename " + temp);
+        }
+      }
+      String msg = "Saved state of " + num + " points to \"" + theirFile + "\" (" + theirFile.length() + " bytes) in "
+          + (System.currentTimeMillis() - start) + " ms";
+      if (periodic) {
+        theirLogger.debug(msg);
+      } else {
+        theirLogger.info(msg);
+      }
+    } catch (Exception e) {
+      theirLogger.warn("Error writing state snapshot \"" + theirFile + "\": " + e);
+      temp.delete();
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException e) {
+        }
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * Write the state of a single point, if it has any.
+   *
+   * @return True if the state was written.
+   */
+  private static boolean save(PointDescription point, DataOutputStream out, ByteArrayOutputStream transbytes) throws IOException {
+    Vector<PointData> data = PointBuffer.getBufferedData(point);
+    if (data != null) {
+      // Values which can't be written aren't saved
+      for (int i = data.size() - 1; i >= 0; i--) {
+        if (!canWrite(data.get(i).getData())) {
+          data.remove(i);
+        }
+      }
+    }
+    Alarm alarm = AlarmManager.getAlarm(point);
+    boolean savealarm = alarm != null && (alarm.isAcknowledged() || alarm.isShelved());
+
+    // Collect the state of any translations which have some
+    Vector<Integer> indices = null;
+    Vector<byte[]> states = null;
+    Translation[] translations = point.getTranslations();
+    String[] defs = point.getTranslationsAsStrings();
+    for (int i = 0; translations != null && i < translations.length; i++) {
+      if (translations[i] != null && defs != null && i < defs.length) {
+        transbytes.reset();
+        DataOutputStream transout = new DataOutputStream(transbytes);
+        try {
+          if (!translations[i].saveState(transout)) {
+            continue;
+          }
+          transout.flush();
+        } catch (Exception e) {
+          theirLogger.warn("Error saving state of translation " + (i + 1) + " of " + point.getFullName() + ": " + e);
+          continue;
+        }
+        if (indices == null) {
+          indices = new Vector<Integer>();
+          states = new Vector<byte[]>();
+        }
+        indices.add(new Integer(i));
+        states.add(transbytes.toByteArray());
+      }
+    }
+
+    if ((data == null || data.isEmpty()) && !savealarm && indices == null) {
+      return false;
+    }
+
+    out.writeBoolean(true);
+    writeString(out, point.getFullName());
+    if (data == null) {
+      out.writeInt(0);
+    } else {
+      out.writeInt(data.size());
+      for (int i = 0; i < data.size(); i++) {
+        writePointData(out, data.get(i));
+      }
+    }
+    out.writeBoolean(savealarm);
+    if (savealarm) {
+      out.writeBoolean(alarm.isAcknowledged());
+      writeString(out, alarm.getAckedBy());
+      writeTime(out, alarm.getAckedAt());
+      out.writeBoolean(alarm.isShelved());
+      writeString(out, alarm.getShelvedBy());
+      writeTime(out, alarm.getShelvedAt());
+    }
+    if (indices == null) {
+      out.writeInt(0);
+    } else {
+      out.writeInt(indices.size());
+      for (int i = 0; i < indices.size(); i++) {
+        int index = indices.get(i).intValue();
+        out.writeInt(index);
+        writeString(out, translations[index].getClass().getName());
+        writeString(out, defs[index]);
+        out.writeInt(states.get(i).length);
+        out.write(states.get(i));
+      }
+    }
+    return true;
+  }
+
+  /** Check if the value can be written to a snapshot. */
+  public static boolean canWrite(Object value) {
+    return value == null || value instanceof Serializable;
+  }
+
+  /** Write the timestamp, alarm flag and value of the data. The name is not written. */
+  public static void writePointData(DataOutput out, PointData data) throws IOException {
+    writeTime(out, data.getTimestamp());
+    out.writeBoolean(data.getAlarm());
+    writeValue(out, data.getData());
+  }
+
+  /** Read data written by <tt>writePointData</tt>. */
+  public static PointData readPointData(DataInput in, String name) throws IOException {
+    AbsTime ts = readTime(in);
+    boolean alarm = in.readBoolean();
+    return new PointData(name, ts, readValue(in), alarm);
+  }
+
+  /** Write a value, which must be one of the common types or else Serializable. */
+  public static void writeValue(DataOutput out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble(((Double) value).doubleValue());
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat(((Float) value).floatValue());
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt(((Integer) value).intValue());
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong(((Long) value).longValue());
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort(((Short) value).shortValue());
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte(((Byte) value).byteValue());
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean(((Boolean) value).booleanValue());
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    } else if (value instanceof AbsTime) {
+      out.writeByte(ABSTIME);
+      out.writeLong(((AbsTime) value).getValue());
+    } else if (value instanceof RelTime) {
+      out.writeByte(RELTIME);
+      out.writeLong(((RelTime) value).getValue());
+    } else {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try {
+        ObjectOutputStream oos = new ObjectOutputStream(bytes);
+        oos.writeObject(value);
+        oos.close();
+      } catch (NotSerializableException e) {
+        // Can't be saved
+        out.writeByte(NULL);
+        return;
+      }
+      out.writeByte(SERIALIZED);
+      out.writeInt(bytes.size());
+      out.write(bytes.toByteArray());
+    }
+  }
+
+  /** Read a value written by <tt>writeValue</tt>. */
+  public static Object readValue(DataInput in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+    case NULL:
+      return null;
+    case DOUBLE:
+      return new Double(in.readDouble());
+    case FLOAT:
+      return new Float(in.readFloat());
+    case INTEGER:
+      return new Integer(in.readInt());
+    case LONG:
+      return new Long(in.readLong());
+    case SHORT:
+      return new Short(in.readShort());
+    case BYTE:
+      return new Byte(in.readByte());
+    case BOOLEAN:
+      return new Boolean(in.readBoolean());
+    case STRING:
+      return readString(in);
+    case ABSTIME:
+      return AbsTime.factory(in.readLong());
+    case RELTIME:
+      return RelTime.factory(in.readLong());
+    case SERIALIZED:
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      try {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+      } catch (ClassNotFoundException e) {
+        throw new IOException("Unknown class " + e.getMessage());
+      }
+    default:
+      throw new IOException("Unknown value type " + type);
+    }
+  }
+
+  /** Write a string, which may be null. */
+  private static void writeString(DataOutput out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes("UTF-8");
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  /** Read a string written by <tt>writeString</tt>. */
+  private static String readString(DataInput in) throws IOException {
+    int len = in.readInt();
+    if (len < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[len];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  /** Write a timestamp, which may be null. */
+  private static void writeTime(DataOutput out, AbsTime t) throws IOException {
+    out.writeLong(t == null ? Long.MIN_VALUE : t.getValue());
+  }
+
+  /** Read a timestamp written by <tt>writeTime</tt>. */
+  private static AbsTime readTime(DataInput in) throws IOException {
+    long t = in.readLong();
+    return t == Long.MIN_VALUE ? null : AbsTime.factory(t);
+  }
+}
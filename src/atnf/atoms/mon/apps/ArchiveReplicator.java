@@ -8,6 +8,7 @@
 
 package atnf.atoms.mon.apps;
 
+import java.io.File;
 import java.util.*;
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.archiver.*;
@@ -67,10 +68,31 @@ class ArchiveReplicator
       System.exit(1);
     }
 
+    //GET ALL POINT DEFINITIONS AS A SNAPSHOT, REUSING OUR CACHED COPY IF IT IS CURRENT
+    TreeMap<String,PointDescriptionIce> snapshot = null;
+    try {
+      File cachefile = new File(System.getProperty("user.home"), ".MoniCA/points-" + args[0].replaceAll("[^A-Za-z0-9.-]", "_") + ".cache");
+      PointDescriptionIce[] icepoints = ((MoniCAClientIce)itsServer).getPointSnapshot(cachefile);
+      if (icepoints!=null) {
+        snapshot = new TreeMap<String,PointDescriptionIce>();
+        for (int i=0; i<icepoints.length; i++) {
+          for (int j=0; j<icepoints[i].names.length; j++) {
+            snapshot.put(icepoints[i].source + "." + icepoints[i].names[j], icepoints[i]);
+          }
+        }
+      }
+    } catch (Exception e) {
+      System.err.println("#WARNING: Could not get point snapshot from server: " + e.getMessage());
+    }
+
     //DETERMINE WHICH POINTS TO MIGRATE
     Vector <String> serverpoints = null;
     try {
-      serverpoints = itsServer.getAllPointNames();
+      if (snapshot!=null) {
+        serverpoints = new Vector<String>(snapshot.keySet());
+      } else {
+        serverpoints = itsServer.getAllPointNames();
+      }
     } catch (Exception e) {
       System.err.println("ERROR: Could not get list of point names from server: " + e.getMessage());
       System.exit(1);
@@ -109,7 +131,14 @@ class ArchiveReplicator
     //CREATE MONITOR POINT OBJECTS FOR EACH POINT
     Vector<PointDescription> points = null;
     try {
-      points = itsServer.getPoints(pointnames);
+      if (snapshot!=null) {
+        points = new Vector<PointDescription>(pointnames.size());
+        for (String point: pointnames) {
+          points.add(MoniCAIceUtil.getPointDescriptionFromIce(snapshot.get(point)));
+        }
+      } else {
+        points = itsServer.getPoints(pointnames);
+      }
     } catch (Exception e) {
       System.err.println("ERROR: Could not get point definitions from server: " + e.getMessage());
       System.exit(1);
@@ -18,12 +18,25 @@ import atnf.atoms.mon.*;
  * which returns <code>true</code> if the value should be archived or
  * <code>false</code> if this value doesn't need to be archived.
  * 
+ * <P>
+ * The number of updates for which the policy did or did not request archiving
+ * are counted, see <code>getNumArchived</code> and <code>getNumSuppressed</code>.
+ * 
  * @author Le Cuong Nguyen
  */
 public abstract class ArchivePolicy
 {
   /** The point that we are archiving. */
   protected PointDescription itsParent;
+
+  /** Number of updates for which this policy requested archiving. */
+  private volatile long itsNumArchived = 0;
+
+  /** Number of updates for which this policy did not request archiving. */
+  private volatile long itsNumSuppressed = 0;
+
+  /** Earlier data which the policy requested be archived during the last check, or null. */
+  private PointData itsLateData = null;
   
   /** Constructor. */
   protected ArchivePolicy(PointDescription parent, String[] args)
@@ -39,4 +52,68 @@ public abstract class ArchivePolicy
    * take place.
    */
   public abstract boolean checkArchiveThis(PointData data);
+
+  /**
+   * Check whether the data should be archived, counting the result.
+   * 
+   * @param data The latest data which may or may not be archived.
+   * @return True if the data should be archived.
+   */
+  public final boolean check(PointData data)
+  {
+    boolean res = checkArchiveThis(data);
+    if (res) {
+      itsNumArchived++;
+    } else {
+      itsNumSuppressed++;
+    }
+    return res;
+  }
+
+  /**
+   * Whether the policy needs to see every update to keep its internal state
+   * up to date, even once another policy has already decided that the data
+   * will be archived. Policies which base their decision only on the current
+   * data should override this to return false, so that they can be skipped.
+   */
+  public boolean needsAllData()
+  {
+    return true;
+  }
+
+  /**
+   * Request that earlier data, which is no longer the current data of the
+   * point, be archived. This is for policies which can only tell that a value
+   * needed archiving once later data has been received. The data is written
+   * by the ArchivePolicyEvaluator, before the latest data, and is counted as
+   * archived.
+   */
+  protected void archiveLate(PointData data)
+  {
+    itsLateData = data;
+    itsNumArchived++;
+  }
+
+  /**
+   * Get the earlier data which the policy requested be archived during the
+   * last check, if any, and clear the request.
+   */
+  PointData takeLateData()
+  {
+    PointData res = itsLateData;
+    itsLateData = null;
+    return res;
+  }
+
+  /** Get the number of updates for which this policy requested archiving. */
+  public long getNumArchived()
+  {
+    return itsNumArchived;
+  }
+
+  /** Get the number of updates for which this policy did not request archiving. */
+  public long getNumSuppressed()
+  {
+    return itsNumSuppressed;
+  }
 }
@@ -26,4 +26,9 @@ public class ArchivePolicyAlarm extends ArchivePolicy
   {
     return data.getAlarm();
   }
+
+  public boolean needsAllData()
+  {
+    return false;
+  }
 }
@@ -26,4 +26,9 @@ public class ArchivePolicyAll extends ArchivePolicy
   {
     return true;
   }
+
+  public boolean needsAllData()
+  {
+    return false;
+  }
 }
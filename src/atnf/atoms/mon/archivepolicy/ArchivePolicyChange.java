@@ -8,7 +8,6 @@
 
 package atnf.atoms.mon.archivepolicy;
 
-import java.lang.reflect.*;
 import atnf.atoms.time.*;
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.util.MonitorUtils;
@@ -44,7 +43,7 @@ public class ArchivePolicyChange extends ArchivePolicy
   boolean itsDelta = false;
 
   /** The absolute or relative change threshold. */
-  float itsChangeThreshold;
+  double itsChangeThreshold;
 
   public ArchivePolicyChange(PointDescription parent, String[] args)
   {
@@ -57,7 +56,7 @@ public class ArchivePolicyChange extends ArchivePolicy
       } else {
         itsDelta = true;
       }
-      itsChangeThreshold = Float.parseFloat(args[0]);
+      itsChangeThreshold = Double.parseDouble(args[0]);
     }
   }
 
@@ -80,44 +79,63 @@ public class ArchivePolicyChange extends ArchivePolicy
     }
 
     if (newData instanceof Number && itsLastSaveData instanceof Number) {
-      float delta = Math.abs(((Number) (newData)).floatValue() - ((Number) (itsLastSaveData)).floatValue());
+      Number newnum = (Number) newData;
+      Number lastnum = (Number) itsLastSaveData;
       if (itsDelta) {
-        if (delta >= itsChangeThreshold) {
-          itsLastSaveData = newData;
-          savenow = true;
-        }
+        savenow = getDelta(newnum, lastnum) >= itsChangeThreshold;
       } else if (itsPercentage) {
-        float percent = delta / Math.abs(((Number) (itsLastSaveData)).floatValue());
-        if (percent >= itsChangeThreshold) {
-          itsLastSaveData = newData;
-          savenow = true;
-        }
+        savenow = getDelta(newnum, lastnum) / Math.abs(lastnum.doubleValue()) >= itsChangeThreshold;
       } else {
-        if (delta != 0.0f) {
-          itsLastSaveData = newData;
-          savenow = true;
-        }
+        savenow = compare(newnum, lastnum) != 0;
       }
     } else if (newData instanceof AbsTime && itsLastSaveData instanceof AbsTime) {
-      if (!((AbsTime)newData).equiv(itsLastSaveData)) {
-        itsLastSaveData = newData;
-        savenow = true;
-      }
+      savenow = !((AbsTime) newData).equiv(itsLastSaveData);
     } else if (newData instanceof RelTime && itsLastSaveData instanceof RelTime) {
-      if (!((RelTime)newData).equiv(itsLastSaveData)) {
-        itsLastSaveData = newData;
-        savenow = true;
-      }      
+      savenow = !((RelTime) newData).equiv(itsLastSaveData);
     } else {
-      try {
-        Method equalsMethod = newData.getClass().getMethod("equals", new Class[] { Object.class });
-        Object res = equalsMethod.invoke(newData, new Object[] { itsLastSaveData });
-        savenow = !((Boolean) res).booleanValue();
-        itsLastSaveData = newData;
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
+      // Strings, Booleans, enumerations etc all implement equals
+      savenow = !newData.equals(itsLastSaveData);
+    }
+    if (savenow) {
+      itsLastSaveData = newData;
     }
     return savenow;
   }
+
+  /** Check if the number is of an integral type which can be compared exactly as a long. */
+  static boolean isIntegral(Number n)
+  {
+    return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+  }
+
+  /**
+   * Compare two numbers in their native type, so that longs are compared without losing precision. Numbers of other types are
+   * compared as doubles.
+   * 
+   * @return Negative, zero or positive if a is less than, equal to or greater than b.
+   */
+  static int compare(Number a, Number b)
+  {
+    if (isIntegral(a) && isIntegral(b)) {
+      long la = a.longValue();
+      long lb = b.longValue();
+      return la < lb ? -1 : (la == lb ? 0 : 1);
+    } else {
+      return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+  }
+
+  /** Get the magnitude of the difference between two numbers, calculated in their native type. */
+  static double getDelta(Number a, Number b)
+  {
+    if (isIntegral(a) && isIntegral(b)) {
+      long la = a.longValue();
+      long lb = b.longValue();
+      // Differences which overflow a long are calculated as doubles instead
+      if ((la >= 0) == (lb >= 0)) {
+        return Math.abs((double) (la - lb));
+      }
+    }
+    return Math.abs(a.doubleValue() - b.doubleValue());
+  }
 }
@@ -0,0 +1,160 @@
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon.archivepolicy;
+
+import java.util.Vector;
+
+import atnf.atoms.mon.*;
+import atnf.atoms.mon.archiver.PointArchiver;
+
+/**
+ * Combines all of the ArchivePolicies of a point, so that the data is
+ * archived if any of the policies requests it.
+ *
+ * <P>
+ * Evaluation stops as soon as the outcome is known, except that policies
+ * which need to see every update to keep their state current (for instance
+ * Counter or Timer) are always evaluated. To make the most of this those
+ * policies are evaluated first and the others, such as All or Alarm, are only
+ * evaluated if none of the first group requested archiving.
+ *
+ * <P>
+ * The number of updates which were archived and suppressed are counted, so
+ * that the archive write rate of the point can be compared with its update
+ * rate.
+ */
+public class ArchivePolicyEvaluator
+{
+  /** The policies in their original order. */
+  private ArchivePolicy[] itsPolicies;
+
+  /** The policies which must see every update. */
+  private ArchivePolicy[] itsStateful;
+
+  /** The policies which can be skipped once the outcome is known. */
+  private ArchivePolicy[] itsStateless;
+
+  /** Number of updates which were archived. */
+  private volatile long itsNumArchived = 0;
+
+  /** Number of updates which were not archived. */
+  private volatile long itsNumSuppressed = 0;
+
+  public ArchivePolicyEvaluator(ArchivePolicy[] policies)
+  {
+    itsPolicies = policies;
+    Vector<ArchivePolicy> stateful = new Vector<ArchivePolicy>();
+    Vector<ArchivePolicy> stateless = new Vector<ArchivePolicy>();
+    for (int i = 0; i < policies.length; i++) {
+      if (policies[i] == null) {
+        continue;
+      }
+      if (policies[i].needsAllData()) {
+        stateful.add(policies[i]);
+      } else {
+        stateless.add(policies[i]);
+      }
+    }
+    itsStateful = stateful.toArray(new ArchivePolicy[0]);
+    itsStateless = stateless.toArray(new ArchivePolicy[0]);
+  }
+
+  /**
+   * Check if any of the policies requires the data to be archived.
+   *
+   * @param data The latest data which may or may not be archived.
+   * @return True if the data should be archived.
+   */
+  public boolean checkArchiveThis(PointData data)
+  {
+    boolean savenow = false;
+    for (int i = 0; i < itsStateful.length; i++) {
+      if (itsStateful[i].check(data)) {
+        savenow = true;
+      }
+    }
+    for (int i = 0; i < itsStateless.length && !savenow; i++) {
+      savenow = itsStateless[i].check(data);
+    }
+    if (savenow) {
+      itsNumArchived++;
+    } else {
+      itsNumSuppressed++;
+    }
+    return savenow;
+  }
+
+  /**
+   * Check if the data should be archived and pass it to the archiver if so,
+   * preceded by any earlier data which a policy, such as SwingingDoor,
+   * requested be archived late.
+   *
+   * @param point The point the data belongs to.
+   * @param archiver The archiver to write the data to.
+   * @param data The latest data which may or may not be archived.
+   * @return True if the latest data was archived.
+   */
+  public boolean archive(PointDescription point, PointArchiver archiver, PointData data)
+  {
+    boolean savenow = checkArchiveThis(data);
+    PointData lastlate = null;
+    for (int i = 0; i < itsPolicies.length; i++) {
+      if (itsPolicies[i] == null) {
+        continue;
+      }
+      PointData late = itsPolicies[i].takeLateData();
+      // Several policies may request the same earlier data
+      if (late != null && late != lastlate && late != data) {
+        archiver.archiveData(point, late);
+        lastlate = late;
+      }
+    }
+    if (savenow) {
+      archiver.archiveData(point, data);
+    }
+    return savenow;
+  }
+
+  /** Get the policies, in the order they were defined. */
+  public ArchivePolicy[] getPolicies()
+  {
+    return itsPolicies;
+  }
+
+  /** Get the number of updates which were archived. */
+  public long getNumArchived()
+  {
+    return itsNumArchived;
+  }
+
+  /** Get the number of updates which were not archived. */
+  public long getNumSuppressed()
+  {
+    return itsNumSuppressed;
+  }
+
+  /**
+   * Get a summary of the number of updates archived and suppressed in total
+   * and by each policy.
+   *
+   * @param names The string representation of each policy.
+   */
+  public String getSummary(String[] names)
+  {
+    StringBuffer res = new StringBuffer();
+    res.append("total: " + itsNumArchived + " archived, " + itsNumSuppressed + " suppressed");
+    for (int i = 0; i < itsPolicies.length; i++) {
+      if (itsPolicies[i] != null) {
+        String name = (names != null && i < names.length) ? names[i] : itsPolicies[i].getClass().getSimpleName();
+        res.append("\n" + name + ": " + itsPolicies[i].getNumArchived() + " archived, " + itsPolicies[i].getNumSuppressed()
+            + " suppressed");
+      }
+    }
+    return res.toString();
+  }
+}
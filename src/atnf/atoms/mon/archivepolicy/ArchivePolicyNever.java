@@ -27,4 +27,9 @@ public class ArchivePolicyNever extends ArchivePolicy
   {
     return false;
   }
+
+  public boolean needsAllData()
+  {
+    return false;
+  }
 }
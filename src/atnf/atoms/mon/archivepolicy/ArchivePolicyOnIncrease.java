@@ -42,7 +42,7 @@ public class ArchivePolicyOnIncrease extends ArchivePolicy
     if (olddata == null || newdata == null) {
       return false;
     } else {
-      if (newdata.doubleValue() > itsLastData.doubleValue()) {
+      if (ArchivePolicyChange.compare(newdata, olddata) > 0) {
         return true;
       } else {
         return false;
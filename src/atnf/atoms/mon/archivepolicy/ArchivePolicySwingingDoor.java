@@ -0,0 +1,228 @@
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+//
+
+package atnf.atoms.mon.archivepolicy;
+
+import java.util.Vector;
+
+import atnf.atoms.time.*;
+import atnf.atoms.mon.*;
+
+/**
+ * Archives numeric data using swinging door compression, so that the signal
+ * can be reconstructed to within a given tolerance by linearly interpolating
+ * between the archived values.
+ *
+ * <P>
+ * Starting from the last archived value, the policy tracks the range of
+ * slopes of lines which pass within the tolerance of every value received
+ * since. While the line to the newest value lies within that range, all of
+ * the intermediate values can be reconstructed from its end points. When it
+ * doesn't the "door" closes: the previous value, which is the end of the last
+ * line that did fit, is archived and becomes the start of the next line.
+ * Since the previous value is no longer the current data of the point, it is
+ * requested with <code>archiveLate</code> and written by the
+ * ArchivePolicyEvaluator.
+ *
+ * <P>
+ * The first argument is the tolerance, in the units of the point. The
+ * optional second argument is the maximum time in seconds between archived
+ * values, after which the current value is archived regardless. Since a value
+ * is only archived once a later value has been received, this also limits how
+ * long the archive can lag the point. Null, non-numeric, NaN and infinite
+ * values are always archived, along with the end of the line before them.
+ *
+ * <P>
+ * Examples: <bl>
+ * <li><b>SwingingDoor-"0.1"</b> Archive enough data to reconstruct the value
+ * to within 0.1.
+ * <li><b>SwingingDoor-"0.05""600"</b> Reconstruct to within 0.05, archiving
+ * at least every ten minutes. </bl>
+ *
+ * <P>
+ * The static <code>interpolate</code> and <code>reconstruct</code> methods can
+ * be used to rebuild the signal from the archived data.
+ */
+public class ArchivePolicySwingingDoor extends ArchivePolicy
+{
+  /** The maximum deviation of the reconstructed signal. */
+  double itsTolerance;
+
+  /** Maximum time (us) between archived values, or 0 for no limit. */
+  long itsMaxInterval = 0;
+
+  /** The last data which was archived, or null if the next value should be archived. */
+  PointData itsLastSaveData = null;
+
+  /** The last data received. */
+  PointData itsLastData = null;
+
+  /** The smallest slope (per us) of a line which fits all data since the last archived value. */
+  double itsMinSlope;
+
+  /** The largest slope (per us) of a line which fits all data since the last archived value. */
+  double itsMaxSlope;
+
+  public ArchivePolicySwingingDoor(PointDescription parent, String[] args)
+  {
+    super(parent, args);
+    itsTolerance = Math.abs(Double.parseDouble(args[0]));
+    if (args.length > 1) {
+      itsMaxInterval = (long) (1000000 * Double.parseDouble(args[1]));
+    }
+  }
+
+  public boolean checkArchiveThis(PointData data)
+  {
+    Object newdata = data.getData();
+    boolean finite = newdata instanceof Number && !Double.isNaN(((Number) newdata).doubleValue())
+        && !Double.isInfinite(((Number) newdata).doubleValue());
+    if (!finite || itsLastSaveData == null) {
+      if (itsLastSaveData != null && itsLastData != itsLastSaveData
+          && itsLastData.getTimestamp().isBefore(data.getTimestamp())) {
+        // Archive the end of the current line so that it can still be reconstructed
+        archiveLate(itsLastData);
+      }
+      // Restart compression from this value, or from the next one if it can't be interpolated
+      if (finite) {
+        startDoor(data);
+      } else {
+        itsLastSaveData = null;
+      }
+      itsLastData = data;
+      return true;
+    }
+
+    long dt = data.getTimestamp().getValue() - itsLastSaveData.getTimestamp().getValue();
+    if (dt <= 0) {
+      // Out of order or repeated timestamp, ignore
+      return false;
+    }
+    if (itsMaxInterval > 0 && dt >= itsMaxInterval) {
+      startDoor(data);
+      itsLastData = data;
+      return true;
+    }
+
+    double value = ((Number) newdata).doubleValue();
+    if (!fitDoor(value, dt)) {
+      // The door has closed, archive the previous value and start a new door from it
+      archiveLate(itsLastData);
+      startDoor(itsLastData);
+      dt = data.getTimestamp().getValue() - itsLastSaveData.getTimestamp().getValue();
+      if (dt <= 0) {
+        // Repeated timestamp, ignore
+        return false;
+      }
+      if (itsMaxInterval > 0 && dt >= itsMaxInterval) {
+        startDoor(data);
+        itsLastData = data;
+        return true;
+      }
+      // A new door fits any finite value
+      fitDoor(value, dt);
+    }
+    itsLastData = data;
+    return false;
+  }
+
+  /**
+   * Narrow the door to also fit the value, if the line to it from the last
+   * archived value lies within the door.
+   *
+   * @param value The new value.
+   * @param dt Time (us) since the last archived value.
+   * @return True if the value fit, False if the door has closed.
+   */
+  private boolean fitDoor(double value, long dt)
+  {
+    double start = ((Number) itsLastSaveData.getData()).doubleValue();
+    double slope = (value - start) / dt;
+    if (slope >= itsMinSlope && slope <= itsMaxSlope) {
+      itsMinSlope = Math.max(itsMinSlope, (value - itsTolerance - start) / dt);
+      itsMaxSlope = Math.min(itsMaxSlope, (value + itsTolerance - start) / dt);
+      return true;
+    }
+    return false;
+  }
+
+  /** Start a new door from the given archived data. */
+  private void startDoor(PointData data)
+  {
+    itsLastSaveData = data;
+    itsMinSlope = Double.NEGATIVE_INFINITY;
+    itsMaxSlope = Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Reconstruct the value at the given time by linear interpolation between
+   * the archived data.
+   *
+   * @param data The archived data, in time order.
+   * @param ts The time of interest.
+   * @return The reconstructed value, or null if the time is outside the
+   * range of the data or adjacent to a null or non-numeric value.
+   */
+  public static Double interpolate(Vector<PointData> data, AbsTime ts)
+  {
+    long t = ts.getValue();
+    // Binary search for the first data after the time of interest
+    int lo = 0;
+    int hi = data.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (data.get(mid).getTimestamp().getValue() <= t) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    if (lo == 0) {
+      return null;
+    }
+    PointData before = data.get(lo - 1);
+    if (!(before.getData() instanceof Number)) {
+      return null;
+    }
+    double v0 = ((Number) before.getData()).doubleValue();
+    long t0 = before.getTimestamp().getValue();
+    if (t0 == t) {
+      return new Double(v0);
+    }
+    if (lo == data.size() || !(data.get(lo).getData() instanceof Number)) {
+      return null;
+    }
+    PointData after = data.get(lo);
+    double v1 = ((Number) after.getData()).doubleValue();
+    long t1 = after.getTimestamp().getValue();
+    return new Double(v0 + (v1 - v0) * (t - t0) / (double) (t1 - t0));
+  }
+
+  /**
+   * Reconstruct the signal at regular intervals from the archived data.
+   *
+   * @param data The archived data, in time order.
+   * @param start The time of the first reconstructed value.
+   * @param end The latest time for which a value may be reconstructed.
+   * @param step The interval between reconstructed values.
+   * @return The reconstructed data, which has null values at times where the
+   * signal couldn't be reconstructed.
+   */
+  public static Vector<PointData> reconstruct(Vector<PointData> data, AbsTime start, AbsTime end, RelTime step)
+  {
+    Vector<PointData> res = new Vector<PointData>();
+    if (step.getValue() <= 0) {
+      return res;
+    }
+    String name = data.isEmpty() ? null : data.get(0).getName();
+    for (AbsTime t = start; !t.isAfter(end); t = t.add(step)) {
+      res.add(new PointData(name, t, interpolate(data, t)));
+    }
+    return res;
+  }
+}
@@ -192,6 +192,105 @@ public abstract class PointArchiver extends Thread {
    */
   protected abstract Vector<PointData> extractDeep(PointDescription pm, AbsTime start, AbsTime end);
 
+  /**
+   * Accumulate statistics for the archived data over the time range. Data which have not been written out yet are taken from the
+   * buffer and the rest is passed to <i>aggregateDeep</i>. If the archiver can't compute the statistics itself the data are
+   * extracted from the archive a chunk at a time, so that the query isn't clipped at <tt>ArchiveMaxRecords</tt>.
+   *
+   * @param pm
+   *          Point to compute statistics for.
+   * @param start
+   *          Earliest time in the range of interest.
+   * @param end
+   *          Most recent time in the range of interest.
+   * @param agg
+   *          The statistics to add the data to.
+   */
+  public void aggregate(PointDescription pm, AbsTime start, AbsTime end, Aggregator agg) {
+    // Copy any data which are yet to be written out
+    Vector<PointData> unflushed = new Vector<PointData>();
+    Vector<PointData> buffer = itsBuffer.get(pm);
+    if (buffer != null) {
+      synchronized (buffer) {
+        for (int i = 0; i < buffer.size(); i++) {
+          PointData pd = buffer.get(i);
+          if (pd.getTimestamp().isAfterOrEquals(start) && pd.getTimestamp().isBeforeOrEquals(end)) {
+            unflushed.add(pd);
+          }
+        }
+      }
+    }
+
+    // Anything older is on disk
+    AbsTime diskend = end;
+    if (!unflushed.isEmpty()) {
+      diskend = unflushed.firstElement().getTimestamp().add(RelTime.factory(-1));
+    }
+    try {
+      if (diskend.isAfterOrEquals(start) && !aggregateDeep(pm, start, diskend, agg)) {
+        AbsTime chunkstart = start;
+        // Number of rows at chunkstart which were already counted from the previous chunk
+        int skip = 0;
+        while (true) {
+          Vector<PointData> chunk = extractDeep(pm, chunkstart, diskend);
+          if (chunk == null || chunk.isEmpty()) {
+            break;
+          }
+          int i = 0;
+          while (i < skip && i < chunk.size() && chunk.get(i).getTimestamp().getValue() == chunkstart.getValue()) {
+            i++;
+          }
+          for (; i < chunk.size(); i++) {
+            agg.add(chunk.get(i));
+          }
+          if (chunk.size() < getMaxNumRecords()) {
+            // Query wasn't clipped so we have everything
+            break;
+          }
+          // The query may have been clipped part way through the rows for the last timestamp, so the next chunk starts there
+          AbsTime last = chunk.lastElement().getTimestamp();
+          if (last.getValue() == chunkstart.getValue()) {
+            // The whole chunk has the same timestamp so we can't page through it
+            itsLogger.warn("More than " + getMaxNumRecords() + " archived values for " + pm.getFullName() + " at " + last
+                + ", some were omitted from the statistics");
+            chunkstart = last.add(RelTime.factory(1));
+            skip = 0;
+          } else {
+            skip = 0;
+            for (int j = chunk.size() - 1; j >= 0 && chunk.get(j).getTimestamp().getValue() == last.getValue(); j--) {
+              skip++;
+            }
+            chunkstart = last;
+          }
+        }
+      }
+    } catch (Exception e) {
+      itsLogger.warn("While aggregating archive data for " + pm.getFullName() + ": " + e);
+    }
+
+    for (int i = 0; i < unflushed.size(); i++) {
+      agg.add(unflushed.get(i));
+    }
+  }
+
+  /**
+   * Accumulate statistics for the data on disk over the time range, for archivers which can do this more efficiently than by
+   * extracting the data. The default implementation returns false so that the data are extracted instead.
+   *
+   * @param pm
+   *          Point to compute statistics for.
+   * @param start
+   *          Earliest time in the range of interest.
+   * @param end
+   *          Most recent time in the range of interest.
+   * @param agg
+   *          The statistics to add the data to.
+   * @return True if the statistics were computed, false if the data need to be extracted instead.
+   */
+  protected boolean aggregateDeep(PointDescription pm, AbsTime start, AbsTime end, Aggregator agg) {
+    return false;
+  }
+
   /**
    * Return the last update which precedes the specified time. We interpret 'precedes' to mean data_time<=req_time.
    * 
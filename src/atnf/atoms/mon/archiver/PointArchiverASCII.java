@@ -374,6 +374,29 @@ public class PointArchiverASCII extends PointArchiver {
     return res;
   }
 
+  /**
+   * Accumulate statistics for the archived data by streaming through each relevant file, so that the data are never held in memory
+   * and the query isn't limited to <tt>ArchiveMaxRecords</tt>.
+   * 
+   * @param pm
+   *          Point to compute statistics for.
+   * @param start
+   *          Earliest time in the range of interest.
+   * @param end
+   *          Most recent time in the range of interest.
+   * @param agg
+   *          The statistics to add the data to.
+   * @return Always true.
+   */
+  protected boolean aggregateDeep(PointDescription pm, AbsTime start, AbsTime end, Aggregator agg) {
+    String dir = getDir(pm);
+    Vector<String> files = getFiles(dir, start, end);
+    for (int j = 0; j < files.size(); j++) {
+      loadFile(null, agg, pm, dir + FSEP + files.get(j), start, end, false);
+    }
+    return true;
+  }
+
   /**
    * Return the last update which precedes the specified time. We interpret 'precedes' to mean data_time<=req_time.
    * 
@@ -827,6 +850,29 @@ public class PointArchiverASCII extends PointArchiver {
    *          Whether to truncate at the archive query limit.
    */
   private void loadFile(Vector<PointData> res, PointDescription pm, String fname, AbsTime start, AbsTime end, boolean truncate) {
+    loadFile(res, null, pm, fname, start, end, truncate);
+  }
+
+  /**
+   * Load data within the given time range from the file, either into a Vector or by adding each record to the statistics.
+   * 
+   * @param res
+   *          Vector which holds the loaded data, if <i>agg</i> is null.
+   * @param agg
+   *          Statistics to add the data to, or null to load the data into <i>res</i>.
+   * @param fname
+   *          Full path to the file to load data from.
+   * @param pm
+   *          PointDescription we are reconstructing data for.
+   * @param start
+   *          The earliest time of interest, null to ignore.
+   * @param end
+   *          The most recent time of interest, null to ignore.
+   * @param truncate
+   *          Whether to truncate at the archive query limit.
+   */
+  private void loadFile(Vector<PointData> res, Aggregator agg, PointDescription pm, String fname, AbsTime start, AbsTime end,
+      boolean truncate) {
     try {
       // If the file's compressed we need to decompress it first
       boolean hadtodecompress = false;
@@ -852,6 +898,10 @@ public class PointArchiverASCII extends PointArchiver {
           break; // No more useful data in this file
         }
 
+        if (agg != null) {
+          agg.add(pd);
+          continue;
+        }
         res.add(pd);
 
         if (truncate && res.size() >= MAXNUMRECORDS) {
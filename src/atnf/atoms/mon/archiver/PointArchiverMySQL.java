@@ -205,6 +205,70 @@ public class PointArchiverMySQL extends PointArchiver {
     }
   }
 
+  /**
+   * Accumulate statistics for the archived data by having the database compute them for each bucket. Only records whose type column
+   * shows them to be numeric or boolean are included.
+   *
+   * @param pm
+   *          Point to compute statistics for.
+   * @param start
+   *          Earliest time in the range of interest.
+   * @param end
+   *          Most recent time in the range of interest.
+   * @param agg
+   *          The statistics to add the data to.
+   * @return True if the statistics were computed, false if the data need to be extracted instead.
+   */
+  protected boolean aggregateDeep(PointDescription pm, AbsTime start, AbsTime end, Aggregator agg) {
+    try {
+      // Can't do anything if the server is not running
+      if (!checkConnection()) {
+        return false;
+      }
+
+      // Get the table name for this point
+      String table = getTableName(pm);
+
+      // Build and execute the query, which groups the records by the index of their bucket
+      long aggstart = agg.getStart().getValue();
+      long bucketlen = agg.getBucketLength().getValue();
+      String cmd = "SELECT FLOOR((ts-" + aggstart + ")/" + bucketlen + ") AS b, COUNT(v), MIN(v), MAX(v), AVG(v), VAR_POP(v) FROM "
+          + "(SELECT ts, IF(type='bool', IF(val='true', 1, 0), val+0) AS v FROM " + table + " WHERE ts>=" + start.getValue()
+          + " AND ts<=" + end.getValue() + " AND type IN ('dbl','flt','int','shrt','long','bool')) AS t GROUP BY b;";
+
+      Statement stmt;
+      ResultSet rs;
+      synchronized (itsConnection) {
+        stmt = itsConnection.createStatement();
+        stmt.execute(cmd);
+        rs = stmt.getResultSet();
+      }
+
+      // Read all rows before merging any, so nothing is counted twice if the data have to be extracted instead
+      Vector<double[]> rows = new Vector<double[]>();
+      while (rs.next()) {
+        if (rs.getLong(2) > 0) {
+          rows.add(new double[] { rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5), rs.getDouble(6) });
+        }
+      }
+      stmt.close();
+
+      for (int i = 0; i < rows.size(); i++) {
+        double[] row = rows.get(i);
+        // The end time is included in the last bucket
+        int bucket = (int) Math.min((long) row[0], agg.getNumBuckets() - 1);
+        long count = (long) row[1];
+        // The server computes the variance incrementally, which doesn't lose precision to cancellation like the sum of the squares
+        double m2 = row[5] * count;
+        agg.getAggregate(bucket).merge(count, row[2], row[3], row[4], m2);
+      }
+      return true;
+    } catch (Exception e) {
+      itsLogger.warn("aggregate: " + e);
+      return false;
+    }
+  }
+
   /**
    * Return the last update which precedes the specified time. We interpret 'precedes' to mean data_time<=req_time.
    * 
@@ -21,13 +21,20 @@ import javax.swing.SwingUtilities;
 import atnf.atoms.mon.Alarm;
 import atnf.atoms.mon.AlarmEvent;
 import atnf.atoms.mon.AlarmEventListener;
+import atnf.atoms.mon.AlarmPublisher;
+import atnf.atoms.mon.AlarmStreamListener;
+import atnf.atoms.mon.AlarmTransition;
 import atnf.atoms.mon.PointDescription;
+import atnf.atoms.mon.comms.MoniCAClient;
+import atnf.atoms.mon.comms.MoniCAClientIce;
 import atnf.atoms.mon.gui.AlarmPopupFrame;
 import atnf.atoms.time.RelTime;
 
 /**
- * Class which periodically polls the server for the status of priority alarms, and presents a high level interface to client
- * objects which need to interact with alarms.
+ * Class which maintains the status of priority alarms, and presents a high level interface to client objects which need to
+ * interact with alarms. Where the server supports it the alarm updates are pushed to us, starting with a snapshot of all alarms
+ * and followed by each change of alarm state, otherwise the server is polled periodically. Either way listeners are only notified
+ * about alarms whose state has changed.
  * 
  * @author David Brodrick
  * @author Kalinga Hulugalle
@@ -39,6 +46,18 @@ public class AlarmMaintainer implements Runnable {
 	/** Sleep interval when there are no listeners. */
 	private static final RelTime theirWaitingInterval = RelTime.factory(2000000);
 
+	/** Max time (ms) without hearing from the server before the alarm subscription is renewed. */
+	private static final long theirSubscriptionTimeout = 3 * AlarmPublisher.HEARTBEATINTERVAL;
+
+	/** Receives alarm updates pushed by the server. */
+	private static final AlarmStreamListener theirStreamListener = new StreamListener();
+
+	/** Sequence number of the last alarm event received from the server, used to resume the subscription. */
+	private static volatile long theirSequence = 0;
+
+	/** Cleared if the server doesn't support alarm subscriptions, in which case the alarms are polled. */
+	private static boolean theirCanSubscribe = true;
+
 	/** Record of points which are currently in a priority alarm state. */
 	private static HashMap<PointDescription, Alarm> theirAlarms = new HashMap<PointDescription, Alarm>(500, 1000);
 
@@ -124,50 +143,104 @@ public class AlarmMaintainer implements Runnable {
 	}
 
 
+	/**
+	 * Check whether an update to an alarm changes any of the state which listeners are interested in.
+	 * 
+	 * @param old
+	 *          The previous state of the alarm, or null if it wasn't known.
+	 * @param a
+	 *          The new state of the alarm.
+	 */
+	private static boolean hasChanged(Alarm old, Alarm a) {
+		if (old == null) {
+			return true;
+		}
+		return old.isAlarming() != a.isAlarming() || old.isAcknowledged() != a.isAcknowledged() || old.isShelved() != a.isShelved()
+				|| old.getPriority() != a.getPriority() || old.getAlarmStatus() != a.getAlarmStatus();
+	}
+
+	/**
+	 * Update the local alarm information and notify listeners about the alarms whose state has changed.
+	 * 
+	 * @param newalarms
+	 *          The latest state of some or all alarms.
+	 */
+	private static void applyAlarms(Collection<Alarm> newalarms) {
+		Vector<Alarm> changed = new Vector<Alarm>();
+		synchronized (theirAlarms) {
+			for (Alarm a : newalarms) {
+				if (a.getPointDesc() == null) {
+					continue;
+				}
+				Alarm old = theirAlarms.put(a.getPointDesc(), a);
+				if (hasChanged(old, a)) {
+					changed.add(a);
+				}
+			}
+		}
+		// Notify any listeners about the updates
+		if (changed.size() > 0) {
+			fireAlarmEvent(changed);
+			if (autoAlarms) {
+				for (Alarm a : changed) {
+					if (a.getAlarmStatus() == Alarm.ALARMING && a.getPriority() >= 1 && !ignoreList.contains(a.getPointDesc().getFullName())) {
+						displayAlarmNotification(a);
+					}
+				}
+			}
+		}
+	}
+
+	/** Receives the alarm events pushed by the server. */
+	private static class StreamListener implements AlarmStreamListener {
+		public boolean alarmEvents(Vector<AlarmTransition> events) {
+			Vector<Alarm> newalarms = new Vector<Alarm>(events.size());
+			for (AlarmTransition t : events) {
+				if (t.getSequence() > theirSequence || t.getType() == AlarmTransition.SNAPSHOT) {
+					theirSequence = t.getSequence();
+				}
+				newalarms.add(t.getAlarm());
+			}
+			applyAlarms(newalarms);
+			return true;
+		}
+
+		public void alarmStreamDropped() {
+			// We resubscribe once the heartbeats stop
+		}
+	}
+
 	@Override
 	public void run() {
 		while (true) {
 			try {
-				if (autoAlarms) { // if automatic alarm notifications are enabled
-					// Fetch the list of all alarms from the server
-					Vector<Alarm> newalarms = MonClientUtil.getServer().getAllAlarms();
-
-					if (newalarms != null) {
-						// Update the local alarm information
-						synchronized (theirAlarms) {
-							for (Alarm a : newalarms) {
-								theirAlarms.put(a.getPointDesc(), a);
-							}
-						}
-						// Notify any listeners about the updates
-						if (newalarms.size() > 0){
-							fireAlarmEvent(newalarms);
-							for (Alarm a : newalarms) {
-								if (a.getAlarmStatus() == Alarm.ALARMING && a.getPriority() >= 1 && !ignoreList.contains(a.getPointDesc().getFullName())){
-									displayAlarmNotification(a);
+				MoniCAClient server = MonClientUtil.getServer();
+				if (autoAlarms || theirListeners.size() > 0) {
+					// Alarm information is needed, either for automatic alarm notifications or by registered listeners
+					if (theirCanSubscribe && server instanceof MoniCAClientIce) {
+						MoniCAClientIce iceserver = (MoniCAClientIce) server;
+						if (System.currentTimeMillis() - iceserver.getAlarmsLastReceived() > theirSubscriptionTimeout) {
+							// Not subscribed yet, or haven't heard from the server for too long
+							try {
+								if (!iceserver.subscribeAlarms(theirStreamListener, theirSequence)) {
+									theirCanSubscribe = false;
 								}
+							} catch (Ice.OperationNotExistException e) {
+								// Older server, fall back to polling
+								theirCanSubscribe = false;
 							}
 						}
-					}
-				} else if (theirListeners.size() > 0) { // if automatic alarms are not enabled,
-					// only update when there are registered listeners
-					// Fetch the list of all alarms from the server
-					Vector<Alarm> newalarms = MonClientUtil.getServer().getAllAlarms();
-
-					if (newalarms != null) {
-						// Update the local alarm information
-						synchronized (theirAlarms) {
-							for (Alarm a : newalarms) {
-								theirAlarms.put(a.getPointDesc(), a);
-							}
-						}
-						// Notify any listeners about the updates
-						if (newalarms.size() > 0){
-							fireAlarmEvent(newalarms);
+					} else {
+						// Fetch the list of all alarms from the server
+						Vector<Alarm> newalarms = server.getAllAlarms();
+						if (newalarms != null) {
+							applyAlarms(newalarms);
 						}
 					}
+				} else if (server instanceof MoniCAClientIce && ((MoniCAClientIce) server).getAlarmsLastReceived() != 0) {
+					// Nobody is interested in alarms any more
+					((MoniCAClientIce) server).unsubscribeAlarms();
 				}
-				
 			} catch (Exception e) {
 			}
 			
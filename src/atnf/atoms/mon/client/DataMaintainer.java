@@ -3,6 +3,7 @@ package atnf.atoms.mon.client;
 import java.util.*;
 
 import atnf.atoms.mon.*;
+import atnf.atoms.mon.comms.*;
 import atnf.atoms.mon.util.*;
 import atnf.atoms.time.*;
 
@@ -124,8 +125,16 @@ public class DataMaintainer implements Runnable
     for (int i = 0; i < points.size(); i++) {
       String pname = points.get(i);
       if (PointDescription.getPoint(pname) == null) {
-        // We don't already have this point
-        needdefs.add(pname);
+        // We don't already have this point, check the cached snapshot before asking the server
+        PointDescriptionIce cached = MonClientUtil.getCachedPointDefinition(pname);
+        PointDescription def = null;
+        if (cached != null) {
+          // Instantiating the definition makes the point available, as if it had been downloaded
+          def = MoniCAIceUtil.getPointDescriptionFromIce(cached);
+        }
+        if (def == null) {
+          needdefs.add(pname);
+        }
       }
     }
     
@@ -8,6 +8,7 @@
 package atnf.atoms.mon.client;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.*;
 
 import javax.sound.sampled.*;
@@ -54,6 +55,9 @@ public class MonClientUtil {
 	/** Cached copy of monitor point name list */
 	private static Vector<String> theirPointNameCache;
 
+	/** Cached point definitions from the server's snapshot, indexed by point name. May be read from any thread. */
+	private static volatile ConcurrentHashMap<String, PointDescriptionIce> theirPointDefinitionCache;
+
 	/** Maps each point name to its list of sources */
 	private static Hashtable<String, Vector<String>> theirPointSourceMap;
 
@@ -314,7 +318,9 @@ public class MonClientUtil {
 		try {
 			// Elapsed time testing
 			//long start = System.nanoTime();
-			theirPointNameCache = theirServer.getAllPointNames();
+			if (!cachePointSnapshot()) {
+				theirPointNameCache = theirServer.getAllPointNames();
+			}
 			// Populate PointSourceMap  
                         for (int i = 0; i < theirPointNameCache.size(); ++i) {
 			    tmp = theirPointNameCache.get(i).split("\\.", 2);
@@ -340,6 +346,57 @@ public class MonClientUtil {
 		}
 	}
 
+	/**
+	 * Obtain the definitions of all points from the server as a snapshot, which is cached on disk so that it only needs to be
+	 * downloaded again if the points on the server have changed. Returns false if the server doesn't support snapshots.
+	 */
+	private static boolean cachePointSnapshot() {
+		if (!(theirServer instanceof MoniCAClientIce)) {
+			return false;
+		}
+		File cachefile = new File(getLocalDir(), "points-" + theirServerName.replaceAll("[^A-Za-z0-9.-]", "_") + ".cache");
+		PointDescriptionIce[] points;
+		try {
+			points = ((MoniCAClientIce) theirServer).getPointSnapshot(cachefile);
+		} catch (Exception e) {
+			System.err.println("MonClientUtil.cachePointSnapshot: " + e.getClass() + ": " + e.getMessage());
+			return false;
+		}
+		if (points == null) {
+			return false;
+		}
+		TreeMap<String, PointDescriptionIce> defs = new TreeMap<String, PointDescriptionIce>();
+		for (int i = 0; i < points.length; i++) {
+			for (int j = 0; j < points[i].names.length; j++) {
+				defs.put(points[i].source + "." + points[i].names[j], points[i]);
+			}
+		}
+		theirPointDefinitionCache = new ConcurrentHashMap<String, PointDescriptionIce>(defs);
+		theirPointNameCache = new Vector<String>(defs.keySet());
+		return true;
+	}
+
+	/** Return the cached definition for the named point, or null if it isn't available. */
+	public static PointDescriptionIce getCachedPointDefinition(String name) {
+		ConcurrentHashMap<String, PointDescriptionIce> cache = theirPointDefinitionCache;
+		if (cache == null) {
+			return null;
+		}
+		return cache.get(name);
+	}
+
+	/** Return the directory used to store local client files. */
+	public static String getLocalDir() {
+		String osname = System.getProperty("os.name").toLowerCase();
+		String dir;
+		if (osname.indexOf("win") != -1) {
+			dir = "\\Application Data\\MoniCA";
+		} else {
+			dir = "/.MoniCA";
+		}
+		return System.getProperty("user.home") + dir;
+	}
+
 	/** Return the cached list of all point names. */
 	public static String[] getAllPointNames() {
 		return theirPointNameCache.toArray(new String[theirPointNameCache.size()]);
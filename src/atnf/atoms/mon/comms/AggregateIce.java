@@ -0,0 +1,159 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public class AggregateIce implements java.lang.Cloneable, java.io.Serializable
+{
+    public long start;
+
+    public long end;
+
+    public long count;
+
+    public double min;
+
+    public double max;
+
+    public double mean;
+
+    public double stddev;
+
+    public AggregateIce()
+    {
+    }
+
+    public AggregateIce(long start, long end, long count, double min, double max, double mean, double stddev)
+    {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.stddev = stddev;
+    }
+
+    public boolean
+    equals(java.lang.Object rhs)
+    {
+        if(this == rhs)
+        {
+            return true;
+        }
+        AggregateIce _r = null;
+        if(rhs instanceof AggregateIce)
+        {
+            _r = (AggregateIce)rhs;
+        }
+
+        if(_r != null)
+        {
+            if(start != _r.start)
+            {
+                return false;
+            }
+            if(end != _r.end)
+            {
+                return false;
+            }
+            if(count != _r.count)
+            {
+                return false;
+            }
+            if(min != _r.min)
+            {
+                return false;
+            }
+            if(max != _r.max)
+            {
+                return false;
+            }
+            if(mean != _r.mean)
+            {
+                return false;
+            }
+            if(stddev != _r.stddev)
+            {
+                return false;
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public int
+    hashCode()
+    {
+        int __h = 5381;
+        __h = IceInternal.HashUtil.hashAdd(__h, "::atnf::atoms::mon::comms::AggregateIce");
+        __h = IceInternal.HashUtil.hashAdd(__h, start);
+        __h = IceInternal.HashUtil.hashAdd(__h, end);
+        __h = IceInternal.HashUtil.hashAdd(__h, count);
+        __h = IceInternal.HashUtil.hashAdd(__h, min);
+        __h = IceInternal.HashUtil.hashAdd(__h, max);
+        __h = IceInternal.HashUtil.hashAdd(__h, mean);
+        __h = IceInternal.HashUtil.hashAdd(__h, stddev);
+        return __h;
+    }
+
+    public java.lang.Object
+    clone()
+    {
+        java.lang.Object o = null;
+        try
+        {
+            o = super.clone();
+        }
+        catch(CloneNotSupportedException ex)
+        {
+            assert false; // impossible
+        }
+        return o;
+    }
+
+    public void
+    __write(IceInternal.BasicStream __os)
+    {
+        __os.writeLong(start);
+        __os.writeLong(end);
+        __os.writeLong(count);
+        __os.writeDouble(min);
+        __os.writeDouble(max);
+        __os.writeDouble(mean);
+        __os.writeDouble(stddev);
+    }
+
+    public void
+    __read(IceInternal.BasicStream __is)
+    {
+        start = __is.readLong();
+        end = __is.readLong();
+        count = __is.readLong();
+        min = __is.readDouble();
+        max = __is.readDouble();
+        mean = __is.readDouble();
+        stddev = __is.readDouble();
+    }
+
+    public static final long serialVersionUID = -6420587239045871358L;
+}
@@ -0,0 +1,146 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public class AlarmEventIce implements java.lang.Cloneable, java.io.Serializable
+{
+    public long sequence;
+
+    public int type;
+
+    public long time;
+
+    public String user;
+
+    public AlarmIce alarm;
+
+    public AlarmEventIce()
+    {
+    }
+
+    public AlarmEventIce(long sequence, int type, long time, String user, AlarmIce alarm)
+    {
+        this.sequence = sequence;
+        this.type = type;
+        this.time = time;
+        this.user = user;
+        this.alarm = alarm;
+    }
+
+    public boolean
+    equals(java.lang.Object rhs)
+    {
+        if(this == rhs)
+        {
+            return true;
+        }
+        AlarmEventIce _r = null;
+        if(rhs instanceof AlarmEventIce)
+        {
+            _r = (AlarmEventIce)rhs;
+        }
+
+        if(_r != null)
+        {
+            if(sequence != _r.sequence)
+            {
+                return false;
+            }
+            if(type != _r.type)
+            {
+                return false;
+            }
+            if(time != _r.time)
+            {
+                return false;
+            }
+            if(user != _r.user)
+            {
+                if(user == null || _r.user == null || !user.equals(_r.user))
+                {
+                    return false;
+                }
+            }
+            if(alarm != _r.alarm)
+            {
+                if(alarm == null || _r.alarm == null || !alarm.equals(_r.alarm))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public int
+    hashCode()
+    {
+        int __h = 5381;
+        __h = IceInternal.HashUtil.hashAdd(__h, "::atnf::atoms::mon::comms::AlarmEventIce");
+        __h = IceInternal.HashUtil.hashAdd(__h, sequence);
+        __h = IceInternal.HashUtil.hashAdd(__h, type);
+        __h = IceInternal.HashUtil.hashAdd(__h, time);
+        __h = IceInternal.HashUtil.hashAdd(__h, user);
+        __h = IceInternal.HashUtil.hashAdd(__h, alarm);
+        return __h;
+    }
+
+    public java.lang.Object
+    clone()
+    {
+        java.lang.Object o = null;
+        try
+        {
+            o = super.clone();
+        }
+        catch(CloneNotSupportedException ex)
+        {
+            assert false; // impossible
+        }
+        return o;
+    }
+
+    public void
+    __write(IceInternal.BasicStream __os)
+    {
+        __os.writeLong(sequence);
+        __os.writeInt(type);
+        __os.writeLong(time);
+        __os.writeString(user);
+        alarm.__write(__os);
+    }
+
+    public void
+    __read(IceInternal.BasicStream __is)
+    {
+        sequence = __is.readLong();
+        type = __is.readInt();
+        time = __is.readLong();
+        user = __is.readString();
+        alarm = new AlarmIce();
+        alarm.__read(__is);
+    }
+
+    public static final long serialVersionUID = -2914570158817746307L;
+}
@@ -0,0 +1,27 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public interface AlarmListenerIce extends Ice.Object,
+                                      _AlarmListenerIceOperations, _AlarmListenerIceOperationsNC
+{
+    public static final long serialVersionUID = 4417238215467302159L;
+}
@@ -0,0 +1,95 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+//
+
+package atnf.atoms.mon.comms;
+
+import java.util.HashSet;
+import java.util.Vector;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import Ice.Current;
+import atnf.atoms.mon.AlarmStreamListener;
+import atnf.atoms.mon.AlarmTransition;
+import atnf.atoms.mon.PointDescription;
+
+/**
+ * Client-side servant which receives alarm events pushed by the server and passes them to an AlarmStreamListener. The events are
+ * queued and delivered by a separate thread, so that definitions of any points the client doesn't know about yet can be fetched
+ * from the server without tying up the thread which dispatches the callbacks.
+ */
+public class AlarmListenerIceI extends _AlarmListenerIceDisp implements Runnable {
+  /** The client connection used to fetch point definitions. */
+  protected MoniCAClientIce itsClient;
+
+  /** The listener which receives the events. */
+  protected AlarmStreamListener itsListener;
+
+  /** Batches of events waiting to be delivered. */
+  protected LinkedBlockingQueue<AlarmEventIce[]> itsQueue = new LinkedBlockingQueue<AlarmEventIce[]>();
+
+  /** Time (ms) that the last batch of events was received. */
+  protected volatile long itsLastReceived = System.currentTimeMillis();
+
+  /** Set when events should no longer be delivered. */
+  protected volatile boolean itsStopped = false;
+
+  public AlarmListenerIceI(MoniCAClientIce client, AlarmStreamListener listener) {
+    itsClient = client;
+    itsListener = listener;
+    Thread t = new Thread(this, "AlarmListenerIceI");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /** Called by the server with new events. */
+  public void alarmEvents(AlarmEventIce[] events, Current __current) {
+    itsLastReceived = System.currentTimeMillis();
+    if (!itsStopped) {
+      itsQueue.add(events);
+    }
+  }
+
+  /** Return the time (ms) that the last batch of events, or heartbeat, was received from the server. */
+  public long getLastReceived() {
+    return itsLastReceived;
+  }
+
+  /** Stop delivering events. */
+  public void stop() {
+    itsStopped = true;
+  }
+
+  public void run() {
+    while (!itsStopped) {
+      try {
+        AlarmEventIce[] events = itsQueue.poll(1, TimeUnit.SECONDS);
+        if (events == null || itsStopped) {
+          continue;
+        }
+        // Fetch definitions for any points we haven't seen before
+        HashSet<String> fetchpoints = new HashSet<String>();
+        for (int i = 0; i < events.length; i++) {
+          if (PointDescription.getPoint(events[i].alarm.pointname) == null) {
+            fetchpoints.add(events[i].alarm.pointname);
+          }
+        }
+        if (!fetchpoints.isEmpty()) {
+          itsClient.getPoints(new Vector<String>(fetchpoints));
+        }
+        Vector<AlarmTransition> res = MoniCAIceUtil.getAlarmEventsFromIce(events);
+        if (!itsListener.alarmEvents(res)) {
+          itsStopped = true;
+        }
+      } catch (Exception e) {
+        System.err.println("AlarmListenerIceI.run: " + e.getClass());
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public interface AlarmListenerIcePrx extends Ice.ObjectPrx
+{
+    public void alarmEvents(AlarmEventIce[] events);
+
+    public void alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events);
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, Callback_AlarmListenerIce_alarmEvents __cb);
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx, Callback_AlarmListenerIce_alarmEvents __cb);
+
+    public void end_alarmEvents(Ice.AsyncResult __result);
+}
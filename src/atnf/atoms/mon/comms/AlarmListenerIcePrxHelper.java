@@ -0,0 +1,289 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public final class AlarmListenerIcePrxHelper extends Ice.ObjectPrxHelperBase implements AlarmListenerIcePrx
+{
+    private static final String __alarmEvents_name = "alarmEvents";
+
+    public void alarmEvents(AlarmEventIce[] events)
+    {
+        alarmEvents(events, null, false);
+    }
+
+    public void alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx)
+    {
+        alarmEvents(events, __ctx, true);
+    }
+
+    private void alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "alarmEvents", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __delBase = __getDelegate(false);
+                    _AlarmListenerIceDel __del = (_AlarmListenerIceDel)__delBase;
+                    __del.alarmEvents(events, __ctx, __observer);
+                    return;
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events)
+    {
+        return begin_alarmEvents(events, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx)
+    {
+        return begin_alarmEvents(events, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, Ice.Callback __cb)
+    {
+        return begin_alarmEvents(events, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_alarmEvents(events, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, Callback_AlarmListenerIce_alarmEvents __cb)
+    {
+        return begin_alarmEvents(events, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx, Callback_AlarmListenerIce_alarmEvents __cb)
+    {
+        return begin_alarmEvents(events, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_alarmEvents(AlarmEventIce[] events, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __alarmEvents_name, __cb);
+        try
+        {
+            __result.__prepare(__alarmEvents_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            alarmeventarrayHelper.write(__os, events);
+            __os.writePendingObjects();
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public void end_alarmEvents(Ice.AsyncResult __result)
+    {
+        __end(__result, __alarmEvents_name);
+    }
+
+    public static AlarmListenerIcePrx checkedCast(Ice.ObjectPrx __obj)
+    {
+        AlarmListenerIcePrx __d = null;
+        if(__obj != null)
+        {
+            if(__obj instanceof AlarmListenerIcePrx)
+            {
+                __d = (AlarmListenerIcePrx)__obj;
+            }
+            else
+            {
+                if(__obj.ice_isA(ice_staticId()))
+                {
+                    AlarmListenerIcePrxHelper __h = new AlarmListenerIcePrxHelper();
+                    __h.__copyFrom(__obj);
+                    __d = __h;
+                }
+            }
+        }
+        return __d;
+    }
+
+    public static AlarmListenerIcePrx checkedCast(Ice.ObjectPrx __obj, java.util.Map<String, String> __ctx)
+    {
+        AlarmListenerIcePrx __d = null;
+        if(__obj != null)
+        {
+            if(__obj instanceof AlarmListenerIcePrx)
+            {
+                __d = (AlarmListenerIcePrx)__obj;
+            }
+            else
+            {
+                if(__obj.ice_isA(ice_staticId(), __ctx))
+                {
+                    AlarmListenerIcePrxHelper __h = new AlarmListenerIcePrxHelper();
+                    __h.__copyFrom(__obj);
+                    __d = __h;
+                }
+            }
+        }
+        return __d;
+    }
+
+    public static AlarmListenerIcePrx checkedCast(Ice.ObjectPrx __obj, String __facet)
+    {
+        AlarmListenerIcePrx __d = null;
+        if(__obj != null)
+        {
+            Ice.ObjectPrx __bb = __obj.ice_facet(__facet);
+            try
+            {
+                if(__bb.ice_isA(ice_staticId()))
+                {
+                    AlarmListenerIcePrxHelper __h = new AlarmListenerIcePrxHelper();
+                    __h.__copyFrom(__bb);
+                    __d = __h;
+                }
+            }
+            catch(Ice.FacetNotExistException ex)
+            {
+            }
+        }
+        return __d;
+    }
+
+    public static AlarmListenerIcePrx checkedCast(Ice.ObjectPrx __obj, String __facet, java.util.Map<String, String> __ctx)
+    {
+        AlarmListenerIcePrx __d = null;
+        if(__obj != null)
+        {
+            Ice.ObjectPrx __bb = __obj.ice_facet(__facet);
+            try
+            {
+                if(__bb.ice_isA(ice_staticId(), __ctx))
+                {
+                    AlarmListenerIcePrxHelper __h = new AlarmListenerIcePrxHelper();
+                    __h.__copyFrom(__bb);
+                    __d = __h;
+                }
+            }
+            catch(Ice.FacetNotExistException ex)
+            {
+            }
+        }
+        return __d;
+    }
+
+    public static AlarmListenerIcePrx uncheckedCast(Ice.ObjectPrx __obj)
+    {
+        AlarmListenerIcePrx __d = null;
+        if(__obj != null)
+        {
+            if(__obj instanceof AlarmListenerIcePrx)
+            {
+                __d = (AlarmListenerIcePrx)__obj;
+            }
+            else
+            {
+                AlarmListenerIcePrxHelper __h = new AlarmListenerIcePrxHelper();
+                __h.__copyFrom(__obj);
+                __d = __h;
+            }
+        }
+        return __d;
+    }
+
+    public static AlarmListenerIcePrx uncheckedCast(Ice.ObjectPrx __obj, String __facet)
+    {
+        AlarmListenerIcePrx __d = null;
+        if(__obj != null)
+        {
+            Ice.ObjectPrx __bb = __obj.ice_facet(__facet);
+            AlarmListenerIcePrxHelper __h = new AlarmListenerIcePrxHelper();
+            __h.__copyFrom(__bb);
+            __d = __h;
+        }
+        return __d;
+    }
+
+    public static final String[] __ids =
+    {
+        "::Ice::Object",
+        "::atnf::atoms::mon::comms::AlarmListenerIce"
+    };
+
+    public static String ice_staticId()
+    {
+        return __ids[1];
+    }
+
+    protected Ice._ObjectDelM __createDelegateM()
+    {
+        return new _AlarmListenerIceDelM();
+    }
+
+    protected Ice._ObjectDelD __createDelegateD()
+    {
+        return new _AlarmListenerIceDelD();
+    }
+
+    public static void __write(IceInternal.BasicStream __os, AlarmListenerIcePrx v)
+    {
+        __os.writeProxy(v);
+    }
+
+    public static AlarmListenerIcePrx __read(IceInternal.BasicStream __is)
+    {
+        Ice.ObjectPrx proxy = __is.readProxy();
+        if(proxy != null)
+        {
+            AlarmListenerIcePrxHelper result = new AlarmListenerIcePrxHelper();
+            result.__copyFrom(proxy);
+            return result;
+        }
+        return null;
+    }
+
+    public static final long serialVersionUID = 0L;
+}
@@ -265,6 +265,47 @@ public abstract class MoniCAClient {
    */
   public abstract Vector<Vector<PointData>> getArchiveData(Vector<String> pointnames, AbsTime start, AbsTime end, int maxsamples) throws Exception;
 
+  /**
+   * Return statistics for the given point, which are computed by the server from its buffered and archived data.
+   * 
+   * @param pointname
+   *          Point to get statistics for.
+   * @param start
+   *          The start of the time range.
+   * @param end
+   *          The end of the time range.
+   * @param bucket
+   *          Length of the intervals to compute statistics for, or null for a single set of statistics covering the whole range.
+   * @return Statistics for each interval in time order.
+   */
+  public Vector<Aggregate> getAggregates(String pointname, AbsTime start, AbsTime end, RelTime bucket) throws Exception {
+    Vector<String> pointnames = new Vector<String>(1);
+    pointnames.add(pointname);
+    Vector<Vector<Aggregate>> aggs = getAggregates(pointnames, start, end, bucket);
+    Vector<Aggregate> res = null;
+    if (aggs != null && aggs.size() > 0) {
+      res = aggs.get(0);
+    }
+    return res;
+  }
+
+  /**
+   * Return statistics for the given points, which are computed by the server from its buffered and archived data.
+   * 
+   * @param pointnames
+   *          Names of points to get statistics for.
+   * @param start
+   *          The start of the time range.
+   * @param end
+   *          The end of the time range.
+   * @param bucket
+   *          Length of the intervals to compute statistics for, or null for a single set of statistics covering the whole range. The
+   *          server may lengthen the intervals to limit the size of the result.
+   * @return Statistics for each interval in time order, for each point. The statistics for a point will be empty if the point
+   *         doesn't exist.
+   */
+  public abstract Vector<Vector<Aggregate>> getAggregates(Vector<String> pointnames, AbsTime start, AbsTime end, RelTime bucket) throws Exception;
+
   /**
    * Set a new value for the specified point. This requires authentication. The username and password are encrypted prior to
    * transmission over the network.
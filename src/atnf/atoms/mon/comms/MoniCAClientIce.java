@@ -8,6 +8,11 @@
 
 package atnf.atoms.mon.comms;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Date;
 import java.util.Iterator;
@@ -15,7 +20,9 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.Vector;
 
+import atnf.atoms.mon.Aggregate;
 import atnf.atoms.mon.Alarm;
+import atnf.atoms.mon.AlarmStreamListener;
 import atnf.atoms.mon.PointData;
 import atnf.atoms.mon.PointDescription;
 import atnf.atoms.mon.SavedSetup;
@@ -41,6 +48,15 @@ public class MoniCAClientIce extends MoniCAClient {
   /** The Ice communicator used to talk with the server. */
   protected Ice.Communicator itsCommunicator;
 
+  /** Object adapter for receiving callbacks from the server over our connection. */
+  protected Ice.ObjectAdapter itsAdapter;
+
+  /** Receives alarm updates from the server, if we are subscribed. */
+  protected AlarmListenerIceI itsAlarmListener;
+
+  /** Proxy for itsAlarmListener. */
+  protected AlarmListenerIcePrx itsAlarmListenerPrx;
+
   /** Ice properties used to create the Communicator. */
   protected Ice.Properties itsProperties;
 
@@ -269,6 +285,90 @@ public class MoniCAClientIce extends MoniCAClient {
     return res;
   }
 
+  /**
+   * Get the definitions of all points on the system as a single compressed snapshot. If a cache file is given then the snapshot
+   * stored in it is reused if the server reports that its metadata generation is unchanged, otherwise the new snapshot is written
+   * to the file for next time.
+   * 
+   * @param cachefile
+   *          File in which to cache the snapshot, or null for no caching.
+   * @return The definitions of all unique points, or null if the server doesn't support snapshots.
+   */
+  public PointDescriptionIce[] getPointSnapshot(File cachefile) throws Exception {
+    byte[] cached = null;
+    long generation = -1;
+    if (cachefile != null && cachefile.canRead()) {
+      try {
+        cached = readFile(cachefile);
+        generation = MoniCAIceUtil.getSnapshotGeneration(cached);
+      } catch (Exception e) {
+        System.err.println("MoniCAClientIce.getPointSnapshot: Ignoring cache " + cachefile + ": " + e);
+        cached = null;
+        generation = -1;
+      }
+    }
+
+    byte[] snapshot;
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      snapshot = itsIceClient.getPointSnapshot(generation);
+    } catch (Ice.OperationNotExistException f) {
+      // Server predates snapshots
+      return null;
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.getPointSnapshot:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+
+    if (snapshot.length == 0) {
+      // Our cached copy is current
+      snapshot = cached;
+    } else if (cachefile != null) {
+      try {
+        writeFile(cachefile, snapshot);
+      } catch (Exception e) {
+        System.err.println("MoniCAClientIce.getPointSnapshot: Couldn't write cache " + cachefile + ": " + e);
+      }
+    }
+    return MoniCAIceUtil.getPointsFromSnapshot(snapshot);
+  }
+
+  /** Read the entire contents of the file. */
+  private static byte[] readFile(File f) throws IOException {
+    byte[] res = new byte[(int) f.length()];
+    DataInputStream in = new DataInputStream(new FileInputStream(f));
+    try {
+      in.readFully(res);
+    } finally {
+      in.close();
+    }
+    return res;
+  }
+
+  /** Replace the contents of the file, via a temporary file so that readers never see a partial file. */
+  private static void writeFile(File f, byte[] data) throws IOException {
+    File dir = f.getAbsoluteFile().getParentFile();
+    if (dir != null) {
+      dir.mkdirs();
+    }
+    File temp = new File(f.getPath() + ".tmp");
+    FileOutputStream out = new FileOutputStream(temp);
+    try {
+      out.write(data);
+    } finally {
+      out.close();
+    }
+    if (!temp.renameTo(f)) {
+      f.delete();
+      if (!temp.renameTo(f)) {
+        throw new IOException("Couldn't rename " + temp);
+      }
+    }
+  }
+
   /**
    * Add multiple points to the servers. This is a privileged operation which requires the user to authenticate against the server.
    * The username and password are encrypted prior to transmission over the network.
@@ -405,32 +505,38 @@ public class MoniCAClientIce extends MoniCAClient {
       if (!isConnected()) {
         connect();
       }
-      // Get data for each point in turn, as server may only return part of the
-      // data each time, so we need to iterate until all data has been retrieved
+      // Request the first chunk for all points at once so the server can extract them concurrently
+      String[] namesarray = new String[pointnames.size()];
+      for (int i = 0; i < pointnames.size(); i++) {
+        namesarray[i] = pointnames.get(i);
+      }
+      PointDataIce[][] firstdata = itsIceClient.getArchiveData(namesarray, start.getValue(), end.getValue(), maxsamples);
+
+      // The server may only return part of the data for each point, so we need to iterate until all data has been retrieved
       for (int thispoint = 0; thispoint < pointnames.size(); thispoint++) {
         String thisname = pointnames.get(thispoint);
         Vector<PointData> thisdata = new Vector<PointData>();
-        AbsTime thisstart = start;
+        PointDataIce[] icedata = (firstdata != null && thispoint < firstdata.length) ? firstdata[thispoint] : null;
         while (true) {
-          PointDataIce[][] icedata = itsIceClient.getArchiveData(new String[] { thisname }, thisstart.getValue(), end.getValue(), maxsamples);
-          if (icedata != null && icedata.length > 0 && icedata[0].length > 0) {
+          if (icedata != null && icedata.length > 0) {
             // Convert data to native representation
-            Vector<PointData> newdata = MoniCAIceUtil.getPointDataFromIce(icedata[0]);
+            Vector<PointData> newdata = MoniCAIceUtil.getPointDataFromIce(icedata);
             // Reinsert name fields dropped by server to minimise bandwidth
             for (int j = 0; j < newdata.size(); j++) {
               newdata.get(j).setName(thisname);
             }
-            thisdata.addAll(MoniCAIceUtil.getPointDataFromIce(icedata[0]));
-            if (icedata[0].length == 1) {
+            thisdata.addAll(newdata);
+            if (icedata.length == 1) {
               // No data will be returned to subsequent queries so stop now
               break;
             }
           } else {
-            // System.err.println("MoniCAClientIce.getArchiveData: " + pointnames.get(thispoint) + ": No New Data");
             // No new data was returned
             break;
           }
-          thisstart = ((PointData) (thisdata.get(thisdata.size() - 1))).getTimestamp().add(RelTime.factory(1));
+          AbsTime thisstart = ((PointData) (thisdata.get(thisdata.size() - 1))).getTimestamp().add(RelTime.factory(1));
+          PointDataIce[][] moredata = itsIceClient.getArchiveData(new String[] { thisname }, thisstart.getValue(), end.getValue(), maxsamples);
+          icedata = (moredata != null && moredata.length > 0) ? moredata[0] : null;
         }
         res.add(thisdata);
       }
@@ -442,6 +548,41 @@ public class MoniCAClientIce extends MoniCAClient {
     return res;
   }
 
+  /**
+   * Return statistics for the given points, which are computed by the server from its buffered and archived data.
+   * 
+   * @param pointnames
+   *          Names of points to get statistics for.
+   * @param start
+   *          The start of the time range.
+   * @param end
+   *          The end of the time range.
+   * @param bucket
+   *          Length of the intervals to compute statistics for, or null for a single set of statistics covering the whole range.
+   * @return Statistics for each interval in time order, for each point.
+   */
+  public Vector<Vector<Aggregate>> getAggregates(Vector<String> pointnames, AbsTime start, AbsTime end, RelTime bucket) throws Exception {
+    Vector<Vector<Aggregate>> res = new Vector<Vector<Aggregate>>(pointnames.size());
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      String[] namesarray = new String[pointnames.size()];
+      for (int i = 0; i < pointnames.size(); i++) {
+        namesarray[i] = pointnames.get(i);
+      }
+      AggregateIce[][] iceaggs = itsIceClient.getAggregates(namesarray, start.getValue(), end.getValue(), bucket == null ? 0 : bucket.getValue());
+      for (int i = 0; i < iceaggs.length; i++) {
+        res.add(MoniCAIceUtil.getAggregatesFromIce(iceaggs[i]));
+      }
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.getAggregates:" + e);
+      disconnect();
+      throw e;
+    }
+    return res;
+  }
+
   /**
    * Set new values for the specified points. This requires authentication. The username and password are encrypted prior to
    * transmission over the network.
@@ -718,6 +859,151 @@ public class MoniCAClientIce extends MoniCAClient {
     return res;
   }
 
+  /**
+   * Authenticate with the server and obtain a session token, which can be used for subsequent authenticated operations without
+   * needing to send the credentials each time.
+   * 
+   * @return The session token, or null if authentication failed.
+   */
+  public String login(String username, String passwd) throws Exception {
+    String res = null;
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      // Encrypt the username/password
+      RSA encryptor = getEncryptor();
+      String encname = encryptor.encrypt(username);
+      String encpass = encryptor.encrypt(passwd);
+      res = itsIceClient.login(encname, encpass);
+      if (res.length() == 0) {
+        res = null;
+      }
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.login:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+    return res;
+  }
+
+  /** Invalidate the session token on the server. */
+  public boolean logout(String token) throws Exception {
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      return itsIceClient.logout(token);
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.logout:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+  }
+
+  /** Set new values for the specified points, authenticating with a session token obtained from <tt>login</tt>. */
+  public boolean setDataWithToken(Vector<String> pointnames, Vector<PointData> values, String token) throws Exception {
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      PointDataIce[] icevalues = MoniCAIceUtil.getPointDataAsIce(values);
+      return itsIceClient.setDataWithToken(pointnames.toArray(new String[0]), icevalues, token);
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.setDataWithToken:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+  }
+
+  /** Acknowledge/deacknowledge the specified alarm points, authenticating with a session token obtained from <tt>login</tt>. */
+  public boolean acknowledgeAlarmsWithToken(Vector<String> pointnames, boolean ack, String token) throws Exception {
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      return itsIceClient.acknowledgeAlarmsWithToken(pointnames.toArray(new String[0]), ack, token);
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.acknowledgeAlarmsWithToken:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+  }
+
+  /** Shelve/deshelve the specified alarm points, authenticating with a session token obtained from <tt>login</tt>. */
+  public boolean shelveAlarmsWithToken(Vector<String> pointnames, boolean shelve, String token) throws Exception {
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      return itsIceClient.shelveAlarmsWithToken(pointnames.toArray(new String[0]), shelve, token);
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.shelveAlarmsWithToken:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+  }
+
+  /**
+   * Subscribe to alarm updates pushed by the server. The listener first receives a snapshot of all alarms and then each change of
+   * alarm state. The updates are delivered over the existing connection to the server, so the client doesn't need to accept
+   * connections. Any existing subscription is cancelled.
+   * 
+   * @param listener
+   *          The listener to receive the updates.
+   * @param sequence
+   *          Sequence number of the last alarm event received, to resume a previous subscription, or 0 for a full snapshot.
+   * @return False if the server refused the subscription.
+   */
+  public boolean subscribeAlarms(AlarmStreamListener listener, long sequence) throws Exception {
+    try {
+      if (!isConnected()) {
+        connect();
+      }
+      unsubscribeAlarms();
+      if (itsAdapter == null) {
+        itsAdapter = itsCommunicator.createObjectAdapter("");
+        itsAdapter.activate();
+      }
+      itsAlarmListener = new AlarmListenerIceI(this, listener);
+      itsAlarmListenerPrx = AlarmListenerIcePrxHelper.uncheckedCast(itsAdapter.addWithUUID(itsAlarmListener));
+      itsIceClient.ice_getConnection().setAdapter(itsAdapter);
+      boolean res = itsIceClient.subscribeAlarms(itsAlarmListenerPrx, sequence);
+      if (!res) {
+        unsubscribeAlarms();
+      }
+      return res;
+    } catch (Exception e) {
+      System.err.println("MoniCAClientIce.subscribeAlarms:" + e.getClass());
+      disconnect();
+      throw e;
+    }
+  }
+
+  /** Cancel the current subscription to alarm updates, if any. */
+  public void unsubscribeAlarms() {
+    AlarmListenerIceI servant = itsAlarmListener;
+    AlarmListenerIcePrx prx = itsAlarmListenerPrx;
+    itsAlarmListener = null;
+    itsAlarmListenerPrx = null;
+    if (servant != null) {
+      servant.stop();
+      try {
+        itsAdapter.remove(prx.ice_getIdentity());
+        if (isConnected()) {
+          itsIceClient.unsubscribeAlarms(prx);
+        }
+      } catch (Exception e) {
+      }
+    }
+  }
+
+  /** Return the time (ms) that alarm updates were last received from the server, or 0 if there is no subscription. */
+  public long getAlarmsLastReceived() {
+    AlarmListenerIceI servant = itsAlarmListener;
+    return servant == null ? 0 : servant.getLastReceived();
+  }
+
   /** Get the current time on the server. */
   public AbsTime getCurrentTime() throws Exception {
     try {
@@ -791,6 +1077,12 @@ public class MoniCAClientIce extends MoniCAClient {
 
   /** Disconnect from the server. */
   protected void disconnect() {
+    if (itsAlarmListener != null) {
+      itsAlarmListener.stop();
+      itsAlarmListener = null;
+      itsAlarmListenerPrx = null;
+    }
+    itsAdapter = null;
     if (itsCommunicator != null) {
       try {
         itsCommunicator.destroy();
@@ -8,16 +8,21 @@
 
 package atnf.atoms.mon.comms;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.Vector;
 import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import Ice.Current;
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.util.MonitorConfig;
-import atnf.atoms.mon.util.RADIUSAuthenticator;
 import atnf.atoms.time.*;
 import org.apache.log4j.Logger;
 
@@ -32,9 +37,21 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
 
   protected static Logger theirLogger = Logger.getLogger(MoniCAIceI.class.getName());
 
+  /** Alarm subscribers, keyed by the identity of the client's listener. */
+  protected static HashMap<Ice.Identity, AlarmStreamListener> theirAlarmSubscribers = new HashMap<Ice.Identity, AlarmStreamListener>();
+
   /** Port the server will listen on. */
   protected static int theirPort;
 
+  /** Initial number of Ice dispatch threads, which service the lightweight operations. */
+  protected static int theirThreadPoolSize = 4;
+
+  /** Maximum number of Ice dispatch threads. */
+  protected static int theirThreadPoolSizeMax = 20;
+
+  /** Thread pool which services the archive queries, so they can't starve the dispatch threads. */
+  protected static ThreadPoolExecutor theirArchiveQueryPool;
+
   static {
     // Determine which port the server should listen on
     try {
@@ -43,8 +60,40 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
       theirLogger.fatal("Error parsing IcePort configuration parameter: " + e);
       System.exit(1);
     }
+
+    // Determine the size of the thread pools
+    int numarchivethreads = 4;
+    int archivequeuesize = 100;
+    try {
+      theirThreadPoolSize = Integer.parseInt(MonitorConfig.getProperty("IceThreadPoolSize", "" + theirThreadPoolSize));
+      theirThreadPoolSizeMax = Integer.parseInt(MonitorConfig.getProperty("IceThreadPoolSizeMax", "" + theirThreadPoolSizeMax));
+      numarchivethreads = Integer.parseInt(MonitorConfig.getProperty("ArchiveQueryThreads", "" + numarchivethreads));
+      archivequeuesize = Integer.parseInt(MonitorConfig.getProperty("ArchiveQueryQueueSize", "" + archivequeuesize));
+    } catch (Exception e) {
+      theirLogger.error("Error parsing Ice thread pool configuration parameters, using defaults: " + e);
+    }
+    if (theirThreadPoolSizeMax < theirThreadPoolSize) {
+      theirThreadPoolSizeMax = theirThreadPoolSize;
+    }
+    theirArchiveQueryPool = new ThreadPoolExecutor(numarchivethreads, numarchivethreads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(archivequeuesize), new ThreadFactory() {
+          private int itsCount = 0;
+
+          public synchronized Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MoniCAIce ArchiveQuery " + (++itsCount));
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    theirArchiveQueryPool.allowCoreThreadTimeOut(true);
   }
 
+  /** Cached snapshot of all point definitions. */
+  private static byte[] theirSnapshot = null;
+
+  /** Metadata generation of the cached snapshot. */
+  private static long theirSnapshotGeneration = -1;
+
   public MoniCAIceI() {
   }
 
@@ -110,6 +159,31 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
     return res;
   }
 
+  /**
+   * Return a compressed snapshot of all point definitions, or an empty array if the client already has the current generation. The
+   * snapshot is only rebuilt when the generation changes.
+   */
+  public byte[] getPointSnapshot(long generation, Ice.Current __current) {
+    long current = PointDescription.getGeneration();
+    if (generation == current) {
+      return new byte[0];
+    }
+    synchronized (MoniCAIceI.class) {
+      if (theirSnapshot == null || theirSnapshotGeneration != current) {
+        try {
+          PointDescription[] points = PointDescription.getAllUniquePoints();
+          theirSnapshot = MoniCAIceUtil.getPointSnapshot(current, MoniCAIceUtil.getPointDescriptionsAsIce(points));
+          theirSnapshotGeneration = current;
+          theirLogger.debug("Built point snapshot for generation " + current + ": " + points.length + " points, " + theirSnapshot.length + " bytes");
+        } catch (Exception e) {
+          theirLogger.error("While building point snapshot: " + e);
+          throw new Ice.UnknownException(e.toString());
+        }
+      }
+      return theirSnapshot;
+    }
+  }
+
   /** Return the definitions for the specified points. */
   public PointDescriptionIce[] getPoints(String[] names, Ice.Current __current) {
     PointDescriptionIce[] temp = new PointDescriptionIce[names.length];
@@ -165,15 +239,30 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
     return stringsetups;
   }
 
+  /** Return historical data for the specified points. The query is serviced by the archive query thread pool. */
+  public void getArchiveData_async(final AMD_MoniCAIce_getArchiveData __cb, final String[] names, final long start, final long end,
+      final long maxsamples, final Ice.Current __current) {
+    submitArchiveQuery(__cb, new Runnable() {
+      public void run() {
+        __cb.ice_response(getArchiveData(names, start, end, maxsamples, __current));
+      }
+    }, __current);
+  }
+
   /** Return historical data for the specified points. */
-  public PointDataIce[][] getArchiveData(String[] names, long start, long end, long maxsamples, Ice.Current __current) {
+  private PointDataIce[][] getArchiveData(String[] names, long start, long end, long maxsamples, Ice.Current __current) {
     AbsTime absstart = AbsTime.factory(start);
     AbsTime absend = AbsTime.factory(end);
-    PointDataIce[][] res = new PointDataIce[names.length][];
+    AbsTime querystart = AbsTime.factory();
     for (int i = 0; i < names.length; i++) {
       checkPoint(names[i], __current);
-      // Get the requested data from the buffer/archive
-      Vector<PointData> thisdata = PointBuffer.getPointData(names[i], absstart, absend, (int) maxsamples);
+    }
+    // Get the requested data from the buffer/archive, points are extracted in parallel
+    Vector<Vector<PointData>> alldata = PointBuffer.getPointData(names, absstart, absend, (int) maxsamples);
+    PointDataIce[][] res = new PointDataIce[names.length][];
+    int numsamples = 0;
+    for (int i = 0; i < names.length; i++) {
+      Vector<PointData> thisdata = alldata.get(i);
       if (thisdata == null) {
         // Ice doesn't like null, so replace with empty return structure
         thisdata = new Vector<PointData>(0);
@@ -188,8 +277,40 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
       for (int j = 0; j < res[i].length; j++) {
         res[i][j].name = "";
       }
+      numsamples += res[i].length;
+    }
+    theirLogger.debug("getArchiveData: Returned " + numsamples + " samples for " + names.length + " points to " + getRemoteInfo(__current)
+        + " in " + Time.diff(AbsTime.factory(), querystart).toString(RelTime.Format.SECS_BAT) + " s");
+    return res;
+  }
+
+  /** Return statistics for the specified points. The query is serviced by the archive query thread pool. */
+  public void getAggregates_async(final AMD_MoniCAIce_getAggregates __cb, final String[] names, final long start, final long end,
+      final long bucket, final Ice.Current __current) {
+    submitArchiveQuery(__cb, new Runnable() {
+      public void run() {
+        __cb.ice_response(getAggregates(names, start, end, bucket, __current));
+      }
+    }, __current);
+  }
 
+  /** Return statistics for the specified points. */
+  private AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket, Ice.Current __current) {
+    AbsTime absstart = AbsTime.factory(Math.min(start, end));
+    AbsTime absend = AbsTime.factory(Math.max(start, end));
+    AbsTime querystart = AbsTime.factory();
+    for (int i = 0; i < names.length; i++) {
+      checkPoint(names[i], __current);
     }
+    // Statistics are computed from the buffer/archive, points are processed in parallel
+    Vector<Aggregate[]> allaggs = PointBuffer.getAggregates(names, absstart, absend, bucket > 0 ? RelTime.factory(bucket) : null);
+    AggregateIce[][] res = new AggregateIce[names.length][];
+    for (int i = 0; i < names.length; i++) {
+      // An empty result is returned for points which don't exist
+      res[i] = MoniCAIceUtil.getAggregatesAsIce(allaggs.get(i));
+    }
+    theirLogger.debug("getAggregates: Returned statistics for " + names.length + " points to " + getRemoteInfo(__current) + " in "
+        + Time.diff(AbsTime.factory(), querystart).toString(RelTime.Format.SECS_BAT) + " s");
     return res;
   }
 
@@ -211,8 +332,17 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
     return temp;
   }
 
+  /** Return the last values before the given time for the given points, using the archive query thread pool. */
+  public void getBefore_async(final AMD_MoniCAIce_getBefore __cb, final String[] names, final long t, final Ice.Current __current) {
+    submitArchiveQuery(__cb, new Runnable() {
+      public void run() {
+        __cb.ice_response(getBefore(names, t, __current));
+      }
+    }, __current);
+  }
+
   /** Return the last values before the given time for the given points. */
-  public PointDataIce[] getBefore(String[] names, long t, Ice.Current __current) {
+  private PointDataIce[] getBefore(String[] names, long t, Ice.Current __current) {
     PointDataIce[] temp = new PointDataIce[names.length];
     for (int i = 0; i < names.length; i++) {
       checkPoint(names[i], __current);
@@ -229,8 +359,17 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
     return temp;
   }
 
+  /** Return the next values after the given time for the given points, using the archive query thread pool. */
+  public void getAfter_async(final AMD_MoniCAIce_getAfter __cb, final String[] names, final long t, final Ice.Current __current) {
+    submitArchiveQuery(__cb, new Runnable() {
+      public void run() {
+        __cb.ice_response(getAfter(names, t, __current));
+      }
+    }, __current);
+  }
+
   /** Return the next values after the given time for the given points. */
-  public PointDataIce[] getAfter(String[] names, long t, Ice.Current __current) {
+  private PointDataIce[] getAfter(String[] names, long t, Ice.Current __current) {
     PointDataIce[] temp = new PointDataIce[names.length];
     for (int i = 0; i < names.length; i++) {
       checkPoint(names[i], __current);
@@ -249,18 +388,32 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
 
   /** Set new values for the specified points. */
   public boolean setData(String[] names, PointDataIce[] rawvalues, String encname, String encpass, Ice.Current __current) {
-    if (names.length != rawvalues.length) {
+    // Check user's credentials
+    String authuser = checkAuth(encname, encpass, getRemoteHost(__current));
+    if (authuser == null) {
+      theirLogger.warn("setData: Failed authentication attempt from " + getRemoteInfo(__current));
       return false;
     }
-    int numpoints = names.length;
-    String reminfo = getRemoteInfo(__current);
+    return setData(names, rawvalues, authuser, __current);
+  }
 
-    // Check user's credentials
-    String authuser = checkAuth(encname, encpass, getRemoteHost(__current));
+  /** Set new values for the specified points, authenticating with a session token. */
+  public boolean setDataWithToken(String[] names, PointDataIce[] rawvalues, String token, Ice.Current __current) {
+    String authuser = SessionManager.getSessionUser(token, getRemoteHost(__current));
     if (authuser == null) {
-      theirLogger.warn("setData: Failed authentication attempt from " + reminfo);
+      theirLogger.warn("setDataWithToken: Invalid session token from " + getRemoteInfo(__current));
+      return false;
+    }
+    return setData(names, rawvalues, authuser, __current);
+  }
+
+  /** Set new values for the specified points on behalf of an authenticated user. */
+  private boolean setData(String[] names, PointDataIce[] rawvalues, String authuser, Ice.Current __current) {
+    if (names.length != rawvalues.length) {
       return false;
     }
+    int numpoints = names.length;
+    String reminfo = getRemoteInfo(__current);
 
     // Process each of the control requests consecutively
     boolean result = true;
@@ -306,23 +459,37 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
 
   /** Acknowledge (ack=true) or deacknowledge (ack=false) the specified alarms. */
   public boolean acknowledgeAlarms(String[] names, boolean ack, String encname, String encpass, Current __current) {
-    boolean res = true;
     // Check user's credentials
     String authuser = checkAuth(encname, encpass, getRemoteHost(__current));
 
     if (authuser == null) {
       theirLogger.warn("acknowledgeAlarms: Failed authentication attempt from " + getRemoteInfo(__current));
-      res = false;
-    } else {
-      for (int i = 0; i < names.length; i++) {
-        checkPoint(names[i], __current);
-        PointDescription thispoint = PointDescription.getPoint(names[i]);
-        if (thispoint != null) {
-          AlarmManager.setAcknowledged(thispoint, ack, authuser);
-          theirLogger.debug("Point \"" + names[i] + "\" acknowledged=" + ack + " by \"" + authuser + "@" + getRemoteInfo(__current) + "\"");
-        } else {
-          res = false;
-        }
+      return false;
+    }
+    return acknowledgeAlarms(names, ack, authuser, __current);
+  }
+
+  /** Acknowledge (ack=true) or deacknowledge (ack=false) the specified alarms, authenticating with a session token. */
+  public boolean acknowledgeAlarmsWithToken(String[] names, boolean ack, String token, Current __current) {
+    String authuser = SessionManager.getSessionUser(token, getRemoteHost(__current));
+    if (authuser == null) {
+      theirLogger.warn("acknowledgeAlarmsWithToken: Invalid session token from " + getRemoteInfo(__current));
+      return false;
+    }
+    return acknowledgeAlarms(names, ack, authuser, __current);
+  }
+
+  /** Acknowledge or deacknowledge the specified alarms on behalf of an authenticated user. */
+  private boolean acknowledgeAlarms(String[] names, boolean ack, String authuser, Current __current) {
+    boolean res = true;
+    for (int i = 0; i < names.length; i++) {
+      checkPoint(names[i], __current);
+      PointDescription thispoint = PointDescription.getPoint(names[i]);
+      if (thispoint != null) {
+        AlarmManager.setAcknowledged(thispoint, ack, authuser);
+        theirLogger.debug("Point \"" + names[i] + "\" acknowledged=" + ack + " by \"" + authuser + "@" + getRemoteInfo(__current) + "\"");
+      } else {
+        res = false;
       }
     }
     return res;
@@ -330,28 +497,113 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
 
   /** Shelve (shelve=true) or deshelve (shelve=false) the specified alarms. */
   public boolean shelveAlarms(String[] names, boolean shelve, String encname, String encpass, Current __current) {
-    boolean res = true;
     // Check user's credentials
     String authuser = checkAuth(encname, encpass, getRemoteHost(__current));
 
     if (authuser == null) {
       theirLogger.warn("shelveAlarms: Failed authentication attempt from " + getRemoteInfo(__current));
-      res = false;
-    } else {
-      // User is authenticated, so shelve the alarms
-      for (int i = 0; i < names.length; i++) {
-        checkPoint(names[i], __current);
-        PointDescription thispoint = PointDescription.getPoint(names[i]);
-        if (thispoint != null) {
-          AlarmManager.setShelved(thispoint, shelve, authuser);
-          theirLogger.debug("Point \"" + names[i] + "\" shelved=" + shelve + " by \"" + authuser + "@" + getRemoteInfo(__current) + "\"");
-        } else {
-          res = false;
-        }
+      return false;
+    }
+    return shelveAlarms(names, shelve, authuser, __current);
+  };
+
+  /** Shelve (shelve=true) or deshelve (shelve=false) the specified alarms, authenticating with a session token. */
+  public boolean shelveAlarmsWithToken(String[] names, boolean shelve, String token, Current __current) {
+    String authuser = SessionManager.getSessionUser(token, getRemoteHost(__current));
+    if (authuser == null) {
+      theirLogger.warn("shelveAlarmsWithToken: Invalid session token from " + getRemoteInfo(__current));
+      return false;
+    }
+    return shelveAlarms(names, shelve, authuser, __current);
+  }
+
+  /** Shelve or deshelve the specified alarms on behalf of an authenticated user. */
+  private boolean shelveAlarms(String[] names, boolean shelve, String authuser, Current __current) {
+    boolean res = true;
+    for (int i = 0; i < names.length; i++) {
+      checkPoint(names[i], __current);
+      PointDescription thispoint = PointDescription.getPoint(names[i]);
+      if (thispoint != null) {
+        AlarmManager.setShelved(thispoint, shelve, authuser);
+        theirLogger.debug("Point \"" + names[i] + "\" shelved=" + shelve + " by \"" + authuser + "@" + getRemoteInfo(__current) + "\"");
+      } else {
+        res = false;
       }
     }
     return res;
-  };
+  }
+
+  /** Subscribe the client's listener to alarm updates. */
+  public boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence, Current __current) {
+    if (listener == null) {
+      return false;
+    }
+    AlarmListenerIcePrx target = listener;
+    if (listener.ice_getEndpoints().length == 0 && listener.ice_getAdapterId().length() == 0 && __current.con != null) {
+      // Client has no endpoints of its own, so call it back over the connection it used to subscribe
+      target = AlarmListenerIcePrxHelper.uncheckedCast(__current.con.createProxy(listener.ice_getIdentity()));
+    }
+    IceAlarmSubscriber sub = new IceAlarmSubscriber(AlarmListenerIcePrxHelper.uncheckedCast(target.ice_oneway()), getRemoteInfo(__current));
+    AlarmStreamListener old;
+    synchronized (theirAlarmSubscribers) {
+      old = theirAlarmSubscribers.put(listener.ice_getIdentity(), sub);
+    }
+    if (old != null) {
+      AlarmPublisher.unsubscribe(old);
+    }
+    theirLogger.debug("Alarm subscription from " + getRemoteInfo(__current) + " from sequence " + sequence);
+    return AlarmPublisher.subscribe(sub, sequence);
+  }
+
+  /** Cancel the client's subscription to alarm updates. */
+  public boolean unsubscribeAlarms(AlarmListenerIcePrx listener, Current __current) {
+    if (listener == null) {
+      return false;
+    }
+    AlarmStreamListener sub;
+    synchronized (theirAlarmSubscribers) {
+      sub = theirAlarmSubscribers.remove(listener.ice_getIdentity());
+    }
+    return sub != null && AlarmPublisher.unsubscribe(sub);
+  }
+
+  /** Forwards alarm events to a client's AlarmListenerIce. */
+  protected static class IceAlarmSubscriber implements AlarmStreamListener {
+    /** Oneway proxy for the client's listener. */
+    private AlarmListenerIcePrx itsProxy;
+
+    /** Description of the client, for logging. */
+    private String itsClient;
+
+    public IceAlarmSubscriber(AlarmListenerIcePrx proxy, String client) {
+      itsProxy = proxy;
+      itsClient = client;
+    }
+
+    public boolean alarmEvents(Vector<AlarmTransition> events) {
+      try {
+        itsProxy.alarmEvents(MoniCAIceUtil.getAlarmEventsAsIce(events));
+        return true;
+      } catch (Ice.LocalException e) {
+        theirLogger.debug("Dropping alarm subscription from " + itsClient + ": " + e);
+        alarmStreamDropped();
+        return false;
+      }
+    }
+
+    /** Forget the subscription. The client will subscribe again when it notices the heartbeats have stopped. */
+    public void alarmStreamDropped() {
+      synchronized (theirAlarmSubscribers) {
+        if (theirAlarmSubscribers.get(itsProxy.ice_getIdentity()) == this) {
+          theirAlarmSubscribers.remove(itsProxy.ice_getIdentity());
+        }
+      }
+    }
+
+    public String toString() {
+      return itsClient;
+    }
+  }
 
   /** Return the key and modulus required to send encrypted data to the server. */
   public String[] getEncryptionInfo(Ice.Current __current) {
@@ -361,6 +613,22 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
     return a;
   }
 
+  /** Authenticate the user and return a new session token, or an empty string if authentication failed. */
+  public String login(String encname, String encpass, Ice.Current __current) {
+    String host = getRemoteHost(__current);
+    String authuser = checkAuth(encname, encpass, host);
+    if (authuser == null) {
+      theirLogger.warn("login: Failed authentication attempt from " + getRemoteInfo(__current));
+      return "";
+    }
+    return SessionManager.createSession(authuser, host);
+  }
+
+  /** Invalidate the session token. */
+  public boolean logout(String token, Ice.Current __current) {
+    return SessionManager.endSession(token);
+  }
+
   /** Return the current time on the server. */
   public long getCurrentTime(Ice.Current __current) {
     return (new AbsTime()).getValue();
@@ -378,11 +646,33 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
     return res;
   }
 
+  /**
+   * Queue an archive query for execution by the archive query thread pool. If the queue is full the request is rejected and the
+   * client receives an exception rather than waiting indefinitely.
+   */
+  private void submitArchiveQuery(final Ice.AMDCallback cb, final Runnable query, final Ice.Current __current) {
+    try {
+      theirArchiveQueryPool.execute(new Runnable() {
+        public void run() {
+          try {
+            query.run();
+          } catch (Exception e) {
+            theirLogger.warn("Error while servicing " + __current.operation + " request: " + e);
+            cb.ice_exception(e);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      theirLogger.warn(__current.operation + " request from " + getRemoteInfo(__current) + " rejected: archive query queue is full");
+      cb.ice_exception(new Ice.UnknownException("Archive query queue is full, try again later"));
+    }
+  }
+
   /** Return validated username if credentials are valid or else return null. */
   private String checkAuth(String encname, String encpass, String host) {
     String username = KeyKeeper.decrypt(encname);
     String password = KeyKeeper.decrypt(encpass);
-    if (!RADIUSAuthenticator.authenticate(username, password, host)) {
+    if (!SessionManager.authenticate(username, password, host)) {
       // Authentication failed, add a delay
       username = null;
       try {
@@ -540,6 +830,9 @@ public final class MoniCAIceI extends _MoniCAIceDisp {
         // Need to create a new adapter
         Ice.Properties props = Ice.Util.createProperties();
         props.setProperty("Ice.IPv6", "0");
+        // Size the adapter's own dispatch pool, which services the lightweight operations
+        props.setProperty("MoniCAIceAdapter.ThreadPool.Size", "" + theirThreadPoolSize);
+        props.setProperty("MoniCAIceAdapter.ThreadPool.SizeMax", "" + theirThreadPoolSizeMax);
         Ice.InitializationData id = new Ice.InitializationData();
         id.properties = props;
         ic = Ice.Util.initialize(id);
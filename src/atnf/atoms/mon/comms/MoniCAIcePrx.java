@@ -112,6 +112,24 @@ public interface MoniCAIcePrx extends Ice.ObjectPrx
 
     public PointDescriptionIce[] end_getAllPointsChunk(Ice.AsyncResult __result);
 
+    public byte[] getPointSnapshot(long generation);
+
+    public byte[] getPointSnapshot(long generation, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_getPointSnapshot(long generation);
+
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, Callback_MoniCAIce_getPointSnapshot __cb);
+
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx, Callback_MoniCAIce_getPointSnapshot __cb);
+
+    public byte[] end_getPointSnapshot(Ice.AsyncResult __result);
+
     public boolean addPoints(PointDescriptionIce[] newpoints, String username, String passwd);
 
     public boolean addPoints(PointDescriptionIce[] newpoints, String username, String passwd, java.util.Map<String, String> __ctx);
@@ -148,6 +166,24 @@ public interface MoniCAIcePrx extends Ice.ObjectPrx
 
     public PointDataIce[][] end_getArchiveData(Ice.AsyncResult __result);
 
+    public AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket);
+
+    public AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket);
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, Callback_MoniCAIce_getAggregates __cb);
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, Callback_MoniCAIce_getAggregates __cb);
+
+    public AggregateIce[][] end_getAggregates(Ice.AsyncResult __result);
+
     public PointDataIce[] getData(String[] names);
 
     public PointDataIce[] getData(String[] names, java.util.Map<String, String> __ctx);
@@ -220,6 +256,24 @@ public interface MoniCAIcePrx extends Ice.ObjectPrx
 
     public boolean end_setData(Ice.AsyncResult __result);
 
+    public boolean setDataWithToken(String[] names, PointDataIce[] values, String token);
+
+    public boolean setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token);
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, Callback_MoniCAIce_setDataWithToken __cb);
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_setDataWithToken __cb);
+
+    public boolean end_setDataWithToken(Ice.AsyncResult __result);
+
     public String[] getAllSetups();
 
     public String[] getAllSetups(java.util.Map<String, String> __ctx);
@@ -310,6 +364,24 @@ public interface MoniCAIcePrx extends Ice.ObjectPrx
 
     public boolean end_acknowledgeAlarms(Ice.AsyncResult __result);
 
+    public boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token);
+
+    public boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token);
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, Callback_MoniCAIce_acknowledgeAlarmsWithToken __cb);
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_acknowledgeAlarmsWithToken __cb);
+
+    public boolean end_acknowledgeAlarmsWithToken(Ice.AsyncResult __result);
+
     public boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd);
 
     public boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx);
@@ -328,6 +400,60 @@ public interface MoniCAIcePrx extends Ice.ObjectPrx
 
     public boolean end_shelveAlarms(Ice.AsyncResult __result);
 
+    public boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token);
+
+    public boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token);
+
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, Callback_MoniCAIce_shelveAlarmsWithToken __cb);
+
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_shelveAlarmsWithToken __cb);
+
+    public boolean end_shelveAlarmsWithToken(Ice.AsyncResult __result);
+
+    public boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence);
+
+    public boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence);
+
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, Callback_MoniCAIce_subscribeAlarms __cb);
+
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx, Callback_MoniCAIce_subscribeAlarms __cb);
+
+    public boolean end_subscribeAlarms(Ice.AsyncResult __result);
+
+    public boolean unsubscribeAlarms(AlarmListenerIcePrx listener);
+
+    public boolean unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener);
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, Callback_MoniCAIce_unsubscribeAlarms __cb);
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, Callback_MoniCAIce_unsubscribeAlarms __cb);
+
+    public boolean end_unsubscribeAlarms(Ice.AsyncResult __result);
+
     public String[] getEncryptionInfo();
 
     public String[] getEncryptionInfo(java.util.Map<String, String> __ctx);
@@ -346,6 +472,42 @@ public interface MoniCAIcePrx extends Ice.ObjectPrx
 
     public String[] end_getEncryptionInfo(Ice.AsyncResult __result);
 
+    public String login(String username, String passwd);
+
+    public String login(String username, String passwd, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_login(String username, String passwd);
+
+    public Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_login(String username, String passwd, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_login(String username, String passwd, Callback_MoniCAIce_login __cb);
+
+    public Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx, Callback_MoniCAIce_login __cb);
+
+    public String end_login(Ice.AsyncResult __result);
+
+    public boolean logout(String token);
+
+    public boolean logout(String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_logout(String token);
+
+    public Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx);
+
+    public Ice.AsyncResult begin_logout(String token, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx, Ice.Callback __cb);
+
+    public Ice.AsyncResult begin_logout(String token, Callback_MoniCAIce_logout __cb);
+
+    public Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_logout __cb);
+
+    public boolean end_logout(Ice.AsyncResult __result);
+
     public long getCurrentTime();
 
     public long getCurrentTime(java.util.Map<String, String> __ctx);
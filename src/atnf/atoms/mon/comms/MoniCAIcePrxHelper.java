@@ -159,6 +159,142 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
+    private static final String __acknowledgeAlarmsWithToken_name = "acknowledgeAlarmsWithToken";
+
+    public boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token)
+    {
+        return acknowledgeAlarmsWithToken(pointnames, ack, token, null, false);
+    }
+
+    public boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx)
+    {
+        return acknowledgeAlarmsWithToken(pointnames, ack, token, __ctx, true);
+    }
+
+    private boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "acknowledgeAlarmsWithToken", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("acknowledgeAlarmsWithToken");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.acknowledgeAlarmsWithToken(pointnames, ack, token, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token)
+    {
+        return begin_acknowledgeAlarmsWithToken(pointnames, ack, token, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx)
+    {
+        return begin_acknowledgeAlarmsWithToken(pointnames, ack, token, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, Ice.Callback __cb)
+    {
+        return begin_acknowledgeAlarmsWithToken(pointnames, ack, token, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_acknowledgeAlarmsWithToken(pointnames, ack, token, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, Callback_MoniCAIce_acknowledgeAlarmsWithToken __cb)
+    {
+        return begin_acknowledgeAlarmsWithToken(pointnames, ack, token, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_acknowledgeAlarmsWithToken __cb)
+    {
+        return begin_acknowledgeAlarmsWithToken(pointnames, ack, token, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__acknowledgeAlarmsWithToken_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __acknowledgeAlarmsWithToken_name, __cb);
+        try
+        {
+            __result.__prepare(__acknowledgeAlarmsWithToken_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            stringarrayHelper.write(__os, pointnames);
+            __os.writeBool(ack);
+            __os.writeString(token);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public boolean end_acknowledgeAlarmsWithToken(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __acknowledgeAlarmsWithToken_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            boolean __ret;
+            __ret = __is.readBool();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
     private static final String __addPoints_name = "addPoints";
 
     public boolean addPoints(PointDescriptionIce[] newpoints, String username, String passwd)
@@ -567,6 +703,143 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
+    private static final String __getAggregates_name = "getAggregates";
+
+    public AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket)
+    {
+        return getAggregates(names, start, end, bucket, null, false);
+    }
+
+    public AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx)
+    {
+        return getAggregates(names, start, end, bucket, __ctx, true);
+    }
+
+    private AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "getAggregates", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("getAggregates");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.getAggregates(names, start, end, bucket, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __cnt = __handleExceptionWrapperRelaxed(__delBase, __ex, null, __cnt, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket)
+    {
+        return begin_getAggregates(names, start, end, bucket, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx)
+    {
+        return begin_getAggregates(names, start, end, bucket, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, Ice.Callback __cb)
+    {
+        return begin_getAggregates(names, start, end, bucket, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_getAggregates(names, start, end, bucket, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, Callback_MoniCAIce_getAggregates __cb)
+    {
+        return begin_getAggregates(names, start, end, bucket, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, Callback_MoniCAIce_getAggregates __cb)
+    {
+        return begin_getAggregates(names, start, end, bucket, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__getAggregates_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __getAggregates_name, __cb);
+        try
+        {
+            __result.__prepare(__getAggregates_name, Ice.OperationMode.Idempotent, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            stringarrayHelper.write(__os, names);
+            __os.writeLong(start);
+            __os.writeLong(end);
+            __os.writeLong(bucket);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public AggregateIce[][] end_getAggregates(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __getAggregates_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            AggregateIce[][] __ret;
+            __ret = aggregatesetarrayHelper.read(__is);
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
     private static final String __getAllAlarms_name = "getAllAlarms";
 
     public AlarmIce[] getAllAlarms()
@@ -2304,25 +2577,25 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
-    private static final String __getPoints_name = "getPoints";
+    private static final String __getPointSnapshot_name = "getPointSnapshot";
 
-    public PointDescriptionIce[] getPoints(String[] names)
+    public byte[] getPointSnapshot(long generation)
     {
-        return getPoints(names, null, false);
+        return getPointSnapshot(generation, null, false);
     }
 
-    public PointDescriptionIce[] getPoints(String[] names, java.util.Map<String, String> __ctx)
+    public byte[] getPointSnapshot(long generation, java.util.Map<String, String> __ctx)
     {
-        return getPoints(names, __ctx, true);
+        return getPointSnapshot(generation, __ctx, true);
     }
 
-    private PointDescriptionIce[] getPoints(String[] names, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    private byte[] getPointSnapshot(long generation, java.util.Map<String, String> __ctx, boolean __explicitCtx)
     {
         if(__explicitCtx && __ctx == null)
         {
             __ctx = _emptyContext;
         }
-        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "getPoints", __ctx);
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "getPointSnapshot", __ctx);
         int __cnt = 0;
         try
         {
@@ -2331,10 +2604,10 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
                 Ice._ObjectDel __delBase = null;
                 try
                 {
-                    __checkTwowayOnly("getPoints");
+                    __checkTwowayOnly("getPointSnapshot");
                     __delBase = __getDelegate(false);
                     _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
-                    return __del.getPoints(names, __ctx, __observer);
+                    return __del.getPointSnapshot(generation, __ctx, __observer);
                 }
                 catch(IceInternal.LocalExceptionWrapper __ex)
                 {
@@ -2355,45 +2628,45 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
-    public Ice.AsyncResult begin_getPoints(String[] names)
+    public Ice.AsyncResult begin_getPointSnapshot(long generation)
     {
-        return begin_getPoints(names, null, false, null);
+        return begin_getPointSnapshot(generation, null, false, null);
     }
 
-    public Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx)
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx)
     {
-        return begin_getPoints(names, __ctx, true, null);
+        return begin_getPointSnapshot(generation, __ctx, true, null);
     }
 
-    public Ice.AsyncResult begin_getPoints(String[] names, Ice.Callback __cb)
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, Ice.Callback __cb)
     {
-        return begin_getPoints(names, null, false, __cb);
+        return begin_getPointSnapshot(generation, null, false, __cb);
     }
 
-    public Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx, Ice.Callback __cb)
     {
-        return begin_getPoints(names, __ctx, true, __cb);
+        return begin_getPointSnapshot(generation, __ctx, true, __cb);
     }
 
-    public Ice.AsyncResult begin_getPoints(String[] names, Callback_MoniCAIce_getPoints __cb)
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, Callback_MoniCAIce_getPointSnapshot __cb)
     {
-        return begin_getPoints(names, null, false, __cb);
+        return begin_getPointSnapshot(generation, null, false, __cb);
     }
 
-    public Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx, Callback_MoniCAIce_getPoints __cb)
+    public Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx, Callback_MoniCAIce_getPointSnapshot __cb)
     {
-        return begin_getPoints(names, __ctx, true, __cb);
+        return begin_getPointSnapshot(generation, __ctx, true, __cb);
     }
 
-    private Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    private Ice.AsyncResult begin_getPointSnapshot(long generation, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
     {
-        __checkAsyncTwowayOnly(__getPoints_name);
-        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __getPoints_name, __cb);
+        __checkAsyncTwowayOnly(__getPointSnapshot_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __getPointSnapshot_name, __cb);
         try
         {
-            __result.__prepare(__getPoints_name, Ice.OperationMode.Idempotent, __ctx, __explicitCtx);
+            __result.__prepare(__getPointSnapshot_name, Ice.OperationMode.Idempotent, __ctx, __explicitCtx);
             IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
-            stringarrayHelper.write(__os, names);
+            __os.writeLong(generation);
             __result.__endWriteParams();
             __result.__send(true);
         }
@@ -2404,9 +2677,9 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         return __result;
     }
 
-    public PointDescriptionIce[] end_getPoints(Ice.AsyncResult __result)
+    public byte[] end_getPointSnapshot(Ice.AsyncResult __result)
     {
-        Ice.AsyncResult.__check(__result, this, __getPoints_name);
+        Ice.AsyncResult.__check(__result, this, __getPointSnapshot_name);
         boolean __ok = __result.__wait();
         try
         {
@@ -2422,8 +2695,8 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
                 }
             }
             IceInternal.BasicStream __is = __result.__startReadParams();
-            PointDescriptionIce[] __ret;
-            __ret = pointarrayHelper.read(__is);
+            byte[] __ret;
+            __ret = bytearrayHelper.read(__is);
             __result.__endReadParams();
             return __ret;
         }
@@ -2438,25 +2711,840 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
-    private static final String __setData_name = "setData";
+    private static final String __getPoints_name = "getPoints";
 
-    public boolean setData(String[] names, PointDataIce[] values, String username, String passwd)
+    public PointDescriptionIce[] getPoints(String[] names)
     {
-        return setData(names, values, username, passwd, null, false);
+        return getPoints(names, null, false);
     }
 
-    public boolean setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx)
+    public PointDescriptionIce[] getPoints(String[] names, java.util.Map<String, String> __ctx)
     {
-        return setData(names, values, username, passwd, __ctx, true);
+        return getPoints(names, __ctx, true);
     }
 
-    private boolean setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    private PointDescriptionIce[] getPoints(String[] names, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "getPoints", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("getPoints");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.getPoints(names, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __cnt = __handleExceptionWrapperRelaxed(__delBase, __ex, null, __cnt, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_getPoints(String[] names)
+    {
+        return begin_getPoints(names, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx)
+    {
+        return begin_getPoints(names, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_getPoints(String[] names, Ice.Callback __cb)
+    {
+        return begin_getPoints(names, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_getPoints(names, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_getPoints(String[] names, Callback_MoniCAIce_getPoints __cb)
+    {
+        return begin_getPoints(names, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx, Callback_MoniCAIce_getPoints __cb)
+    {
+        return begin_getPoints(names, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_getPoints(String[] names, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__getPoints_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __getPoints_name, __cb);
+        try
+        {
+            __result.__prepare(__getPoints_name, Ice.OperationMode.Idempotent, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            stringarrayHelper.write(__os, names);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public PointDescriptionIce[] end_getPoints(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __getPoints_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            PointDescriptionIce[] __ret;
+            __ret = pointarrayHelper.read(__is);
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __login_name = "login";
+
+    public String login(String username, String passwd)
+    {
+        return login(username, passwd, null, false);
+    }
+
+    public String login(String username, String passwd, java.util.Map<String, String> __ctx)
+    {
+        return login(username, passwd, __ctx, true);
+    }
+
+    private String login(String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "login", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("login");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.login(username, passwd, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_login(String username, String passwd)
+    {
+        return begin_login(username, passwd, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx)
+    {
+        return begin_login(username, passwd, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_login(String username, String passwd, Ice.Callback __cb)
+    {
+        return begin_login(username, passwd, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_login(username, passwd, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_login(String username, String passwd, Callback_MoniCAIce_login __cb)
+    {
+        return begin_login(username, passwd, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx, Callback_MoniCAIce_login __cb)
+    {
+        return begin_login(username, passwd, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_login(String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__login_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __login_name, __cb);
+        try
+        {
+            __result.__prepare(__login_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            __os.writeString(username);
+            __os.writeString(passwd);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public String end_login(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __login_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            String __ret;
+            __ret = __is.readString();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __logout_name = "logout";
+
+    public boolean logout(String token)
+    {
+        return logout(token, null, false);
+    }
+
+    public boolean logout(String token, java.util.Map<String, String> __ctx)
+    {
+        return logout(token, __ctx, true);
+    }
+
+    private boolean logout(String token, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "logout", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("logout");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.logout(token, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_logout(String token)
+    {
+        return begin_logout(token, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx)
+    {
+        return begin_logout(token, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_logout(String token, Ice.Callback __cb)
+    {
+        return begin_logout(token, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_logout(token, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_logout(String token, Callback_MoniCAIce_logout __cb)
+    {
+        return begin_logout(token, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_logout __cb)
+    {
+        return begin_logout(token, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_logout(String token, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__logout_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __logout_name, __cb);
+        try
+        {
+            __result.__prepare(__logout_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            __os.writeString(token);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public boolean end_logout(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __logout_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            boolean __ret;
+            __ret = __is.readBool();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __setData_name = "setData";
+
+    public boolean setData(String[] names, PointDataIce[] values, String username, String passwd)
+    {
+        return setData(names, values, username, passwd, null, false);
+    }
+
+    public boolean setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx)
+    {
+        return setData(names, values, username, passwd, __ctx, true);
+    }
+
+    private boolean setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "setData", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("setData");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.setData(names, values, username, passwd, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd)
+    {
+        return begin_setData(names, values, username, passwd, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx)
+    {
+        return begin_setData(names, values, username, passwd, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, Ice.Callback __cb)
+    {
+        return begin_setData(names, values, username, passwd, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_setData(names, values, username, passwd, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, Callback_MoniCAIce_setData __cb)
+    {
+        return begin_setData(names, values, username, passwd, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, Callback_MoniCAIce_setData __cb)
+    {
+        return begin_setData(names, values, username, passwd, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__setData_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __setData_name, __cb);
+        try
+        {
+            __result.__prepare(__setData_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            stringarrayHelper.write(__os, names);
+            pointdatasetHelper.write(__os, values);
+            __os.writeString(username);
+            __os.writeString(passwd);
+            __os.writePendingObjects();
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public boolean end_setData(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __setData_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            boolean __ret;
+            __ret = __is.readBool();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __setDataWithToken_name = "setDataWithToken";
+
+    public boolean setDataWithToken(String[] names, PointDataIce[] values, String token)
+    {
+        return setDataWithToken(names, values, token, null, false);
+    }
+
+    public boolean setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx)
+    {
+        return setDataWithToken(names, values, token, __ctx, true);
+    }
+
+    private boolean setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "setDataWithToken", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("setDataWithToken");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.setDataWithToken(names, values, token, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token)
+    {
+        return begin_setDataWithToken(names, values, token, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx)
+    {
+        return begin_setDataWithToken(names, values, token, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, Ice.Callback __cb)
+    {
+        return begin_setDataWithToken(names, values, token, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_setDataWithToken(names, values, token, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, Callback_MoniCAIce_setDataWithToken __cb)
+    {
+        return begin_setDataWithToken(names, values, token, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_setDataWithToken __cb)
+    {
+        return begin_setDataWithToken(names, values, token, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_setDataWithToken(String[] names, PointDataIce[] values, String token, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__setDataWithToken_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __setDataWithToken_name, __cb);
+        try
+        {
+            __result.__prepare(__setDataWithToken_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            stringarrayHelper.write(__os, names);
+            pointdatasetHelper.write(__os, values);
+            __os.writeString(token);
+            __os.writePendingObjects();
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public boolean end_setDataWithToken(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __setDataWithToken_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            boolean __ret;
+            __ret = __is.readBool();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __shelveAlarms_name = "shelveAlarms";
+
+    public boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd)
+    {
+        return shelveAlarms(pointnames, shelve, username, passwd, null, false);
+    }
+
+    public boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx)
+    {
+        return shelveAlarms(pointnames, shelve, username, passwd, __ctx, true);
+    }
+
+    private boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "shelveAlarms", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("shelveAlarms");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.shelveAlarms(pointnames, shelve, username, passwd, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd)
+    {
+        return begin_shelveAlarms(pointnames, shelve, username, passwd, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx)
+    {
+        return begin_shelveAlarms(pointnames, shelve, username, passwd, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, Ice.Callback __cb)
+    {
+        return begin_shelveAlarms(pointnames, shelve, username, passwd, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_shelveAlarms(pointnames, shelve, username, passwd, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, Callback_MoniCAIce_shelveAlarms __cb)
+    {
+        return begin_shelveAlarms(pointnames, shelve, username, passwd, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, Callback_MoniCAIce_shelveAlarms __cb)
+    {
+        return begin_shelveAlarms(pointnames, shelve, username, passwd, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__shelveAlarms_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __shelveAlarms_name, __cb);
+        try
+        {
+            __result.__prepare(__shelveAlarms_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            stringarrayHelper.write(__os, pointnames);
+            __os.writeBool(shelve);
+            __os.writeString(username);
+            __os.writeString(passwd);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public boolean end_shelveAlarms(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __shelveAlarms_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            boolean __ret;
+            __ret = __is.readBool();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __shelveAlarmsWithToken_name = "shelveAlarmsWithToken";
+
+    public boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token)
+    {
+        return shelveAlarmsWithToken(pointnames, shelve, token, null, false);
+    }
+
+    public boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx)
+    {
+        return shelveAlarmsWithToken(pointnames, shelve, token, __ctx, true);
+    }
+
+    private boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx, boolean __explicitCtx)
     {
         if(__explicitCtx && __ctx == null)
         {
             __ctx = _emptyContext;
         }
-        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "setData", __ctx);
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "shelveAlarmsWithToken", __ctx);
         int __cnt = 0;
         try
         {
@@ -2465,10 +3553,10 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
                 Ice._ObjectDel __delBase = null;
                 try
                 {
-                    __checkTwowayOnly("setData");
+                    __checkTwowayOnly("shelveAlarmsWithToken");
                     __delBase = __getDelegate(false);
                     _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
-                    return __del.setData(names, values, username, passwd, __ctx, __observer);
+                    return __del.shelveAlarmsWithToken(pointnames, shelve, token, __ctx, __observer);
                 }
                 catch(IceInternal.LocalExceptionWrapper __ex)
                 {
@@ -2489,49 +3577,47 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
-    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd)
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token)
     {
-        return begin_setData(names, values, username, passwd, null, false, null);
+        return begin_shelveAlarmsWithToken(pointnames, shelve, token, null, false, null);
     }
 
-    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx)
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx)
     {
-        return begin_setData(names, values, username, passwd, __ctx, true, null);
+        return begin_shelveAlarmsWithToken(pointnames, shelve, token, __ctx, true, null);
     }
 
-    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, Ice.Callback __cb)
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, Ice.Callback __cb)
     {
-        return begin_setData(names, values, username, passwd, null, false, __cb);
+        return begin_shelveAlarmsWithToken(pointnames, shelve, token, null, false, __cb);
     }
 
-    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx, Ice.Callback __cb)
     {
-        return begin_setData(names, values, username, passwd, __ctx, true, __cb);
+        return begin_shelveAlarmsWithToken(pointnames, shelve, token, __ctx, true, __cb);
     }
 
-    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, Callback_MoniCAIce_setData __cb)
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, Callback_MoniCAIce_shelveAlarmsWithToken __cb)
     {
-        return begin_setData(names, values, username, passwd, null, false, __cb);
+        return begin_shelveAlarmsWithToken(pointnames, shelve, token, null, false, __cb);
     }
 
-    public Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, Callback_MoniCAIce_setData __cb)
+    public Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx, Callback_MoniCAIce_shelveAlarmsWithToken __cb)
     {
-        return begin_setData(names, values, username, passwd, __ctx, true, __cb);
+        return begin_shelveAlarmsWithToken(pointnames, shelve, token, __ctx, true, __cb);
     }
 
-    private Ice.AsyncResult begin_setData(String[] names, PointDataIce[] values, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    private Ice.AsyncResult begin_shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
     {
-        __checkAsyncTwowayOnly(__setData_name);
-        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __setData_name, __cb);
+        __checkAsyncTwowayOnly(__shelveAlarmsWithToken_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __shelveAlarmsWithToken_name, __cb);
         try
         {
-            __result.__prepare(__setData_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            __result.__prepare(__shelveAlarmsWithToken_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
             IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
-            stringarrayHelper.write(__os, names);
-            pointdatasetHelper.write(__os, values);
-            __os.writeString(username);
-            __os.writeString(passwd);
-            __os.writePendingObjects();
+            stringarrayHelper.write(__os, pointnames);
+            __os.writeBool(shelve);
+            __os.writeString(token);
             __result.__endWriteParams();
             __result.__send(true);
         }
@@ -2542,9 +3628,9 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         return __result;
     }
 
-    public boolean end_setData(Ice.AsyncResult __result)
+    public boolean end_shelveAlarmsWithToken(Ice.AsyncResult __result)
     {
-        Ice.AsyncResult.__check(__result, this, __setData_name);
+        Ice.AsyncResult.__check(__result, this, __shelveAlarmsWithToken_name);
         boolean __ok = __result.__wait();
         try
         {
@@ -2576,25 +3662,25 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
-    private static final String __shelveAlarms_name = "shelveAlarms";
+    private static final String __subscribeAlarms_name = "subscribeAlarms";
 
-    public boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd)
+    public boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence)
     {
-        return shelveAlarms(pointnames, shelve, username, passwd, null, false);
+        return subscribeAlarms(listener, sequence, null, false);
     }
 
-    public boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx)
+    public boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx)
     {
-        return shelveAlarms(pointnames, shelve, username, passwd, __ctx, true);
+        return subscribeAlarms(listener, sequence, __ctx, true);
     }
 
-    private boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    private boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx, boolean __explicitCtx)
     {
         if(__explicitCtx && __ctx == null)
         {
             __ctx = _emptyContext;
         }
-        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "shelveAlarms", __ctx);
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "subscribeAlarms", __ctx);
         int __cnt = 0;
         try
         {
@@ -2603,10 +3689,10 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
                 Ice._ObjectDel __delBase = null;
                 try
                 {
-                    __checkTwowayOnly("shelveAlarms");
+                    __checkTwowayOnly("subscribeAlarms");
                     __delBase = __getDelegate(false);
                     _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
-                    return __del.shelveAlarms(pointnames, shelve, username, passwd, __ctx, __observer);
+                    return __del.subscribeAlarms(listener, sequence, __ctx, __observer);
                 }
                 catch(IceInternal.LocalExceptionWrapper __ex)
                 {
@@ -2627,48 +3713,46 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         }
     }
 
-    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd)
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence)
     {
-        return begin_shelveAlarms(pointnames, shelve, username, passwd, null, false, null);
+        return begin_subscribeAlarms(listener, sequence, null, false, null);
     }
 
-    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx)
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx)
     {
-        return begin_shelveAlarms(pointnames, shelve, username, passwd, __ctx, true, null);
+        return begin_subscribeAlarms(listener, sequence, __ctx, true, null);
     }
 
-    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, Ice.Callback __cb)
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, Ice.Callback __cb)
     {
-        return begin_shelveAlarms(pointnames, shelve, username, passwd, null, false, __cb);
+        return begin_subscribeAlarms(listener, sequence, null, false, __cb);
     }
 
-    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx, Ice.Callback __cb)
     {
-        return begin_shelveAlarms(pointnames, shelve, username, passwd, __ctx, true, __cb);
+        return begin_subscribeAlarms(listener, sequence, __ctx, true, __cb);
     }
 
-    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, Callback_MoniCAIce_shelveAlarms __cb)
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, Callback_MoniCAIce_subscribeAlarms __cb)
     {
-        return begin_shelveAlarms(pointnames, shelve, username, passwd, null, false, __cb);
+        return begin_subscribeAlarms(listener, sequence, null, false, __cb);
     }
 
-    public Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, Callback_MoniCAIce_shelveAlarms __cb)
+    public Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx, Callback_MoniCAIce_subscribeAlarms __cb)
     {
-        return begin_shelveAlarms(pointnames, shelve, username, passwd, __ctx, true, __cb);
+        return begin_subscribeAlarms(listener, sequence, __ctx, true, __cb);
     }
 
-    private Ice.AsyncResult begin_shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    private Ice.AsyncResult begin_subscribeAlarms(AlarmListenerIcePrx listener, long sequence, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
     {
-        __checkAsyncTwowayOnly(__shelveAlarms_name);
-        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __shelveAlarms_name, __cb);
+        __checkAsyncTwowayOnly(__subscribeAlarms_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __subscribeAlarms_name, __cb);
         try
         {
-            __result.__prepare(__shelveAlarms_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            __result.__prepare(__subscribeAlarms_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
             IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
-            stringarrayHelper.write(__os, pointnames);
-            __os.writeBool(shelve);
-            __os.writeString(username);
-            __os.writeString(passwd);
+            AlarmListenerIcePrxHelper.__write(__os, listener);
+            __os.writeLong(sequence);
             __result.__endWriteParams();
             __result.__send(true);
         }
@@ -2679,9 +3763,143 @@ public final class MoniCAIcePrxHelper extends Ice.ObjectPrxHelperBase implements
         return __result;
     }
 
-    public boolean end_shelveAlarms(Ice.AsyncResult __result)
+    public boolean end_subscribeAlarms(Ice.AsyncResult __result)
     {
-        Ice.AsyncResult.__check(__result, this, __shelveAlarms_name);
+        Ice.AsyncResult.__check(__result, this, __subscribeAlarms_name);
+        boolean __ok = __result.__wait();
+        try
+        {
+            if(!__ok)
+            {
+                try
+                {
+                    __result.__throwUserException();
+                }
+                catch(Ice.UserException __ex)
+                {
+                    throw new Ice.UnknownUserException(__ex.ice_name(), __ex);
+                }
+            }
+            IceInternal.BasicStream __is = __result.__startReadParams();
+            boolean __ret;
+            __ret = __is.readBool();
+            __result.__endReadParams();
+            return __ret;
+        }
+        catch(Ice.LocalException ex)
+        {
+            Ice.Instrumentation.InvocationObserver __obsv = __result.__getObserver();
+            if(__obsv != null)
+            {
+                __obsv.failed(ex.ice_name());
+            }
+            throw ex;
+        }
+    }
+
+    private static final String __unsubscribeAlarms_name = "unsubscribeAlarms";
+
+    public boolean unsubscribeAlarms(AlarmListenerIcePrx listener)
+    {
+        return unsubscribeAlarms(listener, null, false);
+    }
+
+    public boolean unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx)
+    {
+        return unsubscribeAlarms(listener, __ctx, true);
+    }
+
+    private boolean unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, boolean __explicitCtx)
+    {
+        if(__explicitCtx && __ctx == null)
+        {
+            __ctx = _emptyContext;
+        }
+        final Ice.Instrumentation.InvocationObserver __observer = IceInternal.ObserverHelper.get(this, "unsubscribeAlarms", __ctx);
+        int __cnt = 0;
+        try
+        {
+            while(true)
+            {
+                Ice._ObjectDel __delBase = null;
+                try
+                {
+                    __checkTwowayOnly("unsubscribeAlarms");
+                    __delBase = __getDelegate(false);
+                    _MoniCAIceDel __del = (_MoniCAIceDel)__delBase;
+                    return __del.unsubscribeAlarms(listener, __ctx, __observer);
+                }
+                catch(IceInternal.LocalExceptionWrapper __ex)
+                {
+                    __handleExceptionWrapper(__delBase, __ex, __observer);
+                }
+                catch(Ice.LocalException __ex)
+                {
+                    __cnt = __handleException(__delBase, __ex, null, __cnt, __observer);
+                }
+            }
+        }
+        finally
+        {
+            if(__observer != null)
+            {
+                __observer.detach();
+            }
+        }
+    }
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener)
+    {
+        return begin_unsubscribeAlarms(listener, null, false, null);
+    }
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx)
+    {
+        return begin_unsubscribeAlarms(listener, __ctx, true, null);
+    }
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, Ice.Callback __cb)
+    {
+        return begin_unsubscribeAlarms(listener, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, Ice.Callback __cb)
+    {
+        return begin_unsubscribeAlarms(listener, __ctx, true, __cb);
+    }
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, Callback_MoniCAIce_unsubscribeAlarms __cb)
+    {
+        return begin_unsubscribeAlarms(listener, null, false, __cb);
+    }
+
+    public Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, Callback_MoniCAIce_unsubscribeAlarms __cb)
+    {
+        return begin_unsubscribeAlarms(listener, __ctx, true, __cb);
+    }
+
+    private Ice.AsyncResult begin_unsubscribeAlarms(AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, boolean __explicitCtx, IceInternal.CallbackBase __cb)
+    {
+        __checkAsyncTwowayOnly(__unsubscribeAlarms_name);
+        IceInternal.OutgoingAsync __result = new IceInternal.OutgoingAsync(this, __unsubscribeAlarms_name, __cb);
+        try
+        {
+            __result.__prepare(__unsubscribeAlarms_name, Ice.OperationMode.Normal, __ctx, __explicitCtx);
+            IceInternal.BasicStream __os = __result.__startWriteParams(Ice.FormatType.DefaultFormat);
+            AlarmListenerIcePrxHelper.__write(__os, listener);
+            __result.__endWriteParams();
+            __result.__send(true);
+        }
+        catch(Ice.LocalException __ex)
+        {
+            __result.__exceptionAsync(__ex);
+        }
+        return __result;
+    }
+
+    public boolean end_unsubscribeAlarms(Ice.AsyncResult __result)
+    {
+        Ice.AsyncResult.__check(__result, this, __unsubscribeAlarms_name);
         boolean __ok = __result.__wait();
         try
         {
@@ -8,7 +8,14 @@
 
 package atnf.atoms.mon.comms;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Vector;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import atnf.atoms.mon.*;
 import atnf.atoms.time.*;
 import atnf.atoms.util.Angle;
@@ -307,6 +314,189 @@ public class MoniCAIceUtil {
     return res;
   }
   
+  /** Convert alarm transitions to their Ice representation. */
+  public static
+  AlarmEventIce[]
+  getAlarmEventsAsIce(Vector<AlarmTransition> events)
+  {
+    AlarmEventIce[] res = new AlarmEventIce[events.size()];
+    for (int i=0; i<events.size(); i++) {
+      AlarmTransition t = events.get(i);
+      String user = t.getUser();
+      res[i] = new AlarmEventIce(t.getSequence(), t.getType(), t.getTime().getValue(), user==null ? "null" : user, getAlarmAsIce(t.getAlarm()));
+    }
+    return res;
+  }
+  
+  /** Convert alarm transitions from their Ice representation. */
+  public static
+  Vector<AlarmTransition>
+  getAlarmEventsFromIce(AlarmEventIce[] events)
+  {
+    Vector<AlarmTransition> res = new Vector<AlarmTransition>(events.length);
+    for (int i=0; i<events.length; i++) {
+      String user = events[i].user.equals("null") ? null : events[i].user;
+      res.add(new AlarmTransition(events[i].sequence, events[i].type, AbsTime.factory(events[i].time), user, getAlarmFromIce(events[i].alarm)));
+    }
+    return res;
+  }
+  
+  /** Convert statistics to their Ice representation. */
+  public static
+  AggregateIce[]
+  getAggregatesAsIce(Aggregate[] aggs)
+  {
+    if (aggs==null) {
+      return new AggregateIce[0];
+    }
+    AggregateIce[] res = new AggregateIce[aggs.length];
+    for (int i=0; i<aggs.length; i++) {
+      Aggregate a = aggs[i];
+      res[i] = new AggregateIce(a.getStart().getValue(), a.getEnd().getValue(), a.getCount(), a.getMin(), a.getMax(), a.getMean(), a.getStdDev());
+    }
+    return res;
+  }
+
+  /** Convert statistics from their Ice representation. */
+  public static
+  Vector<Aggregate>
+  getAggregatesFromIce(AggregateIce[] aggs)
+  {
+    Vector<Aggregate> res = new Vector<Aggregate>(aggs.length);
+    for (int i=0; i<aggs.length; i++) {
+      AggregateIce a = aggs[i];
+      res.add(new Aggregate(AbsTime.factory(a.start), AbsTime.factory(a.end), a.count, a.min, a.max, a.mean, a.stddev));
+    }
+    return res;
+  }
+
+  /** Identifies the format of point metadata snapshots. */
+  protected static final int theirSnapshotMagic = 0x4d435331;
+
+  /**
+   * Encode the point definitions into a compressed snapshot which begins with the metadata generation number.
+   */
+  public static
+  byte[]
+  getPointSnapshot(long generation, PointDescriptionIce[] points)
+  throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+    out.writeInt(theirSnapshotMagic);
+    out.writeLong(generation);
+    out.writeInt(points.length);
+    for (int i=0; i<points.length; i++) {
+      PointDescriptionIce p = points[i];
+      writeStrings(out, p.names);
+      writeString(out, p.source);
+      writeString(out, p.description);
+      writeString(out, p.shortdescription);
+      writeString(out, p.units);
+      out.writeBoolean(p.enabled);
+      writeStrings(out, p.inputtransactions);
+      writeStrings(out, p.outputtransactions);
+      writeStrings(out, p.translations);
+      writeStrings(out, p.limits);
+      writeStrings(out, p.archivepolicies);
+      out.writeLong(p.period);
+      out.writeInt(p.archivelongevity);
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  /** Return the metadata generation number of the snapshot. */
+  public static
+  long
+  getSnapshotGeneration(byte[] snapshot)
+  throws IOException
+  {
+    DataInputStream in = openSnapshot(snapshot);
+    long res = in.readLong();
+    in.close();
+    return res;
+  }
+
+  /** Decode the point definitions contained in a snapshot. */
+  public static
+  PointDescriptionIce[]
+  getPointsFromSnapshot(byte[] snapshot)
+  throws IOException
+  {
+    DataInputStream in = openSnapshot(snapshot);
+    in.readLong();
+    PointDescriptionIce[] res = new PointDescriptionIce[in.readInt()];
+    for (int i=0; i<res.length; i++) {
+      PointDescriptionIce p = new PointDescriptionIce();
+      p.names = readStrings(in);
+      p.source = in.readUTF();
+      p.description = in.readUTF();
+      p.shortdescription = in.readUTF();
+      p.units = in.readUTF();
+      p.enabled = in.readBoolean();
+      p.inputtransactions = readStrings(in);
+      p.outputtransactions = readStrings(in);
+      p.translations = readStrings(in);
+      p.limits = readStrings(in);
+      p.archivepolicies = readStrings(in);
+      p.period = in.readLong();
+      p.archivelongevity = in.readInt();
+      res[i] = p;
+    }
+    in.close();
+    return res;
+  }
+
+  /** Open the snapshot for reading and check the format identifier. */
+  private static
+  DataInputStream
+  openSnapshot(byte[] snapshot)
+  throws IOException
+  {
+    DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(snapshot)));
+    if (in.readInt() != theirSnapshotMagic) {
+      in.close();
+      throw new IOException("Unrecognised point snapshot format");
+    }
+    return in;
+  }
+
+  private static
+  void
+  writeString(DataOutputStream out, String s)
+  throws IOException
+  {
+    out.writeUTF(s == null ? "" : s);
+  }
+
+  private static
+  void
+  writeStrings(DataOutputStream out, String[] s)
+  throws IOException
+  {
+    if (s == null) {
+      out.writeInt(0);
+    } else {
+      out.writeInt(s.length);
+      for (int i=0; i<s.length; i++) {
+        writeString(out, s[i]);
+      }
+    }
+  }
+
+  private static
+  String[]
+  readStrings(DataInputStream in)
+  throws IOException
+  {
+    String[] res = new String[in.readInt()];
+    for (int i=0; i<res.length; i++) {
+      res[i] = in.readUTF();
+    }
+    return res;
+  }
+
   /** Default port. */
   protected static final int theirDefaultPort = 8052;
   
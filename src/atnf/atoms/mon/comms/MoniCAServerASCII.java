@@ -8,30 +8,56 @@
 
 package atnf.atoms.mon.comms;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.SortedMap;
 import java.util.StringTokenizer;
 import java.util.Vector;
 import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
+import atnf.atoms.mon.Aggregate;
 import atnf.atoms.mon.Alarm;
 import atnf.atoms.mon.AlarmManager;
+import atnf.atoms.mon.AlarmPublisher;
+import atnf.atoms.mon.AlarmStreamListener;
+import atnf.atoms.mon.AlarmTransition;
 import atnf.atoms.mon.KeyKeeper;
+import atnf.atoms.mon.MoniCAMain;
 import atnf.atoms.mon.PointBuffer;
 import atnf.atoms.mon.PointData;
 import atnf.atoms.mon.PointDescription;
 import atnf.atoms.mon.PointEvent;
+import atnf.atoms.mon.SessionManager;
 import atnf.atoms.mon.util.MonitorConfig;
 import atnf.atoms.mon.util.MonitorUtils;
-import atnf.atoms.mon.util.RADIUSAuthenticator;
 import atnf.atoms.mon.util.RSA;
 import atnf.atoms.time.AbsTime;
 import atnf.atoms.time.DUTC;
@@ -40,20 +66,32 @@ import atnf.atoms.time.RelTime;
 /**
  * Provides a simple ASCII interface for clients to obtain monitor data.
  * 
+ * <P>
+ * A single selector thread accepts connections and performs all socket reads and writes without blocking. The received lines are
+ * grouped into commands for each client and a command is only serviced, by a small pool of worker threads, once all of its lines
+ * have arrived, so the number of threads does not grow with the number of connected clients and a slow client can't hold up a
+ * worker. Clients may pipeline several commands, which are serviced in order.
+ * 
  * @author David Brodrick
  */
-public class MoniCAServerASCII extends Thread {
+public class MoniCAServerASCII implements Runnable {
   /** Logger. */
   protected static Logger theirLogger = Logger.getLogger(MoniCAServerASCII.class.getName());
 
   /** Keep track of how many clients are connected. */
-  protected static int theirNumClients = 0;
+  protected static AtomicInteger theirNumClients = new AtomicInteger(0);
+
+  /** Total number of commands serviced since the server started. */
+  protected static AtomicLong theirNumCommands = new AtomicLong(0);
+
+  /** Total time (microseconds) spent servicing commands since the server started. */
+  protected static AtomicLong theirCommandTime = new AtomicLong(0);
 
-  /** Indicates if the thread should keep running (true) or stop (false). */
-  protected boolean itsRunning = true;
+  /** Indicates if the server should keep running (true) or stop (false). */
+  protected volatile boolean itsRunning = true;
 
-  /** The socket used to listen for requests from our client. */
-  protected Socket itsSocket = null;
+  /** The channel used to communicate with our client. */
+  protected SocketChannel itsChannel = null;
 
   /** The name of the client, including host and port number. */
   protected String itsClientName = null;
@@ -65,51 +103,127 @@ public class MoniCAServerASCII extends Thread {
   protected PrintWriter itsWriter = null;
 
   /** For reading instructions from the client. */
-  protected BufferedReader itsReader = null;
+  protected ClientInput itsReader = null;
+
+  /** Encoded responses which are waiting to be written to the client. */
+  protected LinkedList<ByteBuffer> itsOutput = new LinkedList<ByteBuffer>();
+
+  /** Number of response bytes which are waiting to be written to the client. */
+  protected int itsOutputSize = 0;
+
+  /** Records if a worker thread is currently servicing requests from this client. */
+  protected boolean itsProcessing = false;
+
+  /** The main server which owns the selector for this client's channel. */
+  protected MoniCAServerASCII itsServer = null;
+
+  /** Selector used by the main server. */
+  protected Selector itsSelector = null;
+
+  /** Clients which have new output or need to be closed, to be picked up by the selector thread. */
+  protected ConcurrentLinkedQueue<MoniCAServerASCII> itsPendingClients = new ConcurrentLinkedQueue<MoniCAServerASCII>();
 
   /** Handles RSA encryption. */
   private RSA itsRSA = null;
 
+  /** Delivers alarm updates to the client, if it has issued an <i>alarmstream</i> command. */
+  protected volatile AlarmStreamListener itsAlarmStream = null;
+
   /** List of all currently running servers. */
   protected static Vector<MoniCAServerASCII> theirServers = new Vector<MoniCAServerASCII>();
 
-  /** Server socket SO timeout (ms). */
+  /** Selector timeout (ms). */
   protected static int theirServerSocketTimeout = 100;
 
+  /** Max time (ms) to wait for a client to accept more of its queued output before the connection is closed. */
+  protected static int theirClientTimeout = 60000;
+
+  /** Max number of response bytes to queue for a client before the worker waits for them to be written. */
+  protected static final int MAXPENDINGOUTPUT = 1048576;
+
+  /** Character set used to decode requests and encode responses. */
+  protected static final Charset theirCharset = Charset.defaultCharset();
+
+  /** Responses at least this large are encoded directly into a direct buffer. */
+  protected static final int DIRECTBUFFERSIZE = 65536;
+
+  /** User name which indicates that the password field contains a session token. */
+  protected static final String SESSIONTOKEN = "token";
+
+  /** Names of the users who may reload the definitions. Nobody may if none are configured. */
+  protected static HashSet<String> theirReloadUsers = new HashSet<String>();
+
+  /** Pool of worker threads which service client commands. */
+  protected static ThreadPoolExecutor theirWorkers;
+
+  static {
+    int numworkers = 8;
+    try {
+      numworkers = Integer.parseInt(MonitorConfig.getProperty("ASCIIWorkerThreads", "" + numworkers));
+      theirClientTimeout = 1000 * Integer.parseInt(MonitorConfig.getProperty("ASCIIClientTimeout", "" + theirClientTimeout / 1000));
+    } catch (Exception e) {
+      theirLogger.error("Error parsing ASCII server configuration parameters, using defaults: " + e);
+    }
+    String reloadusers = MonitorConfig.getProperty("ReloadUsers");
+    if (reloadusers != null) {
+      theirReloadUsers.addAll(Arrays.asList(reloadusers.trim().split("\\s+")));
+      theirReloadUsers.remove("");
+    }
+    theirWorkers = new ThreadPoolExecutor(numworkers, numworkers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+          private int itsCount = 0;
+
+          public synchronized Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MonitorServerASCII Worker " + (++itsCount));
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    theirWorkers.allowCoreThreadTimeOut(true);
+  }
+
   /** Starts up the main server thread which waits for client connections. */
   public MoniCAServerASCII() {
-    super("MonitorServerASCII Main");
     synchronized (theirServers) {
       theirServers.add(this);
     }
-    start();
+    new Thread(this, "MonitorServerASCII Main").start();
   }
 
   /**
-   * Starts up a server thread to handle requests from a new client.
+   * Creates a server to handle requests from a new client.
    * 
-   * @param socket
-   *          The socket connection to the new client.
+   * @param server
+   *          The main server which accepted the connection.
+   * @param channel
+   *          The channel connected to the new client.
    */
-  public MoniCAServerASCII(Socket socket) throws IOException {
-    super("MonitorServerASCII/" + socket.getInetAddress().getHostAddress());
+  protected MoniCAServerASCII(MoniCAServerASCII server, SocketChannel channel) throws IOException {
     synchronized (theirServers) {
       theirServers.add(this);
     }
-    theirNumClients++;
-    itsClientHost = socket.getInetAddress().getHostAddress();
-    itsClientName = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
-    // System.out.println("MonitorServerASCII: New Connection from " +
-    // itsClientName);
-    itsSocket = socket;
-    itsReader = new BufferedReader(new InputStreamReader(itsSocket.getInputStream()));
-    itsWriter = new PrintWriter(itsSocket.getOutputStream());
-    start();
+    theirNumClients.incrementAndGet();
+    itsServer = server;
+    itsChannel = channel;
+    itsClientHost = channel.socket().getInetAddress().getHostAddress();
+    itsClientName = itsClientHost + ":" + channel.socket().getPort();
+    itsReader = new ClientInput();
+    itsWriter = new PrintWriter(new ClientOutput());
   }
 
   /** Return the number of clients connected. */
   public static int getNumClients() {
-    return theirNumClients;
+    return theirNumClients.get();
+  }
+
+  /** Return the total number of commands serviced since the server started. */
+  public static long getNumCommands() {
+    return theirNumCommands.get();
+  }
+
+  /** Return the total time (microseconds) spent servicing commands since the server started. */
+  public static long getCommandTime() {
+    return theirCommandTime.get();
   }
 
   /** Make all servers exit. */
@@ -126,77 +240,108 @@ public class MoniCAServerASCII extends Thread {
     }
   }
 
-  /** Stop the running thread. */
+  /** Stop the server. */
   public void stopRunning() {
     itsRunning = false;
-    interrupt();
+    if (itsChannel == null) {
+      if (itsSelector != null) {
+        itsSelector.wakeup();
+      }
+    } else {
+      itsReader.close();
+    }
   }
 
-  /** Main loop to parse and service client requests. */
+  /** Service all complete commands which have been received from the client. */
   private void processConnection() {
-    // Main loop for handling client requests
-    while (itsRunning) {
+    while (true) {
+      synchronized (this) {
+        if (!itsRunning || !itsReader.hasCommand()) {
+          itsProcessing = false;
+          break;
+        }
+      }
       try {
-        synchronized (itsReader) {
-          String line = itsReader.readLine();
-          if (line == null) {
-            // Connection broke..
-            itsRunning = false;
-            return;
-          }
-          line = line.trim();
-          if (line.equalsIgnoreCase("poll")) {
-            poll();
-          } else if (line.equalsIgnoreCase("poll2")) {
-            poll2();
-          } else if (line.equalsIgnoreCase("since")) {
-            since();
-          } else if (line.equalsIgnoreCase("between")) {
-            between();
-          } else if (line.equalsIgnoreCase("preceding") || line.equalsIgnoreCase("preceeding")) {
-            // Original interface had spelling error
-            preceding();
-          } else if (line.equalsIgnoreCase("following")) {
-            following();
-          } else if (line.equalsIgnoreCase("names")) {
-            names();
-          } else if (line.equalsIgnoreCase("details")) {
-            details();
-          } else if (line.equalsIgnoreCase("set")) {
-            set();
-          } else if (line.equalsIgnoreCase("ack")) {
-            ack();
-          } else if (line.equalsIgnoreCase("shelve")) {
-            shelve();
-          } else if (line.equalsIgnoreCase("alarms")) {
-            alarms();
-          } else if (line.equalsIgnoreCase("allalarms")) {
-            allalarms();
-          } else if (line.equalsIgnoreCase("rsa")) {
-            rsa();
-          } else if (line.equalsIgnoreCase("rsapersist")) {
-            rsapersist();
-          } else if (line.equalsIgnoreCase("leapseconds")) {
-            leapseconds();
-          } else if (line.equalsIgnoreCase("exit")) {
-            itsRunning = false;
-          }
+        String line = itsReader.nextCommand();
+        if (line == null) {
+          // Connection broke..
+          itsRunning = false;
+          break;
         }
+        long start = System.nanoTime();
+        processCommand(line.trim());
+        theirNumCommands.incrementAndGet();
+        theirCommandTime.addAndGet((System.nanoTime() - start) / 1000);
       } catch (Exception f) {
         System.err.println("MonitorServerASCII: processConnection: " + f.getClass());
         f.printStackTrace();
         itsRunning = false;
       }
     }
-    // System.out.println("MonitorServerASCII: Lost Connection to " + itsSocket.getInetAddress().getHostAddress());
-    try {
-      itsReader.close();
-      itsWriter.close();
-      if (!itsSocket.isClosed()) {
-        itsSocket.close();
+    if (!itsRunning) {
+      // Close the connection once any remaining responses have been sent
+      synchronized (this) {
+        itsProcessing = false;
       }
-    } catch (Exception e) {
-      theirLogger.warn("When closing socket: " + e);
+      itsServer.pendingClient(this);
+    }
+  }
+
+  /** Parse and service a single client request. */
+  private void processCommand(String line) {
+    if (itsAlarmStream != null) {
+      // Connection is dedicated to the alarm stream, only accept a request to close it
+      if (line.equalsIgnoreCase("exit")) {
+        AlarmPublisher.unsubscribe(itsAlarmStream);
+        itsRunning = false;
+      }
+      return;
+    }
+    if (line.equalsIgnoreCase("poll")) {
+      poll();
+    } else if (line.equalsIgnoreCase("poll2")) {
+      poll2();
+    } else if (line.equalsIgnoreCase("since")) {
+      since();
+    } else if (line.equalsIgnoreCase("between")) {
+      between();
+    } else if (line.equalsIgnoreCase("aggregate")) {
+      aggregate();
+    } else if (line.equalsIgnoreCase("preceding") || line.equalsIgnoreCase("preceeding")) {
+      // Original interface had spelling error
+      preceding();
+    } else if (line.equalsIgnoreCase("following")) {
+      following();
+    } else if (line.equalsIgnoreCase("names")) {
+      names();
+    } else if (line.equalsIgnoreCase("details")) {
+      details();
+    } else if (line.equalsIgnoreCase("set")) {
+      set();
+    } else if (line.equalsIgnoreCase("ack")) {
+      ack();
+    } else if (line.equalsIgnoreCase("shelve")) {
+      shelve();
+    } else if (line.equalsIgnoreCase("alarms")) {
+      alarms();
+    } else if (line.equalsIgnoreCase("allalarms")) {
+      allalarms();
+    } else if (line.equalsIgnoreCase("alarmstream")) {
+      alarmstream();
+    } else if (line.equalsIgnoreCase("rsa")) {
+      rsa();
+    } else if (line.equalsIgnoreCase("rsapersist")) {
+      rsapersist();
+    } else if (line.equalsIgnoreCase("login")) {
+      login();
+    } else if (line.equalsIgnoreCase("logout")) {
+      logout();
+    } else if (line.equalsIgnoreCase("leapseconds")) {
+      leapseconds();
+    } else if (line.equalsIgnoreCase("reload")) {
+      reload();
+    } else if (line.equalsIgnoreCase("exit")) {
+      itsRunning = false;
     }
   }
 
@@ -305,6 +450,86 @@ public class MoniCAServerASCII extends Thread {
     }
   }
 
+  /**
+   * Return statistics for a point over a time range. The argument line is <tt>&lt;TIMESTAMP&gt; &lt;TIMESTAMP&gt; &lt;BUCKET&gt;
+   * &lt;POINTNAME&gt;</tt>, where the bucket is the length in seconds of the intervals to compute statistics for, or 0 for a single
+   * interval covering the whole range. The reply is the number of intervals followed by a line for each interval giving its start
+   * and end times, the number of values and the min, max, mean and standard deviation.
+   */
+  protected void aggregate() {
+    try {
+      String tempstr = itsReader.readLine().trim();
+      // Line should say <TIMESTAMP> <TIMESTAMP> <BUCKET> <POINTNAME>
+      StringTokenizer st = new StringTokenizer(tempstr);
+      if (st.countTokens() < 4) {
+        itsWriter.println("? Need two BAT timestamps, a bucket length and a point name argument");
+        itsWriter.flush();
+        return;
+      }
+
+      // Get/check start timestamp
+      AbsTime starttime = null;
+      try {
+        starttime = AbsTime.factory(st.nextToken());
+      } catch (Exception e) {
+        itsWriter.println("? First BAT timestamp couldn't be parsed");
+        itsWriter.flush();
+        return;
+      }
+
+      // Get/check end timestamp
+      AbsTime endtime = null;
+      try {
+        endtime = AbsTime.factory(st.nextToken());
+      } catch (Exception e) {
+        itsWriter.println("? Second BAT timestamp couldn't be parsed");
+        itsWriter.flush();
+        return;
+      }
+
+      // Ensure start/end arguments are in the correct sequence
+      if (endtime.isBefore(starttime)) {
+        AbsTime temp = endtime;
+        endtime = starttime;
+        starttime = temp;
+      }
+
+      // Get/check bucket length
+      RelTime bucket = null;
+      try {
+        double secs = Double.parseDouble(st.nextToken());
+        if (secs > 0) {
+          bucket = RelTime.factory((long) (secs * 1000000));
+        }
+      } catch (Exception e) {
+        itsWriter.println("? Bucket length couldn't be parsed");
+        itsWriter.flush();
+        return;
+      }
+
+      // Get/check monitor point name
+      String mpname = st.nextToken();
+      checkPoint(mpname);
+      PointDescription pm = PointDescription.getPoint(mpname);
+      if (pm == null) {
+        itsWriter.println("? Named point doesn't exist");
+        itsWriter.flush();
+        return;
+      }
+
+      // Compute and send the statistics for each interval
+      Aggregate[] aggs = PointBuffer.getAggregates(pm, starttime, endtime, bucket);
+      itsWriter.println(aggs.length);
+      for (int i = 0; i < aggs.length; i++) {
+        itsWriter.println(aggs[i].toString());
+      }
+      itsWriter.flush();
+    } catch (Exception e) {
+      theirLogger.error("Problem in aggregate request from " + itsClientName + ": " + e);
+      itsRunning = false;
+    }
+  }
+
   protected void since() {
     try {
       String tempstr = itsReader.readLine().trim();
@@ -515,6 +740,56 @@ public class MoniCAServerASCII extends Thread {
     }
   }
 
+  /**
+   * Stream alarm updates to the client. The client sends the sequence number of the last alarm event it received, or 0, and the
+   * connection is then dedicated to the stream until the client sends <i>exit</i>. The server first sends the state of all alarms
+   * and afterwards each change of alarm state as it occurs. Events are sent in batches, each starting with the number of events
+   * in the batch, followed by a line per event containing the sequence number, the type of event, the user responsible and the
+   * alarm in the same format as the <i>allalarms</i> command. An empty batch is sent periodically as a heartbeat.
+   */
+  protected void alarmstream() {
+    try {
+      long seq = Long.parseLong(itsReader.readLine().trim());
+      itsAlarmStream = new AlarmStreamListener() {
+        public boolean alarmEvents(Vector<AlarmTransition> events) {
+          if (!itsRunning || !itsChannel.isOpen()) {
+            return false;
+          }
+          synchronized (itsOutput) {
+            if (itsOutputSize > MAXPENDINGOUTPUT) {
+              theirLogger.warn("Closing alarm stream to " + itsClientName + " which is not keeping up");
+              closeConnection();
+              return false;
+            }
+          }
+          synchronized (itsWriter) {
+            itsWriter.println(events.size());
+            for (int i = 0; i < events.size(); i++) {
+              AlarmTransition t = events.get(i);
+              itsWriter.println(t.getSequence() + "\t" + AlarmTransition.getTypeName(t.getType()) + "\t" + t.getUser() + "\t" + t.getAlarm());
+            }
+            itsWriter.flush();
+          }
+          return true;
+        }
+
+        public void alarmStreamDropped() {
+          closeConnection();
+        }
+
+        public String toString() {
+          return itsClientName;
+        }
+      };
+      if (!AlarmPublisher.subscribe(itsAlarmStream, seq)) {
+        itsRunning = false;
+      }
+    } catch (Exception e) {
+      theirLogger.error("Problem in alarmstream request from " + itsClientName + ": " + e);
+      itsRunning = false;
+    }
+  }
+
   /** Set the acknowledge state for an alarm. */
   protected void ack() {
     try {
@@ -779,6 +1054,70 @@ public class MoniCAServerASCII extends Thread {
     }    
   }
 
+  /**
+   * Authenticate the client and return a session token. The token may then be given in place of the password, with the user name
+   * <tt>token</tt>, for the <i>set</i>, <i>ack</i> and <i>shelve</i> commands.
+   */
+  protected void login() {
+    try {
+      String rawuser = itsReader.readLine().trim();
+      String rawpass = itsReader.readLine().trim();
+      String authuser = checkAuth(rawuser, rawpass, itsClientHost);
+      if (authuser == null) {
+        theirLogger.warn("login(): Failed authentication attempt from " + itsClientName);
+        itsWriter.println("? Authentication failed");
+      } else {
+        itsWriter.println(SessionManager.createSession(authuser, itsClientHost));
+      }
+      itsWriter.flush();
+    } catch (Exception e) {
+      theirLogger.error("Problem in login request from " + itsClientName + ": " + e);
+      itsRunning = false;
+    }
+  }
+
+  /** Invalidate a session token. */
+  protected void logout() {
+    try {
+      String token = itsReader.readLine().trim();
+      if (SessionManager.endSession(token)) {
+        itsWriter.println("OK");
+      } else {
+        itsWriter.println("? No such session");
+      }
+      itsWriter.flush();
+    } catch (Exception e) {
+      theirLogger.error("Problem in logout request from " + itsClientName + ": " + e);
+      itsRunning = false;
+    }
+  }
+
+  /**
+   * Reload the point and external system definitions, applying only the changes, and return a summary of the changes. Only the
+   * users listed in the ReloadUsers property may do this.
+   */
+  protected void reload() {
+    try {
+      String rawuser = itsReader.readLine().trim();
+      String rawpass = itsReader.readLine().trim();
+      String authuser = checkAuth(rawuser, rawpass, itsClientHost);
+      if (authuser == null) {
+        theirLogger.warn("reload(): Failed authentication attempt from " + itsClientName);
+        itsWriter.println("? Authentication failed");
+      } else if (!theirReloadUsers.contains(authuser)) {
+        theirLogger.warn("reload(): User " + authuser + " from " + itsClientName + " is not authorised to reload");
+        itsWriter.println("? Not authorised to reload");
+      } else {
+        theirLogger.info("Reloading definitions as requested by " + authuser + " from " + itsClientName);
+        itsWriter.println(MoniCAMain.reload());
+      }
+      itsWriter.flush();
+    } catch (Exception e) {
+      theirLogger.error("Problem in reload request from " + itsClientName + ": " + e);
+      itsRunning = false;
+    }
+  }
+
   /**
    * Return the public key and modulus for the server's RSA key.
    */
@@ -795,40 +1134,49 @@ public class MoniCAServerASCII extends Thread {
 
   /** Check the clients credentials. Return verified user name or null if can't be verified. */
   protected String checkAuth(String rawuser, String rawpass, String host) {
-    // Socket session keys
-    if (itsRSA != null) {
-      try {
-        String username = itsRSA.decrypt(rawuser);
-        String password = itsRSA.decrypt(rawpass);
-        if (RADIUSAuthenticator.authenticate(username, password, host)) {
-          return username;
+    String username = null;
+    if (rawuser.equals(SESSIONTOKEN)) {
+      // Session token from a previous login. An invalid or expired token is rejected rather than tried as a password
+      username = SessionManager.getSessionUser(rawpass, host);
+    } else {
+      // Socket session keys
+      if (itsRSA != null) {
+        try {
+          String user = itsRSA.decrypt(rawuser);
+          String password = itsRSA.decrypt(rawpass);
+          if (SessionManager.authenticate(user, password, host)) {
+            username = user;
+          }
+        } catch (NumberFormatException f) {
         }
-      } catch (NumberFormatException f) {
       }
-    }
 
-    // Server persistent keys
-    try {
-      String username = KeyKeeper.decrypt(rawuser);
-      String password = KeyKeeper.decrypt(rawpass);
-      if (RADIUSAuthenticator.authenticate(username, password, host)) {
-        return username;
+      // Server persistent keys
+      if (username == null) {
+        try {
+          String user = KeyKeeper.decrypt(rawuser);
+          String password = KeyKeeper.decrypt(rawpass);
+          if (SessionManager.authenticate(user, password, host)) {
+            username = user;
+          }
+        } catch (NumberFormatException f) {
+        }
       }
-    } catch (NumberFormatException f) {
-    }
 
-    // Plaintext
-    if (RADIUSAuthenticator.authenticate(rawuser, rawpass, host)) {
-      return rawuser;
+      // Plaintext
+      if (username == null && SessionManager.authenticate(rawuser, rawpass, host)) {
+        username = rawuser;
+      }
     }
 
-    // We failed to authenticate the client, add a delay here
-    try {
-      RelTime.factory(1000000).sleep();
-    } catch (Exception e) {
+    if (username == null) {
+      // We failed to authenticate the client, add a delay here
+      try {
+        RelTime.factory(1000000).sleep();
+      } catch (Exception e) {
+      }
     }
-
-    return null;
+    return username;
   }
 
   /** Check if the point is valid and log appropriate messages if it is not. */
@@ -842,44 +1190,428 @@ public class MoniCAServerASCII extends Thread {
   }
 
   /**
-   * Starting point for threads. If this object was created without a specified socket then we start a server thread which awaits
-   * client connections and spawns new instances to service new clients. If a socket was specified at construction then we know that
-   * we are supposed to service a particular client and we leap to the <i>processConnection</i> method to do so.
+   * Starting point for threads. If this object was created without a specified channel then we are the main server, which accepts
+   * client connections and performs all socket I/O. Otherwise we are servicing the commands which a particular client has sent.
    */
   public void run() {
+    if (itsChannel == null) {
+      runSelector();
+    } else {
+      processConnection();
+    }
+  }
+
+  /** Accept new connections and read/write data for all clients until the server is stopped. */
+  private void runSelector() {
+    ServerSocketChannel ssc = null;
     try {
-      if (itsSocket == null) {
-        // No socket specified - we are the main server
-        // Get the port to listen on for new client connections
-        int port = Integer.parseInt(MonitorConfig.getProperty("ASCIIPort"));
-        // Create the server socket to listen with
-        ServerSocket ss = new ServerSocket(port);
-        ss.setSoTimeout(theirServerSocketTimeout);
-
-        // Keep looping until we need to stop
-        while (itsRunning) {
+      // Get the port to listen on for new client connections
+      int port = Integer.parseInt(MonitorConfig.getProperty("ASCIIPort"));
+      // Create the server channel to listen with
+      itsSelector = Selector.open();
+      ssc = ServerSocketChannel.open();
+      ssc.configureBlocking(false);
+      ssc.socket().setReuseAddress(true);
+      ssc.socket().bind(new InetSocketAddress(port));
+      ssc.register(itsSelector, SelectionKey.OP_ACCEPT);
+    } catch (IOException ie) {
+      // Couldn't open the server port
+      theirLogger.error("Can't open server port: " + ie);
+      theirServers.remove(this);
+      return;
+    }
+
+    // Keep looping until we need to stop
+    while (itsRunning) {
+      try {
+        itsSelector.select(theirServerSocketTimeout);
+
+        // Pick up clients which have new output or have finished
+        MoniCAServerASCII client;
+        while ((client = itsPendingClients.poll()) != null) {
+          SelectionKey key = client.itsChannel.keyFor(itsSelector);
+          if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+          }
+        }
+
+        Iterator<SelectionKey> keys = itsSelector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            SocketChannel channel = ssc.accept();
+            if (channel != null) {
+              // Got a new client connection, create a server to service it
+              channel.configureBlocking(false);
+              channel.register(itsSelector, SelectionKey.OP_READ, new MoniCAServerASCII(this, channel));
+            }
+            continue;
+          }
+          client = (MoniCAServerASCII) key.attachment();
           try {
-            // Await a new client connection
-            Socket soc = ss.accept();
-            // Got a new client connection, spawn a server to service it
-            if (soc != null) {
-              new MoniCAServerASCII(soc);
+            if (key.isReadable()) {
+              client.readFromChannel();
             }
-          } catch (IOException ie) {
+            if (key.isValid() && key.isWritable()) {
+              client.writeToChannel(key);
+            }
+          } catch (IOException e) {
+            client.closeConnection();
           }
         }
-        ss.close();
+      } catch (Exception e) {
+        theirLogger.error("In selector loop: " + e);
+      }
+    }
 
-      } else {
-        // We aren't the main server: we need to service a particular client
-        processConnection();
-        // Keep track of how many servers/clients there are
-        theirNumClients--;
+    // Shut everything down
+    Iterator<SelectionKey> keys = itsSelector.keys().iterator();
+    while (keys.hasNext()) {
+      Object client = keys.next().attachment();
+      if (client != null) {
+        ((MoniCAServerASCII) client).closeConnection();
       }
-    } catch (IOException ie) {
-      // Couldn't open the server port
-      theirLogger.error("Can't open server port: " + ie);
+    }
+    try {
+      ssc.close();
+      itsSelector.close();
+    } catch (IOException e) {
     }
     theirServers.remove(this);
   }
+
+  /** Called by a client when it has output to be written or needs to be closed. */
+  protected void pendingClient(MoniCAServerASCII client) {
+    itsPendingClients.add(client);
+    itsSelector.wakeup();
+  }
+
+  /** Read whatever the client has sent and schedule processing if there is a complete command. Called by the selector thread. */
+  protected void readFromChannel() throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(4096);
+    int num;
+    while ((num = itsChannel.read(buf)) > 0) {
+      buf.flip();
+      itsReader.append(buf);
+      buf.clear();
+    }
+    if (num < 0) {
+      // Client has closed the connection, but may be waiting for responses to earlier commands
+      itsReader.close();
+      SelectionKey key = itsChannel.keyFor(itsServer.itsSelector);
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+    synchronized (this) {
+      if (!itsProcessing && itsReader.hasCommand()) {
+        itsProcessing = true;
+        theirWorkers.execute(this);
+      }
+    }
+  }
+
+  /** Write as much queued output as the client will accept. Called by the selector thread. */
+  protected void writeToChannel(SelectionKey key) throws IOException {
+    synchronized (itsOutput) {
+      while (!itsOutput.isEmpty()) {
+        ByteBuffer buf = itsOutput.getFirst();
+        int num = itsChannel.write(buf);
+        itsOutputSize -= num;
+        if (buf.hasRemaining()) {
+          // Socket buffer is full, wait until it can accept more
+          break;
+        }
+        itsOutput.removeFirst();
+      }
+      itsOutput.notifyAll();
+      if (itsOutput.isEmpty()) {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+      }
+    }
+    synchronized (this) {
+      if (!itsRunning && !itsProcessing && itsOutput.isEmpty()) {
+        closeConnection();
+      }
+    }
+  }
+
+  /** Close the connection to the client. */
+  protected synchronized void closeConnection() {
+    if (itsChannel.isOpen()) {
+      itsRunning = false;
+      itsReader.close();
+      synchronized (itsOutput) {
+        itsOutput.clear();
+        itsOutputSize = 0;
+        itsOutput.notifyAll();
+      }
+      try {
+        itsChannel.close();
+      } catch (Exception e) {
+        theirLogger.warn("When closing socket: " + e);
+      }
+      // Keep track of how many servers/clients there are
+      theirNumClients.decrementAndGet();
+      theirServers.remove(this);
+    }
+  }
+
+  /**
+   * Decodes the data received from the client and groups the lines into complete commands, so that a worker is only given a
+   * command once all of its lines have arrived and never has to wait for the client. Called by the selector thread to add data and
+   * by the worker to read the commands.
+   */
+  protected class ClientInput {
+    /** Decoder for the received data, which uses the same character set as the responses. */
+    private CharsetDecoder itsDecoder = theirCharset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /** Received bytes which don't yet make up a complete character. */
+    private ByteBuffer itsBytes = ByteBuffer.allocate(8192);
+
+    /** Decoded characters. */
+    private CharBuffer itsChars = CharBuffer.allocate(8192);
+
+    /** Text of a line which hasn't been terminated yet. */
+    private StringBuilder itsData = new StringBuilder();
+
+    /** Lines of the command which is still being received. */
+    private LinkedList<String> itsCommand = new LinkedList<String>();
+
+    /** Number of further lines needed before the current command is complete, excluding any count line. */
+    private int itsRemaining = 0;
+
+    /** Set if the current command still needs a line giving the number of lines which follow it. */
+    private boolean itsCounted = false;
+
+    /** Complete commands which haven't been serviced yet. */
+    private LinkedList<LinkedList<String>> itsCommands = new LinkedList<LinkedList<String>>();
+
+    /** The command currently being serviced by a worker. */
+    private LinkedList<String> itsCurrent = new LinkedList<String>();
+
+    /** Set when no more data will arrive. */
+    private boolean itsClosed = false;
+
+    /** Add data received from the client. */
+    public synchronized void append(ByteBuffer buf) {
+      while (buf.hasRemaining()) {
+        int num = Math.min(buf.remaining(), itsBytes.remaining());
+        ByteBuffer slice = buf.duplicate();
+        slice.limit(slice.position() + num);
+        itsBytes.put(slice);
+        buf.position(buf.position() + num);
+        itsBytes.flip();
+        CoderResult cr;
+        do {
+          cr = itsDecoder.decode(itsBytes, itsChars, false);
+          itsChars.flip();
+          while (itsChars.hasRemaining()) {
+            char c = itsChars.get();
+            if (c == '\n') {
+              int end = itsData.length();
+              if (end > 0 && itsData.charAt(end - 1) == '\r') {
+                end--;
+              }
+              addLine(itsData.substring(0, end));
+              itsData.setLength(0);
+            } else {
+              itsData.append(c);
+            }
+          }
+          itsChars.clear();
+        } while (cr.isOverflow());
+        itsBytes.compact();
+      }
+    }
+
+    /** Add a complete line to the current command and queue the command if it is now complete. */
+    private void addLine(String line) {
+      itsCommand.add(line);
+      if (itsCommand.size() == 1) {
+        setFormat(line.trim().toLowerCase());
+      } else if (itsRemaining > 0) {
+        itsRemaining--;
+      } else if (itsCounted) {
+        itsCounted = false;
+        try {
+          itsRemaining = Math.max(0, Integer.parseInt(line.trim()));
+        } catch (NumberFormatException e) {
+          // The command will fail when it is serviced, so don't wait for any more lines
+          itsRemaining = 0;
+        }
+      }
+      if (itsRemaining == 0 && !itsCounted) {
+        itsCommands.add(itsCommand);
+        itsCommand = new LinkedList<String>();
+      }
+    }
+
+    /** Record how many lines follow the given command line. */
+    private void setFormat(String cmd) {
+      itsRemaining = 0;
+      itsCounted = false;
+      if (itsAlarmStream != null) {
+        // Only a single line exit command is accepted on an alarm stream
+        return;
+      }
+      if (cmd.equals("between") || cmd.equals("aggregate") || cmd.equals("since") || cmd.equals("alarmstream")
+          || cmd.equals("logout")) {
+        itsRemaining = 1;
+      } else if (cmd.equals("login") || cmd.equals("reload")) {
+        itsRemaining = 2;
+      } else if (cmd.equals("poll") || cmd.equals("poll2") || cmd.equals("details") || cmd.equals("following")
+          || cmd.equals("preceding") || cmd.equals("preceeding")) {
+        itsCounted = true;
+      } else if (cmd.equals("set") || cmd.equals("ack") || cmd.equals("shelve")) {
+        // Username and password, then the count
+        itsRemaining = 2;
+        itsCounted = true;
+      }
+    }
+
+    /** Flag that no further data will be received. Any final unterminated line is kept but an incomplete command is discarded. */
+    public synchronized void close() {
+      if (!itsClosed) {
+        itsClosed = true;
+        if (itsData.length() > 0) {
+          addLine(itsData.toString());
+          itsData.setLength(0);
+        }
+        itsCommand.clear();
+      }
+    }
+
+    /** Check if a complete command, or the end of the stream, is available. */
+    public synchronized boolean hasCommand() {
+      return itsClosed || !itsCommands.isEmpty();
+    }
+
+    /**
+     * Start servicing the next complete command.
+     * 
+     * @return The first line of the command, or null if there are no more commands and the connection has been closed.
+     */
+    public synchronized String nextCommand() {
+      if (itsCommands.isEmpty()) {
+        itsCurrent.clear();
+        return null;
+      }
+      itsCurrent = itsCommands.removeFirst();
+      return itsCurrent.removeFirst();
+    }
+
+    /**
+     * Return the next line of the command being serviced.
+     * 
+     * @return The line without its terminator.
+     * @throws EOFException
+     *           If the command has no more lines.
+     */
+    public synchronized String readLine() throws IOException {
+      if (itsCurrent.isEmpty()) {
+        throw new EOFException("Incomplete command from " + itsClientName);
+      }
+      return itsCurrent.removeFirst();
+    }
+  }
+
+  /** Accumulates response text and passes it to the selector thread to be written to the client when flushed. */
+  protected class ClientOutput extends Writer {
+    /** Response text which hasn't been flushed yet. */
+    private StringBuilder itsText = new StringBuilder();
+
+    /** Encoder for the response text. */
+    private CharsetEncoder itsEncoder = theirCharset.newEncoder();
+
+    public void write(char[] cbuf, int off, int len) {
+      itsText.append(cbuf, off, len);
+    }
+
+    public void write(String str, int off, int len) {
+      itsText.append(str, off, off + len);
+    }
+
+    /**
+     * Queue the response to be written and wait if the client has too much output outstanding. If the client doesn't accept any
+     * more of its output within the timeout the connection is closed, so that a stalled client can't hold up a worker thread.
+     */
+    public void flush() throws IOException {
+      if (itsText.length() == 0 || !itsChannel.isOpen()) {
+        itsText.setLength(0);
+        return;
+      }
+      ByteBuffer buf = encode();
+      itsText.setLength(0);
+      synchronized (itsOutput) {
+        itsOutput.add(buf);
+        itsOutputSize += buf.remaining();
+      }
+      itsServer.pendingClient(MoniCAServerASCII.this);
+      boolean stalled = false;
+      synchronized (itsOutput) {
+        long deadline = System.currentTimeMillis() + theirClientTimeout;
+        while (itsOutputSize > MAXPENDINGOUTPUT && itsChannel.isOpen()) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            stalled = true;
+            break;
+          }
+          int before = itsOutputSize;
+          try {
+            itsOutput.wait(remaining);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+          }
+          if (itsOutputSize < before) {
+            // Client is still reading, so give it longer
+            deadline = System.currentTimeMillis() + theirClientTimeout;
+          }
+        }
+      }
+      if (stalled) {
+        theirLogger.warn("Closing connection to " + itsClientName + " which has stopped reading its " + itsOutputSize
+            + " bytes of pending output");
+        closeConnection();
+        throw new IOException("Client " + itsClientName + " is not reading its output");
+      }
+    }
+
+    /** Encode the accumulated text. Large responses, such as long <i>between</i> queries, go straight into a direct buffer. */
+    private ByteBuffer encode() throws IOException {
+      if (itsText.length() < DIRECTBUFFERSIZE) {
+        return ByteBuffer.wrap(itsText.toString().getBytes(theirCharset));
+      }
+      CharBuffer in = CharBuffer.wrap(itsText);
+      ByteBuffer out = ByteBuffer.allocateDirect((int) (itsText.length() * itsEncoder.averageBytesPerChar()) + 16);
+      itsEncoder.reset();
+      boolean flushing = false;
+      while (true) {
+        CoderResult cr = flushing ? itsEncoder.flush(out) : itsEncoder.encode(in, out, true);
+        if (cr.isError()) {
+          cr.throwException();
+        }
+        if (cr.isOverflow()) {
+          // Ran out of room, so copy into a bigger buffer and continue
+          ByteBuffer bigger = ByteBuffer.allocateDirect(2 * out.capacity());
+          out.flip();
+          bigger.put(out);
+          out = bigger;
+        } else if (flushing) {
+          break;
+        } else {
+          flushing = true;
+        }
+      }
+      out.flip();
+      return out;
+    }
+
+    public void close() {
+    }
+  }
 }
@@ -0,0 +1,49 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+final class _AMD_MoniCAIce_getAfter extends IceInternal.IncomingAsync implements AMD_MoniCAIce_getAfter
+{
+    public _AMD_MoniCAIce_getAfter(IceInternal.Incoming in)
+    {
+        super(in);
+    }
+
+    public void ice_response(PointDataIce[] __ret)
+    {
+        if(__validateResponse(true))
+        {
+            try
+            {
+                IceInternal.BasicStream __os = this.__startWriteParams(Ice.FormatType.DefaultFormat);
+                pointdatasetHelper.write(__os, __ret);
+                __os.writePendingObjects();
+                this.__endWriteParams(true);
+            }
+            catch(Ice.LocalException __ex)
+            {
+                __exception(__ex);
+                return;
+            }
+            __response();
+        }
+    }
+}
@@ -74,11 +74,11 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public boolean addPoints(final PointDescriptionIce[] newpoints, final String username, final String passwd, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public boolean acknowledgeAlarmsWithToken(final String[] pointnames, final boolean ack, final String token, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "addPoints", Ice.OperationMode.Normal, __ctx);
+        __initCurrent(__current, "acknowledgeAlarmsWithToken", Ice.OperationMode.Normal, __ctx);
         final Ice.BooleanHolder __result = new Ice.BooleanHolder();
         IceInternal.Direct __direct = null;
         try
@@ -96,7 +96,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.addPoints(newpoints, username, passwd, __current);
+                    __result.value = __servant.acknowledgeAlarmsWithToken(pointnames, ack, token, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -126,11 +126,11 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public boolean addSetup(final String setup, final String username, final String passwd, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public boolean addPoints(final PointDescriptionIce[] newpoints, final String username, final String passwd, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "addSetup", Ice.OperationMode.Normal, __ctx);
+        __initCurrent(__current, "addPoints", Ice.OperationMode.Normal, __ctx);
         final Ice.BooleanHolder __result = new Ice.BooleanHolder();
         IceInternal.Direct __direct = null;
         try
@@ -148,7 +148,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.addSetup(setup, username, passwd, __current);
+                    __result.value = __servant.addPoints(newpoints, username, passwd, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -178,12 +178,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public PointDataIce[] getAfter(final String[] names, final long t, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public boolean addSetup(final String setup, final String username, final String passwd, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getAfter", Ice.OperationMode.Idempotent, __ctx);
-        final pointdatasetHolder __result = new pointdatasetHolder();
+        __initCurrent(__current, "addSetup", Ice.OperationMode.Normal, __ctx);
+        final Ice.BooleanHolder __result = new Ice.BooleanHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -200,7 +200,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getAfter(names, t, __current);
+                    __result.value = __servant.addSetup(setup, username, passwd, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -230,6 +230,18 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
+    public PointDataIce[] getAfter(String[] names, long t, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        throw new Ice.CollocationOptimizationException();
+    }
+
+    public AggregateIce[][] getAggregates(String[] names, long start, long end, long bucket, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        throw new Ice.CollocationOptimizationException();
+    }
+
     public AlarmIce[] getAllAlarms(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
@@ -542,12 +554,24 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public PointDataIce[][] getArchiveData(final String[] names, final long start, final long end, final long maxsamples, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public PointDataIce[][] getArchiveData(String[] names, long start, long end, long maxsamples, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        throw new Ice.CollocationOptimizationException();
+    }
+
+    public PointDataIce[] getBefore(String[] names, long t, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        throw new Ice.CollocationOptimizationException();
+    }
+
+    public AlarmIce[] getCurrentAlarms(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getArchiveData", Ice.OperationMode.Idempotent, __ctx);
-        final pointdatasetarrayHolder __result = new pointdatasetarrayHolder();
+        __initCurrent(__current, "getCurrentAlarms", Ice.OperationMode.Normal, __ctx);
+        final alarmarrayHolder __result = new alarmarrayHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -564,7 +588,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getArchiveData(names, start, end, maxsamples, __current);
+                    __result.value = __servant.getCurrentAlarms(__current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -594,11 +618,63 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public PointDataIce[] getBefore(final String[] names, final long t, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public long getCurrentTime(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getBefore", Ice.OperationMode.Idempotent, __ctx);
+        __initCurrent(__current, "getCurrentTime", Ice.OperationMode.Idempotent, __ctx);
+        final Ice.LongHolder __result = new Ice.LongHolder();
+        IceInternal.Direct __direct = null;
+        try
+        {
+            __direct = new IceInternal.Direct(__current)
+            {
+                public Ice.DispatchStatus run(Ice.Object __obj)
+                {
+                    MoniCAIce __servant = null;
+                    if(__obj == null || __obj instanceof MoniCAIce)
+                    {
+                        __servant = (MoniCAIce)__obj;
+                    }
+                    else
+                    {
+                        throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
+                    }
+                    __result.value = __servant.getCurrentTime(__current);
+                    return Ice.DispatchStatus.DispatchOK;
+                }
+            };
+            try
+            {
+                Ice.DispatchStatus __status = __direct.getServant().__collocDispatch(__direct);
+                if(__status == Ice.DispatchStatus.DispatchUserException)
+                {
+                    __direct.throwUserException();
+                }
+                assert __status == Ice.DispatchStatus.DispatchOK;
+                return __result.value;
+            }
+            finally
+            {
+                __direct.destroy();
+            }
+        }
+        catch(Ice.SystemException __ex)
+        {
+            throw __ex;
+        }
+        catch(java.lang.Throwable __ex)
+        {
+            IceInternal.LocalExceptionWrapper.throwWrapper(__ex);
+        }
+        return __result.value;
+    }
+
+    public PointDataIce[] getData(final String[] names, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        final Ice.Current __current = new Ice.Current();
+        __initCurrent(__current, "getData", Ice.OperationMode.Idempotent, __ctx);
         final pointdatasetHolder __result = new pointdatasetHolder();
         IceInternal.Direct __direct = null;
         try
@@ -616,7 +692,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getBefore(names, t, __current);
+                    __result.value = __servant.getData(names, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -646,12 +722,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public AlarmIce[] getCurrentAlarms(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public String[] getEncryptionInfo(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getCurrentAlarms", Ice.OperationMode.Normal, __ctx);
-        final alarmarrayHolder __result = new alarmarrayHolder();
+        __initCurrent(__current, "getEncryptionInfo", Ice.OperationMode.Idempotent, __ctx);
+        final stringarrayHolder __result = new stringarrayHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -668,7 +744,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getCurrentAlarms(__current);
+                    __result.value = __servant.getEncryptionInfo(__current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -698,12 +774,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public long getCurrentTime(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public dUTCEntry[] getLeapSeconds(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getCurrentTime", Ice.OperationMode.Idempotent, __ctx);
-        final Ice.LongHolder __result = new Ice.LongHolder();
+        __initCurrent(__current, "getLeapSeconds", Ice.OperationMode.Idempotent, __ctx);
+        final dutcarrayHolder __result = new dutcarrayHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -720,7 +796,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getCurrentTime(__current);
+                    __result.value = __servant.getLeapSeconds(__current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -750,12 +826,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public PointDataIce[] getData(final String[] names, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public byte[] getPointSnapshot(final long generation, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getData", Ice.OperationMode.Idempotent, __ctx);
-        final pointdatasetHolder __result = new pointdatasetHolder();
+        __initCurrent(__current, "getPointSnapshot", Ice.OperationMode.Idempotent, __ctx);
+        final bytearrayHolder __result = new bytearrayHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -772,7 +848,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getData(names, __current);
+                    __result.value = __servant.getPointSnapshot(generation, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -802,12 +878,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public String[] getEncryptionInfo(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public PointDescriptionIce[] getPoints(final String[] names, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getEncryptionInfo", Ice.OperationMode.Idempotent, __ctx);
-        final stringarrayHolder __result = new stringarrayHolder();
+        __initCurrent(__current, "getPoints", Ice.OperationMode.Idempotent, __ctx);
+        final pointarrayHolder __result = new pointarrayHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -824,7 +900,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getEncryptionInfo(__current);
+                    __result.value = __servant.getPoints(names, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -854,12 +930,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public dUTCEntry[] getLeapSeconds(java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public String login(final String username, final String passwd, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getLeapSeconds", Ice.OperationMode.Idempotent, __ctx);
-        final dutcarrayHolder __result = new dutcarrayHolder();
+        __initCurrent(__current, "login", Ice.OperationMode.Normal, __ctx);
+        final Ice.StringHolder __result = new Ice.StringHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -876,7 +952,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getLeapSeconds(__current);
+                    __result.value = __servant.login(username, passwd, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -906,12 +982,12 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
-    public PointDescriptionIce[] getPoints(final String[] names, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+    public boolean logout(final String token, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
         final Ice.Current __current = new Ice.Current();
-        __initCurrent(__current, "getPoints", Ice.OperationMode.Idempotent, __ctx);
-        final pointarrayHolder __result = new pointarrayHolder();
+        __initCurrent(__current, "logout", Ice.OperationMode.Normal, __ctx);
+        final Ice.BooleanHolder __result = new Ice.BooleanHolder();
         IceInternal.Direct __direct = null;
         try
         {
@@ -928,7 +1004,7 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
                     {
                         throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
                     }
-                    __result.value = __servant.getPoints(names, __current);
+                    __result.value = __servant.logout(token, __current);
                     return Ice.DispatchStatus.DispatchOK;
                 }
             };
@@ -1010,6 +1086,58 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         return __result.value;
     }
 
+    public boolean setDataWithToken(final String[] names, final PointDataIce[] values, final String token, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        final Ice.Current __current = new Ice.Current();
+        __initCurrent(__current, "setDataWithToken", Ice.OperationMode.Normal, __ctx);
+        final Ice.BooleanHolder __result = new Ice.BooleanHolder();
+        IceInternal.Direct __direct = null;
+        try
+        {
+            __direct = new IceInternal.Direct(__current)
+            {
+                public Ice.DispatchStatus run(Ice.Object __obj)
+                {
+                    MoniCAIce __servant = null;
+                    if(__obj == null || __obj instanceof MoniCAIce)
+                    {
+                        __servant = (MoniCAIce)__obj;
+                    }
+                    else
+                    {
+                        throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
+                    }
+                    __result.value = __servant.setDataWithToken(names, values, token, __current);
+                    return Ice.DispatchStatus.DispatchOK;
+                }
+            };
+            try
+            {
+                Ice.DispatchStatus __status = __direct.getServant().__collocDispatch(__direct);
+                if(__status == Ice.DispatchStatus.DispatchUserException)
+                {
+                    __direct.throwUserException();
+                }
+                assert __status == Ice.DispatchStatus.DispatchOK;
+                return __result.value;
+            }
+            finally
+            {
+                __direct.destroy();
+            }
+        }
+        catch(Ice.SystemException __ex)
+        {
+            throw __ex;
+        }
+        catch(java.lang.Throwable __ex)
+        {
+            IceInternal.LocalExceptionWrapper.throwWrapper(__ex);
+        }
+        return __result.value;
+    }
+
     public boolean shelveAlarms(final String[] pointnames, final boolean shelve, final String username, final String passwd, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
         throws IceInternal.LocalExceptionWrapper
     {
@@ -1061,4 +1189,160 @@ public final class _MoniCAIceDelD extends Ice._ObjectDelD implements _MoniCAIceD
         }
         return __result.value;
     }
+
+    public boolean shelveAlarmsWithToken(final String[] pointnames, final boolean shelve, final String token, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        final Ice.Current __current = new Ice.Current();
+        __initCurrent(__current, "shelveAlarmsWithToken", Ice.OperationMode.Normal, __ctx);
+        final Ice.BooleanHolder __result = new Ice.BooleanHolder();
+        IceInternal.Direct __direct = null;
+        try
+        {
+            __direct = new IceInternal.Direct(__current)
+            {
+                public Ice.DispatchStatus run(Ice.Object __obj)
+                {
+                    MoniCAIce __servant = null;
+                    if(__obj == null || __obj instanceof MoniCAIce)
+                    {
+                        __servant = (MoniCAIce)__obj;
+                    }
+                    else
+                    {
+                        throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
+                    }
+                    __result.value = __servant.shelveAlarmsWithToken(pointnames, shelve, token, __current);
+                    return Ice.DispatchStatus.DispatchOK;
+                }
+            };
+            try
+            {
+                Ice.DispatchStatus __status = __direct.getServant().__collocDispatch(__direct);
+                if(__status == Ice.DispatchStatus.DispatchUserException)
+                {
+                    __direct.throwUserException();
+                }
+                assert __status == Ice.DispatchStatus.DispatchOK;
+                return __result.value;
+            }
+            finally
+            {
+                __direct.destroy();
+            }
+        }
+        catch(Ice.SystemException __ex)
+        {
+            throw __ex;
+        }
+        catch(java.lang.Throwable __ex)
+        {
+            IceInternal.LocalExceptionWrapper.throwWrapper(__ex);
+        }
+        return __result.value;
+    }
+
+    public boolean subscribeAlarms(final AlarmListenerIcePrx listener, final long sequence, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        final Ice.Current __current = new Ice.Current();
+        __initCurrent(__current, "subscribeAlarms", Ice.OperationMode.Normal, __ctx);
+        final Ice.BooleanHolder __result = new Ice.BooleanHolder();
+        IceInternal.Direct __direct = null;
+        try
+        {
+            __direct = new IceInternal.Direct(__current)
+            {
+                public Ice.DispatchStatus run(Ice.Object __obj)
+                {
+                    MoniCAIce __servant = null;
+                    if(__obj == null || __obj instanceof MoniCAIce)
+                    {
+                        __servant = (MoniCAIce)__obj;
+                    }
+                    else
+                    {
+                        throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
+                    }
+                    __result.value = __servant.subscribeAlarms(listener, sequence, __current);
+                    return Ice.DispatchStatus.DispatchOK;
+                }
+            };
+            try
+            {
+                Ice.DispatchStatus __status = __direct.getServant().__collocDispatch(__direct);
+                if(__status == Ice.DispatchStatus.DispatchUserException)
+                {
+                    __direct.throwUserException();
+                }
+                assert __status == Ice.DispatchStatus.DispatchOK;
+                return __result.value;
+            }
+            finally
+            {
+                __direct.destroy();
+            }
+        }
+        catch(Ice.SystemException __ex)
+        {
+            throw __ex;
+        }
+        catch(java.lang.Throwable __ex)
+        {
+            IceInternal.LocalExceptionWrapper.throwWrapper(__ex);
+        }
+        return __result.value;
+    }
+
+    public boolean unsubscribeAlarms(final AlarmListenerIcePrx listener, java.util.Map<String, String> __ctx, Ice.Instrumentation.InvocationObserver __observer)
+        throws IceInternal.LocalExceptionWrapper
+    {
+        final Ice.Current __current = new Ice.Current();
+        __initCurrent(__current, "unsubscribeAlarms", Ice.OperationMode.Normal, __ctx);
+        final Ice.BooleanHolder __result = new Ice.BooleanHolder();
+        IceInternal.Direct __direct = null;
+        try
+        {
+            __direct = new IceInternal.Direct(__current)
+            {
+                public Ice.DispatchStatus run(Ice.Object __obj)
+                {
+                    MoniCAIce __servant = null;
+                    if(__obj == null || __obj instanceof MoniCAIce)
+                    {
+                        __servant = (MoniCAIce)__obj;
+                    }
+                    else
+                    {
+                        throw new Ice.OperationNotExistException(__current.id, __current.facet, __current.operation);
+                    }
+                    __result.value = __servant.unsubscribeAlarms(listener, __current);
+                    return Ice.DispatchStatus.DispatchOK;
+                }
+            };
+            try
+            {
+                Ice.DispatchStatus __status = __direct.getServant().__collocDispatch(__direct);
+                if(__status == Ice.DispatchStatus.DispatchUserException)
+                {
+                    __direct.throwUserException();
+                }
+                assert __status == Ice.DispatchStatus.DispatchOK;
+                return __result.value;
+            }
+            finally
+            {
+                __direct.destroy();
+            }
+        }
+        catch(Ice.SystemException __ex)
+        {
+            throw __ex;
+        }
+        catch(java.lang.Throwable __ex)
+        {
+            IceInternal.LocalExceptionWrapper.throwWrapper(__ex);
+        }
+        return __result.value;
+    }
 }
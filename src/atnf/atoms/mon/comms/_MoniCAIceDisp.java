@@ -75,6 +75,11 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return acknowledgeAlarms(pointnames, ack, username, passwd, null);
     }
 
+    public final boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token)
+    {
+        return acknowledgeAlarmsWithToken(pointnames, ack, token, null);
+    }
+
     public final boolean addPoints(PointDescriptionIce[] newpoints, String username, String passwd)
     {
         return addPoints(newpoints, username, passwd, null);
@@ -85,9 +90,14 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return addSetup(setup, username, passwd, null);
     }
 
-    public final PointDataIce[] getAfter(String[] names, long t)
+    public final void getAfter_async(AMD_MoniCAIce_getAfter __cb, String[] names, long t)
+    {
+        getAfter_async(__cb, names, t, null);
+    }
+
+    public final void getAggregates_async(AMD_MoniCAIce_getAggregates __cb, String[] names, long start, long end, long bucket)
     {
-        return getAfter(names, t, null);
+        getAggregates_async(__cb, names, start, end, bucket, null);
     }
 
     public final AlarmIce[] getAllAlarms()
@@ -120,14 +130,14 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return getAllSetups(null);
     }
 
-    public final PointDataIce[][] getArchiveData(String[] names, long start, long end, long maxsamples)
+    public final void getArchiveData_async(AMD_MoniCAIce_getArchiveData __cb, String[] names, long start, long end, long maxsamples)
     {
-        return getArchiveData(names, start, end, maxsamples, null);
+        getArchiveData_async(__cb, names, start, end, maxsamples, null);
     }
 
-    public final PointDataIce[] getBefore(String[] names, long t)
+    public final void getBefore_async(AMD_MoniCAIce_getBefore __cb, String[] names, long t)
     {
-        return getBefore(names, t, null);
+        getBefore_async(__cb, names, t, null);
     }
 
     public final AlarmIce[] getCurrentAlarms()
@@ -155,21 +165,56 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return getLeapSeconds(null);
     }
 
+    public final byte[] getPointSnapshot(long generation)
+    {
+        return getPointSnapshot(generation, null);
+    }
+
     public final PointDescriptionIce[] getPoints(String[] names)
     {
         return getPoints(names, null);
     }
 
+    public final String login(String username, String passwd)
+    {
+        return login(username, passwd, null);
+    }
+
+    public final boolean logout(String token)
+    {
+        return logout(token, null);
+    }
+
     public final boolean setData(String[] names, PointDataIce[] values, String username, String passwd)
     {
         return setData(names, values, username, passwd, null);
     }
 
+    public final boolean setDataWithToken(String[] names, PointDataIce[] values, String token)
+    {
+        return setDataWithToken(names, values, token, null);
+    }
+
     public final boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd)
     {
         return shelveAlarms(pointnames, shelve, username, passwd, null);
     }
 
+    public final boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token)
+    {
+        return shelveAlarmsWithToken(pointnames, shelve, token, null);
+    }
+
+    public final boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence)
+    {
+        return subscribeAlarms(listener, sequence, null);
+    }
+
+    public final boolean unsubscribeAlarms(AlarmListenerIcePrx listener)
+    {
+        return unsubscribeAlarms(listener, null);
+    }
+
     public static Ice.DispatchStatus ___getAllPointNames(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
     {
         __checkMode(Ice.OperationMode.Idempotent, __current.mode);
@@ -238,6 +283,20 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return Ice.DispatchStatus.DispatchOK;
     }
 
+    public static Ice.DispatchStatus ___getPointSnapshot(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Idempotent, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        long generation;
+        generation = __is.readLong();
+        __inS.endReadParams();
+        byte[] __ret = __obj.getPointSnapshot(generation, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        bytearrayHelper.write(__os, __ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
     public static Ice.DispatchStatus ___addPoints(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
     {
         __checkMode(Ice.OperationMode.Normal, __current.mode);
@@ -269,12 +328,41 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         end = __is.readLong();
         maxsamples = __is.readLong();
         __inS.endReadParams();
-        PointDataIce[][] __ret = __obj.getArchiveData(names, start, end, maxsamples, __current);
-        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
-        pointdatasetarrayHelper.write(__os, __ret);
-        __os.writePendingObjects();
-        __inS.__endWriteParams(true);
-        return Ice.DispatchStatus.DispatchOK;
+        AMD_MoniCAIce_getArchiveData __cb = new _AMD_MoniCAIce_getArchiveData(__inS);
+        try
+        {
+            __obj.getArchiveData_async(__cb, names, start, end, maxsamples, __current);
+        }
+        catch(java.lang.Exception ex)
+        {
+            __cb.ice_exception(ex);
+        }
+        return Ice.DispatchStatus.DispatchAsync;
+    }
+
+    public static Ice.DispatchStatus ___getAggregates(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Idempotent, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        String[] names;
+        long start;
+        long end;
+        long bucket;
+        names = stringarrayHelper.read(__is);
+        start = __is.readLong();
+        end = __is.readLong();
+        bucket = __is.readLong();
+        __inS.endReadParams();
+        AMD_MoniCAIce_getAggregates __cb = new _AMD_MoniCAIce_getAggregates(__inS);
+        try
+        {
+            __obj.getAggregates_async(__cb, names, start, end, bucket, __current);
+        }
+        catch(java.lang.Exception ex)
+        {
+            __cb.ice_exception(ex);
+        }
+        return Ice.DispatchStatus.DispatchAsync;
     }
 
     public static Ice.DispatchStatus ___getData(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
@@ -301,12 +389,16 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         names = stringarrayHelper.read(__is);
         t = __is.readLong();
         __inS.endReadParams();
-        PointDataIce[] __ret = __obj.getBefore(names, t, __current);
-        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
-        pointdatasetHelper.write(__os, __ret);
-        __os.writePendingObjects();
-        __inS.__endWriteParams(true);
-        return Ice.DispatchStatus.DispatchOK;
+        AMD_MoniCAIce_getBefore __cb = new _AMD_MoniCAIce_getBefore(__inS);
+        try
+        {
+            __obj.getBefore_async(__cb, names, t, __current);
+        }
+        catch(java.lang.Exception ex)
+        {
+            __cb.ice_exception(ex);
+        }
+        return Ice.DispatchStatus.DispatchAsync;
     }
 
     public static Ice.DispatchStatus ___getAfter(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
@@ -318,12 +410,16 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         names = stringarrayHelper.read(__is);
         t = __is.readLong();
         __inS.endReadParams();
-        PointDataIce[] __ret = __obj.getAfter(names, t, __current);
-        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
-        pointdatasetHelper.write(__os, __ret);
-        __os.writePendingObjects();
-        __inS.__endWriteParams(true);
-        return Ice.DispatchStatus.DispatchOK;
+        AMD_MoniCAIce_getAfter __cb = new _AMD_MoniCAIce_getAfter(__inS);
+        try
+        {
+            __obj.getAfter_async(__cb, names, t, __current);
+        }
+        catch(java.lang.Exception ex)
+        {
+            __cb.ice_exception(ex);
+        }
+        return Ice.DispatchStatus.DispatchAsync;
     }
 
     public static Ice.DispatchStatus ___setData(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
@@ -347,6 +443,25 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return Ice.DispatchStatus.DispatchOK;
     }
 
+    public static Ice.DispatchStatus ___setDataWithToken(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        String[] names;
+        PointDataIce[] values;
+        String token;
+        names = stringarrayHelper.read(__is);
+        values = pointdatasetHelper.read(__is);
+        token = __is.readString();
+        __is.readPendingObjects();
+        __inS.endReadParams();
+        boolean __ret = __obj.setDataWithToken(names, values, token, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeBool(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
     public static Ice.DispatchStatus ___getAllSetups(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
     {
         __checkMode(Ice.OperationMode.Idempotent, __current.mode);
@@ -420,6 +535,24 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return Ice.DispatchStatus.DispatchOK;
     }
 
+    public static Ice.DispatchStatus ___acknowledgeAlarmsWithToken(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        String[] pointnames;
+        boolean ack;
+        String token;
+        pointnames = stringarrayHelper.read(__is);
+        ack = __is.readBool();
+        token = __is.readString();
+        __inS.endReadParams();
+        boolean __ret = __obj.acknowledgeAlarmsWithToken(pointnames, ack, token, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeBool(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
     public static Ice.DispatchStatus ___shelveAlarms(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
     {
         __checkMode(Ice.OperationMode.Normal, __current.mode);
@@ -440,6 +573,54 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return Ice.DispatchStatus.DispatchOK;
     }
 
+    public static Ice.DispatchStatus ___shelveAlarmsWithToken(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        String[] pointnames;
+        boolean shelve;
+        String token;
+        pointnames = stringarrayHelper.read(__is);
+        shelve = __is.readBool();
+        token = __is.readString();
+        __inS.endReadParams();
+        boolean __ret = __obj.shelveAlarmsWithToken(pointnames, shelve, token, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeBool(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
+    public static Ice.DispatchStatus ___subscribeAlarms(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        AlarmListenerIcePrx listener;
+        long sequence;
+        listener = AlarmListenerIcePrxHelper.__read(__is);
+        sequence = __is.readLong();
+        __inS.endReadParams();
+        boolean __ret = __obj.subscribeAlarms(listener, sequence, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeBool(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
+    public static Ice.DispatchStatus ___unsubscribeAlarms(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        AlarmListenerIcePrx listener;
+        listener = AlarmListenerIcePrxHelper.__read(__is);
+        __inS.endReadParams();
+        boolean __ret = __obj.unsubscribeAlarms(listener, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeBool(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
     public static Ice.DispatchStatus ___getEncryptionInfo(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
     {
         __checkMode(Ice.OperationMode.Idempotent, __current.mode);
@@ -451,6 +632,36 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         return Ice.DispatchStatus.DispatchOK;
     }
 
+    public static Ice.DispatchStatus ___login(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        String username;
+        String passwd;
+        username = __is.readString();
+        passwd = __is.readString();
+        __inS.endReadParams();
+        String __ret = __obj.login(username, passwd, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeString(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
+    public static Ice.DispatchStatus ___logout(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
+    {
+        __checkMode(Ice.OperationMode.Normal, __current.mode);
+        IceInternal.BasicStream __is = __inS.startReadParams();
+        String token;
+        token = __is.readString();
+        __inS.endReadParams();
+        boolean __ret = __obj.logout(token, __current);
+        IceInternal.BasicStream __os = __inS.__startWriteParams(Ice.FormatType.DefaultFormat);
+        __os.writeBool(__ret);
+        __inS.__endWriteParams(true);
+        return Ice.DispatchStatus.DispatchOK;
+    }
+
     public static Ice.DispatchStatus ___getCurrentTime(MoniCAIce __obj, IceInternal.Incoming __inS, Ice.Current __current)
     {
         __checkMode(Ice.OperationMode.Idempotent, __current.mode);
@@ -476,9 +687,11 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
     private final static String[] __all =
     {
         "acknowledgeAlarms",
+        "acknowledgeAlarmsWithToken",
         "addPoints",
         "addSetup",
         "getAfter",
+        "getAggregates",
         "getAllAlarms",
         "getAllPointNames",
         "getAllPointNamesChunk",
@@ -492,13 +705,20 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
         "getData",
         "getEncryptionInfo",
         "getLeapSeconds",
+        "getPointSnapshot",
         "getPoints",
         "ice_id",
         "ice_ids",
         "ice_isA",
         "ice_ping",
+        "login",
+        "logout",
         "setData",
-        "shelveAlarms"
+        "setDataWithToken",
+        "shelveAlarms",
+        "shelveAlarmsWithToken",
+        "subscribeAlarms",
+        "unsubscribeAlarms"
     };
 
     public Ice.DispatchStatus __dispatch(IceInternal.Incoming in, Ice.Current __current)
@@ -517,96 +737,132 @@ public abstract class _MoniCAIceDisp extends Ice.ObjectImpl implements MoniCAIce
             }
             case 1:
             {
-                return ___addPoints(this, in, __current);
+                return ___acknowledgeAlarmsWithToken(this, in, __current);
             }
             case 2:
             {
-                return ___addSetup(this, in, __current);
+                return ___addPoints(this, in, __current);
             }
             case 3:
             {
-                return ___getAfter(this, in, __current);
+                return ___addSetup(this, in, __current);
             }
             case 4:
             {
-                return ___getAllAlarms(this, in, __current);
+                return ___getAfter(this, in, __current);
             }
             case 5:
             {
-                return ___getAllPointNames(this, in, __current);
+                return ___getAggregates(this, in, __current);
             }
             case 6:
             {
-                return ___getAllPointNamesChunk(this, in, __current);
+                return ___getAllAlarms(this, in, __current);
             }
             case 7:
             {
-                return ___getAllPoints(this, in, __current);
+                return ___getAllPointNames(this, in, __current);
             }
             case 8:
             {
-                return ___getAllPointsChunk(this, in, __current);
+                return ___getAllPointNamesChunk(this, in, __current);
             }
             case 9:
             {
-                return ___getAllSetups(this, in, __current);
+                return ___getAllPoints(this, in, __current);
             }
             case 10:
             {
-                return ___getArchiveData(this, in, __current);
+                return ___getAllPointsChunk(this, in, __current);
             }
             case 11:
             {
-                return ___getBefore(this, in, __current);
+                return ___getAllSetups(this, in, __current);
             }
             case 12:
             {
-                return ___getCurrentAlarms(this, in, __current);
+                return ___getArchiveData(this, in, __current);
             }
             case 13:
             {
-                return ___getCurrentTime(this, in, __current);
+                return ___getBefore(this, in, __current);
             }
             case 14:
             {
-                return ___getData(this, in, __current);
+                return ___getCurrentAlarms(this, in, __current);
             }
             case 15:
             {
-                return ___getEncryptionInfo(this, in, __current);
+                return ___getCurrentTime(this, in, __current);
             }
             case 16:
             {
-                return ___getLeapSeconds(this, in, __current);
+                return ___getData(this, in, __current);
             }
             case 17:
             {
-                return ___getPoints(this, in, __current);
+                return ___getEncryptionInfo(this, in, __current);
             }
             case 18:
             {
-                return ___ice_id(this, in, __current);
+                return ___getLeapSeconds(this, in, __current);
             }
             case 19:
             {
-                return ___ice_ids(this, in, __current);
+                return ___getPointSnapshot(this, in, __current);
             }
             case 20:
             {
-                return ___ice_isA(this, in, __current);
+                return ___getPoints(this, in, __current);
             }
             case 21:
             {
-                return ___ice_ping(this, in, __current);
+                return ___ice_id(this, in, __current);
             }
             case 22:
             {
-                return ___setData(this, in, __current);
+                return ___ice_ids(this, in, __current);
             }
             case 23:
+            {
+                return ___ice_isA(this, in, __current);
+            }
+            case 24:
+            {
+                return ___ice_ping(this, in, __current);
+            }
+            case 25:
+            {
+                return ___login(this, in, __current);
+            }
+            case 26:
+            {
+                return ___logout(this, in, __current);
+            }
+            case 27:
+            {
+                return ___setData(this, in, __current);
+            }
+            case 28:
+            {
+                return ___setDataWithToken(this, in, __current);
+            }
+            case 29:
             {
                 return ___shelveAlarms(this, in, __current);
             }
+            case 30:
+            {
+                return ___shelveAlarmsWithToken(this, in, __current);
+            }
+            case 31:
+            {
+                return ___subscribeAlarms(this, in, __current);
+            }
+            case 32:
+            {
+                return ___unsubscribeAlarms(this, in, __current);
+            }
         }
 
         assert(false);
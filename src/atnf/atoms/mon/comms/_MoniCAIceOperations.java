@@ -32,18 +32,24 @@ public interface _MoniCAIceOperations
 
     PointDescriptionIce[] getAllPointsChunk(int start, int num, Ice.Current __current);
 
+    byte[] getPointSnapshot(long generation, Ice.Current __current);
+
     boolean addPoints(PointDescriptionIce[] newpoints, String username, String passwd, Ice.Current __current);
 
-    PointDataIce[][] getArchiveData(String[] names, long start, long end, long maxsamples, Ice.Current __current);
+    void getArchiveData_async(AMD_MoniCAIce_getArchiveData __cb, String[] names, long start, long end, long maxsamples, Ice.Current __current);
+
+    void getAggregates_async(AMD_MoniCAIce_getAggregates __cb, String[] names, long start, long end, long bucket, Ice.Current __current);
 
     PointDataIce[] getData(String[] names, Ice.Current __current);
 
-    PointDataIce[] getBefore(String[] names, long t, Ice.Current __current);
+    void getBefore_async(AMD_MoniCAIce_getBefore __cb, String[] names, long t, Ice.Current __current);
 
-    PointDataIce[] getAfter(String[] names, long t, Ice.Current __current);
+    void getAfter_async(AMD_MoniCAIce_getAfter __cb, String[] names, long t, Ice.Current __current);
 
     boolean setData(String[] names, PointDataIce[] values, String username, String passwd, Ice.Current __current);
 
+    boolean setDataWithToken(String[] names, PointDataIce[] values, String token, Ice.Current __current);
+
     String[] getAllSetups(Ice.Current __current);
 
     boolean addSetup(String setup, String username, String passwd, Ice.Current __current);
@@ -54,10 +60,22 @@ public interface _MoniCAIceOperations
 
     boolean acknowledgeAlarms(String[] pointnames, boolean ack, String username, String passwd, Ice.Current __current);
 
+    boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token, Ice.Current __current);
+
     boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd, Ice.Current __current);
 
+    boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token, Ice.Current __current);
+
+    boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence, Ice.Current __current);
+
+    boolean unsubscribeAlarms(AlarmListenerIcePrx listener, Ice.Current __current);
+
     String[] getEncryptionInfo(Ice.Current __current);
 
+    String login(String username, String passwd, Ice.Current __current);
+
+    boolean logout(String token, Ice.Current __current);
+
     long getCurrentTime(Ice.Current __current);
 
     dUTCEntry[] getLeapSeconds(Ice.Current __current);
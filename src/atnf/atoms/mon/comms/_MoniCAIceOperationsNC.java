@@ -32,18 +32,24 @@ public interface _MoniCAIceOperationsNC
 
     PointDescriptionIce[] getAllPointsChunk(int start, int num);
 
+    byte[] getPointSnapshot(long generation);
+
     boolean addPoints(PointDescriptionIce[] newpoints, String username, String passwd);
 
-    PointDataIce[][] getArchiveData(String[] names, long start, long end, long maxsamples);
+    void getArchiveData_async(AMD_MoniCAIce_getArchiveData __cb, String[] names, long start, long end, long maxsamples);
+
+    void getAggregates_async(AMD_MoniCAIce_getAggregates __cb, String[] names, long start, long end, long bucket);
 
     PointDataIce[] getData(String[] names);
 
-    PointDataIce[] getBefore(String[] names, long t);
+    void getBefore_async(AMD_MoniCAIce_getBefore __cb, String[] names, long t);
 
-    PointDataIce[] getAfter(String[] names, long t);
+    void getAfter_async(AMD_MoniCAIce_getAfter __cb, String[] names, long t);
 
     boolean setData(String[] names, PointDataIce[] values, String username, String passwd);
 
+    boolean setDataWithToken(String[] names, PointDataIce[] values, String token);
+
     String[] getAllSetups();
 
     boolean addSetup(String setup, String username, String passwd);
@@ -54,10 +60,22 @@ public interface _MoniCAIceOperationsNC
 
     boolean acknowledgeAlarms(String[] pointnames, boolean ack, String username, String passwd);
 
+    boolean acknowledgeAlarmsWithToken(String[] pointnames, boolean ack, String token);
+
     boolean shelveAlarms(String[] pointnames, boolean shelve, String username, String passwd);
 
+    boolean shelveAlarmsWithToken(String[] pointnames, boolean shelve, String token);
+
+    boolean subscribeAlarms(AlarmListenerIcePrx listener, long sequence);
+
+    boolean unsubscribeAlarms(AlarmListenerIcePrx listener);
+
     String[] getEncryptionInfo();
 
+    String login(String username, String passwd);
+
+    boolean logout(String token);
+
     long getCurrentTime();
 
     dUTCEntry[] getLeapSeconds();
@@ -0,0 +1,54 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public final class aggregatesetarrayHelper
+{
+    public static void
+    write(IceInternal.BasicStream __os, AggregateIce[][] __v)
+    {
+        if(__v == null)
+        {
+            __os.writeSize(0);
+        }
+        else
+        {
+            __os.writeSize(__v.length);
+            for(int __i0 = 0; __i0 < __v.length; __i0++)
+            {
+                aggregatearrayHelper.write(__os, __v[__i0]);
+            }
+        }
+    }
+
+    public static AggregateIce[][]
+    read(IceInternal.BasicStream __is)
+    {
+        AggregateIce[][] __v;
+        final int __len0 = __is.readAndCheckSeqSize(1);
+        __v = new AggregateIce[__len0][];
+        for(int __i0 = 0; __i0 < __len0; __i0++)
+        {
+            __v[__i0] = aggregatearrayHelper.read(__is);
+        }
+        return __v;
+    }
+}
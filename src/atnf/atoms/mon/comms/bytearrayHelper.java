@@ -0,0 +1,38 @@
+// **********************************************************************
+//
+// Copyright (c) 2003-2013 ZeroC, Inc. All rights reserved.
+//
+// This copy of Ice is licensed to you under the terms described in the
+// ICE_LICENSE file included in this distribution.
+//
+// **********************************************************************
+//
+// Ice version 3.5.0
+//
+// <auto-generated>
+//
+// Generated from file `MoniCA.ice'
+//
+// Warning: do not edit this file.
+//
+// </auto-generated>
+//
+
+package atnf.atoms.mon.comms;
+
+public final class bytearrayHelper
+{
+    public static void
+    write(IceInternal.BasicStream __os, byte[] __v)
+    {
+        __os.writeByteSeq(__v);
+    }
+
+    public static byte[]
+    read(IceInternal.BasicStream __is)
+    {
+        byte[] __v;
+        __v = __is.readByteSeq();
+        return __v;
+    }
+}
@@ -8,6 +8,11 @@
 package atnf.atoms.mon.externalsystem;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.transaction.TransactionStrings;
 import atnf.atoms.time.RelTime;
@@ -29,6 +34,13 @@ import org.apache.log4j.Logger;
  * has the query string to be sent over the socket. An optional additional argument can specify the number of lines expected in the
  * response, this is useful when the server has inter-line latency which can trick the standard logic into thinking that the entire
  * response has been consumed. All response lines will be concatenated and returned as the data object.
+ * <P>
+ * Devices which can accept many queries in flight may be polled in pipelined mode by adding a <tt>pipeline=N</tt> argument, where
+ * N is the maximum number of queries in flight. All queries for the collection cycle are then sent back to back and the responses
+ * matched to them in order. Each response must have a known number of lines, given by the optional Transaction argument and
+ * defaulting to one. If the device can reorder responses, a <tt>token=regex</tt> argument can be given, in which case <tt>$T</tt>
+ * in each query is replaced with a unique number and the first capture group of the regex, when applied to the first line of a
+ * response, identifies the query being answered. Pipelined mode is only used with the default <tt>parseData</tt> implementation.
  * 
  * @author David Brodrick
  */
@@ -39,17 +51,33 @@ public class ASCIISocket extends TCPSocket {
   /** The input stream for reading responses from the remote service. */
   protected BufferedReader itsReader = null;
 
+  /** Max number of queries in flight in pipelined mode, or zero if pipelining is disabled. */
+  protected int itsMaxInFlight = 0;
+
+  /** Pattern to extract the correlation token from a response in pipelined mode, or null to match responses in order. */
+  protected Pattern itsTokenPattern = null;
+
+  /** Correlation token for the next pipelined query. */
+  private int itsNextToken = 0;
+
   /** Argument must include host:port and optionally :timeout_ms */
   public ASCIISocket(String[] args) {
     super(args);
+    for (int i = 3; i < args.length; i++) {
+      if (args[i].startsWith("pipeline=")) {
+        itsMaxInFlight = Integer.parseInt(args[i].substring(9));
+      } else if (args[i].startsWith("token=")) {
+        itsTokenPattern = Pattern.compile(args[i].substring(6));
+      }
+    }
   }
 
   /** Make a new socket connection. */
   public boolean connect() throws Exception {
     try {
       super.connect();
-      itsWriter = new BufferedWriter(new OutputStreamWriter(itsSocket.getOutputStream()));
-      itsReader = new BufferedReader(new InputStreamReader(itsSocket.getInputStream()));
+      itsWriter = new BufferedWriter(new OutputStreamWriter(itsConnection.getOutputStream()));
+      itsReader = new BufferedReader(new InputStreamReader(itsConnection.getInputStream()));
       Logger logger = Logger.getLogger(this.getClass().getName());
       logger.info("Connected to " + itsHostName + ":" + itsPort);
     } catch (Exception e) {
@@ -106,7 +134,27 @@ public class ASCIISocket extends TCPSocket {
   public Object parseData(PointDescription requestor) throws Exception {
     // Get the Transaction which associates the point with us
     TransactionStrings thistrans = (TransactionStrings) getMyTransactions(requestor.getInputTransactions()).get(0);
+    String query = getQuery(thistrans);
 
+    // Check if the Transaction specifies the number of reply lines to expect
+    int numexpected = -1;
+    if (thistrans.getNumStrings() > 1) {
+      numexpected = Integer.parseInt(thistrans.getString(1));
+    }
+
+    // Clear anything a subclass left in the reader's buffer
+    while (itsReader.ready()) {
+      itsReader.readLine();
+    }
+
+    // Send the query to the server and read the response
+    String result = itsConnection.request(query, numexpected, itsTimeout);
+
+    return result;
+  }
+
+  /** Return the query string from the Transaction, with EOL characters substituted. */
+  protected String getQuery(TransactionStrings thistrans) throws Exception {
     // The Transaction should contain a query string to be issued to the server
     if (thistrans.getNumStrings() < 1) {
       throw new Exception("ASCIISocket: Not enough arguments in Transaction");
@@ -114,36 +162,140 @@ public class ASCIISocket extends TCPSocket {
     String query = thistrans.getString();
     // Substitute EOL characters
     query = query.replaceAll("\\\\n", "\n").replaceAll("\\\\r", "\r");
+    return query;
+  }
 
-    // Clear input buffer
-    while (itsReader.ready()) {
-      itsReader.readLine();
+  /** Check if the points should be collected in pipelined mode. */
+  protected boolean isPipelined() {
+    if (itsMaxInFlight <= 0) {
+      return false;
     }
+    try {
+      // Pipelining relies on the default parseData implementation
+      return getClass().getMethod("parseData", PointDescription.class).getDeclaringClass() == ASCIISocket.class;
+    } catch (Exception e) {
+      return false;
+    }
+  }
 
-    // Send the query to the server
-    itsWriter.write(query);
-    itsWriter.flush();
+  /** Records a query which has been sent in pipelined mode. */
+  private static class PipelinedQuery {
+    public int index;
+    public int numlines;
+    public String token;
 
-    // Check if the Transaction specifies the number of reply lines to expect
-    int numexpected = -1;
-    if (thistrans.getNumStrings() > 1) {
-      numexpected = Integer.parseInt(thistrans.getString(1));
+    public PipelinedQuery(int index, int numlines, String token) {
+      this.index = index;
+      this.numlines = numlines;
+      this.token = token;
     }
+  }
+
+  /**
+   * Send the queries for all points back to back, with no more than itsMaxInFlight outstanding, and match the responses to them.
+   * 
+   * @param results
+   *          The response for each point is stored in this array, points which could not be collected are left null.
+   */
+  protected void getDataPipelined(PointDescription[] points, Object[] results) throws Exception {
+    LinkedList<PipelinedQuery> inflight = new LinkedList<PipelinedQuery>();
+    HashMap<String, PipelinedQuery> bytoken = new HashMap<String, PipelinedQuery>();
 
-    // Read response
-    String result = itsReader.readLine() + "\n";
-    int numread = 1;
-    while (itsReader.ready() || (numexpected != -1 && numread < numexpected)) {
-      String line = itsReader.readLine() + "\n";
-      result = result + line;
-      numread++;
+    // Clear any stale input
+    while (itsReader.ready()) {
+      itsReader.readLine();
     }
+    itsConnection.clearInput();
 
-    return result;
+    int next = 0;
+    while (next < points.length || !inflight.isEmpty()) {
+      // Top up the queries in flight
+      boolean sent = false;
+      while (next < points.length && inflight.size() < itsMaxInFlight) {
+        int i = next++;
+        try {
+          TransactionStrings thistrans = (TransactionStrings) getMyTransactions(points[i].getInputTransactions()).get(0);
+          String query = getQuery(thistrans);
+          int numlines = 1;
+          if (thistrans.getNumStrings() > 1) {
+            numlines = Math.max(1, Integer.parseInt(thistrans.getString(1)));
+          }
+          String token = null;
+          if (itsTokenPattern != null) {
+            token = "" + (itsNextToken++ & 0x7fffffff);
+            query = query.replaceAll("\\$T", token);
+          }
+          PipelinedQuery q = new PipelinedQuery(i, numlines, token);
+          inflight.add(q);
+          if (token != null) {
+            bytoken.put(token, q);
+          }
+          itsConnection.write(query);
+          sent = true;
+        } catch (Exception e) {
+          Logger.getLogger(this.getClass().getName()).warn("(" + itsName + "): Can't query " + points[i].getFullName() + ": " + e);
+        }
+      }
+      if (sent) {
+        itsConnection.flush(itsTimeout);
+      }
+      if (inflight.isEmpty()) {
+        break;
+      }
+
+      // Read the next response
+      String first = itsConnection.readLine(itsTimeout);
+      if (first == null) {
+        throw new IOException("Connection closed by " + itsHostName);
+      }
+      PipelinedQuery q;
+      if (itsTokenPattern == null) {
+        q = inflight.removeFirst();
+      } else {
+        Matcher m = itsTokenPattern.matcher(first);
+        q = null;
+        if (m.find() && m.groupCount() > 0) {
+          q = bytoken.remove(m.group(1));
+        }
+        if (q == null) {
+          Logger.getLogger(this.getClass().getName()).warn("(" + itsName + "): Discarding unmatched response \"" + first + "\"");
+          continue;
+        }
+        inflight.remove(q);
+      }
+      StringBuffer result = new StringBuffer(first);
+      result.append('\n');
+      if (q.numlines > 1) {
+        String[] lines = itsConnection.readLines(q.numlines - 1, itsTimeout);
+        for (int j = 0; j < lines.length; j++) {
+          result.append(lines[j]);
+          result.append('\n');
+        }
+      }
+      results[q.index] = result.toString();
+    }
   }
 
   /** Collect data and fire events to queued monitor points. */
   protected synchronized void getData(PointDescription[] points) throws Exception {
+    if (points.length > 1 && isPipelined()) {
+      Object[] results = new Object[points.length];
+      try {
+        getDataPipelined(points, results);
+      } catch (Exception e) {
+        // Probably a comms error.
+        disconnect();
+        Logger logger = Logger.getLogger(this.getClass().getName());
+        logger.error("(" + itsName + "): " + e);
+      }
+      for (int i = 0; i < points.length; i++) {
+        if (results[i] != null) {
+          itsNumTransactions++;
+        }
+        points[i].firePointEvent(new PointEvent(this, new PointData(points[i].getFullName(), results[i]), true));
+      }
+      return;
+    }
     try {
       for (int i = 0; i < points.length; i++) {
         Object o;
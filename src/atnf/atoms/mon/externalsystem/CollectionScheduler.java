@@ -0,0 +1,249 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon.externalsystem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import atnf.atoms.mon.PointDescription;
+import atnf.atoms.time.AbsTime;
+
+/**
+ * Schedules the collection of points by an ExternalSystem. Points are kept in a binary heap ordered by the time of their next
+ * collection, which is recorded as a <tt>long</tt> when the point is scheduled, so that scheduling and removing a point are
+ * O(log n) operations and all points which are due can be extracted as a batch.
+ *
+ * <P>
+ * Each point can only be scheduled once, scheduling a point which is already scheduled simply moves it to its new collection time.
+ * The scheduler also records how late points were when they were extracted for collection.
+ *
+ * <P>
+ * The scheduler's monitor can be used to wait for points to be scheduled, all changes to the schedule notify any waiting threads.
+ */
+public class CollectionScheduler {
+  /** Heap of scheduled collection times, parallel to itsHeapPoints. */
+  private long[] itsHeapEpochs = new long[64];
+
+  /** Heap of scheduled points. */
+  private PointDescription[] itsHeapPoints = new PointDescription[64];
+
+  /** Number of points in the heap. */
+  private int itsSize = 0;
+
+  /** Position of each point in the heap. */
+  private HashMap<PointDescription, Integer> itsIndex = new HashMap<PointDescription, Integer>();
+
+  /** Number of points extracted since the statistics were last reset. */
+  private long itsNumExtracted = 0;
+
+  /** Total lateness (us) of the points extracted since the statistics were last reset. */
+  private long itsTotalLateness = 0;
+
+  /** Maximum lateness (us) of any point extracted since the statistics were last reset. */
+  private long itsMaxLateness = 0;
+
+  /** Schedule the point for collection at its next epoch, moving it if it is already scheduled. */
+  public synchronized void schedule(PointDescription p) {
+    insert(p, p.getNextEpoch());
+    notifyAll();
+  }
+
+  /** Schedule all of the points for collection at their next epochs. */
+  public synchronized void scheduleAll(PointDescription[] points) {
+    for (int i = 0; i < points.length; i++) {
+      if (points[i] != null) {
+        insert(points[i], points[i].getNextEpoch());
+      }
+    }
+    notifyAll();
+  }
+
+  /** Remove the point from the schedule. Returns false if it was not scheduled. */
+  public synchronized boolean remove(PointDescription p) {
+    Integer pos = itsIndex.remove(p);
+    if (pos == null) {
+      return false;
+    }
+    removeAt(pos.intValue());
+    notifyAll();
+    return true;
+  }
+
+  /** Check if the point is currently scheduled. */
+  public synchronized boolean contains(PointDescription p) {
+    return itsIndex.containsKey(p);
+  }
+
+  /** Return the number of scheduled points. */
+  public synchronized int size() {
+    return itsSize;
+  }
+
+  /** Check if there are no scheduled points. */
+  public synchronized boolean isEmpty() {
+    return itsSize == 0;
+  }
+
+  /** Return the earliest scheduled collection time, or -1 if no points are scheduled. */
+  public synchronized long getNextEpoch() {
+    return itsSize == 0 ? -1 : itsHeapEpochs[0];
+  }
+
+  /** Return the scheduled points in no particular order. */
+  public synchronized PointDescription[] getPoints() {
+    return Arrays.copyOf(itsHeapPoints, itsSize);
+  }
+
+  /**
+   * Remove and return all points which are scheduled for collection before the cutoff time.
+   *
+   * @param cutoff
+   *          Points with a scheduled collection time earlier than this are returned.
+   * @return The due points in order of scheduled collection time, possibly zero-length.
+   */
+  public synchronized PointDescription[] takeDue(long cutoff) {
+    return takeDue(cutoff, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Remove and return the earliest points which are scheduled for collection before the cutoff time, up to the given number.
+   *
+   * @param cutoff
+   *          Points with a scheduled collection time earlier than this are returned.
+   * @param max
+   *          The maximum number of points to return.
+   * @return The due points in order of scheduled collection time, possibly zero-length.
+   */
+  public synchronized PointDescription[] takeDue(long cutoff, int max) {
+    int num = 0;
+    PointDescription[] res = new PointDescription[8];
+    long now = AbsTime.factory().getValue();
+    while (itsSize > 0 && itsHeapEpochs[0] < cutoff && num < max) {
+      if (num == res.length) {
+        res = Arrays.copyOf(res, 2 * num);
+      }
+      long lateness = now - itsHeapEpochs[0];
+      if (lateness > 0) {
+        itsTotalLateness += lateness;
+        if (lateness > itsMaxLateness) {
+          itsMaxLateness = lateness;
+        }
+      }
+      itsNumExtracted++;
+      res[num++] = itsHeapPoints[0];
+      itsIndex.remove(itsHeapPoints[0]);
+      removeAt(0);
+    }
+    return Arrays.copyOf(res, num);
+  }
+
+  /** Return the number of points extracted for collection since the statistics were last reset. */
+  public synchronized long getNumExtracted() {
+    return itsNumExtracted;
+  }
+
+  /** Return the mean lateness (us) of points extracted since the statistics were last reset. */
+  public synchronized long getMeanLateness() {
+    return itsNumExtracted == 0 ? 0 : itsTotalLateness / itsNumExtracted;
+  }
+
+  /** Return the maximum lateness (us) of points extracted since the statistics were last reset. */
+  public synchronized long getMaxLateness() {
+    return itsMaxLateness;
+  }
+
+  /** Reset the lateness statistics. */
+  public synchronized void resetStatistics() {
+    itsNumExtracted = 0;
+    itsTotalLateness = 0;
+    itsMaxLateness = 0;
+  }
+
+  /** Insert the point or move it to its new position. */
+  private void insert(PointDescription p, long epoch) {
+    Integer pos = itsIndex.get(p);
+    if (pos != null) {
+      int i = pos.intValue();
+      long old = itsHeapEpochs[i];
+      itsHeapEpochs[i] = epoch;
+      if (epoch < old) {
+        siftUp(i);
+      } else {
+        siftDown(i);
+      }
+      return;
+    }
+    if (itsSize == itsHeapPoints.length) {
+      itsHeapPoints = Arrays.copyOf(itsHeapPoints, 2 * itsSize);
+      itsHeapEpochs = Arrays.copyOf(itsHeapEpochs, 2 * itsSize);
+    }
+    itsHeapPoints[itsSize] = p;
+    itsHeapEpochs[itsSize] = epoch;
+    itsIndex.put(p, Integer.valueOf(itsSize));
+    itsSize++;
+    siftUp(itsSize - 1);
+  }
+
+  /** Remove the heap entry at the given position, the point must already have been removed from the index. */
+  private void removeAt(int i) {
+    itsSize--;
+    if (i != itsSize) {
+      // Move the last entry into the gap and restore the heap order
+      PointDescription moved = itsHeapPoints[itsSize];
+      itsHeapPoints[i] = moved;
+      itsHeapEpochs[i] = itsHeapEpochs[itsSize];
+      siftDown(i);
+      if (itsHeapPoints[i] == moved) {
+        siftUp(i);
+      }
+    }
+    itsHeapPoints[itsSize] = null;
+  }
+
+  private void siftUp(int i) {
+    PointDescription p = itsHeapPoints[i];
+    long epoch = itsHeapEpochs[i];
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (itsHeapEpochs[parent] <= epoch) {
+        break;
+      }
+      itsHeapPoints[i] = itsHeapPoints[parent];
+      itsHeapEpochs[i] = itsHeapEpochs[parent];
+      itsIndex.put(itsHeapPoints[i], Integer.valueOf(i));
+      i = parent;
+    }
+    itsHeapPoints[i] = p;
+    itsHeapEpochs[i] = epoch;
+    itsIndex.put(p, Integer.valueOf(i));
+  }
+
+  private void siftDown(int i) {
+    PointDescription p = itsHeapPoints[i];
+    long epoch = itsHeapEpochs[i];
+    int half = itsSize >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      int right = child + 1;
+      if (right < itsSize && itsHeapEpochs[right] < itsHeapEpochs[child]) {
+        child = right;
+      }
+      if (epoch <= itsHeapEpochs[child]) {
+        break;
+      }
+      itsHeapPoints[i] = itsHeapPoints[child];
+      itsHeapEpochs[i] = itsHeapEpochs[child];
+      itsIndex.put(itsHeapPoints[i], Integer.valueOf(i));
+      i = child;
+    }
+    itsHeapPoints[i] = p;
+    itsHeapEpochs[i] = epoch;
+    itsIndex.put(p, Integer.valueOf(i));
+  }
+}
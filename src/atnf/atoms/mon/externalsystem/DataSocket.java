@@ -39,8 +39,8 @@ public class DataSocket extends TCPSocket
     {
         try {
             super.connect();
-            itsWriter = new DataOutputStream(itsSocket.getOutputStream());
-            itsReader = new DataInputStream(itsSocket.getInputStream());
+            itsWriter = new DataOutputStream(itsConnection.getOutputStream());
+            itsReader = new DataInputStream(itsConnection.getInputStream());
         } catch (Exception e) {
             itsReader = null;
             itsWriter = null;
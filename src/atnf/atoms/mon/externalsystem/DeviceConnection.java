@@ -0,0 +1,498 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon.externalsystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * A TCP connection to a remote device which is serviced by one of the <tt>DeviceIO</tt> selector threads. Received data is
+ * buffered by the selector thread and consumed by the polling thread using the request/response framing methods or the stream
+ * views, all of which block for no longer than the given timeout.
+ *
+ * <P>
+ * The framing methods support line terminated responses (<tt>readLine</tt>), responses with an expected number of lines
+ * (<tt>readLines</tt>), responses with a length prefix (<tt>readFrame</tt>) and fixed length responses (<tt>readBytes</tt>). A
+ * timeout of zero or less means the default timeout for the connection.
+ *
+ * <P>
+ * The stream views allow code written against blocking sockets, such as the subclasses of <tt>ASCIISocket</tt> and
+ * <tt>DataSocket</tt>, to work unchanged. Reads from the input stream throw a <tt>SocketTimeoutException</tt> when no data arrives
+ * within the default timeout, just like a blocking socket with <tt>SO_TIMEOUT</tt> set.
+ */
+public class DeviceConnection {
+  /** The channel for this connection. */
+  private SocketChannel itsChannel;
+
+  /** Our key with the selector, set once the selector thread has registered the channel. */
+  private SelectionKey itsKey = null;
+
+  /** The selector thread which services this connection. */
+  private DeviceIO.SelectorLoop itsLoop = null;
+
+  /** Default timeout for requests (ms). */
+  private volatile int itsTimeout;
+
+  /** Received data which has not yet been consumed. */
+  private byte[] itsInput = new byte[4096];
+
+  /** Offset of the first unconsumed byte in itsInput. */
+  private int itsInStart = 0;
+
+  /** Offset after the last unconsumed byte in itsInput. */
+  private int itsInEnd = 0;
+
+  /** Data written which has not yet been flushed. */
+  private byte[] itsOutput = new byte[1024];
+
+  /** Number of bytes in itsOutput. */
+  private int itsOutLen = 0;
+
+  /** Flushed data which the channel has not yet accepted, or null. */
+  private ByteBuffer itsPending = null;
+
+  /** Lock for the output fields. */
+  private Object itsOutLock = new Object();
+
+  /** Set once the connection has been closed by either end. */
+  private volatile boolean itsClosed = false;
+
+  /** Stream view of the received data. */
+  private InputStream itsInputStream = new InputStream() {
+    public int read() throws IOException {
+      return DeviceConnection.this.read(0);
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+      return DeviceConnection.this.read(b, off, len, 0);
+    }
+
+    public int available() {
+      return DeviceConnection.this.available();
+    }
+
+    public void close() throws IOException {
+      DeviceConnection.this.close();
+    }
+  };
+
+  /** Stream view for sending data. */
+  private OutputStream itsOutputStream = new OutputStream() {
+    public void write(int b) throws IOException {
+      DeviceConnection.this.write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+      DeviceConnection.this.write(b, off, len);
+    }
+
+    public void flush() throws IOException {
+      DeviceConnection.this.flush(0);
+    }
+
+    public void close() throws IOException {
+      DeviceConnection.this.close();
+    }
+  };
+
+  /** Use DeviceIO.connect to create connections. */
+  DeviceConnection(SocketChannel channel, int timeout) {
+    itsChannel = channel;
+    itsTimeout = timeout;
+  }
+
+  /** Return the channel. */
+  SocketChannel getChannel() {
+    return itsChannel;
+  }
+
+  /** Return the socket, which may be used for closing the connection but not for I/O. */
+  public Socket getSocket() {
+    return itsChannel.socket();
+  }
+
+  /** Return a stream view of the received data. */
+  public InputStream getInputStream() {
+    return itsInputStream;
+  }
+
+  /** Return a stream view for sending data. */
+  public OutputStream getOutputStream() {
+    return itsOutputStream;
+  }
+
+  /** Set the default timeout (ms). */
+  public void setTimeout(int ms) {
+    itsTimeout = ms;
+  }
+
+  /** Return the default timeout (ms). */
+  public int getTimeout() {
+    return itsTimeout;
+  }
+
+  /** Check if the connection has been closed. */
+  public boolean isClosed() {
+    return itsClosed || !itsChannel.isOpen();
+  }
+
+  /** Close the connection. */
+  public void close() throws IOException {
+    itsChannel.close();
+    closed();
+  }
+
+  public String toString() {
+    return "" + itsChannel.socket().getRemoteSocketAddress();
+  }
+
+  /** Return the number of received bytes which can be read without blocking. */
+  public synchronized int available() {
+    return itsInEnd - itsInStart;
+  }
+
+  /** Discard any received data which has not been consumed, for instance before issuing a new request. */
+  public synchronized void clearInput() {
+    itsInStart = itsInEnd = 0;
+  }
+
+  /** Read a single byte, or return -1 if the connection was closed. */
+  public synchronized int read(long timeout) throws IOException {
+    if (!waitFor(1, deadline(timeout))) {
+      return -1;
+    }
+    return itsInput[itsInStart++] & 0xff;
+  }
+
+  /** Read at least one and up to len bytes, or return -1 if the connection was closed. */
+  public synchronized int read(byte[] b, int off, int len, long timeout) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!waitFor(1, deadline(timeout))) {
+      return -1;
+    }
+    int num = Math.min(len, itsInEnd - itsInStart);
+    System.arraycopy(itsInput, itsInStart, b, off, num);
+    itsInStart += num;
+    return num;
+  }
+
+  /** Read exactly num bytes. */
+  public synchronized byte[] readBytes(int num, long timeout) throws IOException {
+    if (!waitFor(num, deadline(timeout))) {
+      throw new IOException("Connection closed by " + this);
+    }
+    byte[] res = Arrays.copyOfRange(itsInput, itsInStart, itsInStart + num);
+    itsInStart += num;
+    return res;
+  }
+
+  /**
+   * Read a frame which is prefixed by its length as a big-endian unsigned integer.
+   *
+   * @param prefixlen
+   *          The number of bytes in the length prefix, from 1 to 4.
+   * @return The frame, excluding the length prefix.
+   */
+  public synchronized byte[] readFrame(int prefixlen, long timeout) throws IOException {
+    long deadline = deadline(timeout);
+    if (!waitFor(prefixlen, deadline)) {
+      throw new IOException("Connection closed by " + this);
+    }
+    int len = 0;
+    for (int i = 0; i < prefixlen; i++) {
+      len = (len << 8) | (itsInput[itsInStart + i] & 0xff);
+    }
+    if (len < 0) {
+      throw new IOException("Invalid frame length from " + this);
+    }
+    if (!waitFor(prefixlen + len, deadline)) {
+      throw new IOException("Connection closed by " + this);
+    }
+    itsInStart += prefixlen;
+    byte[] res = Arrays.copyOfRange(itsInput, itsInStart, itsInStart + len);
+    itsInStart += len;
+    return res;
+  }
+
+  /**
+   * Read a line terminated by a newline, excluding the line terminator and any preceding carriage return. Returns null if the
+   * connection was closed with no data buffered, or the unterminated data if the connection was closed part way through a line.
+   */
+  public synchronized String readLine(long timeout) throws IOException {
+    return readLineBefore(deadline(timeout));
+  }
+
+  /** Read the given number of lines, all of which must arrive within the timeout. */
+  public synchronized String[] readLines(int num, long timeout) throws IOException {
+    long deadline = deadline(timeout);
+    String[] res = new String[num];
+    for (int i = 0; i < num; i++) {
+      res[i] = readLineBefore(deadline);
+      if (res[i] == null) {
+        throw new IOException("Connection closed by " + this);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Send the request and read the response, which is assumed to consist of the given number of lines, or if numlines is less than
+   * one, of one line followed by any further lines which arrive without delay. Any stale received data is discarded before the
+   * request is sent.
+   *
+   * @return The response lines, each terminated by a newline.
+   */
+  public String request(String request, int numlines, long timeout) throws IOException {
+    long deadline = deadline(timeout);
+    clearInput();
+    write(request);
+    flush(Math.max(1, deadline - System.currentTimeMillis()));
+    synchronized (this) {
+      StringBuffer res = new StringBuffer();
+      int numread = 0;
+      do {
+        String line = readLineBefore(deadline);
+        if (line == null) {
+          throw new IOException("Connection closed by " + this);
+        }
+        res.append(line);
+        res.append('\n');
+        numread++;
+      } while (available() > 0 || numread < numlines);
+      return res.toString();
+    }
+  }
+
+  /** Send the string without waiting for it to be flushed. */
+  public void write(String data) throws IOException {
+    byte[] b = data.getBytes();
+    write(b, 0, b.length);
+  }
+
+  /** Buffer the data for sending, it will not be sent until the connection is flushed. */
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (isClosed()) {
+      throw new IOException("Connection closed");
+    }
+    synchronized (itsOutLock) {
+      if (itsOutLen + len > itsOutput.length) {
+        itsOutput = Arrays.copyOf(itsOutput, Math.max(2 * itsOutput.length, itsOutLen + len));
+      }
+      System.arraycopy(b, off, itsOutput, itsOutLen, len);
+      itsOutLen += len;
+    }
+  }
+
+  /** Send all buffered data, waiting until it has been accepted by the network stack. */
+  public void flush(long timeout) throws IOException {
+    long deadline = deadline(timeout);
+    synchronized (itsOutLock) {
+      if (itsOutLen > 0) {
+        ByteBuffer buf = ByteBuffer.wrap(Arrays.copyOf(itsOutput, itsOutLen));
+        itsOutLen = 0;
+        if (itsPending == null) {
+          // Try writing directly, which will usually succeed
+          itsChannel.write(buf);
+          if (buf.hasRemaining()) {
+            itsPending = buf;
+            requestWrite();
+          }
+        } else {
+          ByteBuffer both = ByteBuffer.allocate(itsPending.remaining() + buf.remaining());
+          both.put(itsPending);
+          both.put(buf);
+          both.flip();
+          itsPending = both;
+        }
+      }
+      // Wait for the selector thread to write anything the channel didn't accept
+      while (itsPending != null) {
+        if (isClosed()) {
+          throw new IOException("Connection closed");
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          throw new SocketTimeoutException("Timed out writing to " + this);
+        }
+        try {
+          itsOutLock.wait(remaining);
+        } catch (InterruptedException e) {
+          throw new SocketTimeoutException("Interrupted writing to " + this);
+        }
+      }
+    }
+  }
+
+  /** Called by the selector thread once the channel has been registered. */
+  synchronized void setKey(SelectionKey key, DeviceIO.SelectorLoop loop) {
+    itsKey = key;
+    itsLoop = loop;
+    notifyAll();
+  }
+
+  /** Called by the selector thread when data has been received. */
+  synchronized void received(ByteBuffer data) {
+    int len = data.remaining();
+    if (itsInEnd + len > itsInput.length) {
+      int used = itsInEnd - itsInStart;
+      if (used + len > itsInput.length) {
+        byte[] newbuf = new byte[Math.max(2 * itsInput.length, used + len)];
+        System.arraycopy(itsInput, itsInStart, newbuf, 0, used);
+        itsInput = newbuf;
+      } else {
+        System.arraycopy(itsInput, itsInStart, itsInput, 0, used);
+      }
+      itsInStart = 0;
+      itsInEnd = used;
+    }
+    data.get(itsInput, itsInEnd, len);
+    itsInEnd += len;
+    notifyAll();
+  }
+
+  /** Called by the selector thread when the channel is writable. Returns true once there is nothing left to write. */
+  boolean writePending() throws IOException {
+    synchronized (itsOutLock) {
+      if (itsPending != null) {
+        itsChannel.write(itsPending);
+        if (itsPending.hasRemaining()) {
+          return false;
+        }
+        itsPending = null;
+        itsOutLock.notifyAll();
+      }
+      return true;
+    }
+  }
+
+  /** Called when the connection has been closed by either end. */
+  void closed() {
+    synchronized (this) {
+      if (itsClosed) {
+        return;
+      }
+      itsClosed = true;
+      notifyAll();
+    }
+    synchronized (itsOutLock) {
+      itsOutLock.notifyAll();
+    }
+    try {
+      itsChannel.close();
+    } catch (IOException e) {
+    }
+    DeviceIO.connectionClosed();
+  }
+
+  /** Ask the selector thread to write the pending data when the channel becomes writable. */
+  private void requestWrite() throws IOException {
+    DeviceIO.SelectorLoop loop;
+    synchronized (this) {
+      long deadline = deadline(0);
+      while (itsLoop == null && !isClosed()) {
+        // The selector thread hasn't registered the channel yet
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          throw new SocketTimeoutException("Timed out registering " + this);
+        }
+        try {
+          wait(remaining);
+        } catch (InterruptedException e) {
+          throw new SocketTimeoutException("Interrupted registering " + this);
+        }
+      }
+      loop = itsLoop;
+    }
+    if (loop != null) {
+      loop.invoke(new Runnable() {
+        public void run() {
+          if (itsKey.isValid()) {
+            itsKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          }
+        }
+      });
+    }
+  }
+
+  /** Read a line, which must arrive before the deadline. */
+  private String readLineBefore(long deadline) throws IOException {
+    int searched = itsInStart;
+    while (true) {
+      for (int i = searched; i < itsInEnd; i++) {
+        if (itsInput[i] == '\n') {
+          int end = i;
+          if (end > itsInStart && itsInput[end - 1] == '\r') {
+            end--;
+          }
+          String res = new String(itsInput, itsInStart, end - itsInStart);
+          itsInStart = i + 1;
+          return res;
+        }
+      }
+      searched = itsInEnd;
+      int before = itsInEnd - itsInStart;
+      if (!waitFor(before + 1, deadline)) {
+        // Connection closed, return any unterminated data
+        if (itsInEnd == itsInStart) {
+          return null;
+        }
+        String res = new String(itsInput, itsInStart, itsInEnd - itsInStart);
+        itsInStart = itsInEnd;
+        return res;
+      }
+      // The buffer may have been compacted
+      searched = itsInStart + before;
+    }
+  }
+
+  /**
+   * Wait until at least num bytes are buffered. Returns false if the connection was closed first, or throws a
+   * SocketTimeoutException if the deadline passes first.
+   */
+  private boolean waitFor(int num, long deadline) throws IOException {
+    while (itsInEnd - itsInStart < num) {
+      if (isClosed()) {
+        return false;
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        throw new SocketTimeoutException("Timed out reading from " + this);
+      }
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        throw new SocketTimeoutException("Interrupted reading from " + this);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the absolute deadline for a request with the given timeout, or the default timeout if zero or less. A default timeout of
+   * zero means wait indefinitely.
+   */
+  private long deadline(long timeout) {
+    if (timeout <= 0) {
+      timeout = itsTimeout;
+      if (timeout <= 0) {
+        return Long.MAX_VALUE;
+      }
+    }
+    return System.currentTimeMillis() + timeout;
+  }
+}
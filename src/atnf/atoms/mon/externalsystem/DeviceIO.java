@@ -0,0 +1,208 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon.externalsystem;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import atnf.atoms.mon.util.MonitorConfig;
+
+/**
+ * Multiplexes the TCP connections to remote devices over a small number of selector threads. Each thread services the reads and
+ * any pending writes for all of the connections registered with it, so the number of threads does not grow with the number of
+ * devices being polled.
+ *
+ * <P>
+ * The number of selector threads is given by the <tt>DeviceIOThreads</tt> property and defaults to 2. Connections are assigned to
+ * the threads in turn.
+ *
+ * @see DeviceConnection
+ */
+public class DeviceIO {
+  /** Logger. */
+  private static Logger theirLogger = Logger.getLogger(DeviceIO.class.getName());
+
+  /** Number of selector threads. */
+  private static int theirNumThreads = 2;
+
+  /** The selector threads, created when the first connection is made. */
+  private static SelectorLoop[] theirLoops = null;
+
+  /** Index of the selector thread to assign the next connection to. */
+  private static int theirNextLoop = 0;
+
+  /** Number of currently open connections. */
+  private static AtomicInteger theirNumConnections = new AtomicInteger();
+
+  static {
+    try {
+      theirNumThreads = Integer.parseInt(MonitorConfig.getProperty("DeviceIOThreads", "" + theirNumThreads));
+      if (theirNumThreads < 1) {
+        theirNumThreads = 1;
+      }
+    } catch (Exception e) {
+      theirLogger.warn("Error parsing DeviceIOThreads property, using default of " + theirNumThreads);
+    }
+  }
+
+  /**
+   * Connect to the remote end-point and register the connection with one of the selector threads.
+   *
+   * @param host
+   *          Host name or IP of the remote end-point.
+   * @param port
+   *          Port to connect to.
+   * @param timeout
+   *          Timeout (ms) for establishing the connection, and the default timeout for requests on the connection.
+   */
+  public static DeviceConnection connect(String host, int port, int timeout) throws IOException {
+    SocketChannel channel = SocketChannel.open();
+    try {
+      channel.socket().connect(new InetSocketAddress(host, port), timeout);
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    DeviceConnection conn = new DeviceConnection(channel, timeout);
+    getLoop().register(conn);
+    theirNumConnections.incrementAndGet();
+    return conn;
+  }
+
+  /** Return the number of open connections. */
+  public static int getNumConnections() {
+    return theirNumConnections.get();
+  }
+
+  /** Called when a connection has been closed. */
+  static void connectionClosed() {
+    theirNumConnections.decrementAndGet();
+  }
+
+  /** Return the selector thread to use for the next connection, starting the threads if required. */
+  private static synchronized SelectorLoop getLoop() throws IOException {
+    if (theirLoops == null) {
+      SelectorLoop[] loops = new SelectorLoop[theirNumThreads];
+      for (int i = 0; i < loops.length; i++) {
+        loops[i] = new SelectorLoop(i + 1);
+      }
+      theirLoops = loops;
+    }
+    SelectorLoop res = theirLoops[theirNextLoop];
+    theirNextLoop = (theirNextLoop + 1) % theirLoops.length;
+    return res;
+  }
+
+  /** Thread which services all of the connections registered with its selector. */
+  static class SelectorLoop implements Runnable {
+    /** The selector for our connections. */
+    private Selector itsSelector;
+
+    /** Tasks which must be run on this thread, such as registering channels or changing interest sets. */
+    private ConcurrentLinkedQueue<Runnable> itsTasks = new ConcurrentLinkedQueue<Runnable>();
+
+    /** Buffer for reading from channels. */
+    private ByteBuffer itsBuffer = ByteBuffer.allocateDirect(8192);
+
+    public SelectorLoop(int num) throws IOException {
+      itsSelector = Selector.open();
+      Thread t = new Thread(this, "DeviceIO " + num);
+      t.setDaemon(true);
+      t.start();
+    }
+
+    /** Run the task on the selector thread. */
+    public void invoke(Runnable task) {
+      itsTasks.add(task);
+      itsSelector.wakeup();
+    }
+
+    /** Register the connection with this selector. */
+    public void register(final DeviceConnection conn) {
+      invoke(new Runnable() {
+        public void run() {
+          try {
+            conn.setKey(conn.getChannel().register(itsSelector, SelectionKey.OP_READ, conn), SelectorLoop.this);
+          } catch (Exception e) {
+            theirLogger.warn("Error registering connection: " + e);
+            conn.closed();
+          }
+        }
+      });
+    }
+
+    public void run() {
+      while (true) {
+        try {
+          itsSelector.select();
+          Runnable task;
+          while ((task = itsTasks.poll()) != null) {
+            task.run();
+          }
+          Iterator<SelectionKey> keys = itsSelector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            DeviceConnection conn = (DeviceConnection) key.attachment();
+            if (!key.isValid()) {
+              conn.closed();
+              continue;
+            }
+            try {
+              if (key.isReadable()) {
+                read(key, conn);
+              }
+              if (key.isValid() && key.isWritable()) {
+                if (conn.writePending()) {
+                  key.interestOps(SelectionKey.OP_READ);
+                }
+              }
+            } catch (IOException e) {
+              theirLogger.debug("Error on connection " + conn + ": " + e);
+              key.cancel();
+              conn.closed();
+            }
+          }
+        } catch (Exception e) {
+          theirLogger.error("Unexpected error in selector loop: " + e);
+        }
+      }
+    }
+
+    /** Read all available data from the channel. */
+    private void read(SelectionKey key, DeviceConnection conn) throws IOException {
+      while (true) {
+        itsBuffer.clear();
+        int n = conn.getChannel().read(itsBuffer);
+        if (n < 0) {
+          // Remote end has closed the connection
+          key.cancel();
+          conn.closed();
+          return;
+        }
+        if (n == 0) {
+          return;
+        }
+        itsBuffer.flip();
+        conn.received(itsBuffer);
+      }
+    }
+  }
+}
@@ -9,11 +9,17 @@ package atnf.atoms.mon.externalsystem;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.lang.Integer;
 
 import atnf.atoms.time.*;
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.transaction.*;
+import atnf.atoms.mon.util.MonitorConfig;
 import atnf.atoms.util.EnumItem;
 
 import gov.aps.jca.*;
@@ -40,6 +46,15 @@ import org.apache.log4j.Logger;
  * severity and allows UNDefined values to be recognised. If you do not specify a DBRType then operations will be performed using
  * the channel's native type, at the STS level.
  * 
+ * <P>
+ * All of the gets for a collection cycle are issued asynchronously and flushed together. Each get times out independently after
+ * <tt>EPICSGetTimeout</tt> seconds, in which case the point is given a null-data update. Get and monitor callbacks do not update the
+ * points on the Channel Access callback thread, instead the new data is placed on a queue which is drained by
+ * <tt>EPICSWorkerThreads</tt> worker threads. If a PV updates again before its previous update has been processed the updates are
+ * coalesced so that only the latest value is processed. The queue holds at most <tt>EPICSQueueSize</tt> PVs, further updates are
+ * dropped while it is full. The queue depth and the numbers of coalesced and dropped updates are available from <tt>getQueueDepth</tt>,
+ * <tt>getNumCoalesced</tt> and <tt>getNumDropped</tt>.
+ * 
  * @author David Brodrick
  */
 public class EPICS extends ExternalSystem {
@@ -66,6 +81,59 @@ public class EPICS extends ExternalSystem {
    */
   protected HashMap<String, Vector<Object[]>> itsRequiresMonitor = new HashMap<String, Vector<Object[]>>();
 
+  /** Timeout for polled gets (ms). */
+  protected static long theirGetTimeout = 10000;
+
+  /** Number of threads which process updates. */
+  protected static int theirNumUpdateThreads = 4;
+
+  /** Listeners which have updates waiting to be processed. */
+  protected static LinkedBlockingQueue<EPICSListener> theirUpdateQueue;
+
+  /** Number of updates which were superseded before they could be processed. */
+  protected static AtomicLong theirNumCoalesced = new AtomicLong();
+
+  /** Number of updates which were dropped because the queue was full. */
+  protected static AtomicLong theirNumDropped = new AtomicLong();
+
+  /** Timer for checking that gets have completed. */
+  protected static ScheduledThreadPoolExecutor theirTimer;
+
+  static {
+    int queuesize = 10000;
+    try {
+      theirGetTimeout = (long) (1000 * Float.parseFloat(MonitorConfig.getProperty("EPICSGetTimeout", "" + theirGetTimeout / 1000)));
+      theirNumUpdateThreads = Integer.parseInt(MonitorConfig.getProperty("EPICSWorkerThreads", "" + theirNumUpdateThreads));
+      queuesize = Integer.parseInt(MonitorConfig.getProperty("EPICSQueueSize", "" + queuesize));
+    } catch (Exception e) {
+      theirLogger.warn("Error parsing EPICS configuration parameters, using defaults: " + e);
+    }
+    theirUpdateQueue = new LinkedBlockingQueue<EPICSListener>(queuesize);
+    ThreadFactory factory = new ThreadFactory() {
+      private int itsCount = 0;
+
+      public synchronized Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "EPICS Worker " + (++itsCount));
+        t.setDaemon(true);
+        return t;
+      }
+    };
+    for (int i = 0; i < theirNumUpdateThreads; i++) {
+      factory.newThread(new Runnable() {
+        public void run() {
+          while (true) {
+            try {
+              theirUpdateQueue.take().processUpdates();
+            } catch (Exception e) {
+              theirLogger.error("Error processing update: " + e);
+            }
+          }
+        }
+      }).start();
+    }
+    theirTimer = new ScheduledThreadPoolExecutor(1, factory);
+  }
+
   public EPICS(String[] args) {
     super("EPICS");
 
@@ -89,9 +157,11 @@ public class EPICS extends ExternalSystem {
 
   /**
    * Poll new values from EPICS. This first ensures the EPICS channel has been established and subsequently performs an asynchronous
-   * 'get' on the channel, providing the data to the MoniCA point when the 'get' callback is called.
+   * 'get' on the channel, providing the data to the MoniCA point when the 'get' callback is called. The gets for all points are
+   * flushed together and each times out independently.
    */
   protected void getData(PointDescription[] points) throws Exception {
+    final ArrayList<EPICSListener> issued = new ArrayList<EPICSListener>(points.length);
     // Process each requesting point in turn
     for (int i = 0; i < points.length; i++) {
       // Get the appropriate Transaction(s) and process each PV
@@ -125,24 +195,24 @@ public class EPICS extends ExternalSystem {
           if (thischan.getConnectionState() == Channel.ConnectionState.CONNECTED) {
             // Channel is connected, request data via a channel access 'get'
             try {
-              asynchCollecting(points[i]);
               DBRType type = thistrans.getType();
 
               // If the Transaction doesn't specify a particular DBRType, then
-              // do an initial CA get to determine the native type of the record,
-              // so that we can ensure all subsequent gets use an STS DBRType
+              // use the native type of the record to determine an STS DBRType
               // which ensures alarm and validity information is available.
               if (type == null) {
-                DBR tempdbr = thischan.get();
-                itsContext.flushIO();
-                type = DBRType.forName(tempdbr.getType().getName().replaceAll("DBR_", "DBR_STS_").replaceAll("_ENUM", "_STRING"));
+                type = DBRType.forName(thischan.getFieldType().getName().replaceAll("DBR_", "DBR_STS_").replaceAll("_ENUM", "_STRING"));
                 thistrans.setType(type);
               }
 
-              // Do the actual CA get operation
+              // Queue the actual CA get operation
+              asynchCollecting(points[i]);
+              listener.getIssued();
               thischan.get(type, 1, listener);
+              issued.add(listener);
             } catch (Exception e) {
               // Maybe the channel just became disconnected
+              listener.getFailed();
               points[i].firePointEvent(new PointEvent(this, new PointData(points[i].getFullName()), true));
               asynchReturn(points[i]);
             }
@@ -159,6 +229,32 @@ public class EPICS extends ExternalSystem {
     } catch (Exception e) {
       theirLogger.error("In getData method, while flushing IO: " + e);
     }
+
+    if (!issued.isEmpty()) {
+      // Check for any gets which don't complete in time
+      theirTimer.schedule(new Runnable() {
+        public void run() {
+          for (int i = 0; i < issued.size(); i++) {
+            issued.get(i).checkTimeout();
+          }
+        }
+      }, theirGetTimeout, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Return the number of PVs with updates waiting to be processed. */
+  public static int getQueueDepth() {
+    return theirUpdateQueue.size();
+  }
+
+  /** Return the total number of updates which were superseded before they could be processed. */
+  public static long getNumCoalesced() {
+    return theirNumCoalesced.get();
+  }
+
+  /** Return the total number of updates which were dropped because the queue was full. */
+  public static long getNumDropped() {
+    return theirNumDropped.get();
   }
 
   /** Send a value from MoniCA to EPICS. */
@@ -418,6 +514,18 @@ public class EPICS extends ExternalSystem {
     /** The MoniCA point instance. */
     PointDescription itsPoint = null;
 
+    /** Latest update which is waiting to be processed, or null. */
+    PointData itsPendingData = null;
+
+    /** Whether the point needs to be returned for rescheduling once the pending update has been processed. */
+    boolean itsPendingReturn = false;
+
+    /** Set while a worker is processing our updates. */
+    boolean itsProcessing = false;
+
+    /** Time (ms) at which the outstanding get was issued, or 0 if there is no get outstanding. */
+    long itsGetTime = 0;
+
     /** Create new instance to handle updates to the specified PV. */
     public EPICSListener(Channel chan, PointDescription point) {
       itsChannel = chan;
@@ -426,6 +534,96 @@ public class EPICS extends ExternalSystem {
       itsPointName = point.getFullName();
     }
 
+    /** Record that a get has been issued. */
+    synchronized void getIssued() {
+      itsGetTime = System.currentTimeMillis();
+    }
+
+    /** Record that a get could not be issued. */
+    synchronized void getFailed() {
+      itsGetTime = 0;
+    }
+
+    /** Clear the outstanding get, returning false if there was none. */
+    synchronized boolean getFinished() {
+      boolean res = (itsGetTime != 0);
+      itsGetTime = 0;
+      return res;
+    }
+
+    /** If the outstanding get has timed out then give the point a null-data update. */
+    void checkTimeout() {
+      synchronized (this) {
+        if (itsGetTime == 0 || System.currentTimeMillis() - itsGetTime < theirGetTimeout) {
+          return;
+        }
+        itsGetTime = 0;
+      }
+      theirLogger.debug("EPICSListener: Get timed out for PV " + itsPV);
+      queueUpdate(new PointData(itsPointName), true);
+    }
+
+    /**
+     * Queue the update for processing by a worker thread, coalescing it with any update which is already waiting.
+     * 
+     * @param pd
+     *          The new data for the point.
+     * @param returnpoint
+     *          True if the point needs to be returned for rescheduling once the update has been processed.
+     */
+    void queueUpdate(PointData pd, boolean returnpoint) {
+      boolean enqueue;
+      synchronized (this) {
+        if (itsPendingData != null) {
+          theirNumCoalesced.incrementAndGet();
+        }
+        enqueue = (itsPendingData == null && !itsProcessing);
+        itsPendingData = pd;
+        itsPendingReturn |= returnpoint;
+      }
+      if (enqueue && !theirUpdateQueue.offer(this)) {
+        // The queue is full so we have to discard the update
+        synchronized (this) {
+          itsPendingData = null;
+          returnpoint = itsPendingReturn;
+          itsPendingReturn = false;
+        }
+        if (theirNumDropped.incrementAndGet() % 1000 == 1) {
+          theirLogger.warn("EPICSListener: Update queue is full, dropping updates");
+        }
+        if (returnpoint) {
+          asynchReturn(itsPoint);
+        }
+      }
+    }
+
+    /** Process our pending updates, called by a worker thread. */
+    void processUpdates() {
+      while (true) {
+        PointData pd;
+        boolean returnpoint;
+        synchronized (this) {
+          pd = itsPendingData;
+          returnpoint = itsPendingReturn;
+          itsPendingData = null;
+          itsPendingReturn = false;
+          itsProcessing = (pd != null);
+          if (pd == null) {
+            return;
+          }
+        }
+        try {
+          itsPoint.firePointEvent(new PointEvent(this, pd, true));
+        } catch (Exception e) {
+          theirLogger.warn("EPICSListener: Processing update for " + itsPointName + ": " + e);
+        }
+        if (returnpoint) {
+          // Return the point for rescheduling
+          asynchReturn(itsPoint);
+        }
+      }
+    }
+
     /** Call back for 'monitor' updates. */
     public void monitorChanged(MonitorEvent ev) {
       if (!itsKeepRunning) {
@@ -440,11 +638,15 @@ public class EPICS extends ExternalSystem {
       } catch (Exception e) {
         theirLogger.warn("EPICSListener.monitorChanged: " + itsPV + ": " + e);
       }
-      itsPoint.firePointEvent(new PointEvent(this, pd, true));
+      queueUpdate(pd, false);
     }
 
     /** Call back for 'get' updates. */
     public void getCompleted(GetEvent ev) {
+      if (!getFinished()) {
+        // The get already timed out
+        return;
+      }
       PointData pd = new PointData(itsPointName);
       try {
         if (ev.getStatus() == CAStatus.NORMAL && ev.getDBR() != null) {
@@ -453,9 +655,7 @@ public class EPICS extends ExternalSystem {
       } catch (Exception e) {
         theirLogger.warn("EPICSListener.getCompleted: " + itsPV + ": " + e);
       }
-      itsPoint.firePointEvent(new PointEvent(this, pd, true));
-      // Return the point for rescheduling
-      asynchReturn(itsPoint);
+      queueUpdate(pd, true);
     }
 
     /** Call back for channel state changes. */
@@ -472,12 +672,10 @@ public class EPICS extends ExternalSystem {
       }
 
       if (!ev.isConnected()) {
-        // Connection just dropped out so fire null-data update
-        itsPoint.firePointEvent(new PointEvent(this, new PointData(itsPointName), true));
-        if (itsPoint.isCollecting()) {
-          // A get was in progress so need to return the point for rescheduling
-          asynchReturn(itsPoint);
-        }
+        // Connection just dropped out so fire null-data update. If a get was
+        // in progress we need to return the point for rescheduling.
+        getFinished();
+        queueUpdate(new PointData(itsPointName), itsPoint.isCollecting());
       }
     }
   };
@@ -10,6 +10,16 @@ package atnf.atoms.mon.externalsystem;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -29,53 +39,34 @@ import org.apache.log4j.Logger;
  * @author Le Cuong Nguyen
  */
 public class ExternalSystem implements Runnable {
+  /** Schedules the points which need to be collected in order of time of next collection. */
+  protected CollectionScheduler itsPoints = new CollectionScheduler();
+
+  /** The policy which determines when points are collected. */
+  protected SchedulingPolicy itsPolicy = new SchedulingPolicy();
+
   /**
-   * Comparator to compare PointDescriptions and/or AbsTimes. We need to use this Comparator with the SortedLinkedList class.
+   * States of the connection circuit breaker. CLOSED is normal operation, OPEN means the connection has failed and no attempt will
+   * be made to reconnect until the backoff period expires, HALF_OPEN means a trial reconnection is in progress.
    */
-  private class TimeComp implements Comparator {
-    /** Return a timestamp for any known class type. */
-    private long getTimeStamp(Object o) {
-      if (o instanceof PointDescription) {
-        return ((PointDescription) o).getNextEpoch();
-      } else if (o instanceof AbsTime) {
-        return ((AbsTime) o).getValue();
-      } else if (o == null) {
-        return 0;
-      } else {
-        System.err.println("ExternalSystem: TimeComp: compare: UNKNOWN TYPE (" + o.getClass() + ")");
-        return 0;
-      }
-    }
+  public static enum CircuitState {
+    CLOSED, OPEN, HALF_OPEN
+  };
 
-    /** Compare PointDescriptions and/or AbsTimes. */
-    public int compare(Object o1, Object o2) {
-      long val1 = getTimeStamp(o1);
-      long val2 = getTimeStamp(o2);
+  /** Current state of the connection circuit breaker. */
+  protected volatile CircuitState itsCircuitState = CircuitState.CLOSED;
 
-      if (val1 > val2) {
-        return 1;
-      }
-      if (val1 < val2) {
-        return -1;
-      }
-      return 0;
-    }
+  /** Time (ms) at which the circuit breaker entered its current state. */
+  private volatile long itsCircuitStateTime = System.currentTimeMillis();
 
-    /** Test if equivalent to the given Comparator. */
-    public boolean equals(Object o) {
-      if (o instanceof TimeComp) {
-        return true;
-      } else {
-        return false;
-      }
-    }
-  }
+  /** Number of consecutive connection or collection failures. */
+  private volatile int itsNumFailures = 0;
 
-  /**
-   * List of all the points which need to be collected. A SortedLinkedList is used to keep the list sorted in order of time of next
-   * collection.
-   */
-  protected SortedLinkedList itsPoints = new SortedLinkedList(new TimeComp());
+  /** Epoch at which the next reconnection attempt may be made. */
+  private long itsRetryEpoch = 0;
+
+  /** Time (ms) at which each point was last marked as stale while disconnected. */
+  private HashMap<PointDescription, Long> itsStaleTimes = new HashMap<PointDescription, Long>();
 
   /**
    * Points which are currently being collected asynchronously. We need to keep track of them so we do not schedule them for
@@ -99,22 +90,170 @@ public class ExternalSystem implements Runnable {
   protected long itsNumTransactions = 0;
 
   /** Flag to indicate if thread should continue running. */
-  protected boolean itsKeepRunning = true;
+  protected volatile boolean itsKeepRunning = true;
+
+  /** Records if collection has been started. */
+  private volatile boolean itsStarted = false;
+
+  /** Time taken (us) by the most recent collection cycle. */
+  protected volatile long itsLastCycleTime = 0;
+
+  /** Number of collection cycles performed. */
+  protected volatile long itsNumCycles = 0;
+
+  /** Records if a collection cycle is queued or running on the shared workers. */
+  private boolean itsCycleQueued = false;
+
+  /** Pending trigger for the next collection cycle, when using the shared workers. */
+  private ScheduledFuture<?> itsWakeFuture = null;
+
+  /** Time (ms) when the pending trigger will fire. */
+  private long itsWakeTime = 0;
+
+  /** Minimum delay (ms) before reconnecting after a failure. */
+  private static long theirRetryMin = 1000;
+
+  /** Maximum delay (ms) before reconnecting after repeated failures. */
+  private static long theirRetryMax = 60000;
+
+  /** Minimum interval (ms) between null-data updates for each point while disconnected. */
+  private static long theirStaleInterval = 60000;
+
+  /** For adding jitter to the reconnection delays. */
+  private static Random theirRandom = new Random();
+
+  /** Submits a collection cycle to the shared workers. */
+  private final Runnable itsCycleTrigger = new Runnable() {
+    public void run() {
+      synchronized (itsCycleTask) {
+        if (itsCycleQueued || !itsKeepRunning) {
+          return;
+        }
+        itsCycleQueued = true;
+        itsWakeFuture = null;
+      }
+      try {
+        theirWorkers.execute(itsCycleTask);
+      } catch (RejectedExecutionException e) {
+        synchronized (itsCycleTask) {
+          itsCycleQueued = false;
+        }
+      }
+    }
+  };
+
+  /** Performs one collection cycle on a shared worker and then arranges the next one. */
+  private final Runnable itsCycleTask = new Runnable() {
+    public void run() {
+      theirActiveWorkers.incrementAndGet();
+      try {
+        if (itsKeepRunning) {
+          collect();
+        }
+      } catch (Throwable t) {
+        theirLogger.error("(" + itsName + ") Unexpected exception in collection cycle: " + t);
+      } finally {
+        theirActiveWorkers.decrementAndGet();
+        synchronized (itsCycleTask) {
+          itsCycleQueued = false;
+        }
+        wakeUp();
+      }
+    }
+  };
+
+  /**
+   * Shared workers which perform collection cycles, or null if each ExternalSystem has its own thread. Configured by the
+   * <tt>CollectionThreads</tt> property, which may be 0 for a thread per system, the number of shared worker threads, or
+   * <tt>virtual</tt> to use a virtual thread for each cycle where the JVM supports them.
+   */
+  protected static ExecutorService theirWorkers = null;
+
+  /** Timer which submits collection cycles to the shared workers when points fall due. */
+  protected static ScheduledThreadPoolExecutor theirTimer = null;
+
+  /** Number of threads available for collection, either the size of the shared pool or the number of dedicated threads. */
+  protected static AtomicInteger theirNumWorkers = new AtomicInteger(0);
+
+  /** Number of collection cycles currently in progress. */
+  protected static AtomicInteger theirActiveWorkers = new AtomicInteger(0);
 
   /** Static map of all ExternalSystems. */
-  protected static HashMap<String, ExternalSystem> theirExternalSystems = new HashMap<String, ExternalSystem>();
+  protected static ConcurrentHashMap<String, ExternalSystem> theirExternalSystems = new ConcurrentHashMap<String, ExternalSystem>();
 
   /** Logger. */
   protected static Logger theirLogger = Logger.getLogger(ExternalSystem.class.getName());
 
+  static {
+    String mode = MonitorConfig.getProperty("CollectionThreads", "0").trim();
+    try {
+      if (mode.equalsIgnoreCase("virtual")) {
+        try {
+          theirWorkers = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+          theirLogger.info("Using virtual threads for data collection");
+        } catch (Exception e) {
+          theirLogger.warn("Virtual threads are not supported by this JVM, using a pool of 32 collection threads");
+          mode = "32";
+        }
+      }
+      if (theirWorkers == null) {
+        int numthreads = Integer.parseInt(mode);
+        if (numthreads > 0) {
+          theirWorkers = new ThreadPoolExecutor(numthreads, numthreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+              new CollectionThreadFactory("ExternalSystem Worker "));
+          ((ThreadPoolExecutor) theirWorkers).allowCoreThreadTimeOut(true);
+          theirNumWorkers.set(numthreads);
+        }
+      }
+    } catch (Exception e) {
+      theirLogger.error("Error parsing CollectionThreads property \"" + mode + "\", using a thread per ExternalSystem");
+    }
+    if (theirWorkers != null) {
+      theirTimer = new ScheduledThreadPoolExecutor(1, new CollectionThreadFactory("ExternalSystem Timer "));
+    }
+    try {
+      theirRetryMin = (long) (1000 * Float.parseFloat(MonitorConfig.getProperty("ReconnectDelayMin", "" + theirRetryMin / 1000)));
+      theirRetryMax = (long) (1000 * Float.parseFloat(MonitorConfig.getProperty("ReconnectDelayMax", "" + theirRetryMax / 1000)));
+      theirStaleInterval = (long) (1000 * Float.parseFloat(MonitorConfig.getProperty("StaleInterval", "" + theirStaleInterval / 1000)));
+    } catch (Exception e) {
+      theirLogger.error("Error parsing reconnection parameters, using defaults: " + e);
+    }
+  }
+
+  /** Creates named daemon threads for collection. */
+  private static class CollectionThreadFactory implements ThreadFactory {
+    private String itsPrefix;
+
+    private int itsCount = 0;
+
+    public CollectionThreadFactory(String prefix) {
+      itsPrefix = prefix;
+    }
+
+    public synchronized Thread newThread(Runnable r) {
+      Thread t = new Thread(r, itsPrefix + (++itsCount));
+      t.setDaemon(true);
+      return t;
+    }
+  }
+
   /** Add a ExternalSystem with the given unique channel description. */
   public static void addExternalSystem(String name, ExternalSystem source) {
-    theirExternalSystems.put(name, source);
+    if (name != null) {
+      theirExternalSystems.put(name, source);
+    }
+  }
+
+  /** Remove the ExternalSystem from the map, unless it has already been replaced by another with the same name. */
+  public static void removeExternalSystem(ExternalSystem source) {
+    if (source.itsName != null) {
+      theirExternalSystems.remove(source.itsName, source);
+    }
   }
 
   /** Get the ExternalSystem with the specified channel description. */
   public static ExternalSystem getExternalSystem(String name) {
-    return theirExternalSystems.get(name);
+    return name == null ? null : theirExternalSystems.get(name);
   }
 
   /** Get a structure containing all ExternalSystem instances. */
@@ -149,12 +288,18 @@ public class ExternalSystem implements Runnable {
     theirLogger.info("Stop request to all ExternalSystems now complete");
   }
 
-  /** Start the data collection thread. */
+  /** Start data collection, either on a dedicated thread or on the shared workers. */
   public synchronized void startCollection() {
     itsKeepRunning = true;
-    itsThread = new Thread(this, "ExternalSystem " + itsName);
-    itsThread.setDaemon(true);
-    itsThread.start();
+    itsStarted = true;
+    if (theirWorkers == null) {
+      itsThread = new Thread(this, "ExternalSystem " + itsName);
+      itsThread.setDaemon(true);
+      theirNumWorkers.incrementAndGet();
+      itsThread.start();
+    } else {
+      wakeUp();
+    }
   }
 
   /**
@@ -163,6 +308,152 @@ public class ExternalSystem implements Runnable {
    */
   public void stopCollection() {
     itsKeepRunning = false;
+    synchronized (itsCycleTask) {
+      if (itsWakeFuture != null) {
+        itsWakeFuture.cancel(false);
+        itsWakeFuture = null;
+      }
+    }
+    synchronized (itsPoints) {
+      itsPoints.notifyAll();
+    }
+  }
+
+  /**
+   * When using the shared workers, arrange for a collection cycle to be run when the next point falls due. Does nothing if a cycle
+   * is already queued or running, since it will call this again when it completes.
+   */
+  private void wakeUp() {
+    if (theirWorkers == null) {
+      return;
+    }
+    synchronized (itsCycleTask) {
+      if (!itsStarted || !itsKeepRunning || itsCycleQueued) {
+        return;
+      }
+      long next = getNextCycle();
+      if (next == -1) {
+        return;
+      }
+      long delay = Math.max(0, (next - AbsTime.factory().getValue()) / 1000);
+      long due = System.currentTimeMillis() + delay;
+      if (itsWakeFuture != null) {
+        if (itsWakeTime <= due) {
+          // Already due to wake up in time
+          return;
+        }
+        itsWakeFuture.cancel(false);
+      }
+      itsWakeTime = due;
+      itsWakeFuture = theirTimer.schedule(itsCycleTrigger, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Return the time at which the next collection cycle should run, or -1 if no points are scheduled. */
+  private long getNextCycle() {
+    return itsPolicy.getNextCycle(itsPoints.getNextEpoch());
+  }
+
+  /** Set the policy which determines when points are collected. */
+  public void setSchedulingPolicy(SchedulingPolicy policy) {
+    itsPolicy = policy;
+    wakeUp();
+  }
+
+  /** Return the policy which determines when points are collected. */
+  public SchedulingPolicy getSchedulingPolicy() {
+    return itsPolicy;
+  }
+
+  /** Describe the effective collection schedule, for diagnosis. */
+  public String getScheduleSummary() {
+    StringBuffer res = new StringBuffer();
+    res.append(itsName + ": " + itsPoints.size() + " points");
+    long next = itsPoints.getNextEpoch();
+    if (next != -1) {
+      res.append(", next due " + AbsTime.factory(next).toString(AbsTime.Format.UTC_STRING));
+    }
+    res.append(", last cycle " + itsLastCycleTime / 1000 + "ms, max lateness " + itsPoints.getMaxLateness() / 1000 + "ms");
+    res.append(", policy: " + itsPolicy);
+    return res.toString();
+  }
+
+  /** Return the current state of the connection circuit breaker. */
+  public CircuitState getCircuitState() {
+    return itsCircuitState;
+  }
+
+  /** Return the time (ms) since the circuit breaker entered its current state. */
+  public long getTimeInState() {
+    return System.currentTimeMillis() - itsCircuitStateTime;
+  }
+
+  /** Return the number of consecutive connection or collection failures. */
+  public int getNumFailures() {
+    return itsNumFailures;
+  }
+
+  /** Change the state of the connection circuit breaker. */
+  private void setCircuitState(CircuitState state) {
+    if (state != itsCircuitState) {
+      theirLogger.debug("(" + itsName + ") Connection state changed from " + itsCircuitState + " to " + state);
+      itsCircuitState = state;
+      itsCircuitStateTime = System.currentTimeMillis();
+    }
+  }
+
+  /** Record a failure to connect or collect, opening the circuit breaker until the backoff period expires. */
+  private void connectionFailed(long now) {
+    itsNumFailures++;
+    // Exponential backoff, with the actual delay chosen randomly from the upper half of the range
+    long delay = theirRetryMin;
+    for (int i = 1; i < itsNumFailures && delay < theirRetryMax; i++) {
+      delay *= 2;
+    }
+    delay = Math.min(delay, theirRetryMax);
+    synchronized (theirRandom) {
+      delay = delay / 2 + (long) (theirRandom.nextDouble() * (delay - delay / 2));
+    }
+    itsRetryEpoch = now + 1000 * delay;
+    if (itsCircuitState == CircuitState.CLOSED) {
+      theirLogger.warn("(" + itsName + ") Connection failed, will retry in " + delay + "ms");
+    }
+    setCircuitState(CircuitState.OPEN);
+  }
+
+  /** Record a successful collection cycle, closing the circuit breaker. */
+  private void connectionSucceeded() {
+    if (itsCircuitState != CircuitState.CLOSED) {
+      theirLogger.info("(" + itsName + ") Connection restored after " + itsNumFailures + " failures");
+      itsStaleTimes.clear();
+    }
+    itsNumFailures = 0;
+    setCircuitState(CircuitState.CLOSED);
+  }
+
+  /** Return the number of threads available for data collection. */
+  public static int getNumWorkers() {
+    return theirNumWorkers.get();
+  }
+
+  /** Return the number of collection cycles currently in progress. */
+  public static int getActiveWorkers() {
+    return theirActiveWorkers.get();
+  }
+
+  /** Return the number of collection threads which are not currently performing a collection cycle. */
+  public static int getIdleWorkers() {
+    return Math.max(0, theirNumWorkers.get() - theirActiveWorkers.get());
+  }
+
+  /** Return the time (us) taken by the most recent collection cycle. */
+  public long getLastCycleTime() {
+    return itsLastCycleTime;
+  }
+
+  /** Return the number of collection cycles which have been performed. */
+  public long getNumCycles() {
+    return itsNumCycles;
   }
 
   /**
@@ -199,9 +490,7 @@ public class ExternalSystem implements Runnable {
 
   /** Get the number of points allocated to this ExternalSystem. */
   public int getNumPoints() {
-    synchronized (itsPoints) {
-      return itsPoints.size();
-    }
+    return itsPoints.size();
   }
 
   /**
@@ -211,10 +500,9 @@ public class ExternalSystem implements Runnable {
    *          The point to start monitoring.
    */
   public void addPoint(PointDescription p) {
-    synchronized (itsPoints) {
-      itsPoints.add(p);
-      itsPoints.notifyAll();
-    }
+    applyPolicy(p, AbsTime.factory().getValue());
+    itsPoints.schedule(p);
+    wakeUp();
   }
 
   /**
@@ -224,12 +512,14 @@ public class ExternalSystem implements Runnable {
    *          The points to start monitoring.
    */
   public void addPoints(Object[] v) {
-    synchronized (itsPoints) {
-      for (int i = 0; i < v.length; i++) {
-        itsPoints.add(v[i]);
-      }
-      itsPoints.notifyAll();
+    PointDescription[] points = new PointDescription[v.length];
+    long now = AbsTime.factory().getValue();
+    for (int i = 0; i < v.length; i++) {
+      points[i] = (PointDescription) v[i];
+      applyPolicy(points[i], now);
     }
+    itsPoints.scheduleAll(points);
+    wakeUp();
   }
 
   /**
@@ -249,12 +539,22 @@ public class ExternalSystem implements Runnable {
    *          The point to stop monitoring.
    */
   public void removePoint(PointDescription p) {
-    synchronized (itsPoints) {
-      itsPoints.remove(p);
-      itsPoints.notifyAll();
+    itsPoints.remove(p);
+    itsAsyncPoints.remove(p);
+  }
+
+  /** Adjust the point's next collection time according to the scheduling policy. */
+  private void applyPolicy(PointDescription p, long now) {
+    if (p != null) {
+      p.setNextEpoch(itsPolicy.getEpoch(p, p.getNextEpoch(), now));
     }
   }
 
+  /** Return the scheduler for the points collected by this ExternalSystem. */
+  public CollectionScheduler getScheduler() {
+    return itsPoints;
+  }
+
   /**
    * Flag that a polled point is being collected asynchronously and we must await the callback before rescheduling.
    * 
@@ -274,8 +574,9 @@ public class ExternalSystem implements Runnable {
    */
   protected void asynchReturn(PointDescription point) {
     point.isCollecting(false);
-    addPoint(point);
-    itsThread.interrupt();
+    if (!point.isRemoved()) {
+      addPoint(point);
+    }
   }
 
   /** Return any Transactions which are associated with this ExternalSystem. */
@@ -326,28 +627,7 @@ public class ExternalSystem implements Runnable {
       if (lines != null) {
         for (int i = 0; i < lines.length; i++) {
           try {
-            theirLogger.debug("Creating ExternalSystem from definition \"" + lines[i] + "\"");
-            StringTokenizer tok = new StringTokenizer(lines[i]);
-            String className = tok.nextToken();
-            String[] classArgs = null;
-            if (tok.countTokens() > 0) {
-              // Split the arguments into an array at each colon
-              classArgs = tok.nextToken().split(":");
-            }
-            Class<?> newes;
-            try {
-              // Might be fully qualified name
-              newes = Class.forName(className);
-            } catch (Exception e) {
-              // Not fully qualified - so try default package
-              newes = Class.forName("atnf.atoms.mon.externalsystem." + className);
-            }
-            Constructor<?> con = newes.getConstructor(new Class[] { String[].class });
-            try {
-              con.newInstance(new Object[] { classArgs });
-            } catch (InvocationTargetException ite) {
-              ite.getCause().printStackTrace();
-            }
+            create(lines[i]);
           } catch (Exception f) {
             theirLogger.error("Cannot Initialise \"" + lines[i] + "\" defined on line " + (i + 1) + ": " + f);
           }
@@ -359,92 +639,175 @@ public class ExternalSystem implements Runnable {
     }
   }
 
-  /** Main loop for the point scheduling/collection thread. */
-  public void run() {
-    while (itsKeepRunning) {
-      // /If we're not connected, try to reconnect
-      if (!itsConnected) {
-        try {
-          connect();
-        } catch (Exception e) {
-          itsConnected = false;
-        }
+  /**
+   * Create an ExternalSystem from a line of the external systems definitions. The new ExternalSystem adds itself to the map of
+   * all ExternalSystems but its collection is not started.
+   *
+   * @return The new ExternalSystem, or null if the class was not an ExternalSystem.
+   * @throws Exception
+   *           If the ExternalSystem could not be created.
+   */
+  public static ExternalSystem create(String line) throws Exception {
+    theirLogger.debug("Creating ExternalSystem from definition \"" + line + "\"");
+    StringTokenizer tok = new StringTokenizer(line);
+    String className = tok.nextToken();
+    String[] classArgs = null;
+    String schedule = null;
+    while (tok.hasMoreTokens()) {
+      String arg = tok.nextToken();
+      if (arg.startsWith("schedule=")) {
+        // Options for the scheduling policy
+        schedule = arg.substring(9);
+      } else if (classArgs == null) {
+        // Split the arguments into an array at each colon
+        classArgs = arg.split(":");
       }
+    }
+    Class<?> newes;
+    try {
+      // Might be fully qualified name
+      newes = Class.forName(className);
+    } catch (Exception e) {
+      // Not fully qualified - so try default package
+      newes = Class.forName("atnf.atoms.mon.externalsystem." + className);
+    }
+    Constructor<?> con = newes.getConstructor(new Class[] { String[].class });
+    Object es;
+    try {
+      es = con.newInstance(new Object[] { classArgs });
+    } catch (InvocationTargetException ite) {
+      ite.getCause().printStackTrace();
+      throw new Exception(ite.getCause().toString());
+    }
+    if (!(es instanceof ExternalSystem)) {
+      return null;
+    }
+    ExternalSystem thises = (ExternalSystem) es;
+    if (schedule != null) {
+      thises.setSchedulingPolicy(new SchedulingPolicy(schedule));
+    }
+    return thises;
+  }
 
-      // We're connected, need to determine which points need collecting
-      Vector<PointDescription> thesepoints = null;
-      synchronized (itsPoints) {
-        try {
-          // Wait for notification if there are no points
-          while (itsPoints.isEmpty()) {
+  /** Main loop for the dedicated collection thread, used when the shared workers are not enabled. */
+  public void run() {
+    while (itsKeepRunning) {
+      try {
+        // Wait for notification if there are no points
+        synchronized (itsPoints) {
+          while (itsPoints.isEmpty() && itsKeepRunning) {
             itsPoints.wait();
           }
-        } catch (Exception e) {
-          continue;
         }
+      } catch (InterruptedException e) {
+        continue;
+      }
 
-        // Calculate the latest epoch we're prepared to collect now
-        AbsTime cutoff = AbsTime.factory();
-        cutoff.add(50000); // Fudge factor for better efficiency
-
-        // Get the set of all points within the time bracket
-        thesepoints = itsPoints.headSet(cutoff);
+      theirActiveWorkers.incrementAndGet();
+      try {
+        collect();
+      } finally {
+        theirActiveWorkers.decrementAndGet();
       }
 
-      if (!thesepoints.isEmpty()) {
-        PointDescription[] parray = new PointDescription[thesepoints.size()];
-        for (int i = 0; i < thesepoints.size(); i++) {
-          parray[i] = thesepoints.get(i);
-        }
-        if (itsConnected) {
-          try {
-            // Call the sub-class specific method to do the real work
-            getData(parray);
-          } catch (Exception e) {
-            // e.printStackTrace();
-            theirLogger.error("(" + itsName + ") " + e);
-            itsConnected = false;
-          }
-        } else {
-          // Points are scheduled for collection but we're not connected.
-          // Fire null-data events for those points since old data is stale
-          for (int i = 0; i < parray.length; i++) {
-            PointDescription pm = (PointDescription) parray[i];
-            pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
-          }
-          // Throw in a brief sleep to stop fast reconnection loops
-          try {
-            final RelTime connectdelay = RelTime.factory(1000000);
-            connectdelay.sleep();
-          } catch (Exception e) {
-            e.printStackTrace();
-          }
-        }
-        // Insert the points back into our list
+      // We may need to wait before we collect the next point. Any change to the schedule, such as an asynchronous point being
+      // rescheduled, will wake us up.
+      try {
         synchronized (itsPoints) {
-          for (int i = 0; i < parray.length; i++) {
-            // We can only reschedule points which aren't being collected asynchronously
-            if (!itsAsyncPoints.remove(parray[i])) {
-              addPoint(parray[i]);
+          long nextepoch = getNextCycle();
+          if (nextepoch != -1) {
+            long waittime = (nextepoch - AbsTime.factory().getValue() + 999) / 1000;
+            if (waittime > 0) {
+              itsPoints.wait(waittime);
             }
           }
         }
+      } catch (InterruptedException e) {
+      }
+    }
+    theirNumWorkers.decrementAndGet();
+  }
+
+  /**
+   * Perform one collection cycle: reconnect if required, collect all of the points which are due and then reschedule them. The
+   * caller guarantees that cycles for the same ExternalSystem never run concurrently.
+   */
+  protected void collect() {
+    // If we're not connected, try to reconnect unless we are backing off after a failure
+    long now = AbsTime.factory().getValue();
+    if (!itsConnected && now >= itsRetryEpoch) {
+      if (itsCircuitState == CircuitState.OPEN) {
+        setCircuitState(CircuitState.HALF_OPEN);
       }
+      try {
+        connect();
+      } catch (Exception e) {
+        itsConnected = false;
+      }
+      if (!itsConnected) {
+        connectionFailed(now);
+      }
+    }
 
-      // We may need to wait before we collect the next point.
+    // Get all points due before the cutoff, with a batching window for better efficiency, subject to any rate limit
+    SchedulingPolicy policy = itsPolicy;
+    int allowance = policy.getAllowance(now);
+    if (allowance <= 0) {
+      return;
+    }
+    PointDescription[] parray = itsPoints.takeDue(now + policy.getBatchWindow(), allowance);
+    if (parray.length == 0) {
+      return;
+    }
+    long next = itsPoints.getNextEpoch();
+    policy.consumed(parray.length, parray.length == allowance && next != -1 && next < now + policy.getBatchWindow());
+
+    long start = System.nanoTime();
+    if (itsConnected) {
       try {
-        PointDescription headpoint = (PointDescription) itsPoints.first();
-        if (headpoint != null) {
-          AbsTime nextTime = headpoint.getNextEpoch_AbsTime();
-          AbsTime timenow = AbsTime.factory();
-          if (nextTime.isAfter(timenow)) {
-            RelTime waittime = Time.diff(nextTime, timenow);
-            waittime.sleep();
-          }
-        }
+        // Call the sub-class specific method to do the real work
+        getData(parray);
       } catch (Exception e) {
-        // Sleep was interrupted because asych point needs rescheduling
+        // e.printStackTrace();
+        theirLogger.error("(" + itsName + ") " + e);
+        itsConnected = false;
+      }
+      if (itsConnected) {
+        connectionSucceeded();
+      } else {
+        connectionFailed(AbsTime.factory().getValue());
+      }
+    } else {
+      // Points are scheduled for collection but we're not connected. Fire null-data events for those points since old data is
+      // stale, but only occasionally so that a dead device doesn't flood the processing chain with null updates.
+      long nowms = System.currentTimeMillis();
+      for (int i = 0; i < parray.length; i++) {
+        PointDescription pm = (PointDescription) parray[i];
+        Long last = itsStaleTimes.get(pm);
+        if (last == null || nowms - last.longValue() >= theirStaleInterval) {
+          itsStaleTimes.put(pm, new Long(nowms));
+          pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
+        }
+        // Don't collect the point again until we may be able to reconnect
+        pm.setNextEpoch(Math.max(now + Math.max(pm.getPeriod(), 0), itsRetryEpoch));
+      }
+    }
+    itsLastCycleTime = (System.nanoTime() - start) / 1000;
+    itsNumCycles++;
+    if (policy.cycleCompleted(parray.length, itsLastCycleTime, !itsConnected)) {
+      theirLogger.info("(" + itsName + ") Collection slowdown is now " + policy.getSlowdown() + ": " + policy);
+    }
+
+    // Insert the points back into our schedule
+    now = AbsTime.factory().getValue();
+    for (int i = 0; i < parray.length; i++) {
+      // We can only reschedule points which aren't being collected asynchronously, or which were removed during the cycle
+      if (itsAsyncPoints.remove(parray[i]) || parray[i].isRemoved()) {
+        parray[i] = null;
+      } else {
+        applyPolicy(parray[i], now);
       }
     }
+    itsPoints.scheduleAll(parray);
   }
 }
@@ -50,8 +50,8 @@ public class JSONSocket extends TCPSocket {
   public boolean connect() throws Exception {
     try {
       super.connect();
-      itsWriter = new BufferedWriter(new OutputStreamWriter(itsSocket.getOutputStream()));
-      itsReader = new BufferedReader(new InputStreamReader(itsSocket.getInputStream()));
+      itsWriter = new BufferedWriter(new OutputStreamWriter(itsConnection.getOutputStream()));
+      itsReader = new BufferedReader(new InputStreamReader(itsConnection.getInputStream()));
       Logger logger = Logger.getLogger(this.getClass().getName());
       logger.info("Connected to " + itsHostName + ":" + itsPort);
     } catch (Exception e) {
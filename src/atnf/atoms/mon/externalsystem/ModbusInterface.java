@@ -5,6 +5,7 @@ import java.util.*;
 import java.text.*;
 
 import net.wimpi.modbus.ModbusIOException;
+import net.wimpi.modbus.ModbusSlaveException;
 import net.wimpi.modbus.msg.*;
 import net.wimpi.modbus.io.*;
 import net.wimpi.modbus.net.*;
@@ -23,7 +24,12 @@ import org.apache.log4j.*;
  * 
  * <P>
  * The constructor requires <i>hostname:port ModbusID ModbusFunction StartAddress</i> arguments. A timeout (ms) argument may
- * optionally be specified.
+ * optionally be specified, followed by the maximum number of unused addresses between points which may be read as part of a
+ * single request (default 4, use 0 to only merge contiguous points).
+ * 
+ * <P>
+ * Points which are due at the same time are read together: points with the same unit ID and function code are merged into as few
+ * requests as the Modbus limits of 125 registers or 2000 bits per request allow.
  * 
  * <P>
  * NB: If control points are being used, at least one polling point should be defined as this will ensure the socket is reconnected
@@ -56,6 +62,18 @@ public class ModbusInterface extends ExternalSystem {
 
   private boolean itsDebug = false;
 
+  /** Max number of unused addresses between points which may be spanned by a single read. */
+  private int itsMaxGap = 4;
+
+  /**
+   * Points which must be read individually because a merged read including them failed, mapped to the time (ms) until which they
+   * are read individually. Points whose merged read was rejected by the slave are never merged again.
+   */
+  private Map<PointDescription, Long> itsNoMerge = Collections.synchronizedMap(new HashMap<PointDescription, Long>());
+
+  /** Time (ms) to read points individually after a merged read including them got no response. */
+  private static final long NOMERGETIME = 600000;
+
   public ModbusInterface(String[] args) {
     super(args[0] + ":" + args[1]);
     itsHost = args[0];
@@ -63,6 +81,9 @@ public class ModbusInterface extends ExternalSystem {
     if (args.length > 2) {
       itsTimeout = Integer.parseInt(args[2]);
     }
+    if (args.length > 3) {
+      itsMaxGap = Integer.parseInt(args[3]);
+    }
   }
 
   /**
@@ -355,6 +376,48 @@ public class ModbusInterface extends ExternalSystem {
     return (WriteMultipleRegistersResponse) trans.getResponse();
   }
 
+  /** A point to be read, as parsed from its input transaction. */
+  private static class ReadRequest {
+    public PointDescription point;
+    public int uid;
+    public int fcode;
+    public int start;
+    public int count;
+    public boolean useArray;
+  }
+
+  /** Orders requests by unit ID, function code and then address. */
+  private static final Comparator<ReadRequest> theirRequestOrder = new Comparator<ReadRequest>() {
+    public int compare(ReadRequest a, ReadRequest b) {
+      if (a.uid != b.uid) {
+        return a.uid < b.uid ? -1 : 1;
+      }
+      if (a.fcode != b.fcode) {
+        return a.fcode < b.fcode ? -1 : 1;
+      }
+      if (a.start != b.start) {
+        return a.start < b.start ? -1 : 1;
+      }
+      return 0;
+    }
+  };
+
+  /** Return the most registers/bits which may be read in a single request with the given function code. */
+  private static int getMaxCount(int fcode) {
+    if (fcode == 1 || fcode == 2) {
+      return 2000;
+    } else {
+      return 125;
+    }
+  }
+
+  /**
+   * Collect the points. Rather than issuing a request for each point, the points are grouped by unit ID and function code and
+   * adjacent address ranges are merged into as few requests as possible, subject to the Modbus limit on the number of registers
+   * per request. Unused addresses of up to <i>itsMaxGap</i> between points may be included in a request. If a merged request
+   * fails, the points are read individually. If the slave rejected the request, for instance because it spanned an illegal data
+   * address, the points are not merged again, otherwise merging is retried after a while.
+   */
   public void getData(PointDescription[] points) throws Exception {
     // Precondition
     if (points == null || points.length == 0)
@@ -362,9 +425,8 @@ public class ModbusInterface extends ExternalSystem {
 
     // theirLogger.info("(" + itsHost + ":" + itsPort + "): Monitoring = " + points.length);
 
-    int numberToRead = 1;
-    boolean useArray = false;
-
+    // Parse the requests for all points
+    ArrayList<ReadRequest> requests = new ArrayList<ReadRequest>(points.length);
     for (int i = 0; i < points.length; i++) {
       PointDescription pm = points[i];
       TransactionStrings tds = (TransactionStrings) getMyTransactions(pm.getInputTransactions()).get(0);
@@ -374,99 +436,172 @@ public class ModbusInterface extends ExternalSystem {
         theirLogger.error("Modbus.getData requires either 3 or 4 arguments");
         throw new IllegalArgumentException("Modbus.getData: requires 3 or 4 arguments");
       }
+      ReadRequest req = new ReadRequest();
+      req.point = pm;
+      req.uid = Integer.parseInt(tds.getString(0));
+      req.fcode = Integer.parseInt(tds.getString(1));
+      req.start = Integer.parseInt(tds.getString(2));
+      req.count = 1;
       if (tds.getNumStrings() == 4) {
-        numberToRead = Integer.parseInt(tds.getString(3));
-        useArray = true;
+        req.count = Integer.parseInt(tds.getString(3));
+        req.useArray = true;
+      }
+      if (req.fcode < 1 || req.fcode > 4) {
+        theirLogger.warn("Modbus.getData: Unknown Modbus monitor function code: " + req.fcode);
+        pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), null), true));
+        continue;
+      }
+      requests.add(req);
+    }
+    Collections.sort(requests, theirRequestOrder);
+
+    // Merge the requests into blocks and read each block
+    int first = 0;
+    while (first < requests.size()) {
+      ReadRequest head = requests.get(first);
+      int blockend = head.start + head.count;
+      int last = first + 1;
+      if (!isNoMerge(head.point)) {
+        while (last < requests.size()) {
+          ReadRequest next = requests.get(last);
+          if (next.uid != head.uid || next.fcode != head.fcode || isNoMerge(next.point) || next.start > blockend + itsMaxGap
+              || Math.max(blockend, next.start + next.count) - head.start > getMaxCount(head.fcode)) {
+            break;
+          }
+          blockend = Math.max(blockend, next.start + next.count);
+          last++;
+        }
       }
-      int UnitID = Integer.parseInt(tds.getString(0));
-      int FCode = Integer.parseInt(tds.getString(1));
-      int StartAddress = Integer.parseInt(tds.getString(2));
 
       try {
-        switch (FCode) {
-        case 1:
-          // Read Coils
-          ReadCoilsResponse rc_response = readCoils(UnitID, StartAddress, numberToRead);
-          if (rc_response != null) {
-            if (!useArray) {
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), new Boolean(rc_response.getCoilStatus(0))), true));
-            } else {
-              Boolean[] rc_Array = new Boolean[numberToRead];
-              for (int j = 0; j < (numberToRead); j++)
-                rc_Array[j] = new Boolean(rc_response.getCoilStatus(j));
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), rc_Array), true));
-            }
-          } else {
-            // No response
-            pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
+        ModbusResponse resp = readBlock(head.uid, head.fcode, head.start, blockend - head.start);
+        if ((resp == null || resp instanceof ExceptionResponse) && last - first > 1) {
+          // Merged read failed. If the slave rejected it, perhaps because it spanned invalid addresses, read the points individually
+          // from now on, otherwise the failure may be transient so only do so for a while
+          boolean rejected = resp instanceof ExceptionResponse;
+          theirLogger.debug("(" + itsHost + ":" + itsPort + "): Merged read of " + (last - first) + " points from " + head.uid + ":"
+              + head.fcode + ":" + head.start + " failed, will read them individually" + (rejected ? "" : " for a while"));
+          Long until = Long.valueOf(rejected ? Long.MAX_VALUE : System.currentTimeMillis() + NOMERGETIME);
+          for (int i = first; i < last; i++) {
+            itsNoMerge.put(requests.get(i).point, until);
           }
-          break;
-        case 2:
-          // Read Discrete Inputs
-          ReadInputDiscretesResponse di_response = readDiscreteInputs(UnitID, StartAddress, numberToRead);
-          if (di_response != null) {
-            if (!useArray) {
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), new Boolean(di_response.getDiscreteStatus(0))), true));
-            } else {
-              Boolean[] di_Array = new Boolean[numberToRead];
-              for (int j = 0; j < (numberToRead); j++)
-                di_Array[j] = new Boolean(di_response.getDiscreteStatus(j));
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), di_Array), true));
-            }
-          } else {
-            // No response
-            pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
+          for (int i = first; i < last; i++) {
+            ReadRequest req = requests.get(i);
+            firePoint(req, readBlock(req.uid, req.fcode, req.start, req.count), req.start);
           }
-          break;
-        case 3:
-          // Read Holding Registers (jamod library terminology uses multiple instead of holding)
-          ReadMultipleRegistersResponse rhr_response = readHoldingRegisters(UnitID, StartAddress, numberToRead);
-          if (rhr_response != null) {
-            if (!useArray) {
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), new Integer(rhr_response.getRegisterValue(0))), true));
-            } else {
-              Integer[] rhr_Array = new Integer[numberToRead];
-              for (int j = 0; j < (numberToRead); j++)
-                rhr_Array[j] = new Integer(rhr_response.getRegisterValue(j));
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), rhr_Array), true));
-            }
-          } else {
-            // No response
-            pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
-          }
-          break;
-        case 4:
-          // Read Input Registers
-          ReadInputRegistersResponse rir_response = readInputRegisters(UnitID, StartAddress, numberToRead);
-          if (rir_response != null) {
-            if (!useArray) {
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), new Integer(rir_response.getRegisterValue(0))), true));
-            } else {
-              Integer[] rir_Array = new Integer[numberToRead];
-              for (int j = 0; j < (numberToRead); j++)
-                rir_Array[j] = new Integer(rir_response.getRegisterValue(j));
-              pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), rir_Array), true));
-            }
-          } else {
-            // No response
-            pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
+        } else {
+          for (int i = first; i < last; i++) {
+            firePoint(requests.get(i), resp, head.start);
           }
-          break;
-        default:
-          theirLogger.warn("Modbus.getData: Unknown Modbus monitor function code: " + FCode);
-          pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), null), true));
-          break;
         }
       } catch (Exception f) {
-        theirLogger.error("(" + itsHost + ":" + itsPort + "): getData for point " + pm.getFullName() + ": " + f);
+        theirLogger.error("(" + itsHost + ":" + itsPort + "): getData for point " + head.point.getFullName() + ": " + f);
         disconnect();
         return;
       }
-
+      first = last;
     }
+
     // Increment the transaction counter for this ExternalSystem
     itsNumTransactions++;
+  }
 
+  /** Check if the point currently needs to be read individually. */
+  private boolean isNoMerge(PointDescription point) {
+    Long until = itsNoMerge.get(point);
+    if (until == null) {
+      return false;
+    }
+    if (until.longValue() <= System.currentTimeMillis()) {
+      itsNoMerge.remove(point);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Read the block of registers or bits with the given function code.
+   * 
+   * @return The response, an ExceptionResponse if the slave rejected the request, or null if no valid response was received.
+   */
+  private synchronized ModbusResponse readBlock(int uid, int fcode, int ref, int count) throws Exception {
+    ModbusRequest req;
+    switch (fcode) {
+    case 1:
+      req = new ReadCoilsRequest(ref, count);
+      break;
+    case 2:
+      req = new ReadInputDiscretesRequest(ref, count);
+      break;
+    case 3:
+      // Read Holding Registers (jamod library terminology uses multiple instead of holding)
+      req = new ReadMultipleRegistersRequest(ref, count);
+      break;
+    default:
+      req = new ReadInputRegistersRequest(ref, count);
+      break;
+    }
+    req.setUnitID(uid);
+
+    // Print the request for debugging
+    if (itsDebug)
+      System.out.println("\tRequest: " + req.getHexMessage());
+
+    // Prepare and execute the transaction
+    ModbusTCPTransaction trans = createTransaction(req);
+    try {
+      trans.execute();
+    } catch (ModbusIOException e) {
+      if (e.isEOF() || !itsConnection.isConnected()) {
+        throw e;
+      }
+      return null;
+    } catch (ModbusSlaveException e) {
+      theirLogger.warn(itsHost + ":" + itsPort + ": read function " + fcode + " " + uid + ":" + ref + "+" + count + ": " + e);
+      return new ExceptionResponse(fcode, e.getType());
+    } catch (Exception e) {
+      theirLogger.warn(itsHost + ":" + itsPort + ": read function " + fcode + " " + uid + ":" + ref + "+" + count + ": " + e);
+      return null;
+    }
+    return trans.getResponse();
+  }
+
+  /** Extract the point's value from the response to a read which started at the given address and fire an update. */
+  private void firePoint(ReadRequest req, ModbusResponse resp, int blockstart) {
+    PointDescription pm = req.point;
+    if (resp == null || resp instanceof ExceptionResponse) {
+      // No valid response
+      pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
+      return;
+    }
+    int offset = req.start - blockstart;
+    Object[] values;
+    if (req.fcode == 1 || req.fcode == 2) {
+      values = new Boolean[req.count];
+    } else {
+      values = new Integer[req.count];
+    }
+    for (int j = 0; j < req.count; j++) {
+      switch (req.fcode) {
+      case 1:
+        values[j] = new Boolean(((ReadCoilsResponse) resp).getCoilStatus(offset + j));
+        break;
+      case 2:
+        values[j] = new Boolean(((ReadInputDiscretesResponse) resp).getDiscreteStatus(offset + j));
+        break;
+      case 3:
+        values[j] = new Integer(((ReadMultipleRegistersResponse) resp).getRegisterValue(offset + j));
+        break;
+      default:
+        values[j] = new Integer(((ReadInputRegistersResponse) resp).getRegisterValue(offset + j));
+        break;
+      }
+    }
+    if (req.useArray) {
+      pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), values), true));
+    } else {
+      pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName(), values[0]), true));
+    }
   }
 
   /**
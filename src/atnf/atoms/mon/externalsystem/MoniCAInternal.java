@@ -8,11 +8,21 @@
 
 package atnf.atoms.mon.externalsystem;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Vector;
+
 import atnf.atoms.time.AbsTime;
 import atnf.atoms.time.DUTC;
 import atnf.atoms.time.Time;
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.transaction.*;
+import atnf.atoms.mon.archivepolicy.ArchivePolicyEvaluator;
+import atnf.atoms.mon.comms.MoniCAServerASCII;
+import atnf.atoms.mon.notification.NotificationDispatcher;
+import atnf.atoms.mon.util.CommandExecutor;
 
 /**
  * Used to return data about the MoniCA server.
@@ -26,6 +36,43 @@ import atnf.atoms.mon.transaction.*;
  * <li><b>points</b> Return the current number of points defined on the server.
  * <li><b>systems</b> Return the current number of external systems defined on the system.
  * <li><b>uptime</b> The elapsed time since the server was started.
+ * <li><b>asciiclients</b> The number of clients connected to the ASCII server.
+ * <li><b>asciirate</b> Commands per second serviced by the ASCII server since the point was last updated.
+ * <li><b>asciilatency</b> Mean time in milliseconds taken to service ASCII commands since the point was last updated.
+ * <li><b>lateness</b> The maximum time in milliseconds by which point collections have lagged their schedule since the point was
+ * last updated. An optional third argument gives the name of the ExternalSystem, otherwise all systems are included. Reading this
+ * resets the scheduling statistics of the systems concerned.
+ * <li><b>activeworkers</b> The number of ExternalSystem collection cycles currently in progress.
+ * <li><b>idleworkers</b> The number of collection threads which are currently idle.
+ * <li><b>cycletime</b> The time in milliseconds taken by the most recent collection cycle. An optional third argument gives the
+ * name of the ExternalSystem, otherwise the longest time of any system is returned.
+ * <li><b>schedule</b> A description of the effective collection schedule and scheduling policy. An optional third argument gives the
+ * name of the ExternalSystem, otherwise all systems are described.
+ * <li><b>connstate</b> The state of the connection circuit breaker of the ExternalSystem named by the third argument, either
+ * CLOSED (normal), OPEN (backing off after a failure) or HALF_OPEN (trying to reconnect). Without the third argument, the number of
+ * systems whose circuit breaker is not CLOSED.
+ * <li><b>connfailures</b> The number of consecutive connection or collection failures of the ExternalSystem named by the third
+ * argument, or the highest number of any system.
+ * <li><b>connstatetime</b> The time in seconds since the circuit breaker of the ExternalSystem named by the third argument entered
+ * its current state.
+ * <li><b>epicsqueue</b> The number of EPICS PVs with updates waiting to be processed.
+ * <li><b>epicscoalesced</b> The total number of EPICS updates which were superseded before they could be processed.
+ * <li><b>epicsdropped</b> The total number of EPICS updates which were dropped because the update queue was full.
+ * <li><b>notifypending</b> The number of notification emails waiting to be sent.
+ * <li><b>notifysent</b> The total number of notification emails sent, including those combined into digests.
+ * <li><b>notifyfailed</b> The total number of notification emails which could not be sent.
+ * <li><b>notifydropped</b> The total number of notification emails discarded because the queue was full.
+ * <li><b>cmdactive</b> The number of external commands currently being run by command translations.
+ * <li><b>cmdruns</b> The total number of external commands which have been run.
+ * <li><b>cmdtimeouts</b> The total number of external commands which were killed because they exceeded their timeout.
+ * <li><b>cmdcoalesced</b> The total number of command runs which were skipped because a newer run was requested.
+ * <li><b>cmdduration</b> Mean time in seconds taken by external commands which completed since the point was last updated.
+ * <li><b>archivewrites</b> The number of updates of the point named by the third argument which have been archived, or the total
+ * for all points.
+ * <li><b>archivesuppressed</b> The number of updates of the point named by the third argument which were not archived, or the
+ * total for all points.
+ * <li><b>archivestats</b> The number of updates of the point named by the third argument which were archived and suppressed by each
+ * of its archive policies.
  * </ul>
  * 
  * @author David Brodrick
@@ -34,6 +81,9 @@ class MoniCAInternal extends ExternalSystem {
   /** The time the server started. */
   private AbsTime itsStartTime;
 
+  /** Counter values recorded at the last update of each rate point, keyed by point name. */
+  private HashMap<String, long[]> itsLastCounts = new HashMap<String, long[]>();
+
   public MoniCAInternal(String[] args) {
     super("system");
 
@@ -59,6 +109,158 @@ class MoniCAInternal extends ExternalSystem {
           pd.setData(Time.diff(new AbsTime(), itsStartTime));
         } else if (thistrans.getString().equals("dUTC")) {
           pd.setData(DUTC.get());
+        } else if (thistrans.getString().equals("lateness")) {
+          long max = 0;
+          Object[] systems = ExternalSystem.getAllExternalSystems().toArray();
+          for (int j = 0; j < systems.length; j++) {
+            ExternalSystem es = (ExternalSystem) systems[j];
+            if (thistrans.getNumStrings() < 2 || es.getName().equals(thistrans.getString(1))) {
+              CollectionScheduler sched = es.getScheduler();
+              synchronized (sched) {
+                max = Math.max(max, sched.getMaxLateness());
+                sched.resetStatistics();
+              }
+            }
+          }
+          pd.setData(new Float(max / 1000.0f));
+        } else if (thistrans.getString().equals("activeworkers")) {
+          pd.setData(new Integer(ExternalSystem.getActiveWorkers()));
+        } else if (thistrans.getString().equals("idleworkers")) {
+          pd.setData(new Integer(ExternalSystem.getIdleWorkers()));
+        } else if (thistrans.getString().equals("cycletime")) {
+          long max = 0;
+          Object[] systems = ExternalSystem.getAllExternalSystems().toArray();
+          for (int j = 0; j < systems.length; j++) {
+            ExternalSystem es = (ExternalSystem) systems[j];
+            if (thistrans.getNumStrings() < 2 || es.getName().equals(thistrans.getString(1))) {
+              max = Math.max(max, es.getLastCycleTime());
+            }
+          }
+          pd.setData(new Float(max / 1000.0f));
+        } else if (thistrans.getString().equals("schedule")) {
+          StringBuffer res = new StringBuffer();
+          Object[] systems = ExternalSystem.getAllExternalSystems().toArray();
+          for (int j = 0; j < systems.length; j++) {
+            ExternalSystem es = (ExternalSystem) systems[j];
+            if (thistrans.getNumStrings() < 2 || es.getName().equals(thistrans.getString(1))) {
+              if (res.length() > 0) {
+                res.append("\n");
+              }
+              res.append(es.getScheduleSummary());
+            }
+          }
+          pd.setData(res.toString());
+        } else if (thistrans.getString().equals("connstate") || thistrans.getString().equals("connfailures")
+            || thistrans.getString().equals("connstatetime")) {
+          int numopen = 0;
+          int maxfailures = 0;
+          Object[] systems = ExternalSystem.getAllExternalSystems().toArray();
+          for (int j = 0; j < systems.length; j++) {
+            ExternalSystem es = (ExternalSystem) systems[j];
+            if (thistrans.getNumStrings() < 2) {
+              if (es.getCircuitState() != ExternalSystem.CircuitState.CLOSED) {
+                numopen++;
+              }
+              maxfailures = Math.max(maxfailures, es.getNumFailures());
+            } else if (es.getName().equals(thistrans.getString(1))) {
+              if (thistrans.getString().equals("connstate")) {
+                pd.setData(es.getCircuitState().toString());
+              } else if (thistrans.getString().equals("connfailures")) {
+                pd.setData(new Integer(es.getNumFailures()));
+              } else {
+                pd.setData(new Float(es.getTimeInState() / 1000.0f));
+              }
+            }
+          }
+          if (thistrans.getNumStrings() < 2) {
+            if (thistrans.getString().equals("connstate")) {
+              pd.setData(new Integer(numopen));
+            } else if (thistrans.getString().equals("connfailures")) {
+              pd.setData(new Integer(maxfailures));
+            }
+          }
+        } else if (thistrans.getString().equals("epicsqueue")) {
+          pd.setData(new Integer(EPICS.getQueueDepth()));
+        } else if (thistrans.getString().equals("epicscoalesced")) {
+          pd.setData(new Long(EPICS.getNumCoalesced()));
+        } else if (thistrans.getString().equals("epicsdropped")) {
+          pd.setData(new Long(EPICS.getNumDropped()));
+        } else if (thistrans.getString().equals("notifypending")) {
+          pd.setData(new Integer(NotificationDispatcher.getNumPending()));
+        } else if (thistrans.getString().equals("notifysent")) {
+          pd.setData(new Long(NotificationDispatcher.getNumSent()));
+        } else if (thistrans.getString().equals("notifyfailed")) {
+          pd.setData(new Long(NotificationDispatcher.getNumFailed()));
+        } else if (thistrans.getString().equals("notifydropped")) {
+          pd.setData(new Long(NotificationDispatcher.getNumDropped()));
+        } else if (thistrans.getString().equals("cmdactive")) {
+          pd.setData(new Integer(CommandExecutor.getNumActive()));
+        } else if (thistrans.getString().equals("cmdruns")) {
+          pd.setData(new Long(CommandExecutor.getNumRuns()));
+        } else if (thistrans.getString().equals("cmdtimeouts")) {
+          pd.setData(new Long(CommandExecutor.getNumTimeouts()));
+        } else if (thistrans.getString().equals("cmdcoalesced")) {
+          pd.setData(new Long(CommandExecutor.getNumCoalesced()));
+        } else if (thistrans.getString().equals("cmdduration")) {
+          long runs = CommandExecutor.getNumRuns();
+          long runtime = CommandExecutor.getTotalTime();
+          long[] last = itsLastCounts.put(desc.getFullName(), new long[] { runs, runtime });
+          if (last != null) {
+            if (runs > last[0]) {
+              pd.setData(new Float((runtime - last[1]) / (1000.0f * (runs - last[0]))));
+            } else {
+              pd.setData(new Float(0));
+            }
+          }
+        } else if (thistrans.getString().equals("archivewrites") || thistrans.getString().equals("archivesuppressed")) {
+          long archived = 0;
+          long suppressed = 0;
+          Collection<PointDescription> allpoints;
+          if (thistrans.getNumStrings() < 2) {
+            allpoints = Arrays.asList(PointDescription.getAllUniquePoints());
+          } else {
+            allpoints = new Vector<PointDescription>();
+            PointDescription point = PointDescription.getPoint(thistrans.getString(1));
+            if (point != null) {
+              allpoints.add(point);
+            }
+          }
+          Iterator<PointDescription> it = allpoints.iterator();
+          while (it.hasNext()) {
+            ArchivePolicyEvaluator eval = it.next().getArchivePolicyEvaluator();
+            if (eval != null) {
+              archived += eval.getNumArchived();
+              suppressed += eval.getNumSuppressed();
+            }
+          }
+          if (thistrans.getString().equals("archivewrites")) {
+            pd.setData(new Long(archived));
+          } else {
+            pd.setData(new Long(suppressed));
+          }
+        } else if (thistrans.getString().equals("archivestats")) {
+          PointDescription point = thistrans.getNumStrings() < 2 ? null : PointDescription.getPoint(thistrans.getString(1));
+          if (point != null && point.getArchivePolicyEvaluator() != null) {
+            pd.setData(point.getArchivePolicyEvaluator().getSummary(point.getArchivePoliciesAsStrings()));
+          }
+        } else if (thistrans.getString().equals("asciiclients")) {
+          pd.setData(new Integer(MoniCAServerASCII.getNumClients()));
+        } else if (thistrans.getString().equals("asciirate") || thistrans.getString().equals("asciilatency")) {
+          long now = System.currentTimeMillis();
+          long commands = MoniCAServerASCII.getNumCommands();
+          long cmdtime = MoniCAServerASCII.getCommandTime();
+          long[] last = itsLastCounts.put(desc.getFullName(), new long[] { now, commands, cmdtime });
+          if (last != null) {
+            if (thistrans.getString().equals("asciirate")) {
+              if (now > last[0]) {
+                pd.setData(new Float(1000.0f * (commands - last[1]) / (now - last[0])));
+              }
+            } else if (commands > last[1]) {
+              pd.setData(new Float((cmdtime - last[2]) / (1000.0f * (commands - last[1]))));
+            } else {
+              pd.setData(new Float(0));
+            }
+          }
         }
 
         desc.firePointEvent(new PointEvent(this, pd, true));
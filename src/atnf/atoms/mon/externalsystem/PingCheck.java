@@ -12,19 +12,52 @@ import atnf.atoms.mon.transaction.*;
 
 import java.io.*;
 import java.net.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Ping a remote machine and provide true/false connectivity report.
  *
+ * <P>The hosts are probed concurrently, by at most <i>threads</i> probes
+ * at a time, and each result is reported as soon as that host answers or
+ * its probe times out. The optional monitor-sources.txt arguments are:
+ * <bl>
+ * <li>Timeout for each host (ms), default 10000
+ * <li>Max number of hosts to probe concurrently, default 16
+ * </bl>
+ *
  * @author David Brodrick
  * @version $Id: $
  **/
 class PingCheck
 extends ExternalSystem
 {
+  /** Timeout for each host (ms). */
+  protected int itsTimeout = 10000;
+
+  /** Pool of threads for probing hosts. */
+  protected ThreadPoolExecutor itsProbers;
+
   public PingCheck(String[] args)
   {
     super("pingcheck");
+    int numthreads = 16;
+    if (args != null && args.length > 0) {
+      itsTimeout = Integer.parseInt(args[0]);
+    }
+    if (args != null && args.length > 1) {
+      numthreads = Integer.parseInt(args[1]);
+    }
+    itsProbers = new ThreadPoolExecutor(numthreads, numthreads, 60, TimeUnit.SECONDS,
+                                        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      private int itsCount = 0;
+      public synchronized Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "PingCheck " + (++itsCount));
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    itsProbers.allowCoreThreadTimeOut(true);
   }
 
 
@@ -34,27 +67,71 @@ extends ExternalSystem
   getData(PointDescription[] points)
   throws Exception
   {
+    final CountDownLatch latch = new CountDownLatch(points.length);
+    final AtomicBoolean[] fired = new AtomicBoolean[points.length];
     for (int i=0; i<points.length; i++) {
-      PointDescription pm = points[i];
-      String host = ((TransactionStrings)getMyTransactions(pm.getInputTransactions()).get(0)).getString();
-      boolean canping = false;
-      try {
-        InetAddress address = InetAddress.getByName(host);
-        canping = address.isReachable(10000);
-      }
-      catch (UnknownHostException e) {
-        System.err.println("PingCheck: Unknown host \"" + host + "\"");
-      }
-      catch (IOException e) {
-        System.err.println("PingCheck: Timeout for host \"" + host + "\"");
-      }
+      final PointDescription pm = points[i];
+      final AtomicBoolean thisfired = fired[i] = new AtomicBoolean(false);
+      final String host = ((TransactionStrings)getMyTransactions(pm.getInputTransactions()).get(0)).getString();
+      itsProbers.execute(new Runnable() {
+        public void run() {
+          try {
+            if (!thisfired.get()) {
+              fire(pm, thisfired, probe(host));
+            }
+          } finally {
+            latch.countDown();
+          }
+        }
+      });
+    }
 
-      //Increment the transaction counter for this ExternalSystem
-      itsNumTransactions++;
+    // Wait for all hosts, allowing for probes which were queued behind others
+    int numrounds = (points.length + itsProbers.getMaximumPoolSize() - 1) / itsProbers.getMaximumPoolSize();
+    latch.await((long)numrounds * itsTimeout + 1000, TimeUnit.MILLISECONDS);
+
+    // Report any hosts whose probe didn't complete in time
+    for (int i=0; i<points.length; i++) {
+      fire(points[i], fired[i], false);
+    }
+  }
 
-      //Fire off the updated value for this monitor point
-      pm.firePointEvent(new PointEvent(this, new
-         PointData(pm.getFullName(), new Boolean(canping)), true));
+
+  /** Check if the host is reachable within the timeout. */
+  protected
+  boolean
+  probe(String host)
+  {
+    try {
+      InetAddress address = InetAddress.getByName(host);
+      return address.isReachable(itsTimeout);
+    }
+    catch (UnknownHostException e) {
+      System.err.println("PingCheck: Unknown host \"" + host + "\"");
     }
+    catch (IOException e) {
+      System.err.println("PingCheck: Timeout for host \"" + host + "\"");
+    }
+    return false;
+  }
+
+
+  /** Fire the result for the point, unless it has already been fired. */
+  private
+  void
+  fire(PointDescription pm, AtomicBoolean fired, boolean canping)
+  {
+    if (fired.getAndSet(true)) {
+      return;
+    }
+
+    //Increment the transaction counter for this ExternalSystem
+    synchronized (this) {
+      itsNumTransactions++;
+    }
+
+    //Fire off the updated value for this monitor point
+    pm.firePointEvent(new PointEvent(this, new
+       PointData(pm.getFullName(), new Boolean(canping)), true));
   }
 }
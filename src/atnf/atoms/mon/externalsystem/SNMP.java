@@ -1,5 +1,10 @@
 package atnf.atoms.mon.externalsystem;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.log4j.Logger;
 import org.snmp4j.*;
 import org.snmp4j.smi.*;
@@ -11,6 +16,7 @@ import org.snmp4j.util.DefaultPDUFactory;
 
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.transaction.TransactionStrings;
+import atnf.atoms.mon.util.MonitorConfig;
 
 /**
  * Generic SNMP interface supporting SNMPv1, v2c and NOAUTH, NOPRIV SNMPv3
@@ -26,9 +32,15 @@ import atnf.atoms.mon.transaction.TransactionStrings;
  * <li><b>SNMP Version:</b> "v1", "v2c" or "v3".
  * <li><b>Ident:</b> The username or community, depending on which SNMP version
  * you are using.
+ * <li><b>Max Varbinds:</b> Optional, the maximum number of OIDs to request in a
+ * single PDU. Defaults to the <tt>SNMPMaxVarbinds</tt> property, or 20.
  * </ul>
  * 
  * <P>
+ * All points which are due are requested together in multi-varbind GET PDUs,
+ * which are sent asynchronously using a UDP transport shared by all agents.
+ * 
+ * <P>
  * Here is an example entry for <tt>monitor-sources.txt</tt> which connects to
  * "labswitch" using username "dlink".
  * <P>
@@ -68,9 +80,26 @@ public class SNMP extends ExternalSystem {
   /** The SNMP Target. */
   protected Target itsTarget;
 
-  /** The SNMP instance. */
+  /** The SNMP instance, which is shared by all agents. */
   protected Snmp itsSNMP;
 
+  /** Max number of variable bindings to request in a single PDU. */
+  protected int itsMaxVarbinds = theirMaxVarbinds;
+
+  /** The SNMP instance and UDP transport shared by all agents. */
+  private static Snmp theirSNMP = null;
+
+  /** Default max number of variable bindings per PDU. */
+  private static int theirMaxVarbinds = 20;
+
+  static {
+    try {
+      theirMaxVarbinds = Integer.parseInt(MonitorConfig.getProperty("SNMPMaxVarbinds", "" + theirMaxVarbinds));
+    } catch (Exception e) {
+      theirLogger.warn("Error parsing SNMPMaxVarbinds property, using default of " + theirMaxVarbinds);
+    }
+  }
+
   /** The different SNMP versions supported. */
   public static enum SNMPVersion {
     v1, v2c, v3
@@ -79,23 +108,35 @@ public class SNMP extends ExternalSystem {
   /** The SNMP version to use. */
   protected SNMPVersion itsVersion;
 
+  /** Return the SNMP instance shared by all agents, creating it if required. */
+  protected static synchronized Snmp getSharedSNMP() throws Exception {
+    if (theirSNMP == null) {
+      TransportMapping transport = new DefaultUdpTransportMapping();
+      Snmp snmp = new Snmp(transport);
+      USM usm = new USM(SecurityProtocols.getInstance(), new OctetString(MPv3.createLocalEngineID()), 0);
+      SecurityModels.getInstance().addSecurityModel(usm);
+      transport.listen();
+      theirSNMP = snmp;
+    }
+    return theirSNMP;
+  }
+
   public SNMP(String[] args) {
     super("snmp-" + args[0] + ":" + args[1]);
     itsHostName = args[0];
     itsPort = Integer.parseInt(args[1]);
     itsVersion = SNMPVersion.valueOf(SNMPVersion.class, args[2]);
     itsIdent = args[3];
+    if (args.length > 4) {
+      itsMaxVarbinds = Integer.parseInt(args[4]);
+    }
 
     try {
-      TransportMapping transport = new DefaultUdpTransportMapping();
-      itsSNMP = new Snmp(transport);
+      itsSNMP = getSharedSNMP();
 
       if (itsVersion == SNMPVersion.v3) {
-        USM usm = new USM(SecurityProtocols.getInstance(), new OctetString(MPv3.createLocalEngineID()), 0);
-        SecurityModels.getInstance().addSecurityModel(usm);
         itsSNMP.getUSM().addUser(new OctetString(itsIdent), new UsmUser(new OctetString(itsIdent), null, null, null, null));
       }
-      transport.listen();
 
       Address targetAddress = GenericAddress.parse("udp:" + itsHostName + "/" + itsPort);
 
@@ -157,53 +198,205 @@ public class SNMP extends ExternalSystem {
     }
   }
   
+  /**
+   * Collect the points. The OIDs for all points are requested in multi-varbind GET PDUs, which are all sent asynchronously before
+   * waiting for the responses. If the agent rejects a PDU because of a problem with one of its varbinds, as SNMPv1 agents do for
+   * OIDs they don't have, that varbind is dropped and the others are requested again, until the remaining varbinds succeed.
+   * Varbinds from PDUs which timed out are retried once.
+   */
   public void getData(PointDescription[] points) throws Exception {
+    OID[] oids = new OID[points.length];
+    String[] results = new String[points.length];
+    ArrayList<Integer> todo = new ArrayList<Integer>(points.length);
     for (int i = 0; i < points.length; i++) {
       PointDescription pm = points[i];
       TransactionStrings tds = (TransactionStrings) getMyTransactions(pm.getInputTransactions()).get(0);
-      ResponseEvent response;
-
+      // Check we have correct number of arguments
+      if (tds.getNumStrings() < 1) {
+        theirLogger.error("(" + itsHostName + "): Expect OID argument in Transaction for point \"" + pm.getFullName() + "\"");
+        continue;
+      }
       try {
-        // Check we have correct number of arguments
-        if (tds.getNumStrings() < 1) {
-          theirLogger.error("(" + itsHostName + "): Expect OID argument in Transaction for point \"" + pm.getFullName() + "\"");
-          throw new IllegalArgumentException("Missing OID argument in Transaction");
-        }
         // Create an OID from the string argument
-        OID oid = new OID(tds.getString());
-
-        // Send the SNMP request
-        PDU pdu = DefaultPDUFactory.createPDU(itsTarget, PDU.GET);
-        pdu.add(new VariableBinding(oid));
-        response = itsSNMP.send(pdu, itsTarget); 
-
-        // Process response
-        PDU responsePDU = response.getResponse();
-        PointData newdata;
-      
-        //theirLogger.debug(itsHostName + " PDU error status: " + responsePDU.getErrorStatus());
-
-        if (responsePDU == null || responsePDU.getErrorStatus() != SnmpConstants.SNMP_ERROR_SUCCESS || !responsePDU.get(0).getOid().equals(oid)) {
-          // Response timed out or was in error, so fire event with null data
-          newdata = new PointData(pm.getFullName());
-        } else {
-          // Fire event with new data value (always as a string)
-          newdata = new PointData(pm.getFullName(), responsePDU.get(0).getVariable().toString());
-        }
-        pm.firePointEvent(new PointEvent(this, newdata, true));
-
-        // Increment the transaction counter for this ExternalSystem
-        itsNumTransactions++;
+        oids[i] = new OID(tds.getString());
+        todo.add(new Integer(i));
       } catch (Exception e) {
-        // This is triggered when the SNMP host is unreachable.
-        // need to fire PointEvent with null data, otherwise OutOfMemory error brings down MoniCA.`
-        theirLogger.fatal("Caught error: " + e + " for point " + pm.getFullName());
-        pm.firePointEvent(new PointEvent(this, new PointData(pm.getFullName()), true));
+        theirLogger.error("(" + itsHostName + "): Bad OID \"" + tds.getString() + "\" for point " + pm.getFullName() + ": " + e);
       }
+    }
 
+    try {
+      collect(todo, oids, results);
+    } catch (Exception e) {
+      // This is triggered when the SNMP host is unreachable.
+      theirLogger.fatal("(" + itsHostName + "): Caught error: " + e);
     }
+
+    // Fire events for all points, with null data for those we couldn't collect. We always need to fire an event, otherwise
+    // OutOfMemory error brings down MoniCA.
+    for (int i = 0; i < points.length; i++) {
+      PointData newdata;
+      if (results[i] == null) {
+        newdata = new PointData(points[i].getFullName());
+      } else {
+        // Fire event with new data value (always as a string)
+        newdata = new PointData(points[i].getFullName(), results[i]);
+      }
+      points[i].firePointEvent(new PointEvent(this, newdata, true));
+    }
+
+    // Increment the transaction counter for this ExternalSystem
+    itsNumTransactions++;
   }
-  
+
+  /**
+   * Request the given OIDs from the agent, in as many rounds of PDUs as are needed to isolate the varbinds which the agent rejects.
+   * Each round drops at least one rejected varbind, so this finishes even if every OID is bad.
+   * 
+   * @param todo
+   *          Indices of the OIDs to be requested.
+   * @param oids
+   *          All OIDs.
+   * @param results
+   *          Values of OIDs which are successfully collected are stored in this array.
+   */
+  protected void collect(List<Integer> todo, OID[] oids, String[] results) throws Exception {
+    Requests next = new Requests();
+    next.itsBatched.addAll(todo);
+    boolean retried = false;
+    while (!next.isEmpty()) {
+      Requests current = next;
+      next = new Requests();
+      fetch(current, oids, results, next);
+      if (!retried && next.itsResponded && !next.itsTimedOut.isEmpty()) {
+        // The agent is responding, so retry the PDUs which were lost. If nothing responded the agent is probably down.
+        next.itsBatched.addAll(next.itsTimedOut);
+        retried = true;
+      }
+    }
+  }
+
+  /** The OIDs to request in a round of PDUs, or the outcome of a round. */
+  private static class Requests {
+    /** Indices of OIDs to request in PDUs of up to the max number of varbinds. */
+    ArrayList<Integer> itsBatched = new ArrayList<Integer>();
+
+    /** Indices of OIDs to request one per PDU. */
+    ArrayList<Integer> itsSingle = new ArrayList<Integer>();
+
+    /** Indices of OIDs whose PDUs timed out. */
+    ArrayList<Integer> itsTimedOut = new ArrayList<Integer>();
+
+    /** Whether the agent responded to any of the PDUs. */
+    boolean itsResponded = false;
+
+    boolean isEmpty() {
+      return itsBatched.isEmpty() && itsSingle.isEmpty();
+    }
+  }
+
+  /**
+   * Send one round of PDUs for the requested OIDs, sending all PDUs before waiting for the responses.
+   * 
+   * @param todo
+   *          The OIDs to request.
+   * @param oids
+   *          All OIDs.
+   * @param results
+   *          Values of OIDs which are successfully collected are stored in this array.
+   * @param next
+   *          The OIDs which should be requested again, and those which timed out, are added to this.
+   */
+  private void fetch(Requests todo, OID[] oids, String[] results, Requests next) throws Exception {
+    // Split the requests into PDUs
+    ArrayList<int[]> split = new ArrayList<int[]>();
+    for (int first = 0; first < todo.itsBatched.size(); first += itsMaxVarbinds) {
+      int[] batch = new int[Math.min(itsMaxVarbinds, todo.itsBatched.size() - first)];
+      for (int j = 0; j < batch.length; j++) {
+        batch[j] = todo.itsBatched.get(first + j).intValue();
+      }
+      split.add(batch);
+    }
+    for (int i = 0; i < todo.itsSingle.size(); i++) {
+      split.add(new int[] { todo.itsSingle.get(i).intValue() });
+    }
+    int numpdus = split.size();
+    final PDU[] requests = new PDU[numpdus];
+    final int[][] batches = split.toArray(new int[numpdus][]);
+    final ResponseEvent[] responses = new ResponseEvent[numpdus];
+    final CountDownLatch latch = new CountDownLatch(numpdus);
+    ResponseListener listener = new ResponseListener() {
+      public void onResponse(ResponseEvent event) {
+        // Stop any further retransmissions of the request
+        ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+        int pdu = ((Integer) event.getUserObject()).intValue();
+        synchronized (responses) {
+          if (responses[pdu] == null) {
+            responses[pdu] = event;
+            latch.countDown();
+          }
+        }
+      }
+    };
+    for (int p = 0; p < numpdus; p++) {
+      requests[p] = DefaultPDUFactory.createPDU(itsTarget, PDU.GET);
+      for (int j = 0; j < batches[p].length; j++) {
+        requests[p].add(new VariableBinding(oids[batches[p][j]]));
+      }
+      itsSNMP.send(requests[p], itsTarget, new Integer(p), listener);
+    }
+
+    // Wait for all the responses, or for the requests to time out
+    latch.await(itsTarget.getTimeout() * (itsTarget.getRetries() + 1) + 1000, TimeUnit.MILLISECONDS);
+
+    for (int p = 0; p < numpdus; p++) {
+      ResponseEvent event;
+      synchronized (responses) {
+        event = responses[p];
+      }
+      PDU response = (event == null ? null : event.getResponse());
+      if (response == null) {
+        // Request timed out
+        if (event == null) {
+          itsSNMP.cancel(requests[p], listener);
+        }
+        for (int j = 0; j < batches[p].length; j++) {
+          next.itsTimedOut.add(new Integer(batches[p][j]));
+        }
+        continue;
+      }
+      next.itsResponded = true;
+      if (response.getErrorStatus() != SnmpConstants.SNMP_ERROR_SUCCESS) {
+        int bad = response.getErrorIndex() - 1;
+        if (batches[p].length == 1) {
+          // The only varbind must be the problem
+          theirLogger.debug("(" + itsHostName + "): Error \"" + response.getErrorStatusText() + "\" for OID " + oids[batches[p][0]]);
+        } else if (response.getErrorStatus() == SnmpConstants.SNMP_ERROR_TOO_BIG || bad < 0 || bad >= batches[p].length) {
+          // Response was too big, or the agent didn't say which varbind was the problem, so request them one at a time
+          for (int j = 0; j < batches[p].length; j++) {
+            next.itsSingle.add(new Integer(batches[p][j]));
+          }
+        } else {
+          // Request the others again without the varbind which the agent identified as the cause of the error
+          for (int j = 0; j < batches[p].length; j++) {
+            if (j != bad) {
+              next.itsBatched.add(new Integer(batches[p][j]));
+            } else {
+              theirLogger.debug("(" + itsHostName + "): Error \"" + response.getErrorStatusText() + "\" for OID " + oids[batches[p][j]]);
+            }
+          }
+        }
+        continue;
+      }
+      for (int j = 0; j < batches[p].length && j < response.size(); j++) {
+        VariableBinding vb = response.get(j);
+        if (vb.getOid().equals(oids[batches[p][j]]) && !vb.isException()) {
+          results[batches[p][j]] = vb.getVariable().toString();
+        }
+      }
+    }
+  }
+
   protected AbstractVariable getSNMPVariable(String typecode, PointData pd) {
     if (pd==null || pd.getData()==null) {
       return null;
@@ -218,4 +411,66 @@ public class SNMP extends ExternalSystem {
       return null;
     }
   }
+
+  /**
+   * Check the collection of a mix of valid and invalid OIDs, using a stand-in SNMPv1 agent on the local host. Like a real SNMPv1
+   * agent it rejects any GET which includes an OID it doesn't have, giving the index of the first such OID. The agent only has
+   * the OIDs which end in an even number, so several of the PDUs include more than one invalid OID.
+   */
+  public static void main(String[] args) throws Exception {
+    java.net.DatagramSocket probe = new java.net.DatagramSocket(0);
+    int port = probe.getLocalPort();
+    probe.close();
+    Snmp agent = new Snmp(new DefaultUdpTransportMapping(new UdpAddress("127.0.0.1/" + port)));
+    agent.addCommandResponder(new CommandResponder() {
+      public void processPdu(CommandResponderEvent event) {
+        PDU response = (PDU) event.getPDU().clone();
+        response.setType(PDU.RESPONSE);
+        for (int i = 0; i < response.size(); i++) {
+          VariableBinding vb = response.get(i);
+          if (vb.getOid().last() % 2 == 0) {
+            vb.setVariable(new OctetString("value" + vb.getOid().last()));
+          } else {
+            // Return the varbinds of the request unchanged, with the error
+            response = (PDU) event.getPDU().clone();
+            response.setType(PDU.RESPONSE);
+            response.setErrorStatus(PDU.noSuchName);
+            response.setErrorIndex(i + 1);
+            break;
+          }
+        }
+        try {
+          event.getMessageDispatcher().returnResponsePdu(event.getMessageProcessingModel(), event.getSecurityModel(),
+              event.getSecurityName(), event.getSecurityLevel(), response, event.getMaxSizeResponsePDU(), event.getStateReference(),
+              new StatusInformation());
+        } catch (Exception e) {
+          System.err.println("Stand-in agent couldn't respond: " + e);
+        }
+        event.setProcessed(true);
+      }
+    });
+    agent.listen();
+
+    SNMP snmp = new SNMP(new String[] { "127.0.0.1", "" + port, "v1", "public", "4" });
+    OID[] oids = new OID[13];
+    ArrayList<Integer> todo = new ArrayList<Integer>();
+    for (int i = 0; i < oids.length; i++) {
+      oids[i] = new OID("1.3.6.1.4.1.99999." + i);
+      todo.add(new Integer(i));
+    }
+    String[] results = new String[oids.length];
+    snmp.collect(todo, oids, results);
+    agent.close();
+
+    boolean ok = true;
+    for (int i = 0; i < oids.length; i++) {
+      String expected = (i % 2 == 0) ? "value" + i : null;
+      System.out.println(oids[i] + "\t" + results[i]);
+      if (expected == null ? results[i] != null : !expected.equals(results[i])) {
+        ok = false;
+      }
+    }
+    System.out.println(ok ? "OK" : "FAILED");
+    System.exit(ok ? 0 : 1);
+  }
 }
@@ -0,0 +1,257 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon.externalsystem;
+
+import atnf.atoms.mon.PointDescription;
+
+/**
+ * Determines when the points of an ExternalSystem are collected. The policy is configured in <tt>monitor-sources.txt</tt> by
+ * adding a <tt>schedule=</tt> token after the constructor arguments, containing a comma separated list of the following options:
+ *
+ * <ul>
+ * <li><b>spread</b> Spread the collection times of points across their update period, rather than collecting all points defined
+ * with the same period together. Each point is given a fixed phase within its period, derived from its name.
+ * <li><b>maxrate=N</b> Collect no more than N points per second. Points which are due are deferred until the rate allows.
+ * <li><b>adaptive</b> or <b>adaptive=ms</b> Slow collection down when the device is slow to respond or collection fails. When the
+ * mean collection time per point exceeds the given threshold (default 1000 ms), or more than half of the recent collection cycles
+ * failed, the update periods of the points are doubled, up to the <i>maxslowdown</i> factor. The slowdown is halved again once the
+ * device recovers.
+ * <li><b>maxslowdown=N</b> The maximum factor by which adaptive scheduling may slow collection, default 8.
+ * <li><b>batch=ms</b> Points due within this many milliseconds are collected in the same cycle, default 50.
+ * </ul>
+ *
+ * <P>
+ * For example: <tt>ASCIISocket myhost:1234:5000 schedule=spread,maxrate=20,adaptive</tt>
+ *
+ * <P>
+ * Without any options the policy reproduces the default behaviour of collecting each point one period after its last update.
+ */
+public class SchedulingPolicy {
+  /** Weight given to the latest cycle when updating the running averages. */
+  private static final double theirAlpha = 0.2;
+
+  /** Whether to spread points with the same period across the period. */
+  protected boolean itsSpread = false;
+
+  /** Max number of points to collect per second, or zero for no limit. */
+  protected float itsMaxRate = 0;
+
+  /** Whether to slow collection down when the device is slow or failing. */
+  protected boolean itsAdaptive = false;
+
+  /** Mean collection time per point (us) above which collection is slowed. */
+  protected long itsSlowThreshold = 1000000;
+
+  /** Max factor by which collection may be slowed. */
+  protected int itsMaxSlowdown = 8;
+
+  /** Points due within this time (us) are collected in the same cycle. */
+  protected long itsBatchWindow = 50000;
+
+  /** Number of points which may be collected before the rate limit applies. */
+  private double itsTokens = 0;
+
+  /** Time (us) at which itsTokens was last updated. */
+  private long itsLastRefill = 0;
+
+  /** Running average of the collection time per point (us). */
+  private double itsMeanResponse = 0;
+
+  /** Running average of the fraction of collection cycles which failed. */
+  private double itsErrorRate = 0;
+
+  /** The current factor by which collection has been slowed. */
+  private int itsSlowdown = 1;
+
+  /** Number of times points were deferred because of the rate limit. */
+  private long itsNumDeferred = 0;
+
+  /** Create a policy with the default behaviour. */
+  public SchedulingPolicy() {
+  }
+
+  /**
+   * Create a policy from the options string.
+   *
+   * @param options
+   *          Comma separated list of options.
+   */
+  public SchedulingPolicy(String options) {
+    String[] opts = options.split(",");
+    for (int i = 0; i < opts.length; i++) {
+      String opt = opts[i].trim();
+      String value = null;
+      int eq = opt.indexOf('=');
+      if (eq != -1) {
+        value = opt.substring(eq + 1);
+        opt = opt.substring(0, eq);
+      }
+      if (opt.equals("spread")) {
+        itsSpread = true;
+      } else if (opt.equals("maxrate")) {
+        itsMaxRate = Float.parseFloat(value);
+        itsTokens = Math.max(1, itsMaxRate);
+      } else if (opt.equals("adaptive")) {
+        itsAdaptive = true;
+        if (value != null) {
+          itsSlowThreshold = 1000 * Long.parseLong(value);
+        }
+      } else if (opt.equals("maxslowdown")) {
+        itsMaxSlowdown = Math.max(1, Integer.parseInt(value));
+      } else if (opt.equals("batch")) {
+        itsBatchWindow = 1000 * Long.parseLong(value);
+      } else if (opt.length() > 0) {
+        throw new IllegalArgumentException("Unknown scheduling option \"" + opt + "\"");
+      }
+    }
+  }
+
+  /** Return the time window (us) within which due points are collected in the same cycle. */
+  public long getBatchWindow() {
+    return itsBatchWindow;
+  }
+
+  /**
+   * Return the epoch at which the point should next be collected.
+   *
+   * @param p
+   *          The point to be scheduled.
+   * @param nominal
+   *          The epoch at which the point would normally be collected.
+   * @param now
+   *          The current time.
+   */
+  public synchronized long getEpoch(PointDescription p, long nominal, long now) {
+    long period = p.getPeriod();
+    if (period <= 0) {
+      return nominal;
+    }
+    long epoch = nominal;
+    if (itsSlowdown > 1 && epoch > now) {
+      epoch += (itsSlowdown - 1) * period;
+    }
+    if (itsSpread) {
+      // Snap to the nearest collection time with this point's phase
+      long phase = (p.getFullName().hashCode() & 0x7fffffff) % period;
+      long cycles = Math.round((double) (epoch - phase) / period);
+      epoch = cycles * period + phase;
+      if (epoch <= now) {
+        epoch += ((now - epoch) / period + 1) * period;
+      }
+    }
+    return epoch;
+  }
+
+  /** Return the max number of points which may be collected now. */
+  public synchronized int getAllowance(long now) {
+    if (itsMaxRate <= 0) {
+      return Integer.MAX_VALUE;
+    }
+    refill(now);
+    return (int) Math.floor(itsTokens);
+  }
+
+  /** Record that the given number of points are being collected. */
+  public synchronized void consumed(int num, boolean deferred) {
+    itsTokens -= num;
+    if (deferred) {
+      itsNumDeferred++;
+    }
+  }
+
+  /**
+   * Return the earliest time at which the next collection cycle may run.
+   *
+   * @param nextepoch
+   *          The time the next point is due.
+   */
+  public synchronized long getNextCycle(long nextepoch) {
+    if (itsMaxRate <= 0 || nextepoch == -1) {
+      return nextepoch;
+    }
+    if (getTokens(nextepoch) >= 1) {
+      return nextepoch;
+    }
+    // Time at which the next token will have accumulated
+    return Math.max(nextepoch, itsLastRefill + (long) Math.ceil(1000000 * (1 - itsTokens) / itsMaxRate));
+  }
+
+  /**
+   * Update the statistics used for adaptive scheduling.
+   *
+   * @param numpoints
+   *          The number of points collected in the cycle.
+   * @param cycletime
+   *          The time taken by the cycle (us).
+   * @param failed
+   *          True if the cycle failed.
+   * @return True if the slowdown factor was changed.
+   */
+  public synchronized boolean cycleCompleted(int numpoints, long cycletime, boolean failed) {
+    if (numpoints > 0) {
+      itsMeanResponse = (1 - theirAlpha) * itsMeanResponse + theirAlpha * cycletime / numpoints;
+    }
+    itsErrorRate = (1 - theirAlpha) * itsErrorRate + theirAlpha * (failed ? 1 : 0);
+    if (!itsAdaptive) {
+      return false;
+    }
+    if ((itsMeanResponse > itsSlowThreshold || itsErrorRate > 0.5) && itsSlowdown < itsMaxSlowdown) {
+      itsSlowdown = Math.min(itsMaxSlowdown, 2 * itsSlowdown);
+      return true;
+    } else if (itsMeanResponse < itsSlowThreshold / 2 && itsErrorRate < 0.1 && itsSlowdown > 1) {
+      itsSlowdown /= 2;
+      return true;
+    }
+    return false;
+  }
+
+  /** Return the current factor by which collection has been slowed. */
+  public synchronized int getSlowdown() {
+    return itsSlowdown;
+  }
+
+  /** Return the number of times points were deferred because of the rate limit. */
+  public synchronized long getNumDeferred() {
+    return itsNumDeferred;
+  }
+
+  /** Describe the policy and its current state. */
+  public synchronized String toString() {
+    StringBuffer res = new StringBuffer();
+    if (itsSpread) {
+      res.append("spread ");
+    }
+    if (itsMaxRate > 0) {
+      res.append("maxrate=" + itsMaxRate + " deferred=" + itsNumDeferred + " ");
+    }
+    if (itsAdaptive) {
+      res.append("adaptive=" + itsSlowThreshold / 1000 + " slowdown=" + itsSlowdown + " ");
+    }
+    res.append("batch=" + itsBatchWindow / 1000);
+    res.append(" response=" + Math.round(itsMeanResponse / 100) / 10.0 + "ms");
+    res.append(" errors=" + Math.round(100 * itsErrorRate) + "%");
+    return res.toString();
+  }
+
+  /** Add the tokens accumulated since the last refill. */
+  private void refill(long now) {
+    itsTokens = getTokens(now);
+    if (now > itsLastRefill) {
+      itsLastRefill = now;
+    }
+  }
+
+  /** Return the tokens which will have accumulated by the given time, allowing at most one second's worth to accumulate. */
+  private double getTokens(long time) {
+    if (itsLastRefill == 0 || time <= itsLastRefill) {
+      return itsTokens;
+    }
+    return Math.min(Math.max(1, itsMaxRate), itsTokens + itsMaxRate * (time - itsLastRefill) / 1000000.0);
+  }
+}
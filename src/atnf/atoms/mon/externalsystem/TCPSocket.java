@@ -13,6 +13,11 @@ import java.net.*;
  * Abstract base class for ExternalSystems which need to read and/or write data over TCP
  * socket connection to a remote end-point. This simply handles creation of the socket.
  * <P>
+ * The connection is serviced by the shared <tt>DeviceIO</tt> selector threads rather
+ * than by blocking socket reads. Subclasses should use the framing methods of
+ * <tt>itsConnection</tt>, or its stream views, rather than the streams of
+ * <tt>itsSocket</tt>, which is provided so that the connection can still be closed directly.
+ * <P>
  * The constructor argument defined in <tt>monitor-sources.txt</tt> must include the
  * remote machine, port and optionally timeout in
  * <tt>host:port:timeout_ms:your_other_args</tt> format.
@@ -24,6 +29,9 @@ public abstract class TCPSocket extends ExternalSystem
   /** The socket used for communicating with the remote service. */
   protected Socket itsSocket = null;
 
+    /** The multiplexed connection to the remote service. */
+    protected DeviceConnection itsConnection = null;
+
     /** The port to connect to the remote end-point. */
     protected int itsPort = -1;
 
@@ -50,7 +58,7 @@ public abstract class TCPSocket extends ExternalSystem
         itsTimeout = ms;
         if (itsConnected) {
             try {
-                itsSocket.setSoTimeout(itsTimeout);
+                itsConnection.setTimeout(itsTimeout);
             } catch (Exception e) {
                 try {
                     disconnect();
@@ -64,11 +72,12 @@ public abstract class TCPSocket extends ExternalSystem
     public boolean connect() throws Exception
     {
         try {
-            itsSocket = new Socket(itsHostName, itsPort);
-            itsSocket.setSoTimeout(itsTimeout);
+            itsConnection = DeviceIO.connect(itsHostName, itsPort, itsTimeout);
+            itsSocket = itsConnection.getSocket();
             itsConnected = true;
             itsNumTransactions = 0;
         } catch (Exception e) {
+            itsConnection = null;
             itsSocket = null;
             itsConnected = false;
             throw e;
@@ -79,9 +88,12 @@ public abstract class TCPSocket extends ExternalSystem
     /** Close the socket, unless it is already closed. */
     public void disconnect() throws Exception
     {
-        if (itsSocket != null) {
+        if (itsConnection != null) {
+            itsConnection.close();
+        } else if (itsSocket != null) {
             itsSocket.close();
         }
+        itsConnection = null;
         itsSocket = null;
         itsConnected = false;
     }
@@ -8,8 +8,18 @@
 package atnf.atoms.mon.externalsystem;
 
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.log4j.Logger;
+
 import atnf.atoms.mon.*;
 import atnf.atoms.mon.transaction.*;
+import atnf.atoms.mon.util.MonitorConfig;
 
 
 /**
@@ -35,6 +45,13 @@ import atnf.atoms.mon.transaction.*;
  * <tt>hostname-port</tt>, you will need to use this in the Transaction
  * for any points which will use this ExternalSystem.
  *
+ * <P>All instances share a single non-blocking DatagramChannel, and
+ * responses are matched to the waiting instance by their source address, so
+ * many hosts can be queried concurrently without a socket each. Queries to
+ * the same host are issued one at a time since their responses cannot be
+ * told apart. The total number of queries in flight is limited by the
+ * <tt>UDPQueryConcurrency</tt> property, which defaults to 64.
+ *
  * @author David Brodrick
  * @version $Id: $
  **/
@@ -46,6 +63,33 @@ extends UDPSocket
   
   /** Port on the remote host to send the query to. */
   protected int itsRemotePort;
+
+  /** Socket address which responses are expected from. */
+  protected InetSocketAddress itsRemoteAddress;
+
+  /** Response to the outstanding query, or null if none has arrived. */
+  private byte[] itsResponse = null;
+
+  /** The channel shared by all instances. */
+  private static DatagramChannel theirChannel = null;
+
+  /** Instances waiting for a response, keyed by the address of their remote host. */
+  private static ConcurrentHashMap<InetSocketAddress, UDPQuery> theirWaiting = new ConcurrentHashMap<InetSocketAddress, UDPQuery>();
+
+  /** Limits the number of queries in flight. */
+  private static Semaphore theirPermits;
+
+  private static Logger theirLogger = Logger.getLogger(UDPQuery.class.getName());
+
+  static {
+    int numpermits = 64;
+    try {
+      numpermits = Integer.parseInt(MonitorConfig.getProperty("UDPQueryConcurrency", "" + numpermits));
+    } catch (Exception e) {
+      theirLogger.warn("Error parsing UDPQueryConcurrency property, using default of " + numpermits);
+    }
+    theirPermits = new Semaphore(numpermits, true);
+  }
   
   /** constructor. */
   public UDPQuery(String args[])
@@ -55,6 +99,7 @@ extends UDPSocket
     try {
       itsRemoteHost=InetAddress.getByName(args[0]);
       itsRemotePort=Integer.parseInt(args[1]);
+      itsRemoteAddress=new InetSocketAddress(itsRemoteHost, itsRemotePort);
     } catch (Exception e) {
       System.err.println("UDPQuery: Error parsing arguments:");
       e.printStackTrace();
@@ -72,6 +117,30 @@ extends UDPSocket
   }
 
 
+  /** Use the shared channel rather than a socket of our own. */
+  public boolean connect() throws Exception
+  {
+    getChannel();
+    itsConnected = true;
+    itsNumTransactions = 0;
+    return itsConnected;
+  }
+
+
+  /** Set the timeout to use (ms). */
+  protected void setTimeout(int ms)
+  {
+    itsTimeout = ms;
+  }
+
+
+  /** The shared channel stays open for the other instances. */
+  public void disconnect() throws Exception
+  {
+    itsConnected = false;
+  }
+
+
   /** Do the query and return the result. */
   public
   Object
@@ -80,21 +149,81 @@ extends UDPSocket
   {
     try {
       String requeststr = ((TransactionStrings)getMyTransactions(requestor.getInputTransactions()).get(0)).getString(0);
-    
-      //Build datagrams for the request and response packet
-      DatagramPacket request = new DatagramPacket(requeststr.getBytes(), requeststr.length(),
-                                                itsRemoteHost, itsRemotePort);
-      DatagramPacket response = new DatagramPacket(new byte[1500], 1500);
-
-      //Send the query and obtain the response
-      itsSocket.send(request);
-      itsSocket.receive(response);
-
-      //Get the response packet payload as a string    
-      String res = new String(response.getData());
-      return res;
+
+      theirPermits.acquire();
+      try {
+        synchronized (this) {
+          itsResponse = null;
+          theirWaiting.put(itsRemoteAddress, this);
+          try {
+            //Send the query and wait for the response
+            if (getChannel().send(ByteBuffer.wrap(requeststr.getBytes()), itsRemoteAddress) == 0) {
+              return null;
+            }
+            long deadline = System.currentTimeMillis() + itsTimeout;
+            while (itsResponse == null) {
+              long remaining = deadline - System.currentTimeMillis();
+              if (remaining <= 0) {
+                return null;
+              }
+              wait(remaining);
+            }
+            //Get the response packet payload as a string
+            return new String(itsResponse);
+          } finally {
+            theirWaiting.remove(itsRemoteAddress, this);
+          }
+        }
+      } finally {
+        theirPermits.release();
+      }
     } catch (Exception e) {
       return null;
     }
   }
+
+
+  /** Return the shared channel, opening it and starting the receiver thread if required. */
+  private static synchronized DatagramChannel getChannel() throws Exception
+  {
+    if (theirChannel == null) {
+      final DatagramChannel channel = DatagramChannel.open();
+      channel.socket().bind(null);
+      channel.configureBlocking(false);
+      final Selector selector = Selector.open();
+      channel.register(selector, SelectionKey.OP_READ);
+      Thread t = new Thread("UDPQuery Receiver") {
+        public void run() {
+          ByteBuffer buf = ByteBuffer.allocate(65536);
+          while (true) {
+            try {
+              selector.select();
+              selector.selectedKeys().clear();
+              SocketAddress from;
+              buf.clear();
+              while ((from = channel.receive(buf)) != null) {
+                buf.flip();
+                UDPQuery q = theirWaiting.get(from);
+                if (q != null) {
+                  byte[] data = new byte[buf.remaining()];
+                  buf.get(data);
+                  synchronized (q) {
+                    q.itsResponse = data;
+                    q.notifyAll();
+                  }
+                }
+                buf.clear();
+              }
+            } catch (Exception e) {
+              theirLogger.error("Error receiving responses: " + e);
+            }
+          }
+        }
+      };
+      t.setDaemon(true);
+      t.start();
+      theirChannel = channel;
+    }
+    return theirChannel;
+  }
 }
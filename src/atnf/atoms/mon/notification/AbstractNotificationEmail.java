@@ -10,7 +10,6 @@
 package atnf.atoms.mon.notification;
 
 import atnf.atoms.mon.*;
-import atnf.atoms.mon.util.MailSender;
 import atnf.atoms.mon.util.MonitorUtils;
 import org.apache.log4j.Logger;
 
@@ -30,6 +29,9 @@ import org.apache.log4j.Logger;
  * The subject and body templates can macros which will be substituted before the email is sent. These are documented in the
  * MonitorUtils.doSubstituion method.
  * 
+ * <P>
+ * Emails are sent asynchronously by the NotificationDispatcher, which may combine several of them into a digest.
+ * 
  * @author David Brodrick
  */
 public abstract class AbstractNotificationEmail extends Notification {
@@ -63,14 +65,10 @@ public abstract class AbstractNotificationEmail extends Notification {
     }
   }
 
-  /** Send an email. */
+  /** Queue an email to be sent by the NotificationDispatcher. */
   public void sendEmail(PointData data) {
     String subject = MonitorUtils.doSubstitutions(itsSubject, data, itsParent);
     String body = MonitorUtils.doSubstitutions(itsBody, data, itsParent);
-    if (itsSender == "") {
-      MailSender.sendMail(itsRecipient, subject, body);
-    } else {
-      MailSender.sendMail(itsRecipient, itsSender, subject, body);
-    }
+    NotificationDispatcher.sendMail(itsRecipient, itsSender, subject, body);
   }
 }
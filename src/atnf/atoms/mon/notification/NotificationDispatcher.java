@@ -0,0 +1,326 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+//
+
+package atnf.atoms.mon.notification;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import atnf.atoms.mon.util.MailSender;
+import atnf.atoms.mon.util.MonitorConfig;
+import atnf.atoms.time.AbsTime;
+
+/**
+ * Sends notification emails from a background thread, so that a slow or unavailable mail server never delays the processing of
+ * new data. Emails are queued and then sent as follows:
+ *
+ * <ul>
+ * <li>Emails to the same recipients are collected for <tt>NotificationDigestWindow</tt> seconds and then sent as a single digest
+ * message. With the default window of 0 each email is sent as soon as possible, although emails which are waiting to be sent
+ * at the same time are still combined.
+ * <li>If <tt>NotificationRateLimit</tt> is set, no more than that many messages are sent to any one recipient address in any hour.
+ * Emails which would exceed the limit for any of their recipients are held back and sent together as a digest once the limit
+ * allows. By default there is no limit.
+ * <li>Messages which can't be sent are retried up to <tt>NotificationRetries</tt> times, with the delay between attempts starting
+ * at <tt>NotificationRetryDelay</tt> seconds and doubling each time.
+ * <li>At most <tt>NotificationQueueSize</tt> emails may be waiting to be processed, further emails are discarded.
+ * </ul>
+ */
+public class NotificationDispatcher implements Runnable {
+  /** Logger. */
+  private static Logger theirLogger = Logger.getLogger(NotificationDispatcher.class);
+
+  /** Time (ms) over which the rate limit applies. */
+  private static final long RATEPERIOD = 3600000;
+
+  /** Max number of emails waiting to be processed. */
+  private static int theirQueueSize = 1000;
+
+  /** Max number of times to retry sending a message. */
+  private static int theirRetries = 3;
+
+  /** Delay (ms) before the first retry. */
+  private static long theirRetryDelay = 30000;
+
+  /** Max number of messages to send to any one recipient per hour, or 0 for no limit. */
+  private static int theirRateLimit = 0;
+
+  /** Time (ms) to collect emails for a digest, or 0 to send each email immediately. */
+  private static long theirDigestWindow = 0;
+
+  /** Emails waiting to be processed. */
+  private static ArrayBlockingQueue<Email> theirQueue;
+
+  /** Number of emails which have been queued but not yet sent or failed. */
+  private static AtomicInteger theirNumPending = new AtomicInteger();
+
+  /** Number of emails sent. */
+  private static AtomicLong theirNumSent = new AtomicLong();
+
+  /** Number of emails which couldn't be sent. */
+  private static AtomicLong theirNumFailed = new AtomicLong();
+
+  /** Number of emails discarded because the queue was full. */
+  private static AtomicLong theirNumDropped = new AtomicLong();
+
+  /** Number of digest messages sent. */
+  private static AtomicLong theirNumDigests = new AtomicLong();
+
+  static {
+    try {
+      theirQueueSize = Integer.parseInt(MonitorConfig.getProperty("NotificationQueueSize", "" + theirQueueSize));
+      theirRetries = Integer.parseInt(MonitorConfig.getProperty("NotificationRetries", "" + theirRetries));
+      theirRetryDelay = 1000 * Long.parseLong(MonitorConfig.getProperty("NotificationRetryDelay", "" + theirRetryDelay / 1000));
+      theirRateLimit = Integer.parseInt(MonitorConfig.getProperty("NotificationRateLimit", "" + theirRateLimit));
+      theirDigestWindow = 1000 * Long.parseLong(MonitorConfig.getProperty("NotificationDigestWindow", "" + theirDigestWindow / 1000));
+    } catch (Exception e) {
+      theirLogger.error("Error parsing notification configuration parameters, using defaults: " + e);
+    }
+    theirQueue = new ArrayBlockingQueue<Email>(Math.max(1, theirQueueSize));
+    Thread t = new Thread(new NotificationDispatcher(), "NotificationDispatcher");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /** Messages which are waiting to be sent, keyed by recipient and sender. */
+  private HashMap<String, Message> itsMessages = new HashMap<String, Message>();
+
+  /** Times (ms) at which messages were recently sent to each recipient address. */
+  private HashMap<String, LinkedList<Long>> itsSendTimes = new HashMap<String, LinkedList<Long>>();
+
+  /**
+   * Queue an email to be sent.
+   *
+   * @param to
+   *          Whitespace separated list of recipient addresses.
+   * @param sender
+   *          The address of the sender, or an empty string for the default.
+   * @param subject
+   *          The subject line.
+   * @param body
+   *          The body text.
+   * @return False if the email was discarded because the queue is full.
+   */
+  public static boolean sendMail(String to, String sender, String subject, String body) {
+    theirNumPending.incrementAndGet();
+    if (!theirQueue.offer(new Email(to, sender, subject, body))) {
+      theirNumPending.decrementAndGet();
+      long dropped = theirNumDropped.incrementAndGet();
+      if (dropped == 1 || dropped % 100 == 0) {
+        theirLogger.error("Notification queue is full, " + dropped + " emails discarded so far");
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /** Return the number of emails which have been queued but not yet sent or failed. */
+  public static int getNumPending() {
+    return theirNumPending.get();
+  }
+
+  /** Return the number of emails which have been sent, including those sent as part of a digest. */
+  public static long getNumSent() {
+    return theirNumSent.get();
+  }
+
+  /** Return the number of emails which couldn't be sent. */
+  public static long getNumFailed() {
+    return theirNumFailed.get();
+  }
+
+  /** Return the number of emails discarded because the queue was full. */
+  public static long getNumDropped() {
+    return theirNumDropped.get();
+  }
+
+  /** Return the number of digest messages sent. */
+  public static long getNumDigests() {
+    return theirNumDigests.get();
+  }
+
+  public void run() {
+    while (true) {
+      try {
+        // Wait for new emails until the next message is due
+        long now = System.currentTimeMillis();
+        long wait = 1000;
+        Iterator<Message> i = itsMessages.values().iterator();
+        while (i.hasNext()) {
+          wait = Math.min(wait, i.next().itsDue - now);
+        }
+        Email email = theirQueue.poll(Math.max(0, wait), TimeUnit.MILLISECONDS);
+        while (email != null) {
+          addEmail(email);
+          email = theirQueue.poll();
+        }
+        sendDue();
+      } catch (Exception e) {
+        theirLogger.error("Unexpected error dispatching notifications: " + e);
+      }
+    }
+  }
+
+  /** Add the email to the message for its recipients. */
+  private void addEmail(Email email) {
+    String key = email.itsTo + "\n" + email.itsSender;
+    Message msg = itsMessages.get(key);
+    if (msg == null) {
+      msg = new Message(email.itsTo, email.itsSender, email.itsTime + theirDigestWindow);
+      itsMessages.put(key, msg);
+    }
+    msg.itsEmails.add(email);
+  }
+
+  /** Send all messages which are due and permitted by the rate limit. */
+  private void sendDue() {
+    long now = System.currentTimeMillis();
+    Iterator<Message> i = itsMessages.values().iterator();
+    while (i.hasNext()) {
+      Message msg = i.next();
+      if (msg.itsDue > now) {
+        continue;
+      }
+      long allowed = getAllowedTime(msg.itsTo, now);
+      if (allowed > now) {
+        // Hold the message back, further emails will be added to it
+        msg.itsDue = allowed;
+        continue;
+      }
+      int num = msg.itsEmails.size();
+      try {
+        if (num == 1) {
+          Email email = msg.itsEmails.get(0);
+          MailSender.trySendMail(msg.itsTo, msg.itsSender, email.itsSubject, email.itsBody);
+        } else {
+          MailSender.trySendMail(msg.itsTo, msg.itsSender, msg.getDigestSubject(), msg.getDigestBody());
+          theirNumDigests.incrementAndGet();
+        }
+        recordSend(msg.itsTo, now);
+        theirNumSent.addAndGet(num);
+        theirNumPending.addAndGet(-num);
+        i.remove();
+      } catch (Exception e) {
+        msg.itsAttempts++;
+        if (msg.itsAttempts > theirRetries) {
+          theirLogger.error("Giving up sending " + num + " notification(s) to " + msg.itsTo + ": " + e);
+          theirNumFailed.addAndGet(num);
+          theirNumPending.addAndGet(-num);
+          i.remove();
+        } else {
+          long delay = theirRetryDelay << (msg.itsAttempts - 1);
+          theirLogger.warn("Error sending notification to " + msg.itsTo + ", will retry in " + delay / 1000 + "s: " + e);
+          msg.itsDue = now + delay;
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the earliest time (ms) a message may be sent to the recipients without exceeding the rate limit for any of them.
+   *
+   * @param to
+   *          Whitespace separated list of recipient addresses.
+   */
+  private long getAllowedTime(String to, long now) {
+    long res = now;
+    if (theirRateLimit <= 0) {
+      return res;
+    }
+    String[] addresses = to.trim().split("\\s+");
+    for (int i = 0; i < addresses.length; i++) {
+      LinkedList<Long> times = itsSendTimes.get(addresses[i]);
+      if (times == null) {
+        continue;
+      }
+      while (!times.isEmpty() && times.getFirst().longValue() <= now - RATEPERIOD) {
+        times.removeFirst();
+      }
+      if (times.isEmpty()) {
+        itsSendTimes.remove(addresses[i]);
+      } else if (times.size() >= theirRateLimit) {
+        res = Math.max(res, times.getFirst().longValue() + RATEPERIOD);
+      }
+    }
+    return res;
+  }
+
+  /** Record that a message was sent to each of the recipients. */
+  private void recordSend(String to, long now) {
+    if (theirRateLimit <= 0) {
+      return;
+    }
+    String[] addresses = to.trim().split("\\s+");
+    for (int i = 0; i < addresses.length; i++) {
+      LinkedList<Long> times = itsSendTimes.get(addresses[i]);
+      if (times == null) {
+        times = new LinkedList<Long>();
+        itsSendTimes.put(addresses[i], times);
+      }
+      times.add(Long.valueOf(now));
+    }
+  }
+
+  /** An email which has been queued. */
+  private static class Email {
+    final String itsTo;
+    final String itsSender;
+    final String itsSubject;
+    final String itsBody;
+    final long itsTime = System.currentTimeMillis();
+
+    Email(String to, String sender, String subject, String body) {
+      itsTo = to;
+      itsSender = sender;
+      itsSubject = subject;
+      itsBody = body;
+    }
+  }
+
+  /** One or more emails to be sent to the same recipients in a single message. */
+  private static class Message {
+    final String itsTo;
+    final String itsSender;
+    final Vector<Email> itsEmails = new Vector<Email>();
+    /** Time (ms) at which the message should next be sent. */
+    long itsDue;
+    /** Number of failed attempts to send the message. */
+    int itsAttempts = 0;
+
+    Message(String to, String sender, long due) {
+      itsTo = to;
+      itsSender = sender;
+      itsDue = due;
+    }
+
+    String getDigestSubject() {
+      return itsEmails.size() + " notifications: " + itsEmails.get(0).itsSubject;
+    }
+
+    String getDigestBody() {
+      StringBuilder res = new StringBuilder();
+      for (int i = 0; i < itsEmails.size(); i++) {
+        Email email = itsEmails.get(i);
+        res.append("----- " + AbsTime.factory(new java.util.Date(email.itsTime)).toString(AbsTime.Format.UTC_STRING) + " UTC: "
+            + email.itsSubject + "\n\n");
+        res.append(email.itsBody);
+        res.append("\n\n");
+      }
+      return res.toString();
+    }
+  }
+}
@@ -7,6 +7,10 @@
 
 package atnf.atoms.mon.translation;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.apache.log4j.Logger;
 
 import atnf.atoms.mon.PointData;
@@ -56,4 +60,25 @@ public abstract class Translation {
 
   /** Override this method to perform work. */
   public abstract PointData translate(PointData data);
+
+  /**
+   * Called when the parent point is removed from the system. Sub-classes which listen to other points or hold other resources should
+   * override this to release them.
+   */
+  public void stop() {
+  }
+
+  /**
+   * Write any internal state which should be preserved when the server is restarted. Sub-classes which accumulate state from past
+   * updates should override this and <i>restoreState</i>.
+   * 
+   * @return True if state was written, False if there is none.
+   */
+  public boolean saveState(DataOutput out) throws IOException {
+    return false;
+  }
+
+  /** Restore the internal state written by <i>saveState</i> before the server was restarted. */
+  public void restoreState(DataInput in) throws IOException {
+  }
 }
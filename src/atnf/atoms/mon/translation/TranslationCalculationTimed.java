@@ -115,6 +115,11 @@ public class TranslationCalculationTimed extends TranslationCalculation {
   /** Called when timer expires. */
   private class CalcTask extends TimerTask {
     public void run() {
+      if (itsParent.isRemoved()) {
+        // The point has been removed from the system
+        cancel();
+        return;
+      }
       // It's time to perform the calculation and fire an update of the point
       Object resval = doCalculations();
       PointData res = new PointData(itsParent.getFullName(), new AbsTime(), resval);
@@ -89,6 +89,11 @@ public class TranslationCronPulse extends Translation {
   /** Called when timer expires. */
   private class PeriodicTickTask extends TimerTask {
     public void run() {
+      if (itsParent.isRemoved()) {
+        // The point has been removed from the system
+        cancel();
+        return;
+      }
       Boolean val;
 
       // Check if it is time for the pulse
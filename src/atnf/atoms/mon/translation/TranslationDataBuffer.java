@@ -1,5 +1,8 @@
 package atnf.atoms.mon.translation;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Vector;
 
 import atnf.atoms.mon.*;
@@ -14,7 +17,8 @@ import atnf.atoms.time.*;
  * 
  * <P>
  * There is a utility method <tt>seedBufferFromArchive()</tt> which sub-classes may choose to call on construction, where
- * appropriate.
+ * appropriate. The buffer is saved in the server's state snapshot, and if the buffer will be restored from the snapshot only the data
+ * archived since the snapshot was saved are fetched.
  * 
  * @author David Brodrick
  */
@@ -59,6 +63,11 @@ public abstract class TranslationDataBuffer extends Translation {
   protected void seedBufferFromArchive() {
     AbsTime now = new AbsTime();
     AbsTime start = now.add(itsPeriod);
+    AbsTime saved = StateSnapshot.getTranslationStateTime(itsParent, getClass().getName(), itsInit);
+    if (saved != null && saved.isAfter(start)) {
+      // The buffer will be restored from the snapshot, so only the data since it was saved are needed
+      start = saved;
+    }
     Vector<PointData> arcdata = PointBuffer.getPointData(itsParent, start, now);
     if (arcdata != null && !arcdata.isEmpty()) {
       theirLogger.info("TranslationDataBuffer: " + itsParent.getFullName() + ": Seeding buffer with " + arcdata.size() + " points from archive");
@@ -67,4 +76,38 @@ public abstract class TranslationDataBuffer extends Translation {
       }
     }
   }
+
+  /** Save the buffered data. */
+  public boolean saveState(DataOutput out) throws IOException {
+    Vector<PointData> buffer = new Vector<PointData>(itsBuffer);
+    out.writeInt(buffer.size());
+    for (int i = 0; i < buffer.size(); i++) {
+      StateSnapshot.writePointData(out, buffer.get(i));
+    }
+    return true;
+  }
+
+  /**
+   * Restore the buffered data, discarding any which has expired since it was saved. Any data which were seeded from the archive since
+   * the snapshot was saved are kept after the restored data.
+   */
+  public void restoreState(DataInput in) throws IOException {
+    Vector<PointData> buffer = new Vector<PointData>();
+    int num = in.readInt();
+    for (int i = 0; i < num; i++) {
+      buffer.add(StateSnapshot.readPointData(in, itsParent.getFullName()));
+    }
+    synchronized (itsParent) {
+      Vector<PointData> seeded = new Vector<PointData>(itsBuffer);
+      itsBuffer.clear();
+      for (int i = 0; i < buffer.size(); i++) {
+        updateBuffer(buffer.get(i));
+      }
+      for (int i = 0; i < seeded.size(); i++) {
+        if (itsBuffer.isEmpty() || seeded.get(i).getTimestamp().isAfter(itsBuffer.lastElement().getTimestamp())) {
+          updateBuffer(seeded.get(i));
+        }
+      }
+    }
+  }
 }
\ No newline at end of file
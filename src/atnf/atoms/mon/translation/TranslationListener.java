@@ -64,6 +64,9 @@ public abstract class TranslationListener extends Translation implements PointLi
   /** Timer used to subscribe to listened-to points. */
   protected static Timer theirTimer = new Timer();
 
+  /** The task which subscribes us to the points, until all have been found. */
+  private SubscriptionTask itsSubscriptionTask = new SubscriptionTask();
+
   /** Base-class constructor. */
   public TranslationListener(PointDescription parent, String[] init) {
     super(parent, init);
@@ -93,7 +96,22 @@ public abstract class TranslationListener extends Translation implements PointLi
     }
 
     // Start the timer which subscribes us to updates from the points
-    theirTimer.schedule(new SubscriptionTask(), 500, 500);
+    theirTimer.schedule(itsSubscriptionTask, 500, 500);
+  }
+
+  /** Unsubscribe from the points we are listening to. */
+  public void stop() {
+    itsSubscriptionTask.cancel();
+    for (int i = 0; i < itsNumPoints; i++) {
+      if (itsPoints[i] != null) {
+        itsPoints[i].removePointListener(this);
+      }
+      // The point may have been replaced since we subscribed to it
+      PointDescription current = PointDescription.getPoint(itsNames[i]);
+      if (current != null) {
+        current.removePointListener(this);
+      }
+    }
   }
 
   /** Just returns the input (which is created by us) */
@@ -161,19 +179,38 @@ public abstract class TranslationListener extends Translation implements PointLi
 
     // Check whether now is an appropriate time to recalculate output
     if (matchData()) {
-      // Recalculate output and fire update event
-      Object resval = doCalculations();
-      AbsTime ts;
-      if (itsNumPoints==1) {
-    	  // Only listening to a single point so preserve the timestamp
-    	  ts = pd.getTimestamp();
-      } else {
-    	  // Mutliple points, therefore original timestamp is not clearly defined
-    	  ts = new AbsTime();
-      }
-      PointData res = new PointData(itsParent.getFullName(), ts, resval);
-      itsParent.firePointEvent(new PointEvent(this, res, true));
+      recalculate(pd);
+    }
+  }
+
+  /**
+   * Recalculate the output and fire an update event. Sub-classes which
+   * calculate the output asynchronously can override this and call
+   * <i>fireOutput</i> once the result is available.
+   * 
+   * @param trigger The update which triggered the recalculation.
+   */
+  protected void recalculate(PointData trigger) {
+    fireOutput(doCalculations(), getOutputTimestamp(trigger));
+  }
+
+  /** Get the timestamp for an output value triggered by the given update. */
+  protected AbsTime getOutputTimestamp(PointData trigger) {
+    AbsTime ts;
+    if (itsNumPoints==1) {
+      // Only listening to a single point so preserve the timestamp
+      ts = trigger.getTimestamp();
+    } else {
+      // Mutliple points, therefore original timestamp is not clearly defined
+      ts = new AbsTime();
     }
+    return ts;
+  }
+
+  /** Fire an update event with the given output value. */
+  protected void fireOutput(Object resval, AbsTime ts) {
+    PointData res = new PointData(itsParent.getFullName(), ts, resval);
+    itsParent.firePointEvent(new PointEvent(this, res, true));
   }
 
   /** TimerTask used to subscribe to monitor point updates via timer. */
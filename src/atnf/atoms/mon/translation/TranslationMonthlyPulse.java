@@ -107,6 +107,11 @@ public class TranslationMonthlyPulse extends Translation {
   /** Called when timer expires. */
   private class PeriodicTickTask extends TimerTask {
     public void run() {
+      if (itsParent.isRemoved()) {
+        // The point has been removed from the system
+        cancel();
+        return;
+      }
       Boolean val;
 
       // Check if it is time for the pulse
@@ -4,28 +4,47 @@ import org.apache.log4j.Logger;
 
 import atnf.atoms.mon.PointData;
 import atnf.atoms.mon.PointDescription;
-import java.io.*;
+import atnf.atoms.mon.util.CommandExecutor;
+import atnf.atoms.time.AbsTime;
 
 /**
  * Translation class to run an external command and retrieve the output.
  * 
  * <P>
  * Arguments include: "command to execute", "parameters to send to that command"
+ * and optionally "timeout in seconds", after which the command is killed. The
+ * default timeout is given by the <tt>CommandTimeout</tt> configuration option.
  * 
  * <P>
+ * Commands are run in the background by the CommandExecutor, and the output is
+ * fired as a new update of the point once the command completes. Only one run
+ * of the command is in progress at a time: if the inputs update while it is
+ * running, the command is run again with the latest values once it completes.
+ * If the command times out the point is updated with a null value.
  * 
- * <P>
  * 
  * @author Balt Indermuehle
  */
 public class TranslationRunCmd extends TranslationListener {
   protected static String[] itsArgs = new String[] { "RunCmd", "Listens to two other points", "NumPoints", "Integer", "MonitorPoint 1", "String",
-      "MonitorPoint N", "String", "Command", "String", "Params", "String" };
+      "MonitorPoint N", "String", "Command", "String", "Params", "String", "Timeout", "Integer" };
       
   /** The expression in String form. */
   protected String itsCommand;
   protected String itsParams = null;
 
+  /** Time (ms) after which the command is killed, or 0 for the default. */
+  protected long itsTimeout = 0;
+
+  /** Whether a run of the command is in progress. */
+  protected boolean itsRunning = false;
+
+  /** Parameters for the next run, if one was requested while a run was in progress. */
+  protected String itsPendingParams = null;
+
+  /** Timestamp for the output of the next run. */
+  protected AbsTime itsPendingTime = null;
+
   /** Logger. */
   protected static Logger theirLogger = Logger.getLogger(TranslationRunCmd.class.getName());
 
@@ -49,6 +68,9 @@ public class TranslationRunCmd extends TranslationListener {
           itsParams = init[itsNumPoints + 2];
           //theirLogger.info(itsParent.getFullName() + ": itsParams=" + itsParams);              
         }        
+        if ( init.length > itsNumPoints + 3 ) {
+          itsTimeout = (long) (1000 * Double.parseDouble(init[itsNumPoints + 3]));
+        }
       }
     
     } catch ( Exception err ) {
@@ -56,54 +78,103 @@ public class TranslationRunCmd extends TranslationListener {
     }
   }
 
+  /**
+   * Run the command in the background. If the previous run is still in
+   * progress the new run is started once it completes, and if there are
+   * further updates in the meantime only the latest is run.
+   */
+  protected synchronized void recalculate(PointData trigger) {
+    String params = getParams();
+    AbsTime ts = getOutputTimestamp(trigger);
+    if (itsRunning) {
+      if (itsPendingParams != null) {
+        CommandExecutor.countCoalesced();
+      }
+      itsPendingParams = params;
+      itsPendingTime = ts;
+    } else {
+      itsRunning = true;
+      CommandExecutor.submit(new RunTask(params, ts));
+    }
+  }
+
+  /** Run the command and wait for the output. */
   protected String doCalculations() {
-    //theirLogger.info(itsParent.getFullName() + ": RunCmd doCalculations called. Attempting to execute '" + itsCommand + " " + itsParams + "'");
+    return runCommand(getParams());
+  }
+
+  /** Substitute the current input values into the parameters. */
+  protected String getParams() {
+    String params = "";
+    if ( itsParams != null && itsParams.length() > 0 ) {
+      params = itsParams;
+      for (int i = 0; i < itsNumPoints; i++) {
+        // Update the value for this variable
+        String thisvar = "" + ((char) (('a') + i));
+        Object thisval = itsValues[i].getData();
+        String replace = "\\\u0024" + thisvar;
+        
+        //theirLogger.info(itsParent.getFullName() + ": replaceAll - thisvar=" + thisvar + " thisval=" + thisval + " replace=" + replace);                        
+        params = params.replaceAll(replace, "" + thisval);
+        itsValues[i] = null;    
+      }
+    }
+    return params;
+  }
+
+  /** Run the command with the given parameters and return the output, or null if it timed out. */
+  protected String runCommand(String params) {
+    //theirLogger.info(itsParent.getFullName() + ": RunCmd doCalculations called. Attempting to execute '" + itsCommand + " " + params + "'");
     String stdin = "";
     String stderr = "";
-    String temp;
-    String params = "";
     
     try {
-      if ( itsParams != null && itsParams != "" ) {      
-        params = itsParams;
-        for (int i = 0; i < itsNumPoints; i++) {
-          // Update the value for this variable
-          String thisvar = "" + ((char) (('a') + i));
-          Object thisval = itsValues[i].getData();
-          String replace = "\\\u0024" + thisvar;
-          
-          //theirLogger.info(itsParent.getFullName() + ": replaceAll - thisvar=" + thisvar + " thisval=" + thisval + " replace=" + replace);                        
-          params = params.replaceAll(replace, "" + thisval);
-          itsValues[i] = null;    
-        }
-      }
       //theirLogger.info(itsParent.getFullName() + ": " + itsCommand + " " + params);
-      Process p = Runtime.getRuntime().exec(itsCommand + " " + params);
-      BufferedReader bri = new BufferedReader (new InputStreamReader(p.getInputStream()));
-      BufferedReader bre = new BufferedReader (new InputStreamReader(p.getErrorStream()));
-      while ((temp = bri.readLine()) != null) {
-        stdin = stdin + temp;
-      }
-      bri.close();
-      while ((temp = bre.readLine()) != null) {
-        stderr = stderr + temp;
+      CommandExecutor.Result res = CommandExecutor.run(itsCommand + " " + params, itsTimeout);
+      if (res.isTimedOut()) {
+        theirLogger.warn(itsParent.getFullName() + ": Killed " + itsCommand + " after " + res.getDuration() / 1000.0 + " seconds");
+        return null;
       }
-      bre.close();
-      p.waitFor();
-      p.getOutputStream().close();
-      p.getInputStream().close();
-      p.getErrorStream().close();
-      p.destroy();    
-      //System.out.println("Done.");
+      stdin = res.getOutput();
+      stderr = res.getError();
     }
     catch (Exception err) {
       theirLogger.error(itsParent.getFullName() + ": Error '" + err + "' caught while attempting to run " + itsCommand);
     }
     // Check for error output in the return.
-    if (stderr != "") {
+    if (!stderr.equals("")) {
       theirLogger.warn(itsParent.getFullName() + ":Error " + stderr + "occurred. Command: " + itsCommand + " Params: " + itsParams);
     }
     //theirLogger.info(itsParent.getFullName() + ": RunCmd doCalculations called. '" + itsCommand + " " + params + "' returned " + stdin);
     return stdin;
   }
+
+  /** Runs the command in the CommandExecutor and fires the output. */
+  private class RunTask implements Runnable {
+    private String itsRunParams;
+    private AbsTime itsTime;
+
+    RunTask(String params, AbsTime ts) {
+      itsRunParams = params;
+      itsTime = ts;
+    }
+
+    public void run() {
+      try {
+        fireOutput(runCommand(itsRunParams), itsTime);
+      } catch (Exception e) {
+        theirLogger.error(itsParent.getFullName() + ": Error '" + e + "' caught while processing output of " + itsCommand);
+      }
+      synchronized (TranslationRunCmd.this) {
+        if (itsPendingParams != null) {
+          // Start the run requested while we were busy
+          CommandExecutor.submit(new RunTask(itsPendingParams, itsPendingTime));
+          itsPendingParams = null;
+          itsPendingTime = null;
+        } else {
+          itsRunning = false;
+        }
+      }
+    }
+  }
 }
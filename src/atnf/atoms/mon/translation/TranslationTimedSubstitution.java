@@ -55,6 +55,11 @@ public class TranslationTimedSubstitution extends Translation {
   /** Called when timer expires. */
   private class UpdateTask extends TimerTask {
     public void run() {
+      if (itsParent.isRemoved()) {
+        // The point has been removed from the system
+        cancel();
+        return;
+      }
       // It's time to perform the calculation and fire an update of the point
       Object resval = MonitorUtils.doSubstitutions(itsTemplate, itsLastValue, itsParent);
       itsLastValue = new PointData(itsParent.getFullName(), new AbsTime(), resval);
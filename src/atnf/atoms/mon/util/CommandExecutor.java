@@ -0,0 +1,256 @@
+//
+// Copyright (C) CSIRO Australia Telescope National Facility
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Library General Public License
+// as published by the Free Software Foundation; either version 2
+// of the License, or (at your option) any later version.
+
+package atnf.atoms.mon.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Runs external commands on behalf of the server, so that they don't tie up the threads which deliver data. Tasks submitted with
+ * <tt>submit</tt> are run by a pool of <tt>CommandMaxProcesses</tt> threads, which limits how many commands can run at once.
+ * Commands started with <tt>run</tt> are killed if they don't complete within their timeout.
+ */
+public class CommandExecutor {
+  /** Logger. */
+  private static Logger theirLogger = Logger.getLogger(CommandExecutor.class);
+
+  /** Max number of commands which may run at once. */
+  private static int theirMaxProcesses = 4;
+
+  /** Default time (ms) after which commands are killed. */
+  private static long theirDefaultTimeout = 60000;
+
+  /** Threads which run the commands. */
+  private static ExecutorService theirPool;
+
+  /** Threads which read the output of running commands. */
+  private static ExecutorService theirStreamPool;
+
+  /** Number of commands currently running. */
+  private static AtomicInteger theirNumActive = new AtomicInteger();
+
+  /** Number of commands which have been run. */
+  private static AtomicLong theirNumRuns = new AtomicLong();
+
+  /** Number of commands which were killed because they exceeded their timeout. */
+  private static AtomicLong theirNumTimeouts = new AtomicLong();
+
+  /** Number of commands which couldn't be started. */
+  private static AtomicLong theirNumFailures = new AtomicLong();
+
+  /** Total time (ms) taken by all commands. */
+  private static AtomicLong theirTotalTime = new AtomicLong();
+
+  /** Number of runs which were skipped because a newer run was requested before they started. */
+  private static AtomicLong theirNumCoalesced = new AtomicLong();
+
+  static {
+    try {
+      theirMaxProcesses = Integer.parseInt(MonitorConfig.getProperty("CommandMaxProcesses", "" + theirMaxProcesses));
+      theirDefaultTimeout = 1000 * Long.parseLong(MonitorConfig.getProperty("CommandTimeout", "" + theirDefaultTimeout / 1000));
+    } catch (Exception e) {
+      theirLogger.error("Error parsing command configuration parameters, using defaults: " + e);
+    }
+    theirPool = Executors.newFixedThreadPool(Math.max(1, theirMaxProcesses), new DaemonThreadFactory("CommandExecutor"));
+    theirStreamPool = Executors.newCachedThreadPool(new DaemonThreadFactory("CommandExecutor output"));
+  }
+
+  /** Submit a task which will run one or more commands. */
+  public static void submit(Runnable task) {
+    theirPool.execute(task);
+  }
+
+  /** Get the default time (ms) after which commands are killed. */
+  public static long getDefaultTimeout() {
+    return theirDefaultTimeout;
+  }
+
+  /**
+   * Run the command and wait for it to finish. This should only be called by a task which was submitted to the executor.
+   *
+   * @param command
+   *          The command line to execute.
+   * @param timeout
+   *          Time (ms) after which the command is killed, or 0 to use the default timeout.
+   * @return The result of running the command.
+   * @throws IOException
+   *           If the command couldn't be started.
+   */
+  public static Result run(String command, long timeout) throws IOException {
+    if (timeout <= 0) {
+      timeout = theirDefaultTimeout;
+    }
+    Process p;
+    try {
+      p = Runtime.getRuntime().exec(command);
+    } catch (IOException e) {
+      theirNumFailures.incrementAndGet();
+      throw e;
+    }
+    theirNumActive.incrementAndGet();
+    long start = System.currentTimeMillis();
+    long deadline = start + timeout;
+    Result res = new Result();
+    // Read the output in other threads, so that we can give up on a command which keeps them open
+    Future<String> stdout = theirStreamPool.submit(new StreamReader(p.getInputStream()));
+    Future<String> stderr = theirStreamPool.submit(new StreamReader(p.getErrorStream()));
+    try {
+      p.getOutputStream().close();
+      res.itsOutput = stdout.get(timeout, TimeUnit.MILLISECONDS);
+      res.itsError = stderr.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      while (true) {
+        try {
+          res.itsExitValue = p.exitValue();
+          break;
+        } catch (IllegalThreadStateException e) {
+          if (System.currentTimeMillis() >= deadline) {
+            throw new TimeoutException();
+          }
+          Thread.sleep(10);
+        }
+      }
+    } catch (TimeoutException e) {
+      res.itsTimedOut = true;
+    } catch (Exception e) {
+      theirLogger.warn("Error running " + command + ": " + e);
+    } finally {
+      p.destroy();
+      stdout.cancel(true);
+      stderr.cancel(true);
+      res.itsDuration = System.currentTimeMillis() - start;
+      theirNumActive.decrementAndGet();
+      theirNumRuns.incrementAndGet();
+      theirTotalTime.addAndGet(res.itsDuration);
+      if (res.itsTimedOut) {
+        theirNumTimeouts.incrementAndGet();
+      }
+    }
+    return res;
+  }
+
+  /** Record that a requested run was superseded by a newer request before it started. */
+  public static void countCoalesced() {
+    theirNumCoalesced.incrementAndGet();
+  }
+
+  /** Get the number of commands currently running. */
+  public static int getNumActive() {
+    return theirNumActive.get();
+  }
+
+  /** Get the number of commands which have been run. */
+  public static long getNumRuns() {
+    return theirNumRuns.get();
+  }
+
+  /** Get the number of commands which were killed because they exceeded their timeout. */
+  public static long getNumTimeouts() {
+    return theirNumTimeouts.get();
+  }
+
+  /** Get the number of commands which couldn't be started. */
+  public static long getNumFailures() {
+    return theirNumFailures.get();
+  }
+
+  /** Get the total time (ms) taken by all commands. */
+  public static long getTotalTime() {
+    return theirTotalTime.get();
+  }
+
+  /** Get the number of runs which were superseded before they started. */
+  public static long getNumCoalesced() {
+    return theirNumCoalesced.get();
+  }
+
+  /** The outcome of running a command. */
+  public static class Result {
+    private String itsOutput = "";
+    private String itsError = "";
+    private int itsExitValue = -1;
+    private boolean itsTimedOut = false;
+    private long itsDuration;
+
+    /** Get the standard output of the command, with the lines concatenated. */
+    public String getOutput() {
+      return itsOutput;
+    }
+
+    /** Get the error output of the command, with the lines concatenated. */
+    public String getError() {
+      return itsError;
+    }
+
+    /** Get the exit value of the command, or -1 if it could not be determined. */
+    public int getExitValue() {
+      return itsExitValue;
+    }
+
+    /** Check if the command was killed because it exceeded its timeout. */
+    public boolean isTimedOut() {
+      return itsTimedOut;
+    }
+
+    /** Get the time (ms) the command ran for. */
+    public long getDuration() {
+      return itsDuration;
+    }
+  }
+
+  /** Reads a stream to the end, concatenating the lines. */
+  private static class StreamReader implements java.util.concurrent.Callable<String> {
+    private InputStream itsStream;
+
+    StreamReader(InputStream stream) {
+      itsStream = stream;
+    }
+
+    public String call() throws IOException {
+      StringBuilder res = new StringBuilder();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(itsStream));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          res.append(line);
+        }
+      } finally {
+        reader.close();
+      }
+      return res.toString();
+    }
+  }
+
+  /** Creates named daemon threads. */
+  private static class DaemonThreadFactory implements ThreadFactory {
+    private String itsName;
+    private AtomicInteger itsCount = new AtomicInteger();
+
+    DaemonThreadFactory(String name) {
+      itsName = name;
+    }
+
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, itsName + " " + itsCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
@@ -41,6 +41,11 @@ public class MailSender {
       if (temp != null && temp.toLowerCase().equals("true")) {
         properties.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
       }
+      // JavaMail waits forever by default, which would stall the notification thread if the server stops responding
+      String timeout = "" + 1000 * Integer.parseInt(MonitorConfig.getProperty("SMTPTimeout", "60").trim());
+      properties.put("mail.smtp.connectiontimeout", timeout);
+      properties.put("mail.smtp.timeout", timeout);
+      properties.put("mail.smtp.writetimeout", timeout);
     } catch (Exception e) {
     }
   }
@@ -62,10 +67,26 @@ public class MailSender {
 
   /** Send an email with the specified recipient, sender, subject and body. */
   public static void sendMail(String to, String sender, String subject, String body) {
+    try {
+      trySendMail(to, sender, subject, body);
+    } catch (MessagingException ex) {
+      theirLogger.error("Cannot send email: " + ex);
+    }
+  }
+
+  /**
+   * Send an email with the specified recipient, sender, subject and body, throwing an exception if it could not be sent.
+   * 
+   * @param to
+   *          Whitespace separated list of recipient addresses.
+   * @param sender
+   *          The address of the sender, or an empty string to use the local address.
+   */
+  public static void trySendMail(String to, String sender, String subject, String body) throws MessagingException {
     MimeMessage message = new MimeMessage(theirSession);
     InternetAddress from = new InternetAddress();
     try {
-      if (sender == "") {
+      if (sender == null || sender.length() == 0) {
         from = InternetAddress.getLocalAddress(theirSession);
       } else {
         from = new InternetAddress(sender);
@@ -74,20 +95,16 @@ public class MailSender {
       theirLogger.error("AddressException occurred: " + ex);
     }
 
-    try {
-      String[] strAddresses = to.split("\\s+");
-      InternetAddress[] iaAddresses = new InternetAddress[strAddresses.length];
-      for (int i = 0; i < strAddresses.length; i++) {
-        iaAddresses[i] = new InternetAddress(strAddresses[i]);
-      }
-      message.addRecipients(Message.RecipientType.TO, iaAddresses);
-      message.setSubject(subject);
-      message.setText(body);
-      message.setFrom(from);
-      Transport.send(message);
-    } catch (MessagingException ex) {
-      theirLogger.error("Cannot send email: " + ex);
+    String[] strAddresses = to.trim().split("\\s+");
+    InternetAddress[] iaAddresses = new InternetAddress[strAddresses.length];
+    for (int i = 0; i < strAddresses.length; i++) {
+      iaAddresses[i] = new InternetAddress(strAddresses[i]);
     }
+    message.addRecipients(Message.RecipientType.TO, iaAddresses);
+    message.setSubject(subject);
+    message.setText(body);
+    message.setFrom(from);
+    Transport.send(message);
   }
 
   /** Test method. */
@@ -34,7 +34,6 @@ import atnf.atoms.time.RelTime;
  * Contains static methods that may be useful.
  */
 public abstract class MonitorUtils {
-  private static Hashtable<String, String> theirMacros = new Hashtable<String, String>();
 
   public static String[] toStringArray(Object[] data) {
     String[] res = new String[data.length];
@@ -184,8 +183,22 @@ public abstract class MonitorUtils {
     return res.toString();
   }
 
-  /** Reads and parses a file */
+  /** Reads and parses a file, without any macros defined. */
   public static String[] parseFile(Reader reader) {
+    return parseFile(reader, new Hashtable<String, String>());
+  }
+
+  /**
+   * Reads and parses a file. Macros defined with <tt>!define</tt> apply to the rest of the file and are added to the table, so that
+   * the files of a set which are parsed with the same table can use the macros defined in the earlier ones.
+   *
+   * @param reader
+   *          The file to parse.
+   * @param macros
+   *          The macros defined so far, which receives any the file defines.
+   * @return The lines with the macros expanded, or null if the file couldn't be read.
+   */
+  public static String[] parseFile(Reader reader, Hashtable<String, String> macros) {
     ArrayList<String> result = new ArrayList<String>();
     try {
       LineNumberReader lnr = new LineNumberReader(reader);
@@ -224,15 +237,15 @@ public abstract class MonitorUtils {
 
         // Commands
         if (line.startsWith("!")) {
-          parseCommand(line);
+          parseCommand(line, macros);
         } else {
-          if (theirMacros.size() < 1) {
+          if (macros.size() < 1) {
             result.add(line);
           } else {
-            Enumeration<String> keys = theirMacros.keys();
+            Enumeration<String> keys = macros.keys();
             while (keys.hasMoreElements()) {
               String key = (String) keys.nextElement();
-              line = MonitorUtils.replaceTok(line, (String) theirMacros.get(key), key);
+              line = MonitorUtils.replaceTok(line, (String) macros.get(key), key);
             }
             result.add(line);
           }
@@ -257,14 +270,14 @@ public abstract class MonitorUtils {
     return null;
   }
 
-  protected static void parseCommand(String line) {
+  protected static void parseCommand(String line, Hashtable<String, String> macros) {
     StringTokenizer tok = new StringTokenizer(line);
     String command = tok.nextToken().trim();
     if (command.equalsIgnoreCase("!define")) {
       String macro = tok.nextToken().trim();
       if (tok.nextToken().trim().equals("=")) {
         String replacement = line.substring(line.indexOf("=") + 1).trim();
-        theirMacros.put(macro, replacement);
+        macros.put(macro, replacement);
       }
     }
   }